@@ -1,6 +1,8 @@
 package com.dbforge.dbforge.config;
 
 import com.dbforge.dbforge.service.ApiTokenService;
+import com.dbforge.dbforge.service.MetricsService;
+import com.dbforge.dbforge.service.TracingService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -29,6 +31,8 @@ public class ApiKeyFilter extends OncePerRequestFilter {
     
     private final ApiTokenService apiTokenService;
     private final ObjectMapper objectMapper;
+    private final MetricsService metricsService;
+    private final TracingService tracingService;
     
     @Override
     protected void doFilterInternal(
@@ -44,7 +48,9 @@ public class ApiKeyFilter extends OncePerRequestFilter {
                 String token = authHeader.substring(BEARER_PREFIX.length());
                 
                 // Try to validate as API token
-                Optional<Long> userIdOpt = apiTokenService.validateToken(token);
+                long start = System.nanoTime();
+                Optional<Long> userIdOpt = tracingService.trace("auth.api-token", () -> apiTokenService.validateToken(token));
+                metricsService.recordTokenValidation("api-token", System.nanoTime() - start, userIdOpt.isPresent());
                 
                 if (userIdOpt.isPresent()) {
                     Long userId = userIdOpt.get();
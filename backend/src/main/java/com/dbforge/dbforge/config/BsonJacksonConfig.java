@@ -0,0 +1,47 @@
+package com.dbforge.dbforge.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.bson.BsonDocument;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Lets query results carry BSON documents as rows. A {@link org.bson.RawBsonDocument} is written
+ * straight from its bytes as relaxed extended JSON, so numbers stay numbers, nested documents
+ * and arrays stay structured, and ObjectIds/dates come out as {@code {"$oid": ...}} and
+ * {@code {"$date": ...}} instead of their Java toString.
+ */
+@Configuration
+public class BsonJacksonConfig {
+
+    private static final JsonWriterSettings RELAXED = JsonWriterSettings.builder()
+            .outputMode(JsonMode.RELAXED)
+            .build();
+
+    @Bean
+    public Module bsonModule() {
+        SimpleModule module = new SimpleModule("bson");
+        module.addSerializer(BsonDocument.class, new BsonDocumentSerializer());
+        return module;
+    }
+
+    private static class BsonDocumentSerializer extends StdSerializer<BsonDocument> {
+
+        BsonDocumentSerializer() {
+            super(BsonDocument.class);
+        }
+
+        @Override
+        public void serialize(BsonDocument document, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeRawValue(document.toJson(RELAXED));
+        }
+    }
+}
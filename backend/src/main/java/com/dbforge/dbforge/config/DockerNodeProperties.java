@@ -0,0 +1,35 @@
+package com.dbforge.dbforge.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Docker daemons containers can be placed on ({@code docker.nodes[i].*}). When no nodes are
+ * configured, the single daemon at {@code docker.host} is used as node "local".
+ */
+@Configuration
+@ConfigurationProperties(prefix = "docker")
+@Data
+public class DockerNodeProperties {
+
+    private List<Node> nodes = new ArrayList<>();
+
+    @Data
+    public static class Node {
+        private String name;
+        // Docker API endpoint, e.g. tcp://10.0.0.2:2375 or unix:///var/run/docker.sock
+        private String host;
+        // Address the backend uses to reach published ports on this node
+        private String address = "localhost";
+        // Address handed out to users in connection strings; defaults to app.database.host
+        private String publicHost;
+        // Schedulable capacity, e.g. "16g" and 8; left empty, the daemon's totals are used
+        private String memory;
+        private Double cpus;
+        private boolean enabled = true;
+    }
+}
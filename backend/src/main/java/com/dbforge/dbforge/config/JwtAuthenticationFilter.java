@@ -1,5 +1,7 @@
 package com.dbforge.dbforge.config;
 
+import com.dbforge.dbforge.service.MetricsService;
+import com.dbforge.dbforge.service.TracingService;
 import com.dbforge.dbforge.util.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -21,6 +23,8 @@ import java.util.ArrayList;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final MetricsService metricsService;
+    private final TracingService tracingService;
 
     @Override
     protected void doFilterInternal(
@@ -35,7 +39,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
             
             try {
-                if (jwtUtil.validateToken(token)) {
+                long start = System.nanoTime();
+                boolean valid = tracingService.trace("auth.jwt", () -> jwtUtil.validateToken(token));
+                metricsService.recordTokenValidation("jwt", System.nanoTime() - start, valid);
+                if (valid) {
                     Long userId = jwtUtil.extractUserId(token);
                     String email = jwtUtil.extractEmail(token);
                     
@@ -1,5 +1,6 @@
 package com.dbforge.dbforge.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,6 +11,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.expression.WebExpressionAuthorizationManager;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -41,6 +43,13 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Completion of streamed responses (exports); the original request was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                // Served on the management port, which listens on management.server.address (loopback by default)
+                .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
+                // Spans of every tenant's requests: only from the host itself, even when MANAGEMENT_ADDRESS opens the port to a scraper
+                .requestMatchers("/actuator/traces/**").access(new WebExpressionAuthorizationManager(
+                    "hasIpAddress('127.0.0.0/8') or hasIpAddress('::1')"))
                 .requestMatchers("/api/auth/**", "/api/health/**", "/api/public/**", "/api/database-types", "/api/databases/types", "/api/webhook/**", "/api/payments/webhook", "/health").permitAll()
                 .anyRequest().authenticated()
             )
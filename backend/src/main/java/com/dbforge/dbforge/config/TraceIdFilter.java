@@ -0,0 +1,43 @@
+package com.dbforge.dbforge.config;
+
+import com.dbforge.dbforge.service.TracingService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Returns the request's trace id in an {@code X-Trace-Id} header, so a response (or a support
+ * report quoting it) can be matched to its spans and log lines. Runs right after the filter
+ * that starts the server span.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@RequiredArgsConstructor
+public class TraceIdFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final TracingService tracingService;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String traceId = tracingService.currentTraceId();
+        if (traceId != null) {
+            response.setHeader(TRACE_ID_HEADER, traceId);
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,37 @@
+package com.dbforge.dbforge.config;
+
+import com.dbforge.dbforge.service.TraceStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Recent traces from the in-memory span store on the management port: /actuator/traces lists
+ * them newest first (optionally only those taking at least minDurationMs), and
+ * /actuator/traces/{traceId} returns the spans of one.
+ */
+@Component
+@Endpoint(id = "traces")
+@RequiredArgsConstructor
+public class TracesEndpoint {
+
+    private static final int DEFAULT_LIMIT = 100;
+
+    private final TraceStore traceStore;
+
+    @ReadOperation
+    public List<TraceStore.TraceSummary> traces(@Nullable Long minDurationMs, @Nullable Integer limit) {
+        long minDurationMicros = minDurationMs != null ? minDurationMs * 1000 : 0;
+        return traceStore.recentTraces(minDurationMicros, limit != null && limit > 0 ? limit : DEFAULT_LIMIT);
+    }
+
+    @ReadOperation
+    public List<TraceStore.RecordedSpan> trace(@Selector String traceId) {
+        return traceStore.trace(traceId);
+    }
+}
@@ -0,0 +1,50 @@
+package com.dbforge.dbforge.config;
+
+import com.dbforge.dbforge.service.TracingService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+/**
+ * Spans around Spring Data repository calls (named e.g. {@code UserRepository.findById}). Only
+ * calls made inside an existing trace get one, so background jobs polling the app database do
+ * not each start a trace of their own.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public static BeanPostProcessor repositoryTracingPostProcessor(ObjectProvider<TracingService> tracingService) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, info) -> proxyFactory.addAdvice(
+                                    tracingInterceptor(tracingService, info.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static MethodInterceptor tracingInterceptor(ObjectProvider<TracingService> tracingService, String repository) {
+        return invocation -> {
+            TracingService tracing = tracingService.getIfAvailable();
+            if (tracing == null || invocation.getMethod().getDeclaringClass() == Object.class || !tracing.inTrace()) {
+                return invocation.proceed();
+            }
+            try (TracingService.ActiveSpan span = tracing.start(repository + "." + invocation.getMethod().getName())) {
+                try {
+                    return invocation.proceed();
+                } catch (Throwable e) {
+                    span.error(e);
+                    throw e;
+                }
+            }
+        };
+    }
+}
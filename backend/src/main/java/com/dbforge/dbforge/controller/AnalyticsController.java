@@ -1,6 +1,8 @@
 package com.dbforge.dbforge.controller;
 
 import com.dbforge.dbforge.dto.AnalyticsResponse;
+import com.dbforge.dbforge.dto.QueryStatsResponse;
+import com.dbforge.dbforge.dto.ResourceUsageResponse;
 import com.dbforge.dbforge.service.AnalyticsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -37,4 +39,49 @@ public class AnalyticsController {
             return ResponseEntity.status(500).build();
         }
     }
+    
+    @GetMapping("/databases/{instanceId}/usage")
+    public ResponseEntity<ResourceUsageResponse> getResourceUsage(
+            @PathVariable Long instanceId,
+            @RequestParam(defaultValue = "1h") String range,
+            Authentication authentication) {
+        try {
+            Long userId = getUserId(authentication);
+            return ResponseEntity.ok(analyticsService.getResourceUsage(userId, instanceId, range));
+        } catch (Exception e) {
+            log.error("Failed to fetch resource usage for instance {}", instanceId, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+    
+    /**
+     * Statements grouped by fingerprint, sorted by total, mean, p99, calls or errors, with the
+     * slow query log.
+     */
+    @GetMapping("/databases/{instanceId}/queries")
+    public ResponseEntity<QueryStatsResponse> getQueryStats(
+            @PathVariable Long instanceId,
+            @RequestParam(defaultValue = "total") String sort,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+        try {
+            Long userId = getUserId(authentication);
+            return ResponseEntity.ok(analyticsService.getQueryStats(userId, instanceId, sort, limit));
+        } catch (Exception e) {
+            log.error("Failed to fetch query stats for instance {}", instanceId, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
+    
+    @DeleteMapping("/databases/{instanceId}/queries")
+    public ResponseEntity<Void> resetQueryStats(@PathVariable Long instanceId, Authentication authentication) {
+        try {
+            Long userId = getUserId(authentication);
+            analyticsService.resetQueryStats(userId, instanceId);
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            log.error("Failed to reset query stats for instance {}", instanceId, e);
+            return ResponseEntity.status(500).build();
+        }
+    }
 }
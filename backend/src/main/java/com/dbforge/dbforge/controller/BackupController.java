@@ -0,0 +1,116 @@
+package com.dbforge.dbforge.controller;
+
+import com.dbforge.dbforge.dto.DatabaseResponse;
+import com.dbforge.dbforge.model.DatabaseBackup;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.service.BackupService;
+import com.dbforge.dbforge.service.DatabaseService;
+import com.dbforge.dbforge.service.IdleSuspendService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backups of a database and restores of a backup into a new database.
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class BackupController {
+
+    private final BackupService backupService;
+    private final DatabaseService databaseService;
+    private final IdleSuspendService idleSuspendService;
+
+    private Long getUserId(Authentication authentication) {
+        if (authentication == null || authentication.getPrincipal() == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        return (Long) authentication.getPrincipal();
+    }
+
+    /**
+     * Start a backup; it runs in the background, poll the returned backup for its status.
+     */
+    @PostMapping("/databases/{instanceId}/backups")
+    public ResponseEntity<?> createBackup(@PathVariable Long instanceId, Authentication authentication) {
+        try {
+            Long userId = getUserId(authentication);
+            DatabaseInstance instance = databaseService.getDatabaseById(instanceId);
+            if (!instance.getUserId().equals(userId)) {
+                return ResponseEntity.status(403).body(Map.of("error", "Unauthorized"));
+            }
+            instance = idleSuspendService.ensureAwake(instance);
+            return ResponseEntity.accepted().body(backupService.startBackup(instance, DatabaseBackup.Trigger.MANUAL));
+        } catch (Exception e) {
+            log.error("Backup of database {} could not be started: {}", instanceId, e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/databases/{instanceId}/backups")
+    public ResponseEntity<List<DatabaseBackup>> getBackups(@PathVariable Long instanceId, Authentication authentication) {
+        Long userId = getUserId(authentication);
+        if (!databaseService.getDatabaseById(instanceId).getUserId().equals(userId)) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(backupService.getBackups(instanceId));
+    }
+
+    @GetMapping("/backups/{backupId}")
+    public ResponseEntity<DatabaseBackup> getBackup(@PathVariable Long backupId, Authentication authentication) {
+        DatabaseBackup backup = backupService.getBackup(backupId);
+        if (!backup.getUserId().equals(getUserId(authentication))) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(backup);
+    }
+
+    @DeleteMapping("/backups/{backupId}")
+    public ResponseEntity<?> deleteBackup(@PathVariable Long backupId, Authentication authentication) {
+        try {
+            DatabaseBackup backup = backupService.getBackup(backupId);
+            if (!backup.getUserId().equals(getUserId(authentication))) {
+                return ResponseEntity.status(403).body(Map.of("error", "Unauthorized"));
+            }
+            backupService.deleteBackup(backup);
+            return ResponseEntity.ok("Backup deleted");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Restore a backup into a new database of the same type, named {@code instanceName}.
+     */
+    @PostMapping("/backups/{backupId}/restore")
+    public ResponseEntity<?> restoreBackup(
+            @PathVariable Long backupId,
+            @RequestBody Map<String, String> request,
+            Authentication authentication
+    ) {
+        try {
+            Long userId = getUserId(authentication);
+            DatabaseBackup backup = backupService.getBackup(backupId);
+            if (!backup.getUserId().equals(userId)) {
+                return ResponseEntity.status(403).body(Map.of("error", "Unauthorized"));
+            }
+            String instanceName = request.get("instanceName");
+            if (instanceName == null || instanceName.isBlank()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "instanceName is required"));
+            }
+            DatabaseInstance restored = backupService.restoreToNewInstance(backup, userId, instanceName.trim());
+            return ResponseEntity.ok(DatabaseResponse.from(restored));
+        } catch (Exception e) {
+            log.error("Restore of backup {} failed: {}", backupId, e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.dbforge.dbforge.dto.QueryRequest;
 import com.dbforge.dbforge.dto.QueryResult;
 import com.dbforge.dbforge.model.DatabaseInstance;
 import com.dbforge.dbforge.service.DatabaseService;
+import com.dbforge.dbforge.service.IdleSuspendService;
 import com.dbforge.dbforge.service.MongoDBQueryService;
 import com.dbforge.dbforge.service.QueryExecutionService;
 import com.dbforge.dbforge.service.RedisQueryService;
@@ -25,6 +26,7 @@ public class EncryptedQueryController {
     private final MongoDBQueryService mongoDBQueryService;
     private final RedisQueryService redisQueryService;
     private final DatabaseService databaseService;
+    private final IdleSuspendService idleSuspendService;
 
     @PostMapping
     public ResponseEntity<QueryResult> executeEncryptedQuery(
@@ -40,7 +42,7 @@ public class EncryptedQueryController {
 
             QueryRequest queryRequest = QueryRequest.fromJson(decryptedJson);
 
-            DatabaseInstance instance = databaseService.getDatabaseById(instanceId);
+            DatabaseInstance instance = idleSuspendService.ensureAwake(databaseService.getDatabaseById(instanceId));
             String dbType = instance.getDatabaseType().getName().toLowerCase();
 
             QueryResult result;
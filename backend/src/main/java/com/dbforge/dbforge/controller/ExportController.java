@@ -9,6 +9,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/databases/{instanceId}/export")
@@ -28,7 +29,7 @@ public class ExportController {
     }
 
     @PostMapping
-    public ResponseEntity<byte[]> exportDatabase(
+    public ResponseEntity<StreamingResponseBody> exportDatabase(
             @PathVariable Long instanceId,
             @RequestBody ExportRequest request,
             Authentication authentication
@@ -45,11 +46,11 @@ public class ExportController {
             return ResponseEntity.ok()
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportFile.filename() + "\"")
                     .contentType(exportFile.contentType())
-                    .body(exportFile.data());
+                    .body(out -> exportFile.body().writeTo(out));
         } catch (Exception e) {
             log.error("Export failed for database {}: {}", instanceId, e.getMessage());
             return ResponseEntity.status(500)
-                    .body(("Export failed: " + e.getMessage()).getBytes());
+                    .body(out -> out.write(("Export failed: " + e.getMessage()).getBytes()));
         }
     }
 }
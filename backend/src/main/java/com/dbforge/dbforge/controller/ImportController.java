@@ -0,0 +1,91 @@
+package com.dbforge.dbforge.controller;
+
+import com.dbforge.dbforge.dto.ImportStatus;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.service.DatabaseService;
+import com.dbforge.dbforge.service.IdleSuspendService;
+import com.dbforge.dbforge.service.ImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk import of a raw CSV or NDJSON request body, e.g.
+ * {@code curl --data-binary @rows.csv "/api/databases/1/import?table=users"}.
+ */
+@RestController
+@RequestMapping("/api/databases/{instanceId}/import")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ImportController {
+
+    private final ImportService importService;
+    private final DatabaseService databaseService;
+    private final IdleSuspendService idleSuspendService;
+
+    private Long getUserId(Authentication authentication) {
+        if (authentication == null || authentication.getPrincipal() == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        return (Long) authentication.getPrincipal();
+    }
+
+    @PostMapping
+    public ResponseEntity<?> importData(
+            @PathVariable Long instanceId,
+            @RequestParam(required = false) String table,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "true") boolean header,
+            HttpServletRequest request,
+            Authentication authentication
+    ) {
+        try {
+            Long userId = getUserId(authentication);
+            DatabaseInstance instance = databaseService.getDatabaseById(instanceId);
+            if (!instance.getUserId().equals(userId)) {
+                return ResponseEntity.status(403).body(Map.of("error", "Unauthorized"));
+            }
+            instance = idleSuspendService.ensureAwake(instance);
+
+            ImportStatus status = importService.importData(instance, userId, table, format, header, request.getInputStream());
+            return ResponseEntity.ok(status);
+        } catch (Exception e) {
+            log.error("Import failed for database {}: {}", instanceId, e.getMessage());
+            return ResponseEntity.status(500).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Running and recently finished imports of the database, newest first.
+     */
+    @GetMapping
+    public ResponseEntity<List<ImportStatus>> getImports(@PathVariable Long instanceId, Authentication authentication) {
+        Long userId = getUserId(authentication);
+        if (!databaseService.getDatabaseById(instanceId).getUserId().equals(userId)) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(importService.getImports(instanceId));
+    }
+
+    @GetMapping("/{importId}")
+    public ResponseEntity<ImportStatus> getImport(
+            @PathVariable Long instanceId,
+            @PathVariable String importId,
+            Authentication authentication
+    ) {
+        Long userId = getUserId(authentication);
+        if (!databaseService.getDatabaseById(instanceId).getUserId().equals(userId)) {
+            return ResponseEntity.status(403).build();
+        }
+        return importService.getImport(instanceId, importId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
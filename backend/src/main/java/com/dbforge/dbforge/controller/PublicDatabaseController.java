@@ -5,6 +5,7 @@ import com.dbforge.dbforge.dto.QueryRequest;
 import com.dbforge.dbforge.dto.QueryResult;
 import com.dbforge.dbforge.model.DatabaseInstance;
 import com.dbforge.dbforge.service.DatabaseService;
+import com.dbforge.dbforge.service.IdleSuspendService;
 import com.dbforge.dbforge.service.MongoDBQueryService;
 import com.dbforge.dbforge.service.QueryExecutionService;
 import com.dbforge.dbforge.service.RedisQueryService;
@@ -27,6 +28,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class PublicDatabaseController {
 
     private final DatabaseService databaseService;
+    private final IdleSuspendService idleSuspendService;
     private final QueryExecutionService queryExecutionService;
     private final MongoDBQueryService mongoDBQueryService;
     private final RedisQueryService redisQueryService;
@@ -50,7 +52,7 @@ public class PublicDatabaseController {
             @RequestBody QueryRequest request) {
 
         try {
-            DatabaseInstance instance = databaseService.getDatabaseByApiToken(apiToken);
+            DatabaseInstance instance = idleSuspendService.ensureAwake(databaseService.getDatabaseByApiToken(apiToken));
             String dbType = instance.getDatabaseType().getName().toLowerCase();
 
             QueryResult result;
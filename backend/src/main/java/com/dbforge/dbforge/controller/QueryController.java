@@ -5,6 +5,7 @@ import com.dbforge.dbforge.dto.QueryResult;
 import com.dbforge.dbforge.dto.SchemaInfo;
 import com.dbforge.dbforge.model.DatabaseInstance;
 import com.dbforge.dbforge.service.DatabaseService;
+import com.dbforge.dbforge.service.IdleSuspendService;
 import com.dbforge.dbforge.service.MongoDBQueryService;
 import com.dbforge.dbforge.service.QueryExecutionService;
 import com.dbforge.dbforge.service.RedisQueryService;
@@ -26,6 +27,7 @@ public class QueryController {
     private final MongoDBQueryService mongoDBQueryService;
     private final RedisQueryService redisQueryService;
     private final DatabaseService databaseService;
+    private final IdleSuspendService idleSuspendService;
     
     @PostMapping
     public ResponseEntity<QueryResult> executeQuery(
@@ -37,7 +39,7 @@ public class QueryController {
             log.info("Executing query on instance: {}", instanceId);
             
             // Get database instance to determine type
-            DatabaseInstance instance = databaseService.getDatabaseById(instanceId);
+            DatabaseInstance instance = idleSuspendService.ensureAwake(databaseService.getDatabaseById(instanceId));
             String dbType = instance.getDatabaseType().getName().toLowerCase();
             
             QueryResult result;
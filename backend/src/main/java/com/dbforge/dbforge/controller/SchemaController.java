@@ -20,11 +20,12 @@ public class SchemaController {
     @GetMapping
     public ResponseEntity<SchemaInfo> getSchema(
             @PathVariable Long instanceId,
+            @RequestParam(defaultValue = "false") boolean exactCounts,
             Authentication authentication) {
         
         try {
             log.info("Getting schema for instance: {}", instanceId);
-            SchemaInfo schema = schemaIntrospectionService.getSchema(instanceId);
+            SchemaInfo schema = schemaIntrospectionService.getSchema(instanceId, exactCounts);
             return ResponseEntity.ok(schema);
         } catch (Exception e) {
             log.error("Schema introspection failed: {}", e.getMessage());
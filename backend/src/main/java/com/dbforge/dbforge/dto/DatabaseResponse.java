@@ -21,6 +21,8 @@ public class DatabaseResponse {
     private Long storage;  // Disk storage in MB
     private Long memoryUsage;  // RAM usage in MB
     private LocalDateTime createdAt;
+    private LocalDateTime lastActivityAt;
+    private boolean suspended;  // Stopped for being idle, starts again on the next query
     
     @Data
     @NoArgsConstructor
@@ -55,6 +57,8 @@ public class DatabaseResponse {
         response.setStorage(instance.getStorage() != null ? instance.getStorage() : 0L);
         response.setMemoryUsage(instance.getMemoryUsage() != null ? instance.getMemoryUsage() : 0L);
         response.setCreatedAt(instance.getCreatedAt());
+        response.setLastActivityAt(instance.getLastActivityAt());
+        response.setSuspended(instance.getSuspendedAt() != null);
         return response;
     }
     
@@ -11,4 +11,8 @@ public class ExportRequest {
     private Boolean includeSchema;
     private Boolean includeHeaders;
     private Integer limit;
+    private Integer parallelism; // tables read concurrently, capped by export.max-parallelism
+    private Boolean consistent; // read all tables from one point-in-time snapshot
+    private Integer insertBatchSize; // rows per INSERT statement in sql format
+    private Boolean copy; // sql format on Postgres: COPY ... FROM stdin blocks instead of INSERTs
 }
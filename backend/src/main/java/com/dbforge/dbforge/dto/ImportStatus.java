@@ -0,0 +1,26 @@
+package com.dbforge.dbforge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportStatus {
+    private String id;
+    private Long instanceId;
+    private String target; // table, collection, or null for Redis
+    private String format; // csv, ndjson
+    private String status; // RUNNING, COMPLETED, FAILED
+    private long rowsImported;
+    private long rowsFailed;
+    private long bytesRead;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
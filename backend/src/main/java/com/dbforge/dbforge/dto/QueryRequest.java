@@ -9,6 +9,8 @@ public class QueryRequest {
     private Integer limit; // Optional result limit
     private Integer timeout; // Optional timeout in seconds
     private Boolean explain; // Optional explain/plan request
+    private Boolean pipeline; // Redis: send multi-line scripts in one round trip (default), false = one command at a time
+    private Boolean transaction; // Redis: run a pipelined script as one MULTI/EXEC transaction
     
     public static QueryRequest fromJson(String json) {
         ObjectMapper mapper = new ObjectMapper();
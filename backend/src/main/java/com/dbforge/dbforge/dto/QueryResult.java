@@ -14,7 +14,7 @@ import java.util.Map;
 @AllArgsConstructor
 public class QueryResult {
     private List<String> columns;
-    private List<Map<String, Object>> rows;
+    private List<? extends Map<String, ?>> rows; // Mongo results hold BSON documents, see BsonJacksonConfig
     private Integer rowCount;
     private Long executionTimeMs;
     private String queryType; // SELECT, INSERT, UPDATE, DELETE
@@ -22,4 +22,5 @@ public class QueryResult {
     private String message;
     private Boolean success;
     private String error;
+    private List<String> recommendations; // Explain/diagnostics findings, e.g. indexes to create
 }
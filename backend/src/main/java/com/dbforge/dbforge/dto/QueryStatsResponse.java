@@ -0,0 +1,54 @@
+package com.dbforge.dbforge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueryStatsResponse {
+    private Long instanceId;
+    private String instanceName;
+    private long since; // epoch millis, start of collection (restart or reset)
+    private String sort; // total, mean, p99, calls or errors
+    private List<FingerprintStats> queries;
+    private List<SlowQuery> slowQueries;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FingerprintStats {
+        private String fingerprint;
+        private String sample; // latest statement with this fingerprint
+        private long calls;
+        private long errors;
+        private long rows;
+        private double totalMs;
+        private double meanMs;
+        private double p50Ms;
+        private double p95Ms;
+        private double p99Ms;
+        private double maxMs;
+        private long lastSeen; // epoch millis
+    }
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SlowQuery {
+        private String fingerprint;
+        private String statement;
+        private double durationMs;
+        private long rows;
+        private boolean success;
+        private long timestamp; // epoch millis
+        private String plan; // captured asynchronously for reads; null until then or for writes
+    }
+}
@@ -0,0 +1,49 @@
+package com.dbforge.dbforge.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResourceUsageResponse {
+    private Long instanceId;
+    private String instanceName;
+    private String range; // 1h or 24h
+    private int resolutionSeconds;
+    private UsageSample latest;
+    private List<UsageSample> samples;
+    private List<StorageSample> storageHistory;
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UsageSample {
+        private long timestamp; // epoch millis, start of the bucket
+        private double cpuPercent;
+        private long memoryBytes;
+        private long memoryMaxBytes;
+        private long memoryLimitBytes;
+        private double networkRxBytesPerSec;
+        private double networkTxBytesPerSec;
+        private double blockReadBytesPerSec;
+        private double blockWriteBytesPerSec;
+    }
+    
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StorageSample {
+        private long timestamp; // epoch millis
+        private long totalBytes;
+        private long dataBytes;
+        private long indexBytes;
+    }
+}
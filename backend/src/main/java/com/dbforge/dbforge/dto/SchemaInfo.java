@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
@@ -14,6 +15,7 @@ import java.util.List;
 public class SchemaInfo {
     private String databaseName;
     private List<TableInfo> tables;
+    private Boolean exactCountsPending; // An exact row count was requested and is still running
     
     @Data
     @Builder
@@ -23,6 +25,7 @@ public class SchemaInfo {
         private String name;
         private String type; // TABLE, VIEW
         private Long rowCount;
+        private Boolean rowCountExact; // false: estimated from catalog statistics
         private List<ColumnInfo> columns;
         private List<IndexInfo> indexes;
     }
@@ -39,6 +42,8 @@ public class SchemaInfo {
         private Boolean primaryKey;
         private Boolean autoIncrement;
         private Integer maxLength;
+        private Double presence; // MongoDB: share of sampled documents that have the field
+        private Map<String, Integer> typeCounts; // MongoDB: BSON types seen in the sample, most frequent first
     }
     
     @Data
@@ -79,6 +79,8 @@ public class AuditLog {
         SCHEMA_VIEWED("Schema Viewed"),
         DATA_EXPORTED("Data Exported"),
         DATA_IMPORTED("Data Imported"),
+        BACKUP_CREATED("Backup Created"),
+        BACKUP_RESTORED("Backup Restored"),
         API_TOKEN_GENERATED("API Token Generated"),
         USER_LOGIN("User Login"),
         USER_LOGOUT("User Logout"),
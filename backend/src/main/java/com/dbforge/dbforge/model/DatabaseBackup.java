@@ -0,0 +1,86 @@
+package com.dbforge.dbforge.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A dump of one instance in the local backup directory. The instance may since have been
+ * deleted, so the type and name it had are kept for restores.
+ */
+@Entity
+@Table(name = "database_backups")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DatabaseBackup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "instance_id", nullable = false)
+    private Long instanceId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "instance_name")
+    private String instanceName;
+    
+    @Column(name = "database_type", nullable = false, length = 50)
+    private String databaseType;
+    
+    @Column(name = "database_name")
+    private String databaseName;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.IN_PROGRESS;
+    
+    // "trigger" is a reserved word in MySQL
+    @Enumerated(EnumType.STRING)
+    @Column(name = "backup_trigger", nullable = false, length = 20)
+    @Builder.Default
+    private Trigger trigger = Trigger.MANUAL;
+    
+    @Column(name = "file_path", length = 512)
+    private String filePath;
+    
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+    
+    @Column(length = 64)
+    private String sha256;
+    
+    @Column(columnDefinition = "TEXT")
+    private String error;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED,
+        FAILED
+    }
+    
+    public enum Trigger {
+        MANUAL,
+        SCHEDULED
+    }
+}
@@ -38,6 +38,9 @@ public class DatabaseInstance {
     
     private String host;
     
+    @Column(name = "node")
+    private String node;  // Docker node the container runs on, null for the default node
+    
     @Column(nullable = false)
     private Integer port;
     
@@ -77,6 +80,12 @@ public class DatabaseInstance {
     @Column(name = "started_at")
     private LocalDateTime startedAt;
     
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+    
+    @Column(name = "suspended_at")
+    private LocalDateTime suspendedAt;  // Set when stopped for being idle, cleared on start
+    
     public enum InstanceStatus {
         CREATING, RUNNING, STOPPED, ERROR, DELETED
     }
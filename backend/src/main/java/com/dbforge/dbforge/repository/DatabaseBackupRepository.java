@@ -0,0 +1,25 @@
+package com.dbforge.dbforge.repository;
+
+import com.dbforge.dbforge.model.DatabaseBackup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DatabaseBackupRepository extends JpaRepository<DatabaseBackup, Long> {
+    
+    List<DatabaseBackup> findByInstanceIdOrderByCreatedAtDesc(Long instanceId);
+    
+    List<DatabaseBackup> findByInstanceIdAndStatusOrderByCreatedAtDesc(Long instanceId, DatabaseBackup.Status status);
+    
+    boolean existsByInstanceIdAndStatus(Long instanceId, DatabaseBackup.Status status);
+    
+    // Backups left running by a previous process can never finish
+    @Modifying
+    @Query("UPDATE DatabaseBackup b SET b.status = 'FAILED', b.error = ?1, b.completedAt = ?2 WHERE b.status = 'IN_PROGRESS'")
+    int failInProgress(String error, LocalDateTime completedAt);
+}
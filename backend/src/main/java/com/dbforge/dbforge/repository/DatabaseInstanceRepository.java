@@ -2,8 +2,11 @@ package com.dbforge.dbforge.repository;
 
 import com.dbforge.dbforge.model.DatabaseInstance;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,13 +14,52 @@ import java.util.Optional;
 public interface DatabaseInstanceRepository extends JpaRepository<DatabaseInstance, Long> {
     List<DatabaseInstance> findByUserIdAndStatusNot(Long userId, DatabaseInstance.InstanceStatus status);
     
+    List<DatabaseInstance> findByStatus(DatabaseInstance.InstanceStatus status);
+    
+    List<DatabaseInstance> findByStatusIn(Collection<DatabaseInstance.InstanceStatus> statuses);
+    
+    List<DatabaseInstance> findByContainerIdIn(Collection<String> containerIds);
+    
+    @Query("SELECT d.id FROM DatabaseInstance d WHERE d.status <> ?1")
+    List<Long> findAllIdsByStatusNot(DatabaseInstance.InstanceStatus status);
+    
     @Query("SELECT COUNT(d) FROM DatabaseInstance d WHERE d.status = 'RUNNING'")
     long countRunningInstances();
     
     @Query("SELECT d.port FROM DatabaseInstance d WHERE d.databaseType.id = ?1")
     List<Integer> findAllocatedPortsByDatabaseTypeId(Long databaseTypeId);
+    
+    // Rows without a node live on the default node
+    @Query("SELECT d.port FROM DatabaseInstance d WHERE d.databaseType.id = ?1 AND COALESCE(d.node, ?3) = ?2")
+    List<Integer> findAllocatedPortsOnNode(Long databaseTypeId, String node, String defaultNode);
 
     boolean existsByApiToken(String apiToken);
 
     Optional<DatabaseInstance> findByApiToken(String apiToken);
+
+    @Modifying
+    @Query("UPDATE DatabaseInstance d SET d.storage = ?2, d.memoryUsage = ?3 WHERE d.id = ?1")
+    int updateUsage(Long id, Long storage, Long memoryUsage);
+
+    @Modifying
+    @Query("UPDATE DatabaseInstance d SET d.memoryUsage = 0 WHERE d.status <> 'RUNNING' AND d.memoryUsage <> 0")
+    int clearMemoryUsageForInactive();
+
+    @Modifying
+    @Query("UPDATE DatabaseInstance d SET d.status = ?2 WHERE d.id IN ?1 AND d.status IN ?3")
+    int updateStatusIfIn(Collection<Long> ids, DatabaseInstance.InstanceStatus status,
+                         Collection<DatabaseInstance.InstanceStatus> expected);
+
+    @Modifying
+    @Query("UPDATE DatabaseInstance d SET d.lastActivityAt = ?2 WHERE d.id = ?1 AND (d.lastActivityAt IS NULL OR d.lastActivityAt < ?2)")
+    int updateLastActivity(Long id, LocalDateTime lastActivityAt);
+
+    @Modifying
+    @Query("UPDATE DatabaseInstance d SET d.status = ?3, d.suspendedAt = ?2 WHERE d.id = ?1 AND d.status IN ?4")
+    int markSuspended(Long id, LocalDateTime suspendedAt, DatabaseInstance.InstanceStatus stopped,
+                      Collection<DatabaseInstance.InstanceStatus> expected);
+
+    @Modifying
+    @Query("UPDATE DatabaseInstance d SET d.status = ?3, d.startedAt = ?2, d.lastActivityAt = ?2, d.suspendedAt = NULL WHERE d.id = ?1")
+    int markResumed(Long id, LocalDateTime startedAt, DatabaseInstance.InstanceStatus running);
 }
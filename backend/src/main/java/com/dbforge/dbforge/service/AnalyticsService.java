@@ -1,6 +1,8 @@
 package com.dbforge.dbforge.service;
 
 import com.dbforge.dbforge.dto.AnalyticsResponse;
+import com.dbforge.dbforge.dto.QueryStatsResponse;
+import com.dbforge.dbforge.dto.ResourceUsageResponse;
 import com.dbforge.dbforge.model.AuditLog;
 import com.dbforge.dbforge.model.DatabaseInstance;
 import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
@@ -9,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -20,6 +23,9 @@ public class AnalyticsService {
     
     private final DatabaseInstanceRepository instanceRepository;
     private final AuditLogService auditLogService;
+    private final ContainerStatsService containerStatsService;
+    private final InstanceMetricsService instanceMetricsService;
+    private final QueryTelemetryService queryTelemetryService;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
     public AnalyticsResponse getAnalytics(Long userId) {
@@ -101,6 +107,67 @@ public class AnalyticsService {
                 .build();
     }
     
+    /**
+     * Top statements of an instance by fingerprint, plus its slow query log.
+     */
+    public QueryStatsResponse getQueryStats(Long userId, Long instanceId, String sort, int limit) {
+        return queryTelemetryService.getStats(getOwnedInstance(userId, instanceId), sort, Math.max(1, Math.min(limit, 500)));
+    }
+    
+    public void resetQueryStats(Long userId, Long instanceId) {
+        queryTelemetryService.reset(getOwnedInstance(userId, instanceId).getId());
+    }
+    
+    private DatabaseInstance getOwnedInstance(Long userId, Long instanceId) {
+        DatabaseInstance instance = instanceRepository.findById(instanceId)
+                .orElseThrow(() -> new RuntimeException("Database not found"));
+        if (!instance.getUserId().equals(userId)) {
+            throw new RuntimeException("Unauthorized");
+        }
+        return instance;
+    }
+    
+    public ResourceUsageResponse getResourceUsage(Long userId, Long instanceId, String range) {
+        DatabaseInstance instance = getOwnedInstance(userId, instanceId);
+        
+        boolean coarse = "24h".equalsIgnoreCase(range);
+        List<ResourceUsageResponse.UsageSample> samples = containerStatsService
+                .getSeries(instance.getContainerId(), coarse).stream()
+                .map(this::toUsageSample)
+                .collect(Collectors.toList());
+        
+        return ResourceUsageResponse.builder()
+                .instanceId(instance.getId())
+                .instanceName(instance.getInstanceName())
+                .range(coarse ? "24h" : "1h")
+                .resolutionSeconds(containerStatsService.getResolutionSeconds(coarse))
+                .latest(containerStatsService.getLatest(instance.getContainerId()).map(this::toUsageSample).orElse(null))
+                .samples(samples)
+                .storageHistory(instanceMetricsService.getStorageHistory(instance.getId()).stream()
+                        .map(measurement -> ResourceUsageResponse.StorageSample.builder()
+                                .timestamp(measurement.measuredAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                                .totalBytes(measurement.totalBytes())
+                                .dataBytes(measurement.dataBytes())
+                                .indexBytes(measurement.indexBytes())
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+    
+    private ResourceUsageResponse.UsageSample toUsageSample(ContainerStatsService.UsagePoint point) {
+        return ResourceUsageResponse.UsageSample.builder()
+                .timestamp(point.timestamp().toEpochMilli())
+                .cpuPercent(Math.round(point.cpuPercent() * 100.0) / 100.0)
+                .memoryBytes(point.memoryBytes())
+                .memoryMaxBytes(point.memoryMaxBytes())
+                .memoryLimitBytes(point.memoryLimitBytes())
+                .networkRxBytesPerSec(point.networkRxBytesPerSec())
+                .networkTxBytesPerSec(point.networkTxBytesPerSec())
+                .blockReadBytesPerSec(point.blockReadBytesPerSec())
+                .blockWriteBytesPerSec(point.blockWriteBytesPerSec())
+                .build();
+    }
+    
     private String formatAction(String action) {
         if (action == null) return "Unknown Action";
         
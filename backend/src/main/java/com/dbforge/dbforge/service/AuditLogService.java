@@ -22,9 +22,12 @@ import java.util.List;
 public class AuditLogService {
     
     private final AuditLogRepository auditLogRepository;
+    private final MetricsService metricsService;
+    private final TracingService tracingService;
     
     public void logAction(Long userId, String action, String resourceType, Long resourceId, 
                          String resourceName, AuditLog.Status status, String details) {
+        long start = System.nanoTime();
         try {
             HttpServletRequest request = getCurrentRequest();
             
@@ -40,9 +43,11 @@ public class AuditLogService {
                     .details(details)
                     .build();
             
-            auditLogRepository.save(auditLog);
+            tracingService.trace("audit.write", () -> auditLogRepository.save(auditLog));
+            metricsService.recordAuditWrite(System.nanoTime() - start, true);
             log.debug("Audit log created: {} - {} - {}", action, resourceName, status);
         } catch (Exception e) {
+            metricsService.recordAuditWrite(System.nanoTime() - start, false);
             log.error("Failed to create audit log", e);
         }
     }
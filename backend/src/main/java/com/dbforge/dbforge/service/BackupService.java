@@ -0,0 +1,485 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.model.DatabaseBackup;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.repository.DatabaseBackupRepository;
+import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Consistent per-engine dumps into the local backup directory, taken by the engine's own tool
+ * inside the container: pg_dump (custom format, one snapshot), mysqldump --single-transaction,
+ * mongodump --archive --gzip and, for Redis, a BGSAVE whose RDB file is copied out. Dumps are
+ * streamed from the Docker exec connection straight into a file channel, never held whole.
+ * Backups can be scheduled, are pruned by count and age, and restore into a new instance.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BackupService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Whichever client the image ships: MariaDB 11 images only have the mariadb-* names
+    private static final String MYSQL_DUMP = "exec \"$(command -v mariadb-dump || command -v mysqldump)\" "
+            + "--single-transaction --quick --routines --triggers --events --no-tablespaces --user=root \"$DBFORGE_DATABASE\"";
+    private static final String MYSQL_RESTORE = "exec \"$(command -v mariadb || command -v mysql)\" --user=root \"$DBFORGE_DATABASE\"";
+    // Runs the Mongo tool given as arguments with the password in a private (0600) config file, not on its command line
+    private static final String MONGO_WITH_CONFIG = "f=$(mktemp) && printf '%s\\n' \"$DBFORGE_MONGO_CONFIG\" > \"$f\" "
+            + "&& \"$@\" --config=\"$f\"; status=$?; rm -f \"$f\"; exit $status";
+
+    private final DatabaseBackupRepository backupRepository;
+    private final DatabaseInstanceRepository instanceRepository;
+    private final DatabaseService databaseService;
+    private final DockerService dockerService;
+    private final ConnectionPoolService connectionPoolService;
+    private final IdleSuspendService idleSuspendService;
+    private final AuditLogService auditLogService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${backup.directory:./backups}")
+    private String directory;
+
+    @Value("${backup.worker-threads:2}")
+    private int workerThreads;
+
+    @Value("${backup.schedule.enabled:false}")
+    private boolean scheduleEnabled;
+
+    @Value("${backup.retention.count:7}")
+    private int retentionCount;
+
+    @Value("${backup.retention.days:30}")
+    private int retentionDays;
+
+    @Value("${backup.redis.bgsave-timeout-ms:600000}")
+    private long bgsaveTimeoutMs;
+
+    // Longest a single dump or restore command may run
+    @Value("${backup.timeout-minutes:120}")
+    private long timeoutMinutes;
+
+    private Path backupRoot;
+    private ExecutorService backupExecutor;
+
+    @PostConstruct
+    public void init() {
+        backupRoot = Paths.get(directory).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(backupRoot);
+        } catch (IOException e) {
+            log.error("Could not create backup directory {}", backupRoot, e);
+        }
+        backupExecutor = Executors.newFixedThreadPool(Math.max(1, workerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "backup-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Integer interrupted = transactionTemplate.execute(status ->
+                    backupRepository.failInProgress("Interrupted by a restart", LocalDateTime.now()));
+            if (interrupted != null && interrupted > 0) {
+                log.warn("Marked {} interrupted backups as failed", interrupted);
+            }
+        } catch (Exception e) {
+            log.warn("Could not clean up interrupted backups: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backupExecutor.shutdownNow();
+    }
+
+    /**
+     * Queue a backup of a running instance and return its record, still IN_PROGRESS.
+     */
+    public DatabaseBackup startBackup(DatabaseInstance instance, DatabaseBackup.Trigger trigger) {
+        if (instance.getStatus() != DatabaseInstance.InstanceStatus.RUNNING) {
+            throw new RuntimeException("Database instance is not running");
+        }
+        if (backupRepository.existsByInstanceIdAndStatus(instance.getId(), DatabaseBackup.Status.IN_PROGRESS)) {
+            throw new RuntimeException("A backup of this database is already running");
+        }
+
+        DatabaseBackup backup = backupRepository.save(DatabaseBackup.builder()
+                .instanceId(instance.getId())
+                .userId(instance.getUserId())
+                .instanceName(instance.getInstanceName())
+                .databaseType(instance.getDatabaseType().getName())
+                .databaseName(instance.getDatabaseName())
+                .trigger(trigger)
+                .build());
+        backupExecutor.execute(() -> runBackup(backup, instance));
+        return backup;
+    }
+
+    public List<DatabaseBackup> getBackups(Long instanceId) {
+        return backupRepository.findByInstanceIdOrderByCreatedAtDesc(instanceId);
+    }
+
+    public DatabaseBackup getBackup(Long backupId) {
+        return backupRepository.findById(backupId)
+                .orElseThrow(() -> new RuntimeException("Backup not found"));
+    }
+
+    public void deleteBackup(DatabaseBackup backup) {
+        if (backup.getStatus() == DatabaseBackup.Status.IN_PROGRESS) {
+            throw new RuntimeException("Backup is still running");
+        }
+        deleteFile(backup);
+        backupRepository.delete(backup);
+    }
+
+    /**
+     * Back up every running instance; queued behind the worker pool so only a few dumps run at once.
+     */
+    @Scheduled(cron = "${backup.schedule.cron:0 0 3 * * *}")
+    public void scheduledBackups() {
+        if (!scheduleEnabled) {
+            return;
+        }
+        List<DatabaseInstance> running = instanceRepository.findByStatus(DatabaseInstance.InstanceStatus.RUNNING);
+        log.info("Starting scheduled backups of {} instances", running.size());
+        for (DatabaseInstance instance : running) {
+            try {
+                startBackup(instance, DatabaseBackup.Trigger.SCHEDULED);
+            } catch (Exception e) {
+                log.warn("Skipped scheduled backup of {}: {}", instance.getInstanceName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Create a new instance of the backup's type under {@code instanceName} and load the backup
+     * into it. The new instance is kept when loading fails so the error can be inspected.
+     */
+    public DatabaseInstance restoreToNewInstance(DatabaseBackup backup, Long userId, String instanceName) {
+        if (backup.getStatus() != DatabaseBackup.Status.COMPLETED) {
+            throw new RuntimeException("Only completed backups can be restored");
+        }
+        Path file = Paths.get(backup.getFilePath());
+        verifyChecksum(backup, file);
+
+        DatabaseInstance target = databaseService.createDatabase(userId, backup.getDatabaseType(), instanceName, null, null);
+        long start = System.currentTimeMillis();
+        try {
+            idleSuspendService.awaitReady(target);
+            restore(backup, target, file);
+            log.info("Restored backup {} into {} in {} ms", backup.getId(), target.getInstanceName(),
+                    System.currentTimeMillis() - start);
+            auditLogService.logSuccess(userId, "BACKUP_RESTORED", "DATABASE", target.getId(), target.getInstanceName(),
+                    "Backup " + backup.getId() + " of " + backup.getInstanceName());
+            return target;
+        } catch (Exception e) {
+            log.error("Restore of backup {} into {} failed: {}", backup.getId(), target.getInstanceName(), e.getMessage());
+            auditLogService.logFailure(userId, "BACKUP_RESTORED", "DATABASE", target.getId(), target.getInstanceName(),
+                    e.getMessage());
+            throw new RuntimeException("Restore failed, database " + target.getInstanceName()
+                    + " was kept for inspection: " + e.getMessage());
+        }
+    }
+
+    private void runBackup(DatabaseBackup backup, DatabaseInstance instance) {
+        long start = System.currentTimeMillis();
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
+        Path target = null;
+        Path partial = null;
+        try {
+            Path instanceDir = backupRoot.resolve(String.valueOf(instance.getId()));
+            Files.createDirectories(instanceDir);
+            String fileName = LocalDateTime.now().format(FILE_TIMESTAMP) + "-" + backup.getId() + extension(dbType);
+            target = instanceDir.resolve(fileName);
+            partial = instanceDir.resolve(fileName + ".part");
+
+            MessageDigest sha256 = sha256();
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                 OutputStream out = new DigestOutputStream(
+                         new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), sha256)) {
+                dump(instance, dbType, out);
+                out.flush();
+                channel.force(true);
+            }
+            // Only complete dumps ever carry the final name
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+
+            backup.setFilePath(target.toString());
+            backup.setSizeBytes(Files.size(target));
+            backup.setSha256(HexFormat.of().formatHex(sha256.digest()));
+            backup.setStatus(DatabaseBackup.Status.COMPLETED);
+            backup.setCompletedAt(LocalDateTime.now());
+            backupRepository.save(backup);
+
+            log.info("Backup {} of {} completed: {} bytes in {} ms", backup.getId(), instance.getInstanceName(),
+                    backup.getSizeBytes(), System.currentTimeMillis() - start);
+            auditLogService.logSuccess(instance.getUserId(), "BACKUP_CREATED", "DATABASE", instance.getId(),
+                    instance.getInstanceName(), backup.getTrigger() + " backup, " + backup.getSizeBytes() + " bytes");
+            applyRetention(instance.getId());
+        } catch (Exception e) {
+            log.error("Backup {} of {} failed: {}", backup.getId(), instance.getInstanceName(), e.getMessage());
+            if (partial != null) {
+                deleteQuietly(partial);
+            }
+            backup.setStatus(DatabaseBackup.Status.FAILED);
+            backup.setError(e.getMessage());
+            backup.setCompletedAt(LocalDateTime.now());
+            backupRepository.save(backup);
+            auditLogService.logFailure(instance.getUserId(), "BACKUP_CREATED", "DATABASE", instance.getId(),
+                    instance.getInstanceName(), e.getMessage());
+        }
+    }
+
+    private void dump(DatabaseInstance instance, String dbType, OutputStream out) throws IOException {
+        switch (dbType) {
+            case "postgresql", "postgres" -> dockerService.exec(instance,
+                    List.of("pg_dump", "--format=custom", "--no-owner",
+                            "--username=" + instance.getUsername(), "--dbname=" + instance.getDatabaseName()),
+                    List.of("PGPASSWORD=" + instance.getPassword()), null, out, timeout());
+            case "mysql", "mariadb" -> {
+                GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+                dockerService.exec(instance, List.of("sh", "-c", MYSQL_DUMP), mysqlEnv(instance), null, gzip, timeout());
+                gzip.finish();
+            }
+            // A standalone server has no oplog, so the dump is consistent per collection only
+            case "mongodb" -> dockerService.exec(instance,
+                    mongoCommand("mongodump", "--archive", "--gzip", "--db=" + instance.getDatabaseName(),
+                            "--username=" + instance.getUsername(), "--authenticationDatabase=admin"),
+                    mongoEnv(instance), null, out, timeout());
+            case "redis" -> dumpRedis(instance, out);
+            default -> throw new RuntimeException("Backups are not supported for " + dbType);
+        }
+    }
+
+    /**
+     * BGSAVE forks a point-in-time snapshot; once it has finished the RDB file is read out of
+     * the container. Redis replaces the file by rename, so a later save can't tear the copy.
+     */
+    private void dumpRedis(DatabaseInstance instance, OutputStream out) {
+        String rdbPath;
+        try (Jedis jedis = connectionPoolService.getJedisPool(instance).getResource()) {
+            long deadline = System.currentTimeMillis() + bgsaveTimeoutMs;
+            while (true) {
+                try {
+                    jedis.bgsave();
+                    break;
+                } catch (JedisDataException e) {
+                    // A save started by someone else may predate this request; wait and take our own
+                    if (e.getMessage() == null || !e.getMessage().contains("in progress")) {
+                        throw e;
+                    }
+                    awaitBgsave(jedis, deadline);
+                }
+            }
+            awaitBgsave(jedis, deadline);
+            Map<String, String> persistence = infoFields(jedis.info("persistence"));
+            if (!"ok".equals(persistence.get("rdb_last_bgsave_status"))) {
+                throw new RuntimeException("BGSAVE failed, see the Redis log");
+            }
+            String dir = jedis.configGet("dir").get("dir");
+            String fileName = jedis.configGet("dbfilename").get("dbfilename");
+            rdbPath = dir + "/" + fileName;
+        }
+        dockerService.exec(instance, List.of("cat", rdbPath), List.of(), null, out, timeout());
+    }
+
+    private void awaitBgsave(Jedis jedis, long deadline) {
+        while (!"0".equals(infoFields(jedis.info("persistence")).get("rdb_bgsave_in_progress"))) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new RuntimeException("Timed out waiting for BGSAVE");
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for BGSAVE", e);
+            }
+        }
+    }
+
+    private void restore(DatabaseBackup backup, DatabaseInstance target, Path file) throws IOException {
+        String dbType = target.getDatabaseType().getName().toLowerCase();
+        if (dbType.equals("redis")) {
+            restoreRedis(target, file);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             InputStream in = new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE)) {
+            switch (dbType) {
+                // --clean replaces the sample table created with every new instance
+                case "postgresql", "postgres" -> dockerService.exec(target,
+                        List.of("pg_restore", "--clean", "--if-exists", "--no-owner", "--no-privileges",
+                                "--single-transaction", "--exit-on-error",
+                                "--username=" + target.getUsername(), "--dbname=" + target.getDatabaseName()),
+                        List.of("PGPASSWORD=" + target.getPassword()), in, OutputStream.nullOutputStream(), timeout());
+                case "mysql", "mariadb" -> dockerService.exec(target, List.of("sh", "-c", MYSQL_RESTORE),
+                        mysqlEnv(target), new GZIPInputStream(in, BUFFER_SIZE), OutputStream.nullOutputStream(), timeout());
+                case "mongodb" -> dockerService.exec(target,
+                        mongoCommand("mongorestore", "--archive", "--gzip", "--drop",
+                                "--nsFrom=" + backup.getDatabaseName() + ".*",
+                                "--nsTo=" + target.getDatabaseName() + ".*",
+                                "--username=" + target.getUsername(), "--authenticationDatabase=admin"),
+                        mongoEnv(target), in, OutputStream.nullOutputStream(), timeout());
+                default -> throw new RuntimeException("Restores are not supported for " + dbType);
+            }
+        }
+    }
+
+    /**
+     * Redis only loads an RDB file at startup: stop the container, put the file in place of
+     * its dump and start it again. Stopping makes Redis save first, which the copy then replaces.
+     */
+    private void restoreRedis(DatabaseInstance target, Path file) {
+        String dir;
+        String fileName;
+        try (Jedis jedis = connectionPoolService.getJedisPool(target).getResource()) {
+            dir = jedis.configGet("dir").get("dir");
+            fileName = jedis.configGet("dbfilename").get("dbfilename");
+        }
+        dockerService.stopContainer(target);
+        connectionPoolService.invalidate(target.getId());
+        dockerService.copyToContainer(target, file, dir, fileName);
+        dockerService.startContainer(target);
+        idleSuspendService.awaitReady(target);
+    }
+
+    /**
+     * Keep the newest {@code retention.count} completed backups of an instance, and of those only
+     * the ones younger than {@code retention.days}. The latest backup is always kept.
+     */
+    private void applyRetention(Long instanceId) {
+        List<DatabaseBackup> completed = backupRepository.findByInstanceIdAndStatusOrderByCreatedAtDesc(
+                instanceId, DatabaseBackup.Status.COMPLETED);
+        LocalDateTime cutoff = retentionDays > 0 ? LocalDateTime.now().minusDays(retentionDays) : null;
+        for (int i = 1; i < completed.size(); i++) {
+            DatabaseBackup backup = completed.get(i);
+            boolean tooMany = retentionCount > 0 && i >= retentionCount;
+            boolean tooOld = cutoff != null && backup.getCreatedAt().isBefore(cutoff);
+            if (tooMany || tooOld) {
+                log.info("Pruning backup {} of instance {}", backup.getId(), instanceId);
+                deleteFile(backup);
+                backupRepository.delete(backup);
+            }
+        }
+    }
+
+    private void verifyChecksum(DatabaseBackup backup, Path file) {
+        if (!Files.isRegularFile(file)) {
+            throw new RuntimeException("Backup file is missing");
+        }
+        if (backup.getSha256() == null) {
+            return;
+        }
+        MessageDigest sha256 = sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                sha256.update(buffer);
+                buffer.clear();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read backup file: " + e.getMessage(), e);
+        }
+        if (!HexFormat.of().formatHex(sha256.digest()).equals(backup.getSha256())) {
+            throw new RuntimeException("Backup file is corrupt (checksum mismatch)");
+        }
+    }
+
+    private List<String> mysqlEnv(DatabaseInstance instance) {
+        return List.of("MYSQL_PWD=" + DockerService.mysqlRootPassword(instance),
+                "DBFORGE_DATABASE=" + instance.getDatabaseName());
+    }
+
+    private List<String> mongoCommand(String... command) {
+        List<String> script = new ArrayList<>(List.of("sh", "-c", MONGO_WITH_CONFIG, "sh"));
+        script.addAll(List.of(command));
+        return script;
+    }
+
+    // YAML single-quoted scalar: only ' needs escaping, by doubling it
+    private List<String> mongoEnv(DatabaseInstance instance) {
+        return List.of("DBFORGE_MONGO_CONFIG=password: '" + instance.getPassword().replace("'", "''") + "'");
+    }
+
+    private Duration timeout() {
+        return Duration.ofMinutes(timeoutMinutes);
+    }
+
+    private String extension(String dbType) {
+        return switch (dbType) {
+            case "postgresql", "postgres" -> ".dump";
+            case "mysql", "mariadb" -> ".sql.gz";
+            case "mongodb" -> ".archive.gz";
+            case "redis" -> ".rdb";
+            default -> throw new RuntimeException("Backups are not supported for " + dbType);
+        };
+    }
+
+    private Map<String, String> infoFields(String info) {
+        Map<String, String> fields = new HashMap<>();
+        for (String line : info.split("\r?\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                fields.put(line.substring(0, colon), line.substring(colon + 1).trim());
+            }
+        }
+        return fields;
+    }
+
+    private void deleteFile(DatabaseBackup backup) {
+        if (backup.getFilePath() != null) {
+            deleteQuietly(Paths.get(backup.getFilePath()));
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
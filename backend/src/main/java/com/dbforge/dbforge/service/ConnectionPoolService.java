@@ -0,0 +1,344 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived, per-instance clients for the managed databases. Clients are keyed by
+ * instance id and rebuilt when the instance's endpoint or credentials change.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ConnectionPoolService {
+
+    /**
+     * Name our own sessions report to the managed databases, so they can be told apart
+     * from user clients.
+     */
+    public static final String CLIENT_NAME = "dbforge";
+
+    private final DockerNodeRegistry nodeRegistry;
+    private final MetricsService metricsService;
+    private final MeterRegistry meterRegistry;
+    private final TracingService tracingService;
+
+    @Value("${pool.jdbc.max-size:5}")
+    private int jdbcMaxPoolSize;
+
+    @Value("${pool.mongodb.max-size:10}")
+    private int mongoMaxPoolSize;
+
+    @Value("${pool.redis.max-total:10}")
+    private int redisMaxTotal;
+
+    @Value("${pool.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    private final Map<Long, CachedClient<HikariDataSource>> dataSources = new ConcurrentHashMap<>();
+    private final Map<Long, CachedClient<MongoClient>> mongoClients = new ConcurrentHashMap<>();
+    private final Map<Long, CachedClient<JedisPool>> jedisPools = new ConcurrentHashMap<>();
+
+    /**
+     * Borrow a pooled JDBC connection for a SQL instance. Closing it returns it to the pool.
+     */
+    public Connection getConnection(DatabaseInstance instance) throws SQLException {
+        return borrow(instance, dataSource(instance));
+    }
+
+    /**
+     * Borrow a pooled JDBC connection for statements typed by users. Those can change session
+     * state the pool does not track (BEGIN, SET search_path, SET ROLE, USE, LOCK TABLES, temporary
+     * tables), so closing it resets the session before it goes back to the pool, and evicts the
+     * connection if that fails.
+     */
+    public Connection getSessionConnection(DatabaseInstance instance) throws SQLException {
+        HikariDataSource dataSource = dataSource(instance);
+        Connection connection = borrow(instance, dataSource);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        if (!connection.isClosed()) {
+                            try {
+                                resetSession(connection);
+                            } catch (SQLException e) {
+                                log.debug("Evicting connection of instance {} after failed session reset: {}",
+                                        instance.getId(), e.getMessage());
+                                dataSource.evictConnection(connection);
+                            }
+                            connection.close();
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static void resetSession(Connection connection) throws SQLException {
+        if (connection.isWrapperFor(BaseConnection.class)) {
+            // DISCARD ALL resets settings, role, temp tables and locks, but not inside a transaction
+            if (connection.unwrap(BaseConnection.class).getTransactionState() != TransactionState.IDLE) {
+                execute(connection, "ROLLBACK");
+            }
+            execute(connection, "DISCARD ALL");
+        } else if (connection.isWrapperFor(JdbcConnection.class)) {
+            // COM_CHANGE_USER: rolls back, unlocks tables, drops temp tables and restores variables and database
+            connection.unwrap(JdbcConnection.class).resetServerState();
+        } else if (!connection.getAutoCommit()) {
+            connection.rollback();
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private HikariDataSource dataSource(DatabaseInstance instance) {
+        String key = endpointKey(instance);
+        CachedClient<HikariDataSource> cached = dataSources.compute(instance.getId(), (id, existing) -> {
+            if (existing != null && existing.key().equals(key)) {
+                return existing;
+            }
+            if (existing != null) {
+                closeQuietly(existing.client());
+            }
+            return new CachedClient<>(key, createDataSource(instance));
+        });
+        return cached.client();
+    }
+
+    private Connection borrow(DatabaseInstance instance, HikariDataSource dataSource) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = tracingService.trace("pool.borrow", instance, dataSource::getConnection);
+        metricsService.recordPoolBorrow(instance, System.nanoTime() - start);
+        return connection;
+    }
+
+    public int getJdbcMaxPoolSize() {
+        return jdbcMaxPoolSize;
+    }
+
+    /**
+     * Connections currently open in this instance's JDBC pool, idle or in use.
+     */
+    public int getOpenJdbcConnections(Long instanceId) {
+        CachedClient<HikariDataSource> cached = dataSources.get(instanceId);
+        if (cached == null || cached.client().getHikariPoolMXBean() == null) {
+            return 0;
+        }
+        return cached.client().getHikariPoolMXBean().getTotalConnections();
+    }
+
+    public MongoClient getMongoClient(DatabaseInstance instance) {
+        String key = endpointKey(instance);
+        CachedClient<MongoClient> cached = mongoClients.compute(instance.getId(), (id, existing) -> {
+            if (existing != null && existing.key().equals(key)) {
+                return existing;
+            }
+            if (existing != null) {
+                closeQuietly(existing.client());
+            }
+            return new CachedClient<>(key, createMongoClient(instance));
+        });
+        return cached.client();
+    }
+
+    public JedisPool getJedisPool(DatabaseInstance instance) {
+        String key = endpointKey(instance);
+        CachedClient<JedisPool> cached = jedisPools.compute(instance.getId(), (id, existing) -> {
+            if (existing != null && existing.key().equals(key)) {
+                return existing;
+            }
+            if (existing != null) {
+                closeQuietly(existing.client());
+            }
+            return new CachedClient<>(key, createJedisPool(instance));
+        });
+        return cached.client();
+    }
+
+    /**
+     * Close and forget every client held for an instance.
+     */
+    public void invalidate(Long instanceId) {
+        CachedClient<HikariDataSource> jdbc = dataSources.remove(instanceId);
+        if (jdbc != null) {
+            closeQuietly(jdbc.client());
+        }
+        CachedClient<MongoClient> mongo = mongoClients.remove(instanceId);
+        if (mongo != null) {
+            closeQuietly(mongo.client());
+        }
+        CachedClient<JedisPool> redis = jedisPools.remove(instanceId);
+        if (redis != null) {
+            closeQuietly(redis.client());
+        }
+        metricsService.unbindPools(instanceId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dataSources.values().forEach(cached -> closeQuietly(cached.client()));
+        dataSources.clear();
+        mongoClients.values().forEach(cached -> closeQuietly(cached.client()));
+        jedisPools.values().forEach(cached -> closeQuietly(cached.client()));
+        mongoClients.clear();
+        jedisPools.clear();
+    }
+
+    private HikariDataSource createDataSource(DatabaseInstance instance) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("instance-" + instance.getId());
+        config.setJdbcUrl(buildJdbcUrl(instance));
+        config.setUsername(instance.getUsername());
+        config.setPassword(instance.getPassword());
+        config.setMaximumPoolSize(jdbcMaxPoolSize);
+        config.setMinimumIdle(0);
+        config.setIdleTimeout(TimeUnit.MINUTES.toMillis(5));
+        config.setConnectionTimeout(connectTimeoutMs);
+        // Don't fail pool creation if the container is still booting; the borrow will fail instead
+        config.setInitializationFailTimeout(-1);
+        // hikaricp_connections_* gauges and acquire timings, tagged pool="instance-<id>"
+        config.setMetricRegistry(meterRegistry);
+
+        log.debug("Creating JDBC pool for instance {}", instance.getId());
+        return new HikariDataSource(config);
+    }
+
+    private String buildJdbcUrl(DatabaseInstance instance) {
+        String host = resolveHost(instance);
+        String port = String.valueOf(instance.getPort());
+        String database = instance.getDatabaseName();
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
+
+        return switch (dbType) {
+            case "postgresql", "postgres" -> String.format("jdbc:postgresql://%s:%s/%s?connectTimeout=%d&ApplicationName=%s",
+                    host, port, database, Math.max(1, connectTimeoutMs / 1000), CLIENT_NAME);
+            // useCursorFetch lets statements with a fetch size (exports) stream instead of buffering everything;
+            // rewriteBatchedStatements sends import batches as multi-row INSERTs
+            case "mysql", "mariadb" -> String.format("jdbc:mysql://%s:%s/%s?allowPublicKeyRetrieval=true&useSSL=false&connectTimeout=%d" +
+                            "&useCursorFetch=true&rewriteBatchedStatements=true",
+                    host, port, database, connectTimeoutMs);
+            default -> throw new RuntimeException("Unsupported database type: " + dbType);
+        };
+    }
+
+    private MongoClient createMongoClient(DatabaseInstance instance) {
+        // MongoDB root user is created in 'admin' database, so authenticate there
+        String connectionString = String.format("mongodb://%s:%s@%s:%d/%s?authSource=admin",
+                instance.getUsername(),
+                instance.getPassword(),
+                resolveHost(instance),
+                instance.getPort(),
+                instance.getDatabaseName());
+
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString))
+                .applicationName(CLIENT_NAME)
+                .applyToConnectionPoolSettings(pool -> pool
+                        .maxSize(mongoMaxPoolSize)
+                        .maxConnectionIdleTime(5, TimeUnit.MINUTES)
+                        .addConnectionPoolListener(new MongoPoolMetrics(instance)))
+                .applyToSocketSettings(socket -> socket.connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS))
+                .build();
+
+        log.debug("Creating MongoDB client for instance {}", instance.getId());
+        return MongoClients.create(settings);
+    }
+
+    private JedisPool createJedisPool(DatabaseInstance instance) {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(redisMaxTotal);
+        poolConfig.setMinIdle(0);
+
+        log.debug("Creating Redis pool for instance {}", instance.getId());
+        JedisPool pool = new JedisPool(poolConfig, resolveHost(instance), instance.getPort(), connectTimeoutMs,
+                instance.getPassword(), 0, CLIENT_NAME) {
+            @Override
+            public Jedis getResource() {
+                long start = System.nanoTime();
+                Jedis jedis = tracingService.trace("pool.borrow", instance, super::getResource);
+                metricsService.recordPoolBorrow(instance, System.nanoTime() - start);
+                return jedis;
+            }
+        };
+        metricsService.bindJedisPool(instance, pool);
+        return pool;
+    }
+
+    private String resolveHost(DatabaseInstance instance) {
+        // Internal address of the node the container was placed on
+        return nodeRegistry.getNode(instance).address();
+    }
+
+    private String endpointKey(DatabaseInstance instance) {
+        return resolveHost(instance) + ":" + instance.getPort() + "/" + instance.getDatabaseName()
+                + "/" + instance.getUsername() + "/" + instance.getPassword().hashCode();
+    }
+
+    private void closeQuietly(AutoCloseable client) {
+        try {
+            client.close();
+        } catch (Exception e) {
+            log.debug("Failed to close client: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * mongodb_driver_pool_* size gauges tagged like our other per-instance meters, plus the
+     * checkout time the driver reports on each borrow.
+     */
+    private class MongoPoolMetrics extends MongoMetricsConnectionPoolListener {
+
+        private final DatabaseInstance instance;
+
+        MongoPoolMetrics(DatabaseInstance instance) {
+            super(meterRegistry, event -> metricsService.instanceTags(instance));
+            this.instance = instance;
+        }
+
+        @Override
+        public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+            super.connectionCheckedOut(event);
+            metricsService.recordPoolBorrow(instance, event.getElapsedTime(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    private record CachedClient<T>(String key, T client) {
+    }
+}
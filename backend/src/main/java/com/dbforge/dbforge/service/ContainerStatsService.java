@@ -0,0 +1,394 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import com.github.dockerjava.api.model.BlkioStatEntry;
+import com.github.dockerjava.api.model.CpuStatsConfig;
+import com.github.dockerjava.api.model.StatisticNetworksConfig;
+import com.github.dockerjava.api.model.Statistics;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.Closeable;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a Docker stats stream open for every running managed container and folds the
+ * ~1/s samples into two rolling, downsampled series per container: a fine one for the
+ * last hour and a coarse one for the last day.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ContainerStatsService {
+
+    private final DatabaseInstanceRepository instanceRepository;
+    private final DockerService dockerService;
+
+    @Value("${stats.collector.enabled:true}")
+    private boolean enabled;
+
+    @Value("${stats.collector.fine-bucket-seconds:10}")
+    private int fineBucketSeconds;
+
+    @Value("${stats.collector.fine-buckets:360}")
+    private int fineBuckets;
+
+    @Value("${stats.collector.coarse-bucket-seconds:300}")
+    private int coarseBucketSeconds;
+
+    @Value("${stats.collector.coarse-buckets:288}")
+    private int coarseBuckets;
+
+    private final Map<String, StreamHandle> streams = new ConcurrentHashMap<>();
+    private final Map<String, UsageSeries> series = new ConcurrentHashMap<>();
+
+    /**
+     * Open streams for newly running containers and drop series of deleted ones.
+     * Streams of stopped containers end on their own when Docker closes them.
+     */
+    @Scheduled(initialDelayString = "${stats.collector.initial-delay-ms:10000}",
+               fixedDelayString = "${stats.collector.reconcile-ms:30000}")
+    public void reconcileStreams() {
+        if (!enabled) {
+            return;
+        }
+
+        List<DatabaseInstance> running = instanceRepository.findByStatus(DatabaseInstance.InstanceStatus.RUNNING);
+        Set<String> runningContainers = new HashSet<>();
+        for (DatabaseInstance instance : running) {
+            String containerId = instance.getContainerId();
+            if (containerId == null) {
+                continue;
+            }
+            runningContainers.add(containerId);
+            StreamHandle handle = streams.get(containerId);
+            if (handle == null || handle.closed) {
+                openStream(instance);
+            }
+        }
+
+        for (String containerId : new ArrayList<>(streams.keySet())) {
+            if (!runningContainers.contains(containerId)) {
+                closeStream(containerId);
+            }
+        }
+
+        // Keep history of stopped instances, forget containers that no longer belong to any instance
+        Set<String> known = new HashSet<>(runningContainers);
+        instanceRepository.findByStatus(DatabaseInstance.InstanceStatus.STOPPED).stream()
+                .map(DatabaseInstance::getContainerId)
+                .filter(Objects::nonNull)
+                .forEach(known::add);
+        series.keySet().retainAll(known);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        new ArrayList<>(streams.keySet()).forEach(this::closeStream);
+    }
+
+    /**
+     * Most recent completed sample for a container, or empty if none arrived yet.
+     */
+    public Optional<UsagePoint> getLatest(String containerId) {
+        UsageSeries usage = containerId != null ? series.get(containerId) : null;
+        return usage != null ? usage.latest() : Optional.empty();
+    }
+
+    /**
+     * Rolling history for a container. {@code coarse} selects the 24h series instead of the 1h one.
+     */
+    public List<UsagePoint> getSeries(String containerId, boolean coarse) {
+        UsageSeries usage = containerId != null ? series.get(containerId) : null;
+        if (usage == null) {
+            return List.of();
+        }
+        return coarse ? usage.coarse() : usage.fine();
+    }
+
+    public int getResolutionSeconds(boolean coarse) {
+        return coarse ? coarseBucketSeconds : fineBucketSeconds;
+    }
+
+    private void openStream(DatabaseInstance instance) {
+        String containerId = instance.getContainerId();
+        UsageSeries usage = series.computeIfAbsent(containerId,
+                id -> new UsageSeries(fineBucketSeconds, fineBuckets, coarseBucketSeconds, coarseBuckets));
+        StreamHandle handle = new StreamHandle();
+        streams.put(containerId, handle);
+        try {
+            log.debug("Opening stats stream for container {}", containerId);
+            handle.closeable = dockerService.streamContainerStats(instance, usage::record, () -> {
+                handle.closed = true;
+                streams.remove(containerId, handle);
+            });
+        } catch (Exception e) {
+            streams.remove(containerId, handle);
+            log.warn("Failed to open stats stream for container {}: {}", containerId, e.getMessage());
+        }
+    }
+
+    private void closeStream(String containerId) {
+        StreamHandle handle = streams.remove(containerId);
+        if (handle == null || handle.closeable == null) {
+            return;
+        }
+        try {
+            handle.closeable.close();
+        } catch (Exception e) {
+            log.debug("Failed to close stats stream for {}: {}", containerId, e.getMessage());
+        }
+    }
+
+    private static final class StreamHandle {
+        private volatile Closeable closeable;
+        private volatile boolean closed;
+    }
+
+    /**
+     * One downsampled bucket. Byte rates are per second over the time covered by the bucket.
+     */
+    public record UsagePoint(
+            Instant timestamp,
+            double cpuPercent,
+            long memoryBytes,
+            long memoryMaxBytes,
+            long memoryLimitBytes,
+            double networkRxBytesPerSec,
+            double networkTxBytesPerSec,
+            double blockReadBytesPerSec,
+            double blockWriteBytesPerSec) {
+    }
+
+    static final class UsageSeries {
+
+        private final Bucketizer fine;
+        private final Bucketizer coarse;
+
+        // Previous cumulative counters, used to turn Docker's totals into deltas
+        private Instant lastRead;
+        private long lastRx = -1;
+        private long lastTx = -1;
+        private long lastBlockRead = -1;
+        private long lastBlockWrite = -1;
+
+        UsageSeries(int fineSeconds, int fineCapacity, int coarseSeconds, int coarseCapacity) {
+            this.fine = new Bucketizer(fineSeconds, fineCapacity);
+            this.coarse = new Bucketizer(coarseSeconds, coarseCapacity);
+        }
+
+        synchronized void record(Statistics stats) {
+            Instant read = parseTimestamp(stats.getRead());
+            if (stats.getMemoryStats() == null || stats.getMemoryStats().getUsage() == null) {
+                return; // Container is shutting down
+            }
+
+            double elapsed = lastRead != null ? Math.max(0.0, (read.toEpochMilli() - lastRead.toEpochMilli()) / 1000.0) : 0.0;
+
+            long rx = 0;
+            long tx = 0;
+            if (stats.getNetworks() != null) {
+                for (StatisticNetworksConfig network : stats.getNetworks().values()) {
+                    rx += network.getRxBytes() != null ? network.getRxBytes() : 0L;
+                    tx += network.getTxBytes() != null ? network.getTxBytes() : 0L;
+                }
+            }
+
+            long blockRead = 0;
+            long blockWrite = 0;
+            if (stats.getBlkioStats() != null && stats.getBlkioStats().getIoServiceBytesRecursive() != null) {
+                for (BlkioStatEntry entry : stats.getBlkioStats().getIoServiceBytesRecursive()) {
+                    long value = entry.getValue() != null ? entry.getValue() : 0L;
+                    if ("read".equalsIgnoreCase(entry.getOp())) {
+                        blockRead += value;
+                    } else if ("write".equalsIgnoreCase(entry.getOp())) {
+                        blockWrite += value;
+                    }
+                }
+            }
+
+            Sample sample = new Sample(
+                    read,
+                    elapsed,
+                    cpuPercent(stats.getCpuStats(), stats.getPreCpuStats()),
+                    DockerService.workingSetBytes(stats.getMemoryStats()),
+                    stats.getMemoryStats().getLimit() != null ? stats.getMemoryStats().getLimit() : 0L,
+                    delta(rx, lastRx),
+                    delta(tx, lastTx),
+                    delta(blockRead, lastBlockRead),
+                    delta(blockWrite, lastBlockWrite));
+
+            lastRead = read;
+            lastRx = rx;
+            lastTx = tx;
+            lastBlockRead = blockRead;
+            lastBlockWrite = blockWrite;
+
+            UsagePoint completed = fine.add(sample);
+            if (completed != null) {
+                coarse.add(completed);
+            }
+        }
+
+        synchronized Optional<UsagePoint> latest() {
+            return fine.latest();
+        }
+
+        synchronized List<UsagePoint> fine() {
+            return fine.points();
+        }
+
+        synchronized List<UsagePoint> coarse() {
+            return coarse.points();
+        }
+
+        private static long delta(long current, long previous) {
+            // Counters reset when the container restarts
+            return previous < 0 || current < previous ? 0L : current - previous;
+        }
+
+        private static double cpuPercent(CpuStatsConfig current, CpuStatsConfig previous) {
+            if (current == null || previous == null || current.getCpuUsage() == null || previous.getCpuUsage() == null
+                    || current.getSystemCpuUsage() == null || previous.getSystemCpuUsage() == null) {
+                return 0.0;
+            }
+            long cpuDelta = current.getCpuUsage().getTotalUsage() - previous.getCpuUsage().getTotalUsage();
+            long systemDelta = current.getSystemCpuUsage() - previous.getSystemCpuUsage();
+            if (cpuDelta <= 0 || systemDelta <= 0) {
+                return 0.0;
+            }
+            long cpus = current.getOnlineCpus() != null ? current.getOnlineCpus()
+                    : current.getCpuUsage().getPercpuUsage() != null ? current.getCpuUsage().getPercpuUsage().size() : 1;
+            return (double) cpuDelta / systemDelta * cpus * 100.0;
+        }
+
+        private static Instant parseTimestamp(String read) {
+            try {
+                return read != null ? Instant.parse(read) : Instant.now();
+            } catch (Exception e) {
+                return Instant.now();
+            }
+        }
+    }
+
+    private record Sample(Instant timestamp, double seconds, double cpuPercent, long memoryBytes, long memoryLimitBytes,
+                          long rxBytes, long txBytes, long blockReadBytes, long blockWriteBytes) {
+    }
+
+    /**
+     * Aggregates samples into fixed-width buckets and keeps the last {@code capacity} of them.
+     */
+    private static final class Bucketizer {
+
+        private final int bucketSeconds;
+        private final int capacity;
+        private final ArrayDeque<UsagePoint> points = new ArrayDeque<>();
+
+        private long bucketStart = Long.MIN_VALUE;
+        private int count;
+        private double seconds;
+        private double cpuSum;
+        private long memorySum;
+        private long memoryMax;
+        private long memoryLimit;
+        private double rxBytes;
+        private double txBytes;
+        private double blockReadBytes;
+        private double blockWriteBytes;
+
+        Bucketizer(int bucketSeconds, int capacity) {
+            this.bucketSeconds = Math.max(1, bucketSeconds);
+            this.capacity = Math.max(1, capacity);
+        }
+
+        /**
+         * Add a raw sample; returns the bucket it completed, if any.
+         */
+        UsagePoint add(Sample sample) {
+            UsagePoint completed = roll(sample.timestamp());
+            count++;
+            seconds += sample.seconds();
+            cpuSum += sample.cpuPercent();
+            memorySum += sample.memoryBytes();
+            memoryMax = Math.max(memoryMax, sample.memoryBytes());
+            memoryLimit = sample.memoryLimitBytes();
+            rxBytes += sample.rxBytes();
+            txBytes += sample.txBytes();
+            blockReadBytes += sample.blockReadBytes();
+            blockWriteBytes += sample.blockWriteBytes();
+            return completed;
+        }
+
+        /**
+         * Add an already downsampled point from a finer series, weighted by its width.
+         */
+        void add(UsagePoint point) {
+            roll(point.timestamp());
+            // Fine buckets are equally wide, so averaging their rates gives the coarse rate
+            count++;
+            seconds += 1;
+            cpuSum += point.cpuPercent();
+            memorySum += point.memoryBytes();
+            memoryMax = Math.max(memoryMax, point.memoryMaxBytes());
+            memoryLimit = point.memoryLimitBytes();
+            rxBytes += point.networkRxBytesPerSec();
+            txBytes += point.networkTxBytesPerSec();
+            blockReadBytes += point.blockReadBytesPerSec();
+            blockWriteBytes += point.blockWriteBytesPerSec();
+        }
+
+        Optional<UsagePoint> latest() {
+            return Optional.ofNullable(points.peekLast());
+        }
+
+        List<UsagePoint> points() {
+            return new ArrayList<>(points);
+        }
+
+        private UsagePoint roll(Instant timestamp) {
+            long start = Math.floorDiv(timestamp.getEpochSecond(), bucketSeconds) * bucketSeconds;
+            if (start == bucketStart) {
+                return null;
+            }
+            UsagePoint completed = null;
+            if (count > 0) {
+                completed = new UsagePoint(
+                        Instant.ofEpochSecond(bucketStart),
+                        cpuSum / count,
+                        memorySum / count,
+                        memoryMax,
+                        memoryLimit,
+                        rate(rxBytes),
+                        rate(txBytes),
+                        rate(blockReadBytes),
+                        rate(blockWriteBytes));
+                points.addLast(completed);
+                while (points.size() > capacity) {
+                    points.removeFirst();
+                }
+            }
+            bucketStart = start;
+            count = 0;
+            seconds = 0;
+            cpuSum = 0;
+            memorySum = 0;
+            memoryMax = 0;
+            rxBytes = 0;
+            txBytes = 0;
+            blockReadBytes = 0;
+            blockWriteBytes = 0;
+            return completed;
+        }
+
+        private double rate(double bytes) {
+            return seconds > 0 ? bytes / seconds : 0.0;
+        }
+    }
+}
@@ -11,12 +11,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.security.SecureRandom;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,9 +33,10 @@ public class DatabaseService {
     private final DockerService dockerService;
     private final ApiTokenService apiTokenService;
     private final AuditLogService auditLogService;
-    
-    @Value("${app.database.host:localhost}")
-    private String databaseHost;
+    private final InstanceMetricsService instanceMetricsService;
+    private final ConnectionPoolService connectionPoolService;
+    private final DockerNodeRegistry nodeRegistry;
+    private final MetricsService metricsService;
     
     @Value("${port.postgres.start:5432}")
     private int postgresStart;
@@ -64,6 +66,15 @@ public class DatabaseService {
     @Value("${resource.max.active.instances:8}")
     private int maxActiveInstances;
     
+    @Value("${resource.default.cpu:0.25}")
+    private String defaultCpu;
+    
+    @Value("${resource.default.memory:256m}")
+    private String defaultMemory;
+    
+    @Value("${resource.default.storage:1g}")
+    private String defaultStorage;
+    
     @Transactional
     public DatabaseInstance createDatabase(Long userId, String databaseTypeName, String instanceName, String dbUsername, String dbPassword) {
         long runningCount = instanceRepository.countRunningInstances();
@@ -82,7 +93,28 @@ public class DatabaseService {
             ? dbType.getDockerImage() 
             : dbType.getDockerImage() + ":" + dbVersion.getDockerTag();
         
-        int port = allocatePort(dbType);
+        DatabaseInstance instance = new DatabaseInstance();
+        instance.setCpuLimit(defaultCpu);
+        instance.setMemoryLimit(defaultMemory);
+        instance.setStorageLimit(defaultStorage);
+        String engine = MetricsService.engine(databaseTypeName);
+        long provisioningStart = System.nanoTime();
+        long stageStart = provisioningStart;
+        
+        // Choose the Docker node with the tightest fit for the container's limits
+        DockerNodeRegistry.Reservation reservation = nodeRegistry.place(
+                DockerService.parseMemoryLimit(instance.getMemoryLimit()),
+                DockerService.parseNanoCpus(instance.getCpuLimit()));
+        // Once committed the CREATING row counts against the node itself; on rollback nothing does
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                nodeRegistry.release(reservation);
+            }
+        });
+        DockerNodeRegistry.DockerNode node = reservation.node();
+        int port = allocatePort(dbType, node);
+        stageStart = recordStage(engine, "placement", stageStart, true);
         
         // Use provided credentials or generate defaults
         String username = (dbUsername != null && !dbUsername.trim().isEmpty()) 
@@ -94,13 +126,13 @@ public class DatabaseService {
         String databaseName = sanitizeName(instanceName);
         String containerName = String.format("dbforge_%d_%s_%s", userId, databaseTypeName, databaseName);
         
-        DatabaseInstance instance = new DatabaseInstance();
         instance.setUserId(userId);
         instance.setDatabaseType(dbType);
         instance.setDatabaseVersionId(dbVersion.getId());
         instance.setInstanceName(instanceName);
         instance.setContainerName(containerName);
-        instance.setHost(databaseHost); // Use configured host (VPS IP or domain)
+        instance.setNode(node.name());
+        instance.setHost(node.publicHost()); // Public address of the node (VPS IP or domain)
         instance.setPort(port);
         instance.setDatabaseName(databaseName);
         instance.setUsername(username);
@@ -121,41 +153,41 @@ public class DatabaseService {
             String apiToken = generateUniqueApiToken(35);
             instance.setApiToken(apiToken);
         }
+        stageStart = recordStage(engine, "api-token", stageStart, true);
         instance.setStatus(DatabaseInstance.InstanceStatus.CREATING);
         
         instance = instanceRepository.save(instance);
         
+        String stage = "container";
         try {
             String containerId = dockerService.createDatabase(instance, dbType, fullImageName);
+            stageStart = recordStage(engine, stage, stageStart, true);
             
             instance.setContainerId(containerId);
             instance.setStatus(DatabaseInstance.InstanceStatus.RUNNING);
             instance.setStartedAt(LocalDateTime.now());
             
             // Wait for database to be fully ready
+            stage = "readiness-wait";
             Thread.sleep(2000);
+            stageStart = recordStage(engine, stage, stageStart, true);
             
             // Initialize with default schema
+            stage = "schema-init";
             initializeDefaultSchema(instance);
+            stageStart = recordStage(engine, stage, stageStart, true);
             
-            // Calculate initial storage and memory usage
-            try {
-                Long storageInMB = calculateDatabaseStorageInMB(instance);
-                if (storageInMB != null) {
-                    instance.setStorage(storageInMB);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to calculate initial storage for {}: {}", instanceName, e.getMessage());
-            }
-            
+            // Take an initial storage and memory sample
+            stage = "usage-sample";
             try {
-                Long memoryInMB = dockerService.getContainerMemoryUsageInMB(containerId);
-                if (memoryInMB != null) {
-                    instance.setMemoryUsage(memoryInMB);
-                }
+                InstanceMetricsService.InstanceMetrics metrics = instanceMetricsService.refresh(instance);
+                instance.setStorage(metrics.storageMb());
+                instance.setMemoryUsage(metrics.memoryMb());
             } catch (Exception e) {
-                log.warn("Failed to calculate initial memory usage for {}: {}", instanceName, e.getMessage());
+                log.warn("Failed to sample initial usage for {}: {}", instanceName, e.getMessage());
             }
+            recordStage(engine, stage, stageStart, true);
+            recordStage(engine, "total", provisioningStart, true);
             
             log.info("Database created successfully: {} (user: {})", instanceName, userId);
             
@@ -166,10 +198,14 @@ public class DatabaseService {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("Failed to create database container", e);
+            recordStage(engine, stage, stageStart, false);
+            recordStage(engine, "total", provisioningStart, false);
             instance.setStatus(DatabaseInstance.InstanceStatus.ERROR);
             throw new RuntimeException("Database creation interrupted: " + e.getMessage());
         } catch (Exception e) {
             log.error("Failed to create database container", e);
+            recordStage(engine, stage, stageStart, false);
+            recordStage(engine, "total", provisioningStart, false);
             instance.setStatus(DatabaseInstance.InstanceStatus.ERROR);
             auditLogService.logFailure(userId, "DATABASE_CREATED", "DATABASE", instance.getId(), 
                     instanceName, e.getMessage());
@@ -179,6 +215,15 @@ public class DatabaseService {
         return instanceRepository.save(instance);
     }
 
+    /**
+     * Records a provisioning stage that began at {@code start} and returns the start of the next one.
+     */
+    private long recordStage(String engine, String stage, long start, boolean success) {
+        long now = System.nanoTime();
+        metricsService.recordProvisioningStage(engine, stage, now - start, success);
+        return now;
+    }
+
     private String generateUniqueApiToken(int length) {
         String chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
         SecureRandom random = new SecureRandom();
@@ -201,8 +246,7 @@ public class DatabaseService {
     
     private void initializeDefaultSchema(DatabaseInstance instance) {
         try {
-            String jdbcUrl = buildJdbcUrl(instance);
-            try (Connection conn = DriverManager.getConnection(jdbcUrl, instance.getUsername(), instance.getPassword())) {
+            try (Connection conn = connectionPoolService.getConnection(instance)) {
                 try (Statement stmt = conn.createStatement()) {
                     // Create a sample users table
                     String createTable = "CREATE TABLE IF NOT EXISTS users (" +
@@ -220,139 +264,28 @@ public class DatabaseService {
         }
     }
     
-    private String buildJdbcUrl(DatabaseInstance instance) {
-        String dbType = instance.getDatabaseType().getName().toLowerCase();
-        switch (dbType) {
-            case "mysql":
-            case "mariadb":
-                return String.format("jdbc:mysql://%s:%d/%s", 
-                    instance.getHost(), instance.getPort(), instance.getDatabaseName());
-            case "postgresql":
-                return String.format("jdbc:postgresql://%s:%d/%s", 
-                    instance.getHost(), instance.getPort(), instance.getDatabaseName());
-            default:
-                throw new RuntimeException("Unsupported database type: " + dbType);
-        }
-    }
-    
     public List<DatabaseInstance> getUserDatabases(Long userId) {
         List<DatabaseInstance> databases = instanceRepository.findByUserIdAndStatusNot(userId, DatabaseInstance.InstanceStatus.DELETED);
         
-        // Update storage and RAM usage for all running instances
+        // Overlay the latest background samples; probing happens in InstanceMetricsService
         for (DatabaseInstance db : databases) {
             if (db.getStatus() == DatabaseInstance.InstanceStatus.RUNNING) {
-                boolean updated = false;
-                
-                // Update disk storage
-                try {
-                    Long storageInMB = calculateDatabaseStorageInMB(db);
-                    if (storageInMB != null && !storageInMB.equals(db.getStorage())) {
-                        db.setStorage(storageInMB);
-                        updated = true;
+                instanceMetricsService.getLatest(db.getId()).ifPresent(metrics -> {
+                    if (metrics.storageMb() != null) {
+                        db.setStorage(metrics.storageMb());
                     }
-                } catch (Exception e) {
-                    log.warn("Failed to update storage for instance {}: {}", db.getInstanceName(), e.getMessage());
-                }
-                
-                // Update RAM usage
-                if (db.getContainerId() != null) {
-                    try {
-                        Long memoryInMB = dockerService.getContainerMemoryUsageInMB(db.getContainerId());
-                        if (memoryInMB != null && !memoryInMB.equals(db.getMemoryUsage())) {
-                            db.setMemoryUsage(memoryInMB);
-                            updated = true;
-                        }
-                    } catch (Exception e) {
-                        log.warn("Failed to update memory usage for instance {}: {}", db.getInstanceName(), e.getMessage());
+                    if (metrics.memoryMb() != null) {
+                        db.setMemoryUsage(metrics.memoryMb());
                     }
-                }
-                
-                if (updated) {
-                    instanceRepository.save(db);
-                }
+                });
             } else {
-                // Set RAM to 0 for stopped instances
-                if (db.getMemoryUsage() != 0L) {
-                    db.setMemoryUsage(0L);
-                    instanceRepository.save(db);
-                }
+                db.setMemoryUsage(0L);
             }
         }
         
         return databases;
     }
     
-    private Long calculateDatabaseStorageInMB(DatabaseInstance instance) {
-        String dbType = instance.getDatabaseType().getName().toLowerCase();
-        
-        try {
-            switch (dbType) {
-                case "postgresql":
-                    return getPostgresStorageSize(instance);
-                case "mysql":
-                case "mariadb":
-                    return getMySQLStorageSize(instance);
-                case "mongodb":
-                    return getMongoDBStorageSize(instance);
-                case "redis":
-                    return getRedisStorageSize(instance);
-                default:
-                    return 10L; // Default 10 MB
-            }
-        } catch (Exception e) {
-            log.warn("Failed to calculate storage for {}: {}", instance.getInstanceName(), e.getMessage());
-            return 10L;
-        }
-    }
-    
-    private Long getPostgresStorageSize(DatabaseInstance instance) {
-        try (Connection conn = DriverManager.getConnection(
-                buildJdbcUrl(instance),
-                instance.getUsername(),
-                instance.getPassword())) {
-            
-            Statement stmt = conn.createStatement();
-            var rs = stmt.executeQuery("SELECT pg_database_size('" + instance.getDatabaseName() + "')");
-            if (rs.next()) {
-                long sizeBytes = rs.getLong(1);
-                return sizeBytes / (1024 * 1024); // Convert to MB
-            }
-        } catch (Exception e) {
-            log.debug("Could not get PostgreSQL storage size: {}", e.getMessage());
-        }
-        return 10L;
-    }
-    
-    private Long getMySQLStorageSize(DatabaseInstance instance) {
-        try (Connection conn = DriverManager.getConnection(
-                buildJdbcUrl(instance),
-                instance.getUsername(),
-                instance.getPassword())) {
-            
-            Statement stmt = conn.createStatement();
-            var rs = stmt.executeQuery(
-                "SELECT ROUND(SUM(data_length + index_length) / 1024 / 1024, 2) as size_mb " +
-                "FROM information_schema.tables WHERE table_schema = '" + instance.getDatabaseName() + "'");
-            if (rs.next()) {
-                double sizeMB = rs.getDouble(1);
-                return Math.max(1L, (long) sizeMB); // At least 1 MB
-            }
-        } catch (Exception e) {
-            log.debug("Could not get MySQL storage size: {}", e.getMessage());
-        }
-        return 10L;
-    }
-    
-    private Long getMongoDBStorageSize(DatabaseInstance instance) {
-        // MongoDB size would require MongoDB driver - return estimate for now
-        return 15L;
-    }
-    
-    private Long getRedisStorageSize(DatabaseInstance instance) {
-        // Redis size estimation - return small default
-        return 5L;
-    }
-    
     public DatabaseInstance getDatabaseById(Long id) {
         return instanceRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Database not found"));
@@ -377,7 +310,7 @@ public class DatabaseService {
         
         if (instance.getContainerId() != null) {
             try {
-                dockerService.deleteContainer(instance.getContainerId());
+                dockerService.deleteContainer(instance);
             } catch (Exception e) {
                 log.warn("Failed to delete Docker container, marking as deleted anyway: {}", e.getMessage());
             }
@@ -385,6 +318,9 @@ public class DatabaseService {
         
         instance.setStatus(DatabaseInstance.InstanceStatus.DELETED);
         instanceRepository.save(instance);
+        instanceMetricsService.forget(instance.getId());
+        connectionPoolService.invalidate(instance.getId());
+        metricsService.forget(instance.getId());
         
         auditLogService.logSuccess(userId, "DATABASE_DELETED", "DATABASE", instance.getId(), 
                 instance.getInstanceName());
@@ -401,9 +337,11 @@ public class DatabaseService {
         }
         
         if (instance.getContainerId() != null) {
-            dockerService.stopContainer(instance.getContainerId());
+            dockerService.stopContainer(instance);
             instance.setStatus(DatabaseInstance.InstanceStatus.STOPPED);
+            instance.setSuspendedAt(null);
             instanceRepository.save(instance);
+            connectionPoolService.invalidate(instance.getId());
             
             auditLogService.logSuccess(userId, "DATABASE_STOPPED", "DATABASE", instance.getId(), 
                     instance.getInstanceName());
@@ -419,19 +357,10 @@ public class DatabaseService {
         }
         
         if (instance.getContainerId() != null) {
-            dockerService.startContainer(instance.getContainerId());
+            dockerService.startContainer(instance);
             instance.setStatus(DatabaseInstance.InstanceStatus.RUNNING);
             instance.setStartedAt(LocalDateTime.now());
-            
-            // Update database storage size
-            try {
-                Long storageInMB = calculateDatabaseStorageInMB(instance);
-                if (storageInMB != null) {
-                    instance.setStorage(storageInMB);
-                }
-            } catch (Exception e) {
-                log.warn("Failed to update storage for instance {}: {}", instance.getInstanceName(), e.getMessage());
-            }
+            instance.setSuspendedAt(null);
             
             instanceRepository.save(instance);
             
@@ -467,19 +396,23 @@ public class DatabaseService {
         return typeRepository.findByIsActiveTrue();
     }
     
-    private int allocatePort(DatabaseType dbType) {
-        List<Integer> allocatedPorts = instanceRepository.findAllocatedPortsByDatabaseTypeId(dbType.getId());
+    private int allocatePort(DatabaseType dbType, DockerNodeRegistry.DockerNode node) {
+        // Port ranges are per node, so two nodes can hand out the same port
+        List<Integer> allocatedPorts = instanceRepository.findAllocatedPortsOnNode(
+                dbType.getId(), node.name(), nodeRegistry.getDefaultNode().name());
+        // Only ports on this machine can be probed directly
+        boolean local = "localhost".equals(node.address()) || "127.0.0.1".equals(node.address());
         
         int startPort = getStartPort(dbType.getName());
         int endPort = getEndPort(dbType.getName());
         
         for (int port = startPort; port <= endPort; port++) {
-            if (!allocatedPorts.contains(port) && isPortAvailable(port)) {
+            if (!allocatedPorts.contains(port) && (!local || isPortAvailable(port))) {
                 return port;
             }
         }
         
-        throw new RuntimeException("No available ports for " + dbType.getName());
+        throw new RuntimeException("No available ports for " + dbType.getName() + " on node " + node.name());
     }
     
     private boolean isPortAvailable(int port) {
@@ -0,0 +1,264 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.config.DockerNodeProperties;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Info;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.transport.DockerHttpClient;
+import com.github.dockerjava.zerodep.ZerodepDockerHttpClient;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * The Docker daemons instances run on, with their capacity and a best-fit placement of new
+ * containers by memory and CPU limits. Instances without a recorded node belong to the
+ * default (first) node.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DockerNodeRegistry {
+
+    public static final String DEFAULT_NODE_NAME = "local";
+
+    // Instances being created are not visible to other transactions yet, so hold their share;
+    // released once the creating transaction completes, the TTL only covers callers that never do
+    private static final long RESERVATION_TTL_MS = 120_000;
+
+    private final DockerNodeProperties properties;
+    private final DatabaseInstanceRepository instanceRepository;
+    private final MetricsService metricsService;
+    private final TracingService tracingService;
+
+    @Value("${docker.host}")
+    private String defaultDockerHost;
+
+    @Value("${app.database.host:localhost}")
+    private String defaultPublicHost;
+
+    private final Map<String, DockerNode> nodes = new LinkedHashMap<>();
+    private final List<Reservation> reservations = new ArrayList<>();
+
+    @PostConstruct
+    public void init() {
+        List<DockerNodeProperties.Node> configured = properties.getNodes();
+        if (configured.isEmpty()) {
+            DockerNodeProperties.Node local = new DockerNodeProperties.Node();
+            local.setName(DEFAULT_NODE_NAME);
+            local.setHost(defaultDockerHost);
+            configured = List.of(local);
+        }
+
+        for (DockerNodeProperties.Node node : configured) {
+            if (node.getName() == null || node.getHost() == null) {
+                throw new IllegalStateException("Every docker.nodes entry needs a name and a host");
+            }
+            DockerClient client = createClient(node.getName(), node.getHost());
+            long memory = node.getMemory() != null ? DockerService.parseMemoryLimit(node.getMemory()) : 0L;
+            long nanoCpus = node.getCpus() != null ? (long) (node.getCpus() * 1_000_000_000L) : 0L;
+            if (memory == 0L || nanoCpus == 0L) {
+                try {
+                    Info info = client.infoCmd().exec();
+                    memory = memory != 0L ? memory : Optional.ofNullable(info.getMemTotal()).orElse(0L);
+                    nanoCpus = nanoCpus != 0L ? nanoCpus : Optional.ofNullable(info.getNCPU()).orElse(0) * 1_000_000_000L;
+                } catch (Exception e) {
+                    log.warn("Could not read capacity of Docker node {}: {}", node.getName(), e.getMessage());
+                }
+            }
+
+            nodes.put(node.getName(), new DockerNode(
+                    node.getName(),
+                    client,
+                    node.getAddress(),
+                    node.getPublicHost() != null ? node.getPublicHost() : defaultPublicHost,
+                    memory,
+                    nanoCpus,
+                    node.isEnabled()));
+            log.info("Registered Docker node {} at {} ({} MB, {} CPUs)", node.getName(), node.getHost(),
+                    memory / (1024 * 1024), nanoCpus / 1_000_000_000.0);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (DockerNode node : nodes.values()) {
+            try {
+                node.client().close();
+            } catch (Exception e) {
+                log.debug("Failed to close Docker client for {}: {}", node.name(), e.getMessage());
+            }
+        }
+    }
+
+    public Collection<DockerNode> getNodes() {
+        return Collections.unmodifiableCollection(nodes.values());
+    }
+
+    /**
+     * The node an instance lives on; instances created before placement existed use the default node.
+     */
+    public DockerNode getNode(DatabaseInstance instance) {
+        return getNode(instance.getNode());
+    }
+
+    public DockerNode getNode(String name) {
+        if (name == null) {
+            return getDefaultNode();
+        }
+        DockerNode node = nodes.get(name);
+        if (node == null) {
+            throw new RuntimeException("Unknown Docker node: " + name);
+        }
+        return node;
+    }
+
+    public DockerNode getDefaultNode() {
+        return nodes.values().iterator().next();
+    }
+
+    /**
+     * Pick the enabled node that fits the requested limits most tightly (best-fit on memory,
+     * then CPU), and hold that share until the new instance is committed. The caller releases the
+     * returned reservation once its instance row is committed or its creation failed.
+     */
+    public synchronized Reservation place(long memoryBytes, long nanoCpus) {
+        Map<String, long[]> used = currentUsage();
+
+        DockerNode best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (DockerNode node : nodes.values()) {
+            if (!node.enabled()) {
+                continue;
+            }
+            long[] usage = used.getOrDefault(node.name(), new long[2]);
+            long freeMemory = node.memoryBytes() > 0 ? node.memoryBytes() - usage[0] - memoryBytes : Long.MAX_VALUE;
+            long freeCpus = node.nanoCpus() > 0 ? node.nanoCpus() - usage[1] - nanoCpus : Long.MAX_VALUE;
+            if (freeMemory < 0 || freeCpus < 0) {
+                continue;
+            }
+
+            // Lower is tighter; nodes with unknown capacity are only used when nothing else fits
+            double score = node.memoryBytes() > 0 && node.nanoCpus() > 0
+                    ? (double) freeMemory / node.memoryBytes() + 0.5 * freeCpus / node.nanoCpus()
+                    : Double.MAX_VALUE / 2;
+            if (score < bestScore) {
+                best = node;
+                bestScore = score;
+            }
+        }
+
+        if (best == null) {
+            throw new RuntimeException("No Docker node has capacity for another database right now");
+        }
+        Reservation reservation = new Reservation(best, memoryBytes, nanoCpus, System.currentTimeMillis() + RESERVATION_TTL_MS);
+        reservations.add(reservation);
+        return reservation;
+    }
+
+    public synchronized void release(Reservation reservation) {
+        reservations.removeIf(held -> held == reservation);
+    }
+
+    /**
+     * Memory and CPU limits currently allocated per node by running or starting instances.
+     */
+    public synchronized Map<String, long[]> currentUsage() {
+        Map<String, long[]> used = new HashMap<>();
+        List<DatabaseInstance> active = instanceRepository.findByStatusIn(
+                List.of(DatabaseInstance.InstanceStatus.RUNNING, DatabaseInstance.InstanceStatus.CREATING));
+        for (DatabaseInstance instance : active) {
+            long[] usage = used.computeIfAbsent(getNode(instance).name(), n -> new long[2]);
+            usage[0] += DockerService.parseMemoryLimit(instance.getMemoryLimit());
+            usage[1] += DockerService.parseNanoCpus(instance.getCpuLimit());
+        }
+
+        long now = System.currentTimeMillis();
+        reservations.removeIf(reservation -> reservation.expiresAt() < now);
+        for (Reservation reservation : reservations) {
+            long[] usage = used.computeIfAbsent(reservation.node().name(), n -> new long[2]);
+            usage[0] += reservation.memoryBytes();
+            usage[1] += reservation.nanoCpus();
+        }
+        return used;
+    }
+
+    private DockerClient createClient(String nodeName, String dockerHost) {
+        DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(dockerHost)
+                .withDockerTlsVerify(false)
+                .build();
+
+        ZerodepDockerHttpClient httpClient = new ZerodepDockerHttpClient.Builder()
+                .dockerHost(config.getDockerHost())
+                .build();
+
+        return DockerClientImpl.getInstance(config, new TimedDockerHttpClient(nodeName, httpClient, metricsService, tracingService));
+    }
+
+    /**
+     * Times and traces every Engine API call of a node up to the response headers (streams such
+     * as stats or logs are not held open in the measurement). Paths are reduced to templates, e.g.
+     * /containers/{id}/start, to keep the endpoint tag and span names bounded.
+     */
+    private record TimedDockerHttpClient(String node, DockerHttpClient delegate, MetricsService metricsService,
+                                         TracingService tracingService) implements DockerHttpClient {
+
+        private static final Pattern API_VERSION = Pattern.compile("^/v[0-9.]+");
+        private static final Pattern RESOURCE_ID = Pattern.compile(
+                "/(containers|exec|volumes|networks)/(?!create$|json$|prune$)[^/]+");
+        private static final Pattern IMAGE_NAME = Pattern.compile(
+                "/images/(?!create$|json$|prune$|search$|load$|get$).+?(?=/(json|history|push|tag|get)$|$)");
+
+        @Override
+        public Response execute(Request request) {
+            String endpoint = endpoint(request.path());
+            long start = System.nanoTime();
+            int status = -1;
+            try (TracingService.ActiveSpan span = tracingService.start("docker " + request.method() + " " + endpoint)) {
+                span.tag("docker.node", node);
+                try {
+                    Response response = delegate.execute(request);
+                    status = response.getStatusCode();
+                    span.tag("http.status_code", status);
+                    return response;
+                } catch (RuntimeException e) {
+                    span.error(e);
+                    throw e;
+                }
+            } finally {
+                metricsService.recordDockerCall(node, request.method(), endpoint, status, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        static String endpoint(String path) {
+            int query = path.indexOf('?');
+            String template = query >= 0 ? path.substring(0, query) : path;
+            template = API_VERSION.matcher(template).replaceFirst("");
+            template = RESOURCE_ID.matcher(template).replaceAll("/$1/{id}");
+            return IMAGE_NAME.matcher(template).replaceAll("/images/{name}");
+        }
+    }
+
+    public record DockerNode(String name, DockerClient client, String address, String publicHost,
+                             long memoryBytes, long nanoCpus, boolean enabled) {
+    }
+
+    public record Reservation(DockerNode node, long memoryBytes, long nanoCpus, long expiresAt) {
+    }
+}
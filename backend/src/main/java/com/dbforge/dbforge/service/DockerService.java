@@ -3,59 +3,59 @@ package com.dbforge.dbforge.service;
 import com.dbforge.dbforge.model.DatabaseInstance;
 import com.dbforge.dbforge.model.DatabaseType;
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.CreateContainerResponse;
 import com.github.dockerjava.api.model.*;
-import com.github.dockerjava.core.DefaultDockerClientConfig;
-import com.github.dockerjava.core.DockerClientImpl;
-import com.github.dockerjava.zerodep.ZerodepDockerHttpClient;
+import com.github.dockerjava.core.InvocationBuilder;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
+@RequiredArgsConstructor
 public class DockerService {
     
-    @Value("${docker.host}")
-    private String dockerHost;
+    private static final int MAX_EXEC_STDERR = 4096;
+    
+    private final DockerNodeRegistry nodeRegistry;
     
     @Value("${docker.network:dbforge-network}")
     private String dockerNetwork;
     
-    @Value("${resource.default.cpu:0.25}")
-    private String defaultCpu;
-    
-    @Value("${resource.default.memory:256m}")
-    private String defaultMemory;
-    
-    private DockerClient dockerClient;
+    @Value("${redis.latency-monitor-threshold-ms:100}")
+    private int redisLatencyThresholdMs;
     
     @PostConstruct
     public void init() {
-        try {
-            DefaultDockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
-                    .withDockerHost(dockerHost)
-                    .withDockerTlsVerify(false)
-                    .build();
-            
-            ZerodepDockerHttpClient httpClient = new ZerodepDockerHttpClient.Builder()
-                    .dockerHost(config.getDockerHost())
-                    .build();
-            
-            dockerClient = DockerClientImpl.getInstance(config, httpClient);
-            
-            createNetworkIfNotExists();
-            
-            log.info("Docker client initialized successfully for host: {}", dockerHost);
-        } catch (Exception e) {
-            log.error("Failed to initialize Docker client", e);
+        for (DockerNodeRegistry.DockerNode node : nodeRegistry.getNodes()) {
+            try {
+                createNetworkIfNotExists(node.client());
+                log.info("Docker client initialized successfully for node: {}", node.name());
+            } catch (Exception e) {
+                log.error("Failed to initialize Docker node {}", node.name(), e);
+            }
         }
     }
     
-    private void createNetworkIfNotExists() {
+    private DockerClient client(DatabaseInstance instance) {
+        return nodeRegistry.getNode(instance).client();
+    }
+    
+    private void createNetworkIfNotExists(DockerClient dockerClient) {
         try {
             boolean networkExists = dockerClient.listNetworksCmd()
                     .withNameFilter(dockerNetwork)
@@ -75,7 +75,7 @@ public class DockerService {
         }
     }
     
-    private void removeContainerIfExists(String containerName) {
+    private void removeContainerIfExists(DockerClient dockerClient, String containerName) {
         try {
             var containers = dockerClient.listContainersCmd()
                     .withShowAll(true)
@@ -105,11 +105,13 @@ public class DockerService {
     
     public String createDatabase(DatabaseInstance instance, DatabaseType dbType, String fullImageName) {
         try {
-            log.info("Creating database container: {}", instance.getContainerName());
+            DockerClient dockerClient = client(instance);
+            log.info("Creating database container: {} on node {}", instance.getContainerName(),
+                    nodeRegistry.getNode(instance).name());
             
-            removeContainerIfExists(instance.getContainerName());
+            removeContainerIfExists(dockerClient, instance.getContainerName());
             
-            pullImageIfNotExists(fullImageName);
+            pullImageIfNotExists(dockerClient, fullImageName);
             
             Thread.sleep(500);
             
@@ -123,8 +125,8 @@ public class DockerService {
             HostConfig hostConfig = HostConfig.newHostConfig()
                     .withPortBindings(portBindings)
                     .withNetworkMode(dockerNetwork)
-                    .withMemory(parseMemoryLimit(defaultMemory))
-                    .withNanoCPUs((long) (Double.parseDouble(defaultCpu) * 1_000_000_000L))
+                    .withMemory(parseMemoryLimit(instance.getMemoryLimit()))
+                    .withNanoCPUs(parseNanoCpus(instance.getCpuLimit()))
                     .withRestartPolicy(RestartPolicy.unlessStoppedRestart());
             
             // Add command to override bind-address for MySQL/MariaDB
@@ -133,7 +135,8 @@ public class DockerService {
                 cmd = new String[]{"--bind-address=0.0.0.0"};
             } else if (dbType.getName().equalsIgnoreCase("redis")) {
                 // Redis requires password to be set via command line
-                cmd = new String[]{"redis-server", "--requirepass", instance.getPassword()};
+                cmd = new String[]{"redis-server", "--requirepass", instance.getPassword(),
+                        "--latency-monitor-threshold", String.valueOf(redisLatencyThresholdMs)};
             }
             
             var createCmd = dockerClient.createContainerCmd(fullImageName)
@@ -160,7 +163,7 @@ public class DockerService {
         }
     }
     
-    private void pullImageIfNotExists(String imageName) {
+    private void pullImageIfNotExists(DockerClient dockerClient, String imageName) {
         try {
             log.info("Checking if image exists: {}", imageName);
             
@@ -227,7 +230,7 @@ public class DockerService {
                 env.add("MYSQL_DATABASE=" + instance.getDatabaseName());
                 env.add("MYSQL_USER=" + instance.getUsername());
                 env.add("MYSQL_PASSWORD=" + instance.getPassword());
-                env.add("MYSQL_ROOT_PASSWORD=" + instance.getPassword() + "_root");
+                env.add("MYSQL_ROOT_PASSWORD=" + mysqlRootPassword(instance));
                 break;
             case "mongodb":
                 env.add("MONGO_INITDB_DATABASE=" + instance.getDatabaseName());
@@ -242,9 +245,17 @@ public class DockerService {
         return env;
     }
     
-    public void stopContainer(String containerId) {
+    /**
+     * Root password of a MySQL/MariaDB container, derived from the instance password.
+     */
+    public static String mysqlRootPassword(DatabaseInstance instance) {
+        return instance.getPassword() + "_root";
+    }
+    
+    public void stopContainer(DatabaseInstance instance) {
+        String containerId = instance.getContainerId();
         try {
-            dockerClient.stopContainerCmd(containerId).exec();
+            client(instance).stopContainerCmd(containerId).exec();
             log.info("Container stopped: {}", containerId);
         } catch (Exception e) {
             log.error("Failed to stop container: {} - Error: {}", containerId, e.getMessage(), e);
@@ -252,9 +263,10 @@ public class DockerService {
         }
     }
     
-    public void startContainer(String containerId) {
+    public void startContainer(DatabaseInstance instance) {
+        String containerId = instance.getContainerId();
         try {
-            dockerClient.startContainerCmd(containerId).exec();
+            client(instance).startContainerCmd(containerId).exec();
             log.info("Container started: {}", containerId);
         } catch (Exception e) {
             log.error("Failed to start container: {} - Error: {}", containerId, e.getMessage(), e);
@@ -262,8 +274,10 @@ public class DockerService {
         }
     }
     
-    public void deleteContainer(String containerId) {
+    public void deleteContainer(DatabaseInstance instance) {
+        String containerId = instance.getContainerId();
         try {
+            DockerClient dockerClient = client(instance);
             dockerClient.stopContainerCmd(containerId).exec();
             dockerClient.removeContainerCmd(containerId).withForce(true).exec();
             log.info("Container deleted: {}", containerId);
@@ -273,66 +287,264 @@ public class DockerService {
         }
     }
     
-    public boolean isContainerRunning(String containerId) {
+    /**
+     * Run a command inside the instance's container, streaming {@code stdin} (optional) into it
+     * and its stdout into {@code stdout} frame by frame. Fails with the tail of stderr when the
+     * command exits non-zero, and when it runs longer than {@code timeout}; the streams are
+     * closed then, so a command still writing to them gets a broken pipe.
+     */
+    public void exec(DatabaseInstance instance, List<String> command, List<String> env,
+                     InputStream stdin, OutputStream stdout, Duration timeout) {
+        DockerClient dockerClient = client(instance);
+        String execId = dockerClient.execCreateCmd(instance.getContainerId())
+                .withCmd(command.toArray(String[]::new))
+                .withEnv(env)
+                .withAttachStdin(stdin != null)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .exec()
+                .getId();
+        
+        StringBuilder stderr = new StringBuilder();
+        IOException[] writeFailure = new IOException[1];
+        var start = dockerClient.execStartCmd(execId);
+        if (stdin != null) {
+            start.withStdIn(stdin);
+        }
+        try (ResultCallback.Adapter<Frame> callback = start.exec(new ResultCallback.Adapter<Frame>() {
+            @Override
+            public void onNext(Frame frame) {
+                if (frame.getStreamType() == StreamType.STDERR) {
+                    stderr.append(new String(frame.getPayload(), StandardCharsets.UTF_8));
+                    if (stderr.length() > MAX_EXEC_STDERR) {
+                        stderr.delete(0, stderr.length() - MAX_EXEC_STDERR);
+                    }
+                    return;
+                }
+                try {
+                    stdout.write(frame.getPayload());
+                } catch (IOException e) {
+                    writeFailure[0] = e;
+                    try {
+                        close();
+                    } catch (IOException ignored) {
+                        // already failing
+                    }
+                }
+            }
+        })) {
+            if (!callback.awaitCompletion(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException(command.get(0) + " timed out after " + timeout.toSeconds() + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Command interrupted: " + command.get(0), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Command failed: " + e.getMessage(), e);
+        }
+        if (writeFailure[0] != null) {
+            throw new RuntimeException("Failed to write output of " + command.get(0) + ": " + writeFailure[0].getMessage(),
+                    writeFailure[0]);
+        }
+        
+        Long exitCode = dockerClient.inspectExecCmd(execId).exec().getExitCodeLong();
+        if (exitCode == null || exitCode != 0) {
+            throw new RuntimeException(command.get(0) + " exited with code " + exitCode
+                    + (stderr.isEmpty() ? "" : ": " + stderr.toString().trim()));
+        }
+    }
+    
+    /**
+     * Copy a local file into a directory of the instance's container, which may be stopped.
+     * The file is streamed inside a single-entry tar archive as the Docker API expects.
+     */
+    public void copyToContainer(DatabaseInstance instance, Path file, String remoteDirectory, String fileName) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int padding = (int) ((512 - size % 512) % 512);
+            InputStream tar = new SequenceInputStream(Collections.enumeration(List.of(
+                    new ByteArrayInputStream(tarHeader(fileName, size)),
+                    Channels.newInputStream(channel),
+                    // Pad the entry to a full block, then two zero blocks end the archive
+                    new ByteArrayInputStream(new byte[padding + 1024]))));
+            client(instance).copyArchiveToContainerCmd(instance.getContainerId())
+                    .withRemotePath(remoteDirectory)
+                    .withTarInputStream(tar)
+                    .exec();
+            log.info("Copied {} into {}:{}", fileName, instance.getContainerName(), remoteDirectory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to copy " + fileName + " into container: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * ustar header of a regular, world-readable file.
+     */
+    private static byte[] tarHeader(String name, long size) {
+        byte[] header = new byte[512];
+        putTarField(header, 0, 100, name);
+        putTarField(header, 100, 8, "0000644");
+        putTarField(header, 108, 8, "0000000");
+        putTarField(header, 116, 8, "0000000");
+        putTarField(header, 124, 12, String.format("%011o", size));
+        putTarField(header, 136, 12, String.format("%011o", System.currentTimeMillis() / 1000));
+        header[156] = '0';
+        putTarField(header, 257, 6, "ustar");
+        putTarField(header, 263, 2, "00");
+        
+        // Checksum is computed with its own field filled with spaces
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        putTarField(header, 148, 6, String.format("%06o", checksum));
+        header[154] = 0;
+        return header;
+    }
+    
+    private static void putTarField(byte[] header, int offset, int length, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > length) {
+            throw new IllegalArgumentException("Tar header field too long: " + value);
+        }
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
+    
+    public boolean isContainerRunning(DatabaseInstance instance) {
         try {
-            var inspection = dockerClient.inspectContainerCmd(containerId).exec();
+            var inspection = client(instance).inspectContainerCmd(instance.getContainerId()).exec();
             return Boolean.TRUE.equals(inspection.getState().getRunning());
         } catch (Exception e) {
             return false;
         }
     }
     
-    public Long getContainerMemoryUsageInMB(String containerId) {
+    /**
+     * Current working-set memory of a container from a one-shot Docker stats sample,
+     * or null when the container is not running or the daemon could not be reached.
+     */
+    public Long getContainerMemoryUsageInMB(DatabaseInstance instance) {
+        String containerId = instance.getContainerId();
         try {
-            // Check if container is running
-            var inspection = dockerClient.inspectContainerCmd(containerId).exec();
-            if (!Boolean.TRUE.equals(inspection.getState().getRunning())) {
-                return 0L;
+            Statistics stats = getContainerStats(instance);
+            if (stats == null || stats.getMemoryStats() == null || stats.getMemoryStats().getUsage() == null) {
+                return null;
             }
-            
-            // Read memory usage from cgroup in container
-            // Execute command to read memory.usage_in_bytes
-            String[] cmd = {"/bin/sh", "-c", "cat /sys/fs/cgroup/memory/memory.usage_in_bytes 2>/dev/null || cat /sys/fs/cgroup/memory.current 2>/dev/null || echo 0"};
-            
-            var execCreateCmd = dockerClient.execCreateCmd(containerId)
-                    .withCmd(cmd)
-                    .withAttachStdout(true)
-                    .withAttachStderr(true);
-            
-            var execCreateResp = execCreateCmd.exec();
-            
-            // Capture output
-            final StringBuilder output = new StringBuilder();
-            dockerClient.execStartCmd(execCreateResp.getId())
-                    .exec(new com.github.dockerjava.api.async.ResultCallback.Adapter<com.github.dockerjava.api.model.Frame>() {
-                        @Override
-                        public void onNext(com.github.dockerjava.api.model.Frame frame) {
-                            output.append(new String(frame.getPayload()));
-                        }
-                    })
-                    .awaitCompletion(2, java.util.concurrent.TimeUnit.SECONDS);
-            
-            // Parse the result
-            String memoryStr = output.toString().trim();
-            if (!memoryStr.isEmpty() && !memoryStr.equals("0")) {
-                long memoryBytes = Long.parseLong(memoryStr);
-                long memoryMB = memoryBytes / (1024 * 1024);
-                return Math.max(1L, memoryMB); // At least 1 MB
+            long memoryMB = workingSetBytes(stats.getMemoryStats()) / (1024 * 1024);
+            return Math.max(1L, memoryMB); // At least 1 MB
+        } catch (Exception e) {
+            log.debug("Failed to get memory usage for {}: {}", containerId, e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Single stats sample for a container (no streaming).
+     */
+    public Statistics getContainerStats(DatabaseInstance instance) {
+        try (InvocationBuilder.AsyncResultCallback<Statistics> callback = client(instance).statsCmd(instance.getContainerId())
+                .withNoStream(true)
+                .exec(new InvocationBuilder.AsyncResultCallback<>())) {
+            return callback.awaitResult();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read container stats: " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Subscribe to the Docker stats stream of a container. Docker pushes roughly one sample
+     * per second until the container stops or the returned handle is closed.
+     */
+    public Closeable streamContainerStats(DatabaseInstance instance, Consumer<Statistics> onSample, Runnable onClose) {
+        String containerId = instance.getContainerId();
+        return client(instance).statsCmd(containerId)
+                .exec(new ResultCallback.Adapter<Statistics>() {
+                    @Override
+                    public void onNext(Statistics stats) {
+                        onSample.accept(stats);
+                    }
+                    
+                    @Override
+                    public void onError(Throwable throwable) {
+                        log.debug("Stats stream for {} ended with error: {}", containerId, throwable.getMessage());
+                        onClose.run();
+                        super.onError(throwable);
+                    }
+                    
+                    @Override
+                    public void onComplete() {
+                        onClose.run();
+                        super.onComplete();
+                    }
+                });
+    }
+    
+    /**
+     * Subscribe to container lifecycle events (start, die, oom, health_status). {@code since} is an
+     * optional unix timestamp used to replay events missed while disconnected.
+     */
+    public Closeable streamContainerEvents(DockerNodeRegistry.DockerNode node, Long since,
+                                           Consumer<Event> onEvent, Runnable onClose) {
+        var cmd = node.client().eventsCmd()
+                .withEventTypeFilter(EventType.CONTAINER)
+                .withEventFilter("start", "die", "oom", "health_status");
+        if (since != null) {
+            cmd.withSince(String.valueOf(since));
+        }
+        return cmd.exec(new ResultCallback.Adapter<Event>() {
+            @Override
+            public void onNext(Event event) {
+                onEvent.accept(event);
             }
             
-            // Fallback: estimate based on container type
-            return 64L;
+            @Override
+            public void onError(Throwable throwable) {
+                log.warn("Docker event stream of node {} ended with error: {}", node.name(), throwable.getMessage());
+                onClose.run();
+                super.onError(throwable);
+            }
             
-        } catch (Exception e) {
-            log.debug("Failed to get memory usage for {}: {}", containerId, e.getMessage());
-            return 64L; // Fallback to default
+            @Override
+            public void onComplete() {
+                onClose.run();
+                super.onComplete();
+            }
+        });
+    }
+    
+    /**
+     * Ids of every container a node's daemon currently reports as running.
+     */
+    public Set<String> getRunningContainerIds(DockerNodeRegistry.DockerNode node) {
+        Set<String> ids = new HashSet<>();
+        for (Container container : node.client().listContainersCmd().exec()) {
+            ids.add(container.getId());
         }
+        return ids;
     }
     
-    public long getContainerSize(String containerId) {
+    /**
+     * Memory usage excluding reclaimable page cache, matching what {@code docker stats} reports
+     * (inactive_file on cgroup v2, cache on cgroup v1).
+     */
+    static long workingSetBytes(MemoryStatsConfig memoryStats) {
+        long usage = memoryStats.getUsage() != null ? memoryStats.getUsage() : 0L;
+        StatsConfig stats = memoryStats.getStats();
+        if (stats != null) {
+            Long reclaimable = stats.getInactiveFile() != null ? stats.getInactiveFile() : stats.getCache();
+            if (reclaimable != null && reclaimable < usage) {
+                usage -= reclaimable;
+            }
+        }
+        return usage;
+    }
+    
+    public long getContainerSize(DatabaseInstance instance) {
+        String containerId = instance.getContainerId();
         try {
             // Use docker ps with size=true to get accurate container size
-            var containers = dockerClient.listContainersCmd()
+            var containers = client(instance).listContainersCmd()
                     .withShowAll(true)
                     .withShowSize(true)
                     .withIdFilter(List.of(containerId))
@@ -358,8 +570,11 @@ public class DockerService {
         }
     }
     
-    private Long parseMemoryLimit(String memory) {
-        memory = memory.toLowerCase();
+    static long parseMemoryLimit(String memory) {
+        if (memory == null || memory.isBlank()) {
+            return 268435456L; // 256MB default
+        }
+        memory = memory.trim().toLowerCase();
         if (memory.endsWith("g")) {
             return Long.parseLong(memory.replace("g", "")) * 1024 * 1024 * 1024;
         } else if (memory.endsWith("m")) {
@@ -367,4 +582,11 @@ public class DockerService {
         }
         return 268435456L; // 256MB default
     }
+    
+    static long parseNanoCpus(String cpus) {
+        if (cpus == null || cpus.isBlank()) {
+            return 250_000_000L; // 0.25 CPU default
+        }
+        return (long) (Double.parseDouble(cpus.trim()) * 1_000_000_000L);
+    }
 }
@@ -1,32 +1,45 @@
 package com.dbforge.dbforge.service;
 
 import com.dbforge.dbforge.dto.ExportRequest;
-import com.dbforge.dbforge.dto.SchemaInfo;
 import com.dbforge.dbforge.model.DatabaseInstance;
 import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import com.dbforge.dbforge.util.ParquetWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.mongodb.MongoException;
 import com.mongodb.client.FindIterable;
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
 import redis.clients.jedis.resps.Tuple;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -36,9 +49,48 @@ import java.util.zip.ZipOutputStream;
 public class ExportService {
 
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int FETCH_SIZE = 1000;
+    private static final int MAX_INSERT_CHARS = 1024 * 1024;
 
     private final DatabaseInstanceRepository databaseInstanceRepository;
     private final SchemaIntrospectionService schemaIntrospectionService;
+    private final MongoSchemaService mongoSchemaService;
+    private final ConnectionPoolService connectionPoolService;
+    private final MetricsService metricsService;
+
+    @Value("${export.max-parallelism:4}")
+    private int maxParallelism;
+
+    @Value("${export.worker-threads:8}")
+    private int workerThreads;
+
+    @Value("${export.sql.insert-batch-size:500}")
+    private int insertBatchSize;
+
+    @Value("${export.parquet.row-group-rows:100000}")
+    private int parquetRowGroupRows;
+
+    @Value("${export.parquet.row-group-bytes:67108864}")
+    private long parquetRowGroupBytes;
+
+    // Per-instance limit on connections held by parallel exports
+    private final Map<Long, Semaphore> exportSlots = new ConcurrentHashMap<>();
+
+    private ExecutorService exportExecutor;
+
+    @PostConstruct
+    public void init() {
+        exportExecutor = Executors.newFixedThreadPool(Math.max(1, workerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "export-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdownNow();
+    }
 
     public ExportFile exportDatabase(Long instanceId, Long userId, ExportRequest request) {
         DatabaseInstance instance = databaseInstanceRepository.findById(instanceId)
@@ -53,19 +105,66 @@ public class ExportService {
         }
 
         String format = normalizeFormat(request.getFormat());
+        Compression compression = Compression.NONE;
+        for (Compression candidate : Compression.values()) {
+            String suffix = candidate.suffixes.stream().filter(format::endsWith).findFirst().orElse(null);
+            if (suffix != null) {
+                compression = candidate;
+                format = format.substring(0, format.length() - suffix.length());
+                break;
+            }
+        }
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
         ExportContext context = new ExportContext(
                 format,
+                compression,
                 Boolean.TRUE.equals(request.getIncludeSchema()),
                 request.getIncludeHeaders() == null || request.getIncludeHeaders(),
-                request.getLimit() != null ? request.getLimit() : 0
+                request.getLimit() != null ? request.getLimit() : 0,
+                dbType.startsWith("postgres") ? "postgres" : "mysql",
+                request.getInsertBatchSize() != null ? Math.max(1, request.getInsertBatchSize()) : insertBatchSize,
+                Boolean.TRUE.equals(request.getCopy()) && dbType.startsWith("postgres"),
+                new LongAdder()
         );
 
-        String dbType = instance.getDatabaseType().getName().toLowerCase();
-        return switch (dbType) {
+        ExportFile file = switch (dbType) {
             case "mongodb" -> exportMongo(instance, request, context);
             case "redis" -> exportRedis(instance, request, context);
             default -> exportSql(instance, request, context);
         };
+        return new ExportFile(measured(instance, context, file.body()), file.filename(), file.contentType());
+    }
+
+    /**
+     * Records bytes written to the response, rows exported and the duration once the body is done.
+     */
+    private ExportBody measured(DatabaseInstance instance, ExportContext context, ExportBody body) {
+        String format = context.extension();
+        return out -> {
+            long start = System.nanoTime();
+            long[] bytes = new long[1];
+            boolean success = false;
+            OutputStream counting = new FilterOutputStream(out) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    bytes[0]++;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    bytes[0] += len;
+                }
+            };
+            try {
+                body.writeTo(counting);
+                success = true;
+            } finally {
+                metricsService.recordExport(instance, format, bytes[0], context.rows().sum(),
+                        System.nanoTime() - start, success);
+            }
+        };
     }
 
     private ExportFile exportSql(DatabaseInstance instance, ExportRequest request, ExportContext context) {
@@ -74,186 +173,467 @@ public class ExportService {
             throw new RuntimeException("No tables found to export");
         }
 
-        String jdbcUrl = buildJdbcUrl(instance);
-
-        try (Connection conn = DriverManager.getConnection(jdbcUrl, instance.getUsername(), instance.getPassword())) {
-            if (tables.size() == 1) {
-                String table = tables.get(0);
-                String content = exportSqlTable(conn, table, context);
-                String extension = switch (context.format()) {
-                    case "json" -> "json";
-                    case "sql" -> "sql";
-                    default -> "csv";
-                };
-                MediaType mediaType = switch (context.format()) {
-                    case "json" -> MediaType.APPLICATION_JSON;
-                    case "sql" -> MediaType.TEXT_PLAIN;
-                    default -> new MediaType("text", "csv");
-                };
-                String filename = buildFileName(table, "export." + extension);
-                return new ExportFile(content.getBytes(StandardCharsets.UTF_8), filename, mediaType);
-            }
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            try (ZipOutputStream zos = new ZipOutputStream(baos, StandardCharsets.UTF_8)) {
-                for (String table : tables) {
-                    String content = exportSqlTable(conn, table, context);
-                    String extension = switch (context.format()) {
-                        case "json" -> ".json";
-                        case "sql" -> ".sql";
-                        default -> ".csv";
-                    };
-                    addZipEntry(zos, sanitize(table) + extension, content);
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
+        boolean consistent = Boolean.TRUE.equals(request.getConsistent());
+        // MySQL/MariaDB snapshots cannot be shared between sessions; read on one connection instead
+        int parallelism = consistent && !dbType.startsWith("postgres")
+                ? 1
+                : Math.min(tables.size(), exportParallelism(request, consistent));
+
+        if (tables.size() == 1) {
+            String table = tables.get(0);
+            return new ExportFile(out -> writeSql(instance, tables, context, consistent, parallelism, out),
+                    buildFileName(table, "export." + context.extension()), context.mediaType());
+        }
+
+        return new ExportFile(out -> {
+                    ZipOutputStream zos = new ZipOutputStream(out, StandardCharsets.UTF_8);
+                    if (context.compressed()) {
+                        // Entries are compressed already, deflating them again only costs CPU
+                        zos.setLevel(Deflater.NO_COMPRESSION);
+                    }
+                    writeSql(instance, tables, context, consistent, parallelism, zos);
+                    zos.finish();
+                },
+                buildFileName(instance.getInstanceName(), "export-" + context.format() + ".zip"),
+                MediaType.parseMediaType("application/zip"));
+    }
+
+    /**
+     * Write the tables of a SQL export: a single table straight to {@code out}, several ones as
+     * zip entries, read either sequentially on one connection or in parallel. Every connection
+     * held counts against the instance's export slots.
+     */
+    private void writeSql(DatabaseInstance instance, List<String> tables, ExportContext context, boolean consistent,
+                          int parallelism, OutputStream out) throws IOException {
+        Semaphore slots = exportSlots.computeIfAbsent(instance.getId(), id -> new Semaphore(maxSlotsPerInstance()));
+        if (parallelism > 1 && !consistent) {
+            // Workers read on their own connections, nothing needs one on this thread
+            ZipOutputStream zos = (ZipOutputStream) out;
+            exportSqlTablesParallel(instance, tables, context, parallelism, null, slots,
+                    (table, spool) -> addZipEntry(zos, sanitize(table) + "." + context.extension(), spool));
+            return;
+        }
+
+        // A shared snapshot takes the workers' slots together with its own, so concurrent exports
+        // cannot each hold a snapshot connection while waiting for slots to read with
+        boolean shared = parallelism > 1;
+        int permits = shared ? 1 + parallelism : 1;
+        acquire(slots, permits);
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
+        try (Connection conn = connectionPoolService.getConnection(instance)) {
+            String snapshotId = consistent ? beginSnapshot(conn, dbType, shared) : null;
+            if (!consistent) {
+                beginRead(conn);
+            }
+            try {
+                if (tables.size() == 1) {
+                    writeSqlTable(conn, tables.get(0), context, out);
+                } else if (shared) {
+                    ZipOutputStream zos = (ZipOutputStream) out;
+                    exportSqlTablesParallel(instance, tables, context, parallelism, snapshotId, null,
+                            (table, spool) -> addZipEntry(zos, sanitize(table) + "." + context.extension(), spool));
+                } else {
+                    ZipOutputStream zos = (ZipOutputStream) out;
+                    for (String table : tables) {
+                        zos.putNextEntry(new ZipEntry(sanitize(table) + "." + context.extension()));
+                        writeSqlTable(conn, table, context, zos);
+                        zos.closeEntry();
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to export SQL database: " + e.getMessage(), e);
+        } finally {
+            slots.release(permits);
+        }
+    }
+
+    /**
+     * Read tables concurrently, each on its own pooled connection into a spool file, and hand
+     * them to the writer strictly in table order. At most {@code parallelism} tables are in
+     * flight or spooled at a time. Each table takes one of {@code slots}, shared by all exports
+     * of the instance; with null slots the caller already holds them.
+     */
+    private void exportSqlTablesParallel(DatabaseInstance instance, List<String> tables, ExportContext context,
+                                         int parallelism, String snapshotId, Semaphore slots,
+                                         TableWriter writer) throws IOException {
+        List<Path> spools = new ArrayList<>(tables.size());
+        List<Future<?>> futures = new ArrayList<>(tables.size());
+        int submitted = 0;
+        try {
+            for (int written = 0; written < tables.size(); written++) {
+                while (submitted < tables.size() && submitted - written < parallelism) {
+                    String table = tables.get(submitted);
+                    Path spool = Files.createTempFile("dbforge-export-", ".part");
+                    spools.add(spool);
+                    if (slots != null) {
+                        acquire(slots, 1);
+                    }
+                    try {
+                        futures.add(exportExecutor.submit(() -> {
+                            try {
+                                exportSqlTableOnOwnConnection(instance, table, context, snapshotId, spool);
+                                return null;
+                            } finally {
+                                if (slots != null) {
+                                    slots.release();
+                                }
+                            }
+                        }));
+                    } catch (RejectedExecutionException e) {
+                        if (slots != null) {
+                            slots.release();
+                        }
+                        throw e;
+                    }
+                    submitted++;
                 }
+                futures.get(written).get();
+                writer.write(tables.get(written), spools.get(written));
+                Files.deleteIfExists(spools.get(written));
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export was interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw new IOException("Failed to export SQL database: " + cause.getMessage(), cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            for (Path spool : spools) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    log.warn("Failed to delete export spool file {}: {}", spool, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void exportSqlTableOnOwnConnection(DatabaseInstance instance, String table, ExportContext context,
+                                               String snapshotId, Path spool) throws SQLException, IOException {
+        try (Connection conn = connectionPoolService.getConnection(instance);
+             OutputStream buffer = new BufferedOutputStream(Files.newOutputStream(spool))) {
+            if (snapshotId != null) {
+                conn.setAutoCommit(false);
+                conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+                }
+            } else {
+                beginRead(conn);
+            }
+            try {
+                writeSqlTable(conn, table, context, buffer);
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void acquire(Semaphore slots, int permits) throws InterruptedIOException {
+        try {
+            slots.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Export was interrupted");
+        }
+    }
+
+    /**
+     * Read in a transaction so Postgres streams rows through a cursor instead of loading the
+     * whole result set.
+     */
+    private void beginRead(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        conn.setReadOnly(true);
+    }
 
-            String filename = buildFileName(instance.getInstanceName(), "export-" + context.format() + ".zip");
-            return new ExportFile(baos.toByteArray(), filename, MediaType.parseMediaType("application/zip"));
-        } catch (SQLException | IOException e) {
-            throw new RuntimeException("Failed to export SQL database: " + e.getMessage(), e);
+    /**
+     * Open a read-only REPEATABLE READ transaction on {@code conn}. For Postgres exports that
+     * fan out, the snapshot is exported so worker connections can read from the same point in
+     * time; its id is returned and stays valid while this transaction is open.
+     */
+    private String beginSnapshot(Connection conn, String dbType, boolean shared) throws SQLException {
+        conn.setAutoCommit(false);
+        conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try (Statement stmt = conn.createStatement()) {
+            if (dbType.startsWith("postgres")) {
+                stmt.execute("SET TRANSACTION READ ONLY");
+                if (shared) {
+                    try (ResultSet rs = stmt.executeQuery("SELECT pg_export_snapshot()")) {
+                        rs.next();
+                        return rs.getString(1);
+                    }
+                }
+            } else {
+                stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+            }
         }
+        return null;
+    }
+
+    private int exportParallelism(ExportRequest request, boolean consistent) {
+        int requested = request.getParallelism() != null ? request.getParallelism() : 1;
+        return Math.max(1, Math.min(requested, maxSlotsPerInstance() - (consistent ? 1 : 0)));
+    }
+
+    private int maxSlotsPerInstance() {
+        // Export connections never take the whole pool; one is left for queries
+        return Math.max(1, Math.min(maxParallelism, connectionPoolService.getJdbcMaxPoolSize() - 1));
     }
 
     private ExportFile exportMongo(DatabaseInstance instance, ExportRequest request, ExportContext context) {
         if ("sql".equals(context.format())) {
             throw new RuntimeException("SQL export is not supported for MongoDB");
         }
+        if ("parquet".equals(context.format())) {
+            throw new RuntimeException("Parquet export is only supported for SQL databases");
+        }
 
-        String connectionString = String.format(
-                "mongodb://%s:%s@localhost:%d/%s?authSource=admin",
-                instance.getUsername(),
-                instance.getPassword(),
-                instance.getPort(),
-                instance.getDatabaseName()
-        );
-
-        List<String> collections = resolveMongoCollections(instance, connectionString, request);
+        List<String> collections = resolveMongoCollections(instance, request);
         if (collections.isEmpty()) {
             throw new RuntimeException("No collections found to export");
         }
 
-        try (MongoClient client = MongoClients.create(connectionString)) {
-            MongoDatabase database = client.getDatabase(instance.getDatabaseName());
+        MongoDatabase database = connectionPoolService.getMongoClient(instance).getDatabase(instance.getDatabaseName());
 
-            if (collections.size() == 1) {
-                String collection = collections.get(0);
-                String content = exportMongoCollection(database, collection, context);
-                String extension = "json".equals(context.format()) ? "json" : "csv";
-                MediaType mediaType = "json".equals(context.format())
-                        ? MediaType.APPLICATION_JSON
-                        : new MediaType("text", "csv");
-                String filename = buildFileName(collection, "export." + extension);
-                return new ExportFile(content.getBytes(StandardCharsets.UTF_8), filename, mediaType);
-            }
-
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            try (ZipOutputStream zos = new ZipOutputStream(baos, StandardCharsets.UTF_8)) {
-                for (String collection : collections) {
-                    String content = exportMongoCollection(database, collection, context);
-                    String extension = "json".equals(context.format()) ? ".json" : ".csv";
-                    addZipEntry(zos, sanitize(collection) + extension, content);
-                }
-            }
-
-            String filename = buildFileName(instance.getInstanceName(), "export-" + context.format() + ".zip");
-            return new ExportFile(baos.toByteArray(), filename, MediaType.parseMediaType("application/zip"));
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to export MongoDB database: " + e.getMessage(), e);
+        if (collections.size() == 1) {
+            String collection = collections.get(0);
+            return new ExportFile(out -> writeMongoCollection(instance, database, collection, context, out),
+                    buildFileName(collection, "export." + context.extension()), context.mediaType());
         }
+
+        return new ExportFile(out -> {
+                    ZipOutputStream zos = new ZipOutputStream(out, StandardCharsets.UTF_8);
+                    if (context.compressed()) {
+                        zos.setLevel(Deflater.NO_COMPRESSION);
+                    }
+                    for (String collection : collections) {
+                        zos.putNextEntry(new ZipEntry(sanitize(collection) + "." + context.extension()));
+                        writeMongoCollection(instance, database, collection, context, zos);
+                        zos.closeEntry();
+                    }
+                    zos.finish();
+                },
+                buildFileName(instance.getInstanceName(), "export-" + context.format() + ".zip"),
+                MediaType.parseMediaType("application/zip"));
     }
 
     private ExportFile exportRedis(DatabaseInstance instance, ExportRequest request, ExportContext context) {
         if ("sql".equals(context.format())) {
             throw new RuntimeException("SQL export is not supported for Redis");
         }
-
-        JedisPoolConfig poolConfig = new JedisPoolConfig();
-        poolConfig.setMaxTotal(10);
+        if ("parquet".equals(context.format())) {
+            throw new RuntimeException("Parquet export is only supported for SQL databases");
+        }
 
         List<String> patterns = (request.getTables() != null && !request.getTables().isEmpty())
                 ? request.getTables()
                 : List.of("*");
 
-        try (JedisPool pool = new JedisPool(poolConfig, "localhost", instance.getPort(), 2000, instance.getPassword());
-             Jedis jedis = pool.getResource()) {
+        String filename = buildFileName(instance.getInstanceName(), "redis-export." + context.extension());
+        return new ExportFile(out -> writeRedis(instance, patterns, context, out), filename, context.mediaType());
+    }
 
-            Set<String> keys = new LinkedHashSet<>();
-            for (String pattern : patterns) {
-                keys.addAll(jedis.keys(pattern));
-                if (context.limit() > 0 && keys.size() >= context.limit()) {
-                    break;
-                }
+    /**
+     * Walks the keyspace with SCAN rather than KEYS, so the server is not blocked while keys are
+     * listed, and writes each entry as soon as it is read. Only key names are kept, to skip keys
+     * SCAN returns twice or that match several patterns.
+     */
+    private void writeRedis(DatabaseInstance instance, List<String> patterns, ExportContext context,
+                            OutputStream out) throws IOException {
+        long max = context.limit() > 0 ? context.limit() : Long.MAX_VALUE;
+        try (Jedis jedis = connectionPoolService.getJedisPool(instance).getResource();
+             Writer writer = new BufferedWriter(new OutputStreamWriter(context.compression().wrap(out), StandardCharsets.UTF_8))) {
+            JsonGenerator json = "json".equals(context.format()) ? jsonGenerator(writer) : null;
+            if (json != null) {
+                json.writeStartArray();
+            } else if ("csv".equals(context.format()) && context.includeHeaders()) {
+                writer.write("key,type,value\n");
             }
 
-            List<Map<String, Object>> entries = new ArrayList<>();
-            int max = context.limit() > 0 ? context.limit() : Integer.MAX_VALUE;
-            int count = 0;
-            for (String key : keys) {
-                if (count >= max) break;
-                entries.add(readRedisEntry(jedis, key));
-                count++;
+            Set<String> seen = new HashSet<>();
+            long count = 0;
+            scan:
+            for (String pattern : patterns) {
+                ScanParams params = new ScanParams().match(pattern).count(FETCH_SIZE);
+                String cursor = ScanParams.SCAN_POINTER_START;
+                do {
+                    ScanResult<String> page = jedis.scan(cursor, params);
+                    for (String key : page.getResult()) {
+                        if (count >= max) {
+                            break scan;
+                        }
+                        if (!seen.add(key)) {
+                            continue;
+                        }
+                        Map<String, Object> entry = readRedisEntry(jedis, key);
+                        switch (context.format()) {
+                            case "json" -> json.writeObject(entry);
+                            case "ndjson" -> {
+                                writer.write(OBJECT_MAPPER.writeValueAsString(entry));
+                                writer.write("\n");
+                            }
+                            default -> writeCsvLine(writer, List.of(key, String.valueOf(entry.get("type")),
+                                    stringifyValue(entry.get("value"))));
+                        }
+                        count++;
+                        context.rows().increment();
+                    }
+                    cursor = page.getCursor();
+                } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
             }
 
-            String content = "json".equals(context.format())
-                    ? writeRedisJson(entries)
-                    : writeRedisCsv(entries, context.includeHeaders());
-
-            String extension = "json".equals(context.format()) ? "json" : "csv";
-            MediaType mediaType = "json".equals(context.format())
-                    ? MediaType.APPLICATION_JSON
-                    : new MediaType("text", "csv");
-            String filename = buildFileName(instance.getInstanceName(), "redis-export." + extension);
-
-            return new ExportFile(content.getBytes(StandardCharsets.UTF_8), filename, mediaType);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to export Redis database: " + e.getMessage(), e);
+            if (json != null) {
+                json.writeEndArray();
+                json.close();
+            }
+        } catch (JedisException e) {
+            throw new IOException("Failed to export Redis database: " + e.getMessage(), e);
         }
     }
 
-    private String exportSqlTable(Connection conn, String table, ExportContext context) throws SQLException, JsonProcessingException {
+    private void writeSqlTable(Connection conn, String table, ExportContext context, OutputStream out) throws SQLException, IOException {
         String query = "SELECT * FROM " + table;
         if (context.limit() > 0) {
             query += " LIMIT " + context.limit();
         }
 
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery(query)) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                if ("parquet".equals(context.format())) {
+                    try (ParquetWriter parquet = new ParquetWriter(out, ParquetWriter.columnsFor(metaData),
+                            context.compression().parquetCodec, parquetRowGroupRows, parquetRowGroupBytes)) {
+                        while (rs.next()) {
+                            parquet.writeRow(rs);
+                            context.rows().increment();
+                        }
+                    }
+                    return;
+                }
 
-            ResultSetMetaData metaData = rs.getMetaData();
-            return switch (context.format()) {
-                case "json" -> resultSetToJson(rs, metaData);
-                case "sql" -> resultSetToInsertStatements(table, rs, metaData, context.includeSchema());
-                default -> resultSetToCsv(rs, metaData, context.includeHeaders());
-            };
+                try (Writer writer = new BufferedWriter(new OutputStreamWriter(context.compression().wrap(out), StandardCharsets.UTF_8))) {
+                    switch (context.format()) {
+                        case "json" -> resultSetToJson(rs, metaData, context.rows(), writer);
+                        case "sql" -> resultSetToSql(table, rs, metaData, context, writer);
+                        case "ndjson" -> resultSetToNdjson(rs, metaData, context.rows(), writer);
+                        default -> resultSetToCsv(rs, metaData, context.includeHeaders(), context.rows(), writer);
+                    }
+                }
+            }
         }
     }
 
-    private String exportMongoCollection(MongoDatabase database, String collectionName, ExportContext context) throws JsonProcessingException {
-        MongoCollection<Document> collection = database.getCollection(collectionName);
-        FindIterable<Document> iterable = collection.find();
-        if (context.limit() > 0) {
-            iterable = iterable.limit(context.limit());
+    private void writeMongoCollection(DatabaseInstance instance, MongoDatabase database, String collectionName,
+                                      ExportContext context, OutputStream out) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(context.compression().wrap(out), StandardCharsets.UTF_8))) {
+            MongoCollection<Document> collection = database.getCollection(collectionName);
+            switch (context.format()) {
+                case "ndjson" -> {
+                    for (Document document : findForExport(collection, context)) {
+                        writer.write(document.toJson());
+                        writer.write("\n");
+                        context.rows().increment();
+                    }
+                }
+                case "csv" -> writeMongoCsv(instance, collection, context, writer);
+                default -> writeMongoJson(collection, context, writer);
+            }
+        } catch (MongoException e) {
+            throw new IOException("Failed to export MongoDB database: " + e.getMessage(), e);
         }
+    }
 
-        List<Document> documents = new ArrayList<>();
-        iterable.into(documents);
+    private FindIterable<Document> findForExport(MongoCollection<Document> collection, ExportContext context) {
+        FindIterable<Document> iterable = collection.find().batchSize(FETCH_SIZE);
+        return context.limit() > 0 ? iterable.limit(context.limit()) : iterable;
+    }
 
-        if (documents.isEmpty()) {
-            return "json".equals(context.format()) ? "[]" : "";
+    private void writeMongoJson(MongoCollection<Document> collection, ExportContext context, Writer writer) throws IOException {
+        try (JsonGenerator json = jsonGenerator(writer)) {
+            json.writeStartArray();
+            for (Document document : findForExport(collection, context)) {
+                json.writeObject(document);
+                context.rows().increment();
+            }
+            json.writeEndArray();
+        }
+    }
+
+    /**
+     * CSV needs its header before the first row. The exact set of top-level fields is collected
+     * server side, so documents then stream one at a time instead of being held to find them all.
+     */
+    private void writeMongoCsv(DatabaseInstance instance, MongoCollection<Document> collection, ExportContext context,
+                               Writer writer) throws IOException {
+        List<String> columns = mongoCsvColumns(instance, collection, context);
+        if (columns.isEmpty()) {
+            return;
+        }
+        if (context.includeHeaders()) {
+            writeCsvLine(writer, columns);
+        }
+        List<String> values = new ArrayList<>(columns.size());
+        for (Document document : findForExport(collection, context)) {
+            values.clear();
+            for (String column : columns) {
+                values.add(stringifyMongoValue(document.get(column)));
+            }
+            writeCsvLine(writer, values);
+            context.rows().increment();
+        }
+    }
+
+    /**
+     * Top-level fields of the exported documents: those the sampled schema knows in the order it
+     * saw them, then any others alphabetically.
+     */
+    private List<String> mongoCsvColumns(DatabaseInstance instance, MongoCollection<Document> collection,
+                                         ExportContext context) {
+        List<Bson> pipeline = new ArrayList<>();
+        if (context.limit() > 0) {
+            pipeline.add(Aggregates.limit(context.limit()));
+        }
+        pipeline.add(Aggregates.project(new Document("_id", 0).append("keys",
+                new Document("$map", new Document("input", new Document("$objectToArray", "$$ROOT")).append("in", "$$this.k")))));
+        pipeline.add(Aggregates.unwind("$keys"));
+        pipeline.add(Aggregates.group("$keys"));
+
+        Set<String> keys = new TreeSet<>();
+        for (Document key : collection.aggregate(pipeline).allowDiskUse(true)) {
+            keys.add(key.getString("_id"));
         }
 
-        if ("json".equals(context.format())) {
-            return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(documents);
+        List<String> columns = new ArrayList<>(keys.size());
+        for (String field : mongoSchemaService.getTopLevelFields(instance, collection.getNamespace().getCollectionName())) {
+            if (keys.remove(field)) {
+                columns.add(field);
+            }
         }
+        columns.addAll(keys);
+        return columns;
+    }
 
-        return documentsToCsv(documents, context.includeHeaders());
+    private void writeCsvLine(Writer writer, List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values.get(i)));
+        }
+        writer.write('\n');
     }
 
     private List<String> resolveSqlTables(DatabaseInstance instance, ExportRequest request) {
-        SchemaInfo schema = schemaIntrospectionService.getSchema(instance.getId());
-        List<String> availableTables = schema.getTables().stream()
-                .map(SchemaInfo.TableInfo::getName)
-                .toList();
+        List<String> availableTables = schemaIntrospectionService.getTableNames(instance);
 
         if (request.getTables() == null || request.getTables().isEmpty()) {
             return availableTables;
@@ -267,13 +647,13 @@ public class ExportService {
                 .toList();
     }
 
-    private List<String> resolveMongoCollections(DatabaseInstance instance, String connectionString, ExportRequest request) {
+    private List<String> resolveMongoCollections(DatabaseInstance instance, ExportRequest request) {
         if (request.getTables() != null && !request.getTables().isEmpty()) {
             return request.getTables();
         }
 
-        try (MongoClient client = MongoClients.create(connectionString)) {
-            MongoDatabase database = client.getDatabase(instance.getDatabaseName());
+        try {
+            MongoDatabase database = connectionPoolService.getMongoClient(instance).getDatabase(instance.getDatabaseName());
             return database.listCollectionNames().into(new ArrayList<>());
         } catch (Exception e) {
             log.error("Failed to resolve MongoDB collections: {}", e.getMessage());
@@ -281,127 +661,233 @@ public class ExportService {
         }
     }
 
-    private String buildJdbcUrl(DatabaseInstance instance) {
-        String host = "localhost";
-        String port = String.valueOf(instance.getPort());
-        String database = instance.getDatabaseName();
-        String dbType = instance.getDatabaseType().getName().toLowerCase();
-
-        return switch (dbType) {
-            case "postgresql" -> String.format("jdbc:postgresql://%s:%s/%s", host, port, database);
-            case "mysql", "mariadb" -> String.format("jdbc:mysql://%s:%s/%s?allowPublicKeyRetrieval=true&useSSL=false", host, port, database);
-            default -> throw new RuntimeException("Unsupported database type: " + dbType);
-        };
-    }
-
-    private String resultSetToJson(ResultSet rs, ResultSetMetaData metaData) throws SQLException, JsonProcessingException {
-        List<Map<String, Object>> rows = new ArrayList<>();
+    void resultSetToJson(ResultSet rs, ResultSetMetaData metaData, LongAdder rowCount, Writer out) throws SQLException, IOException {
         int columnCount = metaData.getColumnCount();
-
-        while (rs.next()) {
-            Map<String, Object> row = new LinkedHashMap<>();
-            for (int i = 1; i <= columnCount; i++) {
-                row.put(metaData.getColumnLabel(i), rs.getObject(i));
+        try (JsonGenerator json = jsonGenerator(out)) {
+            json.writeStartArray();
+            while (rs.next()) {
+                json.writeStartObject();
+                for (int i = 1; i <= columnCount; i++) {
+                    json.writeObjectField(metaData.getColumnLabel(i), rs.getObject(i));
+                }
+                json.writeEndObject();
+                rowCount.increment();
             }
-            rows.add(row);
+            json.writeEndArray();
         }
+    }
 
-        return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(rows);
+    /**
+     * Pretty-printed JSON written to {@code out} as it is generated; closing it flushes but leaves
+     * {@code out} open.
+     */
+    private static JsonGenerator jsonGenerator(Writer out) throws IOException {
+        JsonGenerator json = OBJECT_MAPPER.createGenerator(out).useDefaultPrettyPrinter();
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return json;
     }
 
-    private String resultSetToInsertStatements(String table, ResultSet rs, ResultSetMetaData metaData, boolean includeSchema) throws SQLException {
-        StringBuilder sb = new StringBuilder();
+    /**
+     * SQL dump of a table: multi-row INSERTs of {@code insertBatchSize} rows (also capped at
+     * about 1 MB per statement to stay under max_allowed_packet), or a Postgres COPY block.
+     */
+    void resultSetToSql(String table, ResultSet rs, ResultSetMetaData metaData, ExportContext context,
+                         Writer out) throws SQLException, IOException {
         int columnCount = metaData.getColumnCount();
 
-        if (includeSchema) {
-            sb.append("-- Schema for ").append(table).append("\n");
+        if (context.includeSchema()) {
+            out.write("-- Schema for " + table + "\n");
             for (int i = 1; i <= columnCount; i++) {
-                sb.append("-- ").append(metaData.getColumnLabel(i))
-                        .append(" ")
-                        .append(metaData.getColumnTypeName(i));
-                sb.append(metaData.isNullable(i) == ResultSetMetaData.columnNullable ? " NULL" : " NOT NULL");
-                sb.append("\n");
+                out.write("-- " + metaData.getColumnLabel(i) + " " + metaData.getColumnTypeName(i)
+                        + (metaData.isNullable(i) == ResultSetMetaData.columnNullable ? " NULL" : " NOT NULL") + "\n");
             }
-            sb.append("\n");
+            out.write("\n");
         }
 
         List<String> columns = new ArrayList<>();
         for (int i = 1; i <= columnCount; i++) {
-            columns.add(metaData.getColumnLabel(i));
+            columns.add(quoteIdentifier(metaData.getColumnLabel(i), context.dialect()));
+        }
+        String target = quoteIdentifier(table, context.dialect()) + " (" + String.join(", ", columns) + ")";
+
+        if (context.copy()) {
+            out.write("COPY " + target + " FROM stdin;\n");
+            while (rs.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    if (i > 1) out.write('\t');
+                    out.write(copyValue(rs, metaData, i));
+                }
+                out.write('\n');
+                context.rows().increment();
+            }
+            out.write("\\.\n");
+            return;
         }
 
+        StringBuilder statement = new StringBuilder();
+        int rows = 0;
         while (rs.next()) {
-            sb.append("INSERT INTO ").append(table)
-                    .append(" (")
-                    .append(String.join(", ", columns))
-                    .append(") VALUES (");
-
+            statement.append(rows == 0 ? "INSERT INTO " + target + " VALUES\n(" : ",\n(");
             for (int i = 1; i <= columnCount; i++) {
-                sb.append(formatSqlValue(rs.getObject(i)));
-                if (i < columnCount) {
-                    sb.append(", ");
+                if (i > 1) statement.append(", ");
+                statement.append(sqlLiteral(rs, metaData, i, context.dialect()));
+            }
+            statement.append(')');
+            context.rows().increment();
+            if (++rows == context.insertBatchSize() || statement.length() >= MAX_INSERT_CHARS) {
+                out.append(statement).append(";\n");
+                statement.setLength(0);
+                rows = 0;
+            }
+        }
+        if (rows > 0) {
+            out.append(statement).append(";\n");
+        }
+    }
+
+    /**
+     * Literal for one column value, typed by the JDBC column type rather than toString().
+     */
+    private String sqlLiteral(ResultSet rs, ResultSetMetaData metaData, int column, String dialect) throws SQLException {
+        boolean postgres = "postgres".equals(dialect);
+        if (postgres && isBitString(metaData, column)) {
+            // bit(n) and varbit take B'0101'; a bytea or boolean literal does not cast to them
+            String value = rs.getString(column);
+            return value == null ? "NULL" : "B'" + value + "'";
+        }
+        switch (metaData.getColumnType(column)) {
+            case Types.BOOLEAN, Types.BIT -> {
+                // MySQL BIT(n)
+                if (metaData.getPrecision(column) > 1) {
+                    return binaryLiteral(rs.getBytes(column), postgres);
+                }
+                boolean value = rs.getBoolean(column);
+                return rs.wasNull() ? "NULL" : postgres ? (value ? "TRUE" : "FALSE") : (value ? "1" : "0");
+            }
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT, Types.NUMERIC, Types.DECIMAL -> {
+                String value = rs.getString(column);
+                // Postgres numeric can hold NaN, which only parses quoted
+                return value == null ? "NULL" : "NaN".equals(value) ? "'NaN'" : value;
+            }
+            case Types.REAL, Types.FLOAT, Types.DOUBLE -> {
+                double value = rs.getDouble(column);
+                if (rs.wasNull()) {
+                    return "NULL";
                 }
+                if (Double.isNaN(value) || Double.isInfinite(value)) {
+                    // Only Postgres has non-finite floats
+                    return postgres ? "'" + (Double.isNaN(value) ? "NaN" : value > 0 ? "Infinity" : "-Infinity") + "'" : "NULL";
+                }
+                return metaData.getColumnType(column) == Types.REAL ? Float.toString((float) value) : Double.toString(value);
+            }
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> {
+                return binaryLiteral(rs.getBytes(column), postgres);
+            }
+            default -> {
+                // Temporal values use the driver's text form, which is exact and time zone independent
+                String value = rs.getString(column);
+                return value == null ? "NULL" : stringLiteral(value, postgres);
             }
-            sb.append(");\n");
         }
+    }
 
-        return sb.toString();
+    /**
+     * PostgreSQL bit(n) or varbit column; the driver reports bit(n) like boolean, as {@link Types#BIT}.
+     */
+    private boolean isBitString(ResultSetMetaData metaData, int column) throws SQLException {
+        String typeName = metaData.getColumnTypeName(column);
+        return "bit".equalsIgnoreCase(typeName) || "varbit".equalsIgnoreCase(typeName);
     }
 
-    private String resultSetToCsv(ResultSet rs, ResultSetMetaData metaData, boolean includeHeaders) throws SQLException {
-        StringBuilder sb = new StringBuilder();
-        int columnCount = metaData.getColumnCount();
+    private String binaryLiteral(byte[] value, boolean postgres) {
+        if (value == null) {
+            return "NULL";
+        }
+        String hex = HexFormat.of().formatHex(value);
+        return postgres ? "'\\x" + hex + "'::bytea" : "X'" + hex + "'";
+    }
 
-        if (includeHeaders) {
-            for (int i = 1; i <= columnCount; i++) {
-                sb.append(escapeCsv(metaData.getColumnLabel(i)));
-                if (i < columnCount) sb.append(",");
-            }
-            sb.append("\n");
+    private String stringLiteral(String value, boolean postgres) {
+        String escaped = value.replace("'", "''");
+        if (!postgres) {
+            // MySQL treats backslashes in string literals as escapes
+            escaped = escaped.replace("\\", "\\\\").replace("\0", "\\0");
         }
+        return "'" + escaped + "'";
+    }
 
-        while (rs.next()) {
-            for (int i = 1; i <= columnCount; i++) {
-                sb.append(escapeCsv(rs.getObject(i)));
-                if (i < columnCount) sb.append(",");
+    /**
+     * Value in COPY text format: tab separated, \N for NULL, backslash escapes.
+     */
+    private String copyValue(ResultSet rs, ResultSetMetaData metaData, int column) throws SQLException {
+        String value;
+        switch (isBitString(metaData, column) ? Types.OTHER : metaData.getColumnType(column)) {
+            case Types.BOOLEAN, Types.BIT -> {
+                boolean bool = rs.getBoolean(column);
+                value = rs.wasNull() ? null : bool ? "t" : "f";
+            }
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> {
+                byte[] bytes = rs.getBytes(column);
+                value = bytes == null ? null : "\\x" + HexFormat.of().formatHex(bytes);
             }
-            sb.append("\n");
+            default -> value = rs.getString(column);
         }
-
-        return sb.toString();
+        if (value == null) {
+            return "\\N";
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
     }
 
-    private String documentsToCsv(List<Document> documents, boolean includeHeaders) {
-        Set<String> columns = new LinkedHashSet<>();
-        documents.forEach(doc -> columns.addAll(doc.keySet()));
+    private String quoteIdentifier(String identifier, String dialect) {
+        return "postgres".equals(dialect)
+                ? "\"" + identifier.replace("\"", "\"\"") + "\""
+                : "`" + identifier.replace("`", "``") + "`";
+    }
 
-        StringBuilder sb = new StringBuilder();
+    void resultSetToCsv(ResultSet rs, ResultSetMetaData metaData, boolean includeHeaders, LongAdder rows,
+                        Writer out) throws SQLException, IOException {
+        int columnCount = metaData.getColumnCount();
 
         if (includeHeaders) {
-            int idx = 0;
-            for (String col : columns) {
-                sb.append(escapeCsv(col));
-                if (idx < columns.size() - 1) {
-                    sb.append(",");
-                }
-                idx++;
+            for (int i = 1; i <= columnCount; i++) {
+                out.write(escapeCsv(metaData.getColumnLabel(i)));
+                if (i < columnCount) out.write(",");
             }
-            sb.append("\n");
+            out.write("\n");
         }
 
-        for (Document doc : documents) {
-            int idx = 0;
-            for (String col : columns) {
-                sb.append(escapeCsv(stringifyMongoValue(doc.get(col))));
-                if (idx < columns.size() - 1) {
-                    sb.append(",");
-                }
-                idx++;
+        while (rs.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                out.write(escapeCsv(rs.getObject(i)));
+                if (i < columnCount) out.write(",");
             }
-            sb.append("\n");
+            out.write("\n");
+            rows.increment();
         }
+    }
 
-        return sb.toString();
+    void resultSetToNdjson(ResultSet rs, ResultSetMetaData metaData, LongAdder rows, Writer out) throws SQLException, IOException {
+        int columnCount = metaData.getColumnCount();
+        Map<String, Object> row = new LinkedHashMap<>();
+        while (rs.next()) {
+            for (int i = 1; i <= columnCount; i++) {
+                row.put(metaData.getColumnLabel(i), rs.getObject(i));
+            }
+            out.write(OBJECT_MAPPER.writeValueAsString(row));
+            out.write("\n");
+            rows.increment();
+        }
     }
 
     private Map<String, Object> readRedisEntry(Jedis jedis, String key) {
@@ -431,28 +917,6 @@ public class ExportService {
         return entry;
     }
 
-    private String writeRedisJson(List<Map<String, Object>> entries) throws JsonProcessingException {
-        return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(entries);
-    }
-
-    private String writeRedisCsv(List<Map<String, Object>> entries, boolean includeHeaders) throws JsonProcessingException {
-        StringBuilder sb = new StringBuilder();
-        if (includeHeaders) {
-            sb.append("key,type,value\n");
-        }
-
-        for (Map<String, Object> entry : entries) {
-            sb.append(escapeCsv(entry.get("key")))
-                    .append(",")
-                    .append(escapeCsv(entry.get("type")))
-                    .append(",")
-                    .append(escapeCsv(stringifyValue(entry.get("value"))))
-                    .append("\n");
-        }
-
-        return sb.toString();
-    }
-
     private String stringifyValue(Object value) throws JsonProcessingException {
         if (value == null) return "";
         if (value instanceof Collection || value instanceof Map) {
@@ -476,17 +940,6 @@ public class ExportService {
         return String.valueOf(value);
     }
 
-    private String formatSqlValue(Object value) {
-        if (value == null) {
-            return "NULL";
-        }
-        if (value instanceof Number || value instanceof Boolean) {
-            return value.toString();
-        }
-        String escaped = value.toString().replace("'", "''");
-        return "'" + escaped + "'";
-    }
-
     private String escapeCsv(Object raw) {
         if (raw == null) return "";
         String value = raw.toString();
@@ -497,10 +950,10 @@ public class ExportService {
         return value;
     }
 
-    private void addZipEntry(ZipOutputStream zos, String name, String content) throws IOException {
+    private void addZipEntry(ZipOutputStream zos, String name, Path content) throws IOException {
         ZipEntry entry = new ZipEntry(name);
         zos.putNextEntry(entry);
-        zos.write(content.getBytes(StandardCharsets.UTF_8));
+        Files.copy(content, zos);
         zos.closeEntry();
     }
 
@@ -518,9 +971,87 @@ public class ExportService {
         return format.toLowerCase();
     }
 
-    public record ExportFile(byte[] data, String filename, MediaType contentType) {
+    public record ExportFile(ExportBody body, String filename, MediaType contentType) {
+    }
+
+    /**
+     * Writes the export to the response; runs after the headers are sent, so validation happens
+     * before an {@link ExportFile} is handed out.
+     */
+    @FunctionalInterface
+    public interface ExportBody {
+        void writeTo(OutputStream out) throws IOException;
     }
 
-    private record ExportContext(String format, boolean includeSchema, boolean includeHeaders, int limit) {
+    @FunctionalInterface
+    private interface TableWriter {
+        void write(String table, Path spool) throws IOException;
+    }
+
+    record ExportContext(String format, Compression compression, boolean includeSchema,
+                         boolean includeHeaders, int limit, String dialect, int insertBatchSize, boolean copy,
+                         LongAdder rows) {
+
+        private String extension() {
+            String base = switch (format) {
+                case "json", "sql", "ndjson" -> format;
+                case "parquet" -> "parquet";
+                default -> "csv";
+            };
+            // Parquet compresses its pages itself
+            return "parquet".equals(format) ? base : base + compression.extension;
+        }
+
+        private MediaType mediaType() {
+            if ("parquet".equals(format)) {
+                return MediaType.APPLICATION_OCTET_STREAM;
+            }
+            if (compression != Compression.NONE) {
+                return compression.mediaType;
+            }
+            return switch (format) {
+                case "json" -> MediaType.APPLICATION_JSON;
+                case "sql" -> MediaType.TEXT_PLAIN;
+                case "ndjson" -> MediaType.APPLICATION_NDJSON;
+                default -> new MediaType("text", "csv");
+            };
+        }
+
+        private boolean compressed() {
+            return compression != Compression.NONE || "parquet".equals(format);
+        }
+    }
+
+    /**
+     * Compression selected by a format suffix, e.g. {@code csv.gz} or {@code ndjson.zst}.
+     */
+    enum Compression {
+        NONE(List.of(), "", MediaType.APPLICATION_OCTET_STREAM, ParquetWriter.Codec.ZSTD),
+        GZIP(List.of(".gz", ".gzip"), ".gz", MediaType.parseMediaType("application/gzip"), ParquetWriter.Codec.GZIP),
+        ZSTD(List.of(".zst", ".zstd"), ".zst", MediaType.parseMediaType("application/zstd"), ParquetWriter.Codec.ZSTD);
+
+        private final List<String> suffixes;
+        private final String extension;
+        private final MediaType mediaType;
+        private final ParquetWriter.Codec parquetCodec;
+
+        Compression(List<String> suffixes, String extension, MediaType mediaType, ParquetWriter.Codec parquetCodec) {
+            this.suffixes = suffixes;
+            this.extension = extension;
+            this.mediaType = mediaType;
+            this.parquetCodec = parquetCodec;
+        }
+
+        /**
+         * Compressing view of {@code out}; closing it finishes the stream but leaves {@code out} open.
+         */
+        private OutputStream wrap(OutputStream out) throws IOException {
+            OutputStream target = StreamUtils.nonClosing(out);
+            return switch (this) {
+                case NONE -> target;
+                case GZIP -> new GZIPOutputStream(target, 64 * 1024);
+                case ZSTD -> new ZstdOutputStream(target);
+            };
+        }
     }
 }
@@ -0,0 +1,319 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.model.DatabaseInstance.InstanceStatus;
+import com.dbforge.dbforge.model.User;
+import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import com.dbforge.dbforge.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.clients.jedis.Jedis;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stops running instances that have seen no queries and no client connections for longer than
+ * their owner's tier allows, and starts them again transparently on the next query.
+ * Suspended instances are STOPPED with {@code suspendedAt} set, so explicit user stops are
+ * never undone by a query.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class IdleSuspendService {
+
+    private final DatabaseInstanceRepository instanceRepository;
+    private final UserRepository userRepository;
+    private final DockerService dockerService;
+    private final ConnectionPoolService connectionPoolService;
+    private final AuditLogService auditLogService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${idle.suspend.enabled:true}")
+    private boolean enabled;
+
+    @Value("${idle.suspend.free-minutes:30}")
+    private long freeIdleMinutes;
+
+    @Value("${idle.suspend.pro-minutes:240}")
+    private long proIdleMinutes;
+
+    @Value("${idle.suspend.business-minutes:0}")
+    private long businessIdleMinutes;
+
+    @Value("${idle.wake.timeout-ms:60000}")
+    private long wakeTimeoutMs;
+
+    @Value("${resource.max.active.instances:8}")
+    private int maxActiveInstances;
+
+    // Written on every query, flushed to last_activity_at by the idle check
+    private final Map<Long, LocalDateTime> recentActivity = new ConcurrentHashMap<>();
+    private final Map<Long, Object> instanceLocks = new ConcurrentHashMap<>();
+
+    /**
+     * Record activity for an instance and, if it was suspended for being idle, start it and
+     * wait until it accepts connections. Returns the instance as it should be queried.
+     */
+    public DatabaseInstance ensureAwake(DatabaseInstance instance) {
+        recentActivity.put(instance.getId(), LocalDateTime.now());
+        if (instance.getStatus() == InstanceStatus.RUNNING || instance.getSuspendedAt() == null) {
+            return instance;
+        }
+
+        synchronized (lockFor(instance.getId())) {
+            // Another request may have woken it while this one waited for the lock
+            DatabaseInstance current = instanceRepository.findById(instance.getId()).orElse(instance);
+            if (current.getStatus() != InstanceStatus.STOPPED || current.getSuspendedAt() == null) {
+                return current;
+            }
+
+            if (instanceRepository.countRunningInstances() >= maxActiveInstances) {
+                throw new RuntimeException("Database is suspended and the host is at capacity, try again shortly");
+            }
+
+            log.info("Waking up suspended instance {}", current.getInstanceName());
+            long start = System.currentTimeMillis();
+            dockerService.startContainer(current);
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status ->
+                    instanceRepository.markResumed(current.getId(), now, InstanceStatus.RUNNING));
+            current.setStatus(InstanceStatus.RUNNING);
+            current.setStartedAt(now);
+            current.setSuspendedAt(null);
+
+            awaitReady(current);
+            auditLogService.logSuccess(current.getUserId(), "DATABASE_STARTED", "DATABASE", current.getId(),
+                    current.getInstanceName(), "Woken up by query after " + (System.currentTimeMillis() - start) + " ms");
+            return current;
+        }
+    }
+
+    /**
+     * Persist recorded activity and suspend instances idle past their tier's threshold.
+     */
+    @Scheduled(initialDelayString = "${idle.suspend.initial-delay-ms:60000}",
+               fixedDelayString = "${idle.suspend.check-ms:60000}")
+    public void suspendIdleInstances() {
+        flushActivity();
+        if (!enabled) {
+            return;
+        }
+
+        List<DatabaseInstance> running = instanceRepository.findByStatus(InstanceStatus.RUNNING);
+        if (running.isEmpty()) {
+            return;
+        }
+
+        Set<Long> ownerIds = new HashSet<>();
+        running.forEach(instance -> ownerIds.add(instance.getUserId()));
+        Map<Long, User.SubscriptionTier> tiers = new HashMap<>();
+        userRepository.findAllById(ownerIds).forEach(user -> tiers.put(user.getId(), user.getSubscriptionTier()));
+
+        LocalDateTime now = LocalDateTime.now();
+        for (DatabaseInstance instance : running) {
+            long idleMinutes = idleThresholdMinutes(tiers.getOrDefault(instance.getUserId(), User.SubscriptionTier.FREE));
+            if (idleMinutes <= 0 || instance.getContainerId() == null) {
+                continue;
+            }
+
+            LocalDateTime lastActive = lastActivity(instance);
+            if (lastActive.isAfter(now.minusMinutes(idleMinutes))) {
+                continue;
+            }
+
+            // Clients connected straight to the port count as activity even without API queries
+            if (countExternalClients(instance) != 0) {
+                recentActivity.merge(instance.getId(), now, (a, b) -> a.isAfter(b) ? a : b);
+                continue;
+            }
+
+            suspend(instance, Duration.between(lastActive, now).toMinutes());
+        }
+    }
+
+    private void suspend(DatabaseInstance instance, long idleMinutes) {
+        synchronized (lockFor(instance.getId())) {
+            // A query may have arrived since the check started
+            LocalDateTime recent = recentActivity.get(instance.getId());
+            if (recent != null && recent.isAfter(LocalDateTime.now().minusMinutes(1))) {
+                return;
+            }
+
+            try {
+                dockerService.stopContainer(instance);
+            } catch (Exception e) {
+                log.warn("Failed to suspend instance {}: {}", instance.getInstanceName(), e.getMessage());
+                return;
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status ->
+                    instanceRepository.markSuspended(instance.getId(), now, InstanceStatus.STOPPED,
+                            // The die event may already have been reconciled: STOPPED, or ERROR when the
+                            // stop timed out and the container was killed (exit code 137)
+                            List.of(InstanceStatus.RUNNING, InstanceStatus.STOPPED, InstanceStatus.ERROR)));
+            connectionPoolService.invalidate(instance.getId());
+
+            log.info("Suspended instance {} after {} idle minutes", instance.getInstanceName(), idleMinutes);
+            auditLogService.logSuccess(instance.getUserId(), "DATABASE_STOPPED", "DATABASE", instance.getId(),
+                    instance.getInstanceName(), "Suspended after " + idleMinutes + " idle minutes");
+        }
+    }
+
+    private void flushActivity() {
+        if (recentActivity.isEmpty()) {
+            return;
+        }
+        Map<Long, LocalDateTime> batch = new HashMap<>();
+        for (Long instanceId : new ArrayList<>(recentActivity.keySet())) {
+            LocalDateTime at = recentActivity.remove(instanceId);
+            if (at != null) {
+                batch.put(instanceId, at);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                batch.forEach(instanceRepository::updateLastActivity));
+    }
+
+    private LocalDateTime lastActivity(DatabaseInstance instance) {
+        LocalDateTime last = instance.getCreatedAt() != null ? instance.getCreatedAt() : LocalDateTime.now();
+        for (LocalDateTime candidate : new LocalDateTime[]{
+                instance.getStartedAt(), instance.getLastActivityAt(), recentActivity.get(instance.getId())}) {
+            if (candidate != null && candidate.isAfter(last)) {
+                last = candidate;
+            }
+        }
+        return last;
+    }
+
+    private long idleThresholdMinutes(User.SubscriptionTier tier) {
+        return switch (tier) {
+            case FREE -> freeIdleMinutes;
+            case PRO -> proIdleMinutes;
+            case BUSINESS -> businessIdleMinutes;
+        };
+    }
+
+    /**
+     * Sessions open on the instance that are not ours. Returns -1 when the instance could not be
+     * asked, which keeps it running.
+     */
+    private int countExternalClients(DatabaseInstance instance) {
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
+        try {
+            return switch (dbType) {
+                case "postgresql", "postgres" -> countSqlSessions(instance,
+                        "SELECT COUNT(*) FROM pg_stat_activity WHERE backend_type = 'client backend' " +
+                        "AND COALESCE(application_name, '') <> '" + ConnectionPoolService.CLIENT_NAME + "'", false);
+                case "mysql", "mariadb" -> countSqlSessions(instance,
+                        "SELECT COUNT(*) FROM information_schema.PROCESSLIST " +
+                        "WHERE COMMAND NOT IN ('Daemon', 'Binlog Dump') AND USER NOT IN ('event_scheduler', 'system user')", true);
+                case "mongodb" -> countMongoClients(instance);
+                case "redis" -> countRedisClients(instance);
+                default -> -1;
+            };
+        } catch (Exception e) {
+            log.debug("Could not count clients of {}: {}", instance.getInstanceName(), e.getMessage());
+            return -1;
+        }
+    }
+
+    private int countSqlSessions(DatabaseInstance instance, String sql, boolean includesOwnPool) throws SQLException {
+        try (Connection conn = connectionPoolService.getConnection(instance);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            int sessions = rs.getInt(1);
+            // MySQL has no portable client name, so subtract the connections our pool holds
+            return includesOwnPool
+                    ? Math.max(0, sessions - connectionPoolService.getOpenJdbcConnections(instance.getId()))
+                    : sessions;
+        }
+    }
+
+    private int countMongoClients(DatabaseInstance instance) {
+        Document result = connectionPoolService.getMongoClient(instance)
+                .getDatabase("admin")
+                .runCommand(new Document("currentOp", 1).append("$all", true));
+        int clients = 0;
+        for (Document op : result.getList("inprog", Document.class, List.of())) {
+            if (op.containsKey("client") && !ConnectionPoolService.CLIENT_NAME.equals(op.getString("appName"))) {
+                clients++;
+            }
+        }
+        return clients;
+    }
+
+    private int countRedisClients(DatabaseInstance instance) {
+        try (Jedis jedis = connectionPoolService.getJedisPool(instance).getResource()) {
+            int clients = 0;
+            for (String line : jedis.clientList().split("\r?\n")) {
+                if (!line.isBlank() && !line.contains(" name=" + ConnectionPoolService.CLIENT_NAME + " ")) {
+                    clients++;
+                }
+            }
+            return clients;
+        }
+    }
+
+    /**
+     * Block until the instance answers a ping, up to the wake-up timeout.
+     */
+    public void awaitReady(DatabaseInstance instance) {
+        long deadline = System.currentTimeMillis() + wakeTimeoutMs;
+        String lastError = null;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                if (ping(instance)) {
+                    return;
+                }
+            } catch (Exception e) {
+                lastError = e.getMessage();
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new RuntimeException("Database did not become ready" + (lastError != null ? ": " + lastError : ""));
+    }
+
+    private boolean ping(DatabaseInstance instance) throws SQLException {
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
+        return switch (dbType) {
+            case "mongodb" -> {
+                connectionPoolService.getMongoClient(instance).getDatabase("admin").runCommand(new Document("ping", 1));
+                yield true;
+            }
+            case "redis" -> {
+                try (Jedis jedis = connectionPoolService.getJedisPool(instance).getResource()) {
+                    yield "PONG".equalsIgnoreCase(jedis.ping());
+                }
+            }
+            default -> {
+                try (Connection conn = connectionPoolService.getConnection(instance)) {
+                    yield conn.isValid(2);
+                }
+            }
+        };
+    }
+
+    private Object lockFor(Long instanceId) {
+        return instanceLocks.computeIfAbsent(instanceId, id -> new Object());
+    }
+}
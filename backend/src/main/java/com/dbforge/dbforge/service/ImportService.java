@@ -0,0 +1,658 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.dto.ImportStatus;
+import com.dbforge.dbforge.dto.SchemaInfo;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.InsertManyOptions;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Streams CSV or NDJSON uploads into an instance through each engine's bulk path: COPY FROM
+ * STDIN on Postgres, batched multi-row INSERTs on MySQL/MariaDB, unordered insertMany on
+ * MongoDB and pipelined writes on Redis. Input is consumed in chunks and never held whole;
+ * progress of running and recent imports is kept in memory.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ImportService {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Pattern INTEGER = Pattern.compile("-?(0|[1-9]\\d{0,17})");
+    private static final Pattern DECIMAL = Pattern.compile("-?\\d+\\.\\d+([eE][-+]?\\d+)?");
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    private final SchemaIntrospectionService schemaIntrospectionService;
+    private final ConnectionPoolService connectionPoolService;
+    private final AuditLogService auditLogService;
+
+    @Value("${import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${import.status-retention-minutes:60}")
+    private long statusRetentionMinutes;
+
+    private final Map<String, ImportProgress> imports = new ConcurrentHashMap<>();
+
+    /**
+     * Import {@code body} into {@code target} (table or collection; ignored for Redis) and
+     * return the final status. The upload is read once, front to back.
+     */
+    public ImportStatus importData(DatabaseInstance instance, Long userId, String target, String format,
+                                   boolean header, InputStream body) {
+        if (instance.getStatus() != DatabaseInstance.InstanceStatus.RUNNING) {
+            throw new RuntimeException("Database instance is not running");
+        }
+        String normalizedFormat = format == null || format.isBlank() ? "csv" : format.toLowerCase();
+        if (!normalizedFormat.equals("csv") && !normalizedFormat.equals("ndjson")) {
+            throw new RuntimeException("Unsupported import format: " + format);
+        }
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
+        if (!dbType.equals("redis") && (target == null || target.isBlank())) {
+            throw new RuntimeException("A target table or collection is required");
+        }
+
+        pruneFinished();
+        ImportProgress progress = new ImportProgress(UUID.randomUUID().toString(), instance.getId(), target, normalizedFormat);
+        imports.put(progress.id, progress);
+        InputStream in = new CountingInputStream(body, progress.bytesRead);
+
+        try {
+            switch (dbType) {
+                case "postgresql", "postgres" -> importPostgres(instance, target, normalizedFormat, header, in, progress);
+                case "mysql", "mariadb" -> importMySql(instance, target, normalizedFormat, header, in, progress);
+                case "mongodb" -> importMongo(instance, target, normalizedFormat, header, in, progress);
+                case "redis" -> importRedis(instance, normalizedFormat, header, in, progress);
+                default -> throw new RuntimeException("Import is not supported for " + dbType);
+            }
+            progress.finish("COMPLETED", null);
+            log.info("Imported {} rows ({} bytes) into {} of instance {}", progress.rowsImported.get(),
+                    progress.bytesRead.get(), target, instance.getInstanceName());
+            auditLogService.logSuccess(userId, "DATA_IMPORTED", "DATABASE", instance.getId(), instance.getInstanceName(),
+                    "Imported " + progress.rowsImported.get() + " rows from " + normalizedFormat
+                            + (target != null ? " into " + target : ""));
+            return progress.toStatus();
+        } catch (Exception e) {
+            progress.finish("FAILED", e.getMessage());
+            auditLogService.logFailure(userId, "DATA_IMPORTED", "DATABASE", instance.getId(), instance.getInstanceName(),
+                    e.getMessage());
+            throw new RuntimeException("Import failed: " + e.getMessage(), e);
+        }
+    }
+
+    public List<ImportStatus> getImports(Long instanceId) {
+        pruneFinished();
+        return imports.values().stream()
+                .filter(progress -> progress.instanceId.equals(instanceId))
+                .sorted(Comparator.comparing((ImportProgress progress) -> progress.startedAt).reversed())
+                .map(ImportProgress::toStatus)
+                .toList();
+    }
+
+    public Optional<ImportStatus> getImport(Long instanceId, String importId) {
+        ImportProgress progress = imports.get(importId);
+        return progress != null && progress.instanceId.equals(instanceId)
+                ? Optional.of(progress.toStatus())
+                : Optional.empty();
+    }
+
+    private void importPostgres(DatabaseInstance instance, String target, String format, boolean header,
+                                InputStream in, ImportProgress progress) throws SQLException, IOException {
+        SchemaInfo.TableInfo table = resolveTable(instance, target);
+
+        try (Connection conn = connectionPoolService.getConnection(instance)) {
+            CopyManager copyManager = conn.unwrap(PGConnection.class).getCopyAPI();
+
+            if (format.equals("csv")) {
+                // Only the header is parsed here; the rows go to the server untouched
+                BufferedInputStream buffered = new BufferedInputStream(in, 64 * 1024);
+                skipByteOrderMark(buffered);
+                List<String> columns = header
+                        ? resolveColumns(table, new CsvReader(new StringReader(readLine(buffered)), ',').next())
+                        : columnNames(table);
+                String sql = "COPY " + quote("postgres", table.getName()) + " (" + quoteAll("postgres", columns)
+                        + ") FROM STDIN WITH (FORMAT csv)";
+                progress.rowsImported.set(copyManager.copyIn(sql, buffered, 64 * 1024));
+                return;
+            }
+
+            RecordSource source = ndjsonSource(in, table);
+            String sql = "COPY " + quote("postgres", table.getName()) + " (" + quoteAll("postgres", source.columns())
+                    + ") FROM STDIN WITH (FORMAT csv)";
+            CopyIn copyIn = copyManager.copyIn(sql);
+            try {
+                StringBuilder chunk = new StringBuilder(COPY_CHUNK_CHARS + 1024);
+                List<Object> record;
+                long rows = 0;
+                while ((record = source.next()) != null) {
+                    appendCopyRow(chunk, record);
+                    rows++;
+                    if (chunk.length() >= COPY_CHUNK_CHARS) {
+                        writeCopyChunk(copyIn, chunk);
+                        progress.rowsImported.set(rows);
+                    }
+                }
+                writeCopyChunk(copyIn, chunk);
+                progress.rowsImported.set(copyIn.endCopy());
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        }
+    }
+
+    private void importMySql(DatabaseInstance instance, String target, String format, boolean header,
+                             InputStream in, ImportProgress progress) throws SQLException, IOException {
+        SchemaInfo.TableInfo table = resolveTable(instance, target);
+        RecordSource source = format.equals("csv") ? csvSource(in, header, table) : ndjsonSource(in, table);
+        List<String> columns = source.columns();
+        String sql = "INSERT INTO " + quote("mysql", table.getName()) + " (" + quoteAll("mysql", columns)
+                + ") VALUES (" + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+
+        try (Connection conn = connectionPoolService.getConnection(instance)) {
+            // One transaction, so a failed import leaves the table as it was, like COPY does
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                List<Object> record;
+                int pending = 0;
+                long rows = 0;
+                while ((record = source.next()) != null) {
+                    for (int i = 0; i < record.size(); i++) {
+                        stmt.setObject(i + 1, record.get(i));
+                    }
+                    stmt.addBatch();
+                    if (++pending == batchSize) {
+                        stmt.executeBatch();
+                        rows += pending;
+                        pending = 0;
+                        progress.rowsImported.set(rows);
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                    rows += pending;
+                }
+                conn.commit();
+                progress.rowsImported.set(rows);
+            } catch (SQLException | IOException | RuntimeException e) {
+                conn.rollback();
+                progress.rowsImported.set(0);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void importMongo(DatabaseInstance instance, String target, String format, boolean header,
+                             InputStream in, ImportProgress progress) throws IOException {
+        MongoCollection<Document> collection = connectionPoolService.getMongoClient(instance)
+                .getDatabase(instance.getDatabaseName())
+                .getCollection(target);
+        InsertManyOptions options = new InsertManyOptions().ordered(false);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        CsvReader csv = format.equals("csv") ? new CsvReader(reader, ',') : null;
+        List<String> columns = csv != null && header ? csv.next() : null;
+
+        List<Document> batch = new ArrayList<>(batchSize);
+        while (true) {
+            Document document;
+            if (csv != null) {
+                List<String> record = csv.next();
+                document = record != null ? csvDocument(columns, record) : null;
+            } else {
+                String line = nextLine(reader);
+                document = line != null ? Document.parse(line) : null;
+            }
+            if (document != null) {
+                batch.add(document);
+            }
+            if (batch.size() == batchSize || (document == null && !batch.isEmpty())) {
+                insertBatch(collection, batch, options, progress);
+                batch.clear();
+            }
+            if (document == null) {
+                return;
+            }
+        }
+    }
+
+    private void insertBatch(MongoCollection<Document> collection, List<Document> batch, InsertManyOptions options,
+                             ImportProgress progress) {
+        try {
+            collection.insertMany(batch, options);
+            progress.rowsImported.addAndGet(batch.size());
+        } catch (MongoBulkWriteException e) {
+            // Unordered: everything but the rejected documents (e.g. duplicate _id) was written
+            progress.rowsImported.addAndGet(e.getWriteResult().getInsertedCount());
+            progress.rowsFailed.addAndGet(e.getWriteErrors().size());
+        }
+    }
+
+    private Document csvDocument(List<String> columns, List<String> record) {
+        Document document = new Document();
+        for (int i = 0; i < record.size(); i++) {
+            String value = record.get(i);
+            if (value != null) {
+                document.append(columns != null && i < columns.size() ? columns.get(i) : "field" + (i + 1), inferValue(value));
+            }
+        }
+        return document;
+    }
+
+    /**
+     * Redis records use the export layout: {@code key,type,value[,ttl]} with JSON values for
+     * hashes, lists, sets and sorted sets.
+     */
+    private void importRedis(DatabaseInstance instance, String format, boolean header, InputStream in,
+                             ImportProgress progress) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        CsvReader csv = format.equals("csv") ? new CsvReader(reader, ',') : null;
+        if (csv != null && header) {
+            csv.next();
+        }
+
+        try (Jedis jedis = connectionPoolService.getJedisPool(instance).getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            // Replies of each queued record; Redis reports per-command errors (WRONGTYPE, OOM) only there
+            List<List<Response<?>>> pending = new ArrayList<>(batchSize);
+            long record = csv != null && header ? 1 : 0;
+            while (true) {
+                Map<String, Object> entry;
+                if (csv != null) {
+                    List<String> fields = csv.next();
+                    entry = fields != null ? csvRedisEntry(fields) : null;
+                } else {
+                    String line = nextLine(reader);
+                    entry = line != null ? OBJECT_MAPPER.readValue(line, new TypeReference<Map<String, Object>>() {}) : null;
+                }
+                if (entry == null) {
+                    break;
+                }
+                pending.add(queueRedisWrite(pipeline, entry, ++record));
+                if (pending.size() == batchSize) {
+                    syncRedisBatch(pipeline, pending, progress);
+                }
+            }
+            syncRedisBatch(pipeline, pending, progress);
+        }
+    }
+
+    private void syncRedisBatch(Pipeline pipeline, List<List<Response<?>>> pending, ImportProgress progress) {
+        pipeline.sync();
+        for (List<Response<?>> responses : pending) {
+            try {
+                responses.forEach(Response::get);
+                progress.rowsImported.incrementAndGet();
+            } catch (JedisDataException e) {
+                log.debug("Redis import write failed: {}", e.getMessage());
+                progress.rowsFailed.incrementAndGet();
+            }
+        }
+        pending.clear();
+    }
+
+    private Map<String, Object> csvRedisEntry(List<String> record) throws JsonProcessingException {
+        if (record.size() < 3) {
+            throw new RuntimeException("Redis CSV rows need key,type,value");
+        }
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("key", record.get(0));
+        String type = record.get(1) != null ? record.get(1).toLowerCase() : "string";
+        entry.put("type", type);
+        String value = record.get(2);
+        entry.put("value", type.equals("string") || value == null ? value : OBJECT_MAPPER.readValue(value, Object.class));
+        if (record.size() > 3 && record.get(3) != null) {
+            entry.put("ttl", Long.parseLong(record.get(3)));
+        }
+        return entry;
+    }
+
+    private List<Response<?>> queueRedisWrite(Pipeline pipeline, Map<String, Object> entry, long record) {
+        Object rawKey = entry.get("key");
+        if (rawKey == null) {
+            throw new RuntimeException("Record " + record + ": Redis record without a key");
+        }
+        String key = rawKey.toString();
+        String type = entry.get("type") != null ? entry.get("type").toString().toLowerCase() : "string";
+        Object value = entry.get("value");
+
+        List<Response<?>> responses = new ArrayList<>(2);
+        switch (type) {
+            case "string" -> responses.add(pipeline.set(key, String.valueOf(value)));
+            case "hash" -> {
+                Map<String, String> hash = new LinkedHashMap<>();
+                redisValue(value, Map.class, type, "a JSON object", record)
+                        .forEach((field, fieldValue) -> hash.put(String.valueOf(field), String.valueOf(fieldValue)));
+                responses.add(pipeline.hset(key, hash));
+            }
+            case "list" -> responses.add(pipeline.rpush(key,
+                    toStrings(redisValue(value, Collection.class, type, "a JSON array", record))));
+            case "set" -> responses.add(pipeline.sadd(key,
+                    toStrings(redisValue(value, Collection.class, type, "a JSON array", record))));
+            case "zset" -> {
+                Map<String, Double> scores = new LinkedHashMap<>();
+                redisValue(value, Map.class, type, "a JSON object", record).forEach((member, score) -> {
+                    if (!(score instanceof Number number)) {
+                        throw new RuntimeException("Record " + record + ": zset scores must be numbers, got "
+                                + member + "=" + score);
+                    }
+                    scores.put(String.valueOf(member), number.doubleValue());
+                });
+                responses.add(pipeline.zadd(key, scores));
+            }
+            default -> throw new RuntimeException("Record " + record + ": Unsupported Redis type: " + type);
+        }
+
+        if (entry.get("ttl") instanceof Number ttl && ttl.longValue() > 0) {
+            responses.add(pipeline.expire(key, ttl.longValue()));
+        }
+        return responses;
+    }
+
+    private <T> T redisValue(Object value, Class<T> shape, String type, String expected, long record) {
+        if (!shape.isInstance(value)) {
+            throw new RuntimeException(String.format("Record %d: %s value must be %s, got %s", record, type, expected,
+                    value == null ? "null" : value.getClass().getSimpleName()));
+        }
+        return shape.cast(value);
+    }
+
+    private String[] toStrings(Collection<?> values) {
+        return values.stream().map(String::valueOf).toArray(String[]::new);
+    }
+
+    private RecordSource csvSource(InputStream in, boolean header, SchemaInfo.TableInfo table) throws IOException {
+        CsvReader csv = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), ',');
+        List<String> columns = header ? resolveColumns(table, csv.next()) : columnNames(table);
+        return new RecordSource() {
+            private long line = header ? 1 : 0;
+
+            @Override
+            public List<String> columns() {
+                return columns;
+            }
+
+            @Override
+            public List<Object> next() throws IOException {
+                List<String> record = csv.next();
+                line++;
+                if (record == null) {
+                    return null;
+                }
+                if (record.size() != columns.size()) {
+                    throw new RuntimeException("Record " + line + " has " + record.size() + " fields, expected " + columns.size());
+                }
+                return new ArrayList<>(record);
+            }
+        };
+    }
+
+    /**
+     * NDJSON rows map onto the columns named by the first object; later rows may omit keys.
+     */
+    private RecordSource ndjsonSource(InputStream in, SchemaInfo.TableInfo table) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String firstLine = nextLine(reader);
+        Map<String, Object> first = firstLine != null ? parseObject(firstLine) : Map.of();
+        List<String> keys = new ArrayList<>(first.keySet());
+        List<String> columns = keys.isEmpty() ? columnNames(table) : resolveColumns(table, keys);
+        return new RecordSource() {
+            private Map<String, Object> pending = firstLine != null ? first : null;
+
+            @Override
+            public List<String> columns() {
+                return columns;
+            }
+
+            @Override
+            public List<Object> next() throws IOException {
+                Map<String, Object> row = pending;
+                if (row == null) {
+                    String line = nextLine(reader);
+                    if (line == null) {
+                        return null;
+                    }
+                    row = parseObject(line);
+                }
+                pending = null;
+
+                List<Object> values = new ArrayList<>(keys.size());
+                for (String key : keys.isEmpty() ? columns : keys) {
+                    values.add(toSqlValue(row.get(key)));
+                }
+                return values;
+            }
+        };
+    }
+
+    private Map<String, Object> parseObject(String line) throws JsonProcessingException {
+        return OBJECT_MAPPER.readValue(line, new TypeReference<LinkedHashMap<String, Object>>() {});
+    }
+
+    private Object toSqlValue(Object value) throws JsonProcessingException {
+        if (value instanceof Map || value instanceof Collection) {
+            return OBJECT_MAPPER.writeValueAsString(value);
+        }
+        return value;
+    }
+
+    private Object inferValue(String value) {
+        if (value.equals("true") || value.equals("false")) {
+            return Boolean.parseBoolean(value);
+        }
+        if (INTEGER.matcher(value).matches()) {
+            return Long.parseLong(value);
+        }
+        if (DECIMAL.matcher(value).matches()) {
+            return Double.parseDouble(value);
+        }
+        return value;
+    }
+
+    private void appendCopyRow(StringBuilder chunk, List<Object> record) {
+        for (int i = 0; i < record.size(); i++) {
+            if (i > 0) {
+                chunk.append(',');
+            }
+            Object value = record.get(i);
+            if (value == null) {
+                continue; // unquoted empty is NULL
+            }
+            if (value instanceof Number || value instanceof Boolean) {
+                chunk.append(value);
+            } else {
+                chunk.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+            }
+        }
+        chunk.append('\n');
+    }
+
+    private void writeCopyChunk(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
+    }
+
+    private SchemaInfo.TableInfo resolveTable(DatabaseInstance instance, String target) {
+        return schemaIntrospectionService.getTable(instance, target)
+                .orElseThrow(() -> new RuntimeException("Table not found: " + target));
+    }
+
+    private List<String> resolveColumns(SchemaInfo.TableInfo table, List<String> names) {
+        if (names == null || names.isEmpty()) {
+            throw new RuntimeException("The upload has no header");
+        }
+        Map<String, String> known = new HashMap<>();
+        columnNames(table).forEach(column -> known.put(column.toLowerCase(), column));
+        List<String> columns = new ArrayList<>(names.size());
+        for (String name : names) {
+            String column = name != null ? known.get(name.trim().toLowerCase()) : null;
+            if (column == null) {
+                throw new RuntimeException("Unknown column in " + table.getName() + ": " + name);
+            }
+            columns.add(column);
+        }
+        return columns;
+    }
+
+    private List<String> columnNames(SchemaInfo.TableInfo table) {
+        return table.getColumns().stream().map(SchemaInfo.ColumnInfo::getName).toList();
+    }
+
+    private String quote(String dbType, String identifier) {
+        return dbType.startsWith("postgres")
+                ? "\"" + identifier.replace("\"", "\"\"") + "\""
+                : "`" + identifier.replace("`", "``") + "`";
+    }
+
+    private String quoteAll(String dbType, List<String> identifiers) {
+        return String.join(", ", identifiers.stream().map(identifier -> quote(dbType, identifier)).toList());
+    }
+
+    /**
+     * Read one line of raw bytes (the CSV header) without buffering past it.
+     */
+    private String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8).stripTrailing();
+    }
+
+    /**
+     * COPY would load a UTF-8 byte order mark as part of the first field, header or not.
+     */
+    private void skipByteOrderMark(BufferedInputStream in) throws IOException {
+        in.mark(3);
+        if (in.read() != 0xEF || in.read() != 0xBB || in.read() != 0xBF) {
+            in.reset();
+        }
+    }
+
+    private String nextLine(BufferedReader reader) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private void pruneFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(statusRetentionMinutes);
+        imports.values().removeIf(progress -> progress.finishedAt != null && progress.finishedAt.isBefore(cutoff));
+    }
+
+    private interface RecordSource {
+        List<String> columns();
+
+        List<Object> next() throws IOException;
+    }
+
+    private static final class ImportProgress {
+        private final String id;
+        private final Long instanceId;
+        private final String target;
+        private final String format;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong rowsImported = new AtomicLong();
+        private final AtomicLong rowsFailed = new AtomicLong();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        private ImportProgress(String id, Long instanceId, String target, String format) {
+            this.id = id;
+            this.instanceId = instanceId;
+            this.target = target;
+            this.format = format;
+        }
+
+        private void finish(String status, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        private ImportStatus toStatus() {
+            return ImportStatus.builder()
+                    .id(id)
+                    .instanceId(instanceId)
+                    .target(target)
+                    .format(format)
+                    .status(status)
+                    .rowsImported(rowsImported.get())
+                    .rowsFailed(rowsFailed.get())
+                    .bytesRead(bytesRead.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        private CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
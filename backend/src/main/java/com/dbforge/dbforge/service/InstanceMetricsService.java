@@ -0,0 +1,293 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import redis.clients.jedis.Jedis;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Samples storage and memory usage of running instances in the background and keeps
+ * the latest values in memory, so listing databases never has to probe containers.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class InstanceMetricsService {
+
+    private final DatabaseInstanceRepository instanceRepository;
+    private final DockerService dockerService;
+    private final ContainerStatsService containerStatsService;
+    private final ConnectionPoolService connectionPoolService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${metrics.collector.parallelism:8}")
+    private int parallelism;
+
+    @Value("${metrics.collector.timeout-ms:10000}")
+    private long sampleTimeoutMs;
+
+    @Value("${metrics.collector.storage-history-size:1440}")
+    private int storageHistorySize;
+
+    private final Map<Long, InstanceMetrics> latest = new ConcurrentHashMap<>();
+    private final Map<Long, Deque<StorageMeasurement>> storageHistory = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "metrics-collector");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Probe every running instance in parallel and persist the values that changed.
+     */
+    @Scheduled(initialDelayString = "${metrics.collector.initial-delay-ms:15000}",
+               fixedDelayString = "${metrics.collector.interval-ms:60000}")
+    public void collect() {
+        List<DatabaseInstance> running = instanceRepository.findByStatus(DatabaseInstance.InstanceStatus.RUNNING);
+
+        Map<DatabaseInstance, Future<InstanceMetrics>> pending = new LinkedHashMap<>();
+        for (DatabaseInstance instance : running) {
+            pending.put(instance, executor.submit(() -> sample(instance)));
+        }
+
+        long deadline = System.currentTimeMillis() + sampleTimeoutMs;
+        List<DatabaseInstance> changed = new ArrayList<>();
+        for (Map.Entry<DatabaseInstance, Future<InstanceMetrics>> entry : pending.entrySet()) {
+            DatabaseInstance instance = entry.getKey();
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                InstanceMetrics metrics = entry.getValue().get(remaining, TimeUnit.MILLISECONDS);
+                latest.put(instance.getId(), metrics);
+                if (!Objects.equals(metrics.storageMb(), instance.getStorage())
+                        || !Objects.equals(metrics.memoryMb(), instance.getMemoryUsage())) {
+                    instance.setStorage(metrics.storageMb());
+                    instance.setMemoryUsage(metrics.memoryMb());
+                    changed.add(instance);
+                }
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(true);
+                log.warn("Metrics sample timed out for instance {}", instance.getInstanceName());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.warn("Failed to sample metrics for instance {}: {}", instance.getInstanceName(), e.getCause().getMessage());
+            }
+        }
+
+        latest.keySet().retainAll(running.stream().map(DatabaseInstance::getId).toList());
+        storageHistory.keySet().retainAll(instanceRepository.findAllIdsByStatusNot(DatabaseInstance.InstanceStatus.DELETED));
+
+        // Targeted updates so a concurrent start/stop is never overwritten by a stale entity
+        transactionTemplate.executeWithoutResult(status -> {
+            for (DatabaseInstance instance : changed) {
+                instanceRepository.updateUsage(instance.getId(), instance.getStorage(), instance.getMemoryUsage());
+            }
+            instanceRepository.clearMemoryUsageForInactive();
+        });
+
+        log.debug("Collected metrics for {} instance(s), {} changed", running.size(), changed.size());
+    }
+
+    /**
+     * Latest sampled values for an instance, or empty if it has not been sampled yet.
+     */
+    public Optional<InstanceMetrics> getLatest(Long instanceId) {
+        return Optional.ofNullable(latest.get(instanceId));
+    }
+
+    /**
+     * Sample a single instance right away, e.g. after it was created or started.
+     */
+    public InstanceMetrics refresh(DatabaseInstance instance) {
+        InstanceMetrics metrics = sample(instance);
+        latest.put(instance.getId(), metrics);
+        return metrics;
+    }
+
+    /**
+     * Storage measurements of an instance, oldest first.
+     */
+    public List<StorageMeasurement> getStorageHistory(Long instanceId) {
+        Deque<StorageMeasurement> history = storageHistory.get(instanceId);
+        if (history == null) {
+            return List.of();
+        }
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    public void forget(Long instanceId) {
+        latest.remove(instanceId);
+        storageHistory.remove(instanceId);
+    }
+
+    private InstanceMetrics sample(DatabaseInstance instance) {
+        StorageMeasurement measurement = measureStorage(instance);
+        Long storage = instance.getStorage();
+        if (measurement != null) {
+            recordStorage(instance.getId(), measurement);
+            storage = Math.max(1L, measurement.totalBytes() / (1024 * 1024));
+        }
+        Long memory = sampleMemoryInMB(instance);
+        return new InstanceMetrics(storage, memory, LocalDateTime.now());
+    }
+
+    private void recordStorage(Long instanceId, StorageMeasurement measurement) {
+        Deque<StorageMeasurement> history = storageHistory.computeIfAbsent(instanceId, id -> new ArrayDeque<>());
+        synchronized (history) {
+            history.addLast(measurement);
+            while (history.size() > storageHistorySize) {
+                history.removeFirst();
+            }
+        }
+    }
+
+    private Long sampleMemoryInMB(DatabaseInstance instance) {
+        String containerId = instance.getContainerId();
+        if (containerId == null) {
+            return instance.getMemoryUsage();
+        }
+        // Prefer the streamed stats; only ask the daemon directly if the stream has no recent sample
+        Instant freshAfter = Instant.now().minusSeconds(2L * containerStatsService.getResolutionSeconds(false) + 5);
+        Optional<ContainerStatsService.UsagePoint> streamed = containerStatsService.getLatest(containerId)
+                .filter(point -> point.timestamp().isAfter(freshAfter));
+        if (streamed.isPresent()) {
+            return Math.max(1L, streamed.get().memoryBytes() / (1024 * 1024));
+        }
+        Long memory = dockerService.getContainerMemoryUsageInMB(instance);
+        return memory != null ? memory : instance.getMemoryUsage();
+    }
+
+    /**
+     * Measure on-disk (SQL, MongoDB) or in-memory (Redis) data size, or null if the
+     * instance could not be reached; callers then keep the previous value.
+     */
+    private StorageMeasurement measureStorage(DatabaseInstance instance) {
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
+
+        try {
+            return switch (dbType) {
+                case "postgresql", "postgres" -> measurePostgres(instance);
+                case "mysql", "mariadb" -> measureMySQL(instance);
+                case "mongodb" -> measureMongoDB(instance);
+                case "redis" -> measureRedis(instance);
+                default -> null;
+            };
+        } catch (Exception e) {
+            log.debug("Failed to measure storage for {}: {}", instance.getInstanceName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private StorageMeasurement measurePostgres(DatabaseInstance instance) throws SQLException {
+        try (Connection conn = connectionPoolService.getConnection(instance);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                "SELECT pg_database_size(current_database()), " +
+                "COALESCE(SUM(pg_indexes_size(c.oid)), 0) " +
+                "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE c.relkind IN ('r', 'm', 'p') AND n.nspname NOT IN ('pg_catalog', 'information_schema')")) {
+            rs.next();
+            long total = rs.getLong(1);
+            long index = rs.getLong(2);
+            return new StorageMeasurement(LocalDateTime.now(), total, Math.max(0, total - index), index);
+        }
+    }
+
+    private StorageMeasurement measureMySQL(DatabaseInstance instance) throws SQLException {
+        try (Connection conn = connectionPoolService.getConnection(instance);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                "SELECT COALESCE(SUM(data_length), 0), COALESCE(SUM(index_length), 0) " +
+                "FROM information_schema.tables WHERE table_schema = DATABASE()")) {
+            rs.next();
+            long data = rs.getLong(1);
+            long index = rs.getLong(2);
+            return new StorageMeasurement(LocalDateTime.now(), data + index, data, index);
+        }
+    }
+
+    private StorageMeasurement measureMongoDB(DatabaseInstance instance) {
+        Document stats = connectionPoolService.getMongoClient(instance)
+                .getDatabase(instance.getDatabaseName())
+                .runCommand(new Document("dbStats", 1).append("scale", 1));
+
+        long storageSize = toLong(stats.get("storageSize"));
+        long indexSize = toLong(stats.get("indexSize"));
+        // totalSize (storage + indexes on disk) is only reported by MongoDB 4.4+
+        long total = stats.containsKey("totalSize") ? toLong(stats.get("totalSize")) : storageSize + indexSize;
+        return new StorageMeasurement(LocalDateTime.now(), total, storageSize, indexSize);
+    }
+
+    private StorageMeasurement measureRedis(DatabaseInstance instance) {
+        try (Jedis jedis = connectionPoolService.getJedisPool(instance).getResource()) {
+            Map<String, String> info = parseRedisInfo(jedis.info("memory"));
+            long used = parseLong(info.get("used_memory"));
+            // used_memory_dataset excludes allocator and replication overhead (Redis 4+)
+            long dataset = info.containsKey("used_memory_dataset") ? parseLong(info.get("used_memory_dataset")) : used;
+            return new StorageMeasurement(LocalDateTime.now(), used, dataset, 0L);
+        }
+    }
+
+    private Map<String, String> parseRedisInfo(String info) {
+        Map<String, String> values = new HashMap<>();
+        for (String line : info.split("\r?\n")) {
+            int separator = line.indexOf(':');
+            if (!line.startsWith("#") && separator > 0) {
+                values.put(line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+            }
+        }
+        return values;
+    }
+
+    private long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    public record InstanceMetrics(Long storageMb, Long memoryMb, LocalDateTime sampledAt) {
+    }
+
+    /**
+     * Sizes in bytes. For Redis, data is the dataset in memory and index is always 0.
+     */
+    public record StorageMeasurement(LocalDateTime measuredAt, long totalBytes, long dataBytes, long indexBytes) {
+    }
+}
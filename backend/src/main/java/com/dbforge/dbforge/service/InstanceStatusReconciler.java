@@ -0,0 +1,220 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.model.DatabaseInstance.InstanceStatus;
+import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import com.github.dockerjava.api.model.Event;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps {@link DatabaseInstance#getStatus()} in line with what Docker reports on every node.
+ * Container events are buffered and flushed as a few batched status updates; a periodic sweep
+ * covers anything missed while an event stream was down. Pools of instances whose container
+ * went away are dropped so queries fail fast instead of waiting on connect timeouts.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class InstanceStatusReconciler {
+
+    private final DatabaseInstanceRepository instanceRepository;
+    private final DockerService dockerService;
+    private final DockerNodeRegistry nodeRegistry;
+    private final ConnectionPoolService connectionPoolService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${reconciler.enabled:true}")
+    private boolean enabled;
+
+    private final Map<String, Observed> pending = new ConcurrentHashMap<>();
+
+    private final Map<String, Closeable> eventStreams = new HashMap<>();
+    private final Map<String, Long> lastEventTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Apply buffered container events. Only the latest observation per container is kept.
+     */
+    @Scheduled(fixedDelayString = "${reconciler.flush-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, Observed> batch = new HashMap<>();
+        for (String containerId : new ArrayList<>(pending.keySet())) {
+            Observed observed = pending.remove(containerId);
+            if (observed != null) {
+                batch.put(containerId, observed);
+            }
+        }
+        apply(batch);
+    }
+
+    /**
+     * Re-subscribe to nodes whose event stream dropped and compare every instance against the
+     * containers its node actually has running.
+     */
+    @Scheduled(initialDelayString = "${reconciler.initial-delay-ms:5000}",
+               fixedDelayString = "${reconciler.sweep-ms:60000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+
+        Map<String, Set<String>> runningByNode = new HashMap<>();
+        for (DockerNodeRegistry.DockerNode node : nodeRegistry.getNodes()) {
+            subscribe(node);
+            try {
+                runningByNode.put(node.name(), dockerService.getRunningContainerIds(node));
+            } catch (Exception e) {
+                log.warn("Status sweep skipped for node {}, Docker is unreachable: {}", node.name(), e.getMessage());
+            }
+        }
+
+        Map<String, Observed> batch = new HashMap<>();
+        List<DatabaseInstance> instances = instanceRepository.findByStatusIn(
+                List.of(InstanceStatus.RUNNING, InstanceStatus.STOPPED, InstanceStatus.ERROR));
+        for (DatabaseInstance instance : instances) {
+            Set<String> running = runningByNode.get(nodeRegistry.getNode(instance).name());
+            if (instance.getContainerId() == null || running == null) {
+                continue;
+            }
+            boolean containerRunning = running.contains(instance.getContainerId());
+            if (instance.getStatus() == InstanceStatus.RUNNING && !containerRunning) {
+                // Not stopped through DBForge and not brought back by the restart policy
+                batch.put(instance.getContainerId(), Observed.CRASHED);
+            } else if (instance.getStatus() != InstanceStatus.RUNNING && containerRunning) {
+                batch.put(instance.getContainerId(), Observed.STARTED);
+            }
+        }
+        apply(batch);
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        enabled = false;
+        eventStreams.values().forEach(this::closeQuietly);
+        eventStreams.clear();
+    }
+
+    private synchronized void subscribe(DockerNodeRegistry.DockerNode node) {
+        if (eventStreams.containsKey(node.name()) || !enabled) {
+            return;
+        }
+        try {
+            Closeable stream = dockerService.streamContainerEvents(node, lastEventTimes.get(node.name()),
+                    event -> onEvent(node.name(), event), () -> onStreamClosed(node.name()));
+            eventStreams.put(node.name(), stream);
+            log.info("Subscribed to Docker container events of node {}", node.name());
+        } catch (Exception e) {
+            log.warn("Failed to subscribe to Docker events of node {}: {}", node.name(), e.getMessage());
+        }
+    }
+
+    private synchronized void onStreamClosed(String nodeName) {
+        eventStreams.remove(nodeName);
+    }
+
+    private void onEvent(String nodeName, Event event) {
+        if (event.getTime() != null) {
+            lastEventTimes.put(nodeName, event.getTime());
+        }
+
+        Observed observed = classify(event);
+        if (observed == null || event.getId() == null) {
+            return;
+        }
+        // An oom is followed by its die; keep it as a crash whatever the exit code says
+        pending.merge(event.getId(), observed,
+                (previous, next) -> previous == Observed.CRASHED && next == Observed.EXITED ? previous : next);
+    }
+
+    private Observed classify(Event event) {
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        if (action == null) {
+            return null;
+        }
+        if (action.startsWith("health_status")) {
+            return action.endsWith("unhealthy") ? Observed.UNHEALTHY
+                    : action.endsWith("healthy") ? Observed.HEALTHY : null;
+        }
+        return switch (action) {
+            case "start" -> Observed.STARTED;
+            case "oom" -> Observed.CRASHED;
+            case "die" -> "0".equals(exitCode(event)) ? Observed.EXITED : Observed.CRASHED;
+            default -> null;
+        };
+    }
+
+    private String exitCode(Event event) {
+        if (event.getActor() == null || event.getActor().getAttributes() == null) {
+            return null;
+        }
+        return event.getActor().getAttributes().get("exitCode");
+    }
+
+    private void apply(Map<String, Observed> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Group instance ids by the transition they need, one UPDATE per transition
+        Map<Observed, List<Long>> transitions = new EnumMap<>(Observed.class);
+        List<Long> down = new ArrayList<>();
+        for (DatabaseInstance instance : instanceRepository.findByContainerIdIn(batch.keySet())) {
+            Observed observed = batch.get(instance.getContainerId());
+            if (observed.expected.contains(instance.getStatus())) {
+                transitions.computeIfAbsent(observed, o -> new ArrayList<>()).add(instance.getId());
+                log.info("Instance {} observed {} in Docker: {} -> {}",
+                        instance.getInstanceName(), observed, instance.getStatus(), observed.target);
+            }
+            if (observed.target != InstanceStatus.RUNNING) {
+                down.add(instance.getId());
+            }
+        }
+
+        if (!transitions.isEmpty()) {
+            // Guarded by the expected status so a concurrent user start/stop always wins
+            transactionTemplate.executeWithoutResult(status -> transitions.forEach((observed, ids) ->
+                    instanceRepository.updateStatusIfIn(ids, observed.target, observed.expected)));
+        }
+        down.forEach(connectionPoolService::invalidate);
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.debug("Failed to close Docker event stream: {}", e.getMessage());
+        }
+    }
+
+    private enum Observed {
+        STARTED(InstanceStatus.RUNNING, InstanceStatus.STOPPED, InstanceStatus.ERROR),
+        EXITED(InstanceStatus.STOPPED, InstanceStatus.RUNNING),
+        CRASHED(InstanceStatus.ERROR, InstanceStatus.RUNNING),
+        UNHEALTHY(InstanceStatus.ERROR, InstanceStatus.RUNNING),
+        HEALTHY(InstanceStatus.RUNNING, InstanceStatus.ERROR);
+
+        private final InstanceStatus target;
+        private final Set<InstanceStatus> expected;
+
+        Observed(InstanceStatus target, InstanceStatus first, InstanceStatus... rest) {
+            this.target = target;
+            this.expected = EnumSet.of(first, rest);
+        }
+    }
+}
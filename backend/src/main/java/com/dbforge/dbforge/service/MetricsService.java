@@ -0,0 +1,228 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.model.User;
+import com.dbforge.dbforge.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Names and tags of the backend's own meters, exported at {@code /actuator/prometheus}.
+ * Per-instance meters carry {@code instance}, {@code engine} and {@code tier} tags and are
+ * removed when the instance is deleted. Histogram buckets for tail percentiles (see
+ * application.properties) are only published by the {@code *.latency} twins of the per-instance
+ * timers, which drop the instance tag: per-instance buckets would multiply series by instances.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MetricsService {
+
+    private final MeterRegistry registry;
+    private final UserRepository userRepository;
+
+    @Value("${metrics.tier-cache-seconds:300}")
+    private long tierCacheSeconds;
+
+    // Subscription tiers change rarely; avoid a user lookup per recorded query
+    private final Map<Long, CachedTier> tiers = new ConcurrentHashMap<>();
+    private final Map<Long, List<Meter>> instanceMeters = new ConcurrentHashMap<>();
+
+    public Tags instanceTags(DatabaseInstance instance) {
+        return Tags.of(
+                "instance", String.valueOf(instance.getId()),
+                "engine", engine(instance),
+                "tier", tier(instance.getUserId()));
+    }
+
+    public void recordQuery(DatabaseInstance instance, String type, long durationNanos, boolean success) {
+        Tags tags = instanceTags(instance)
+                .and("type", type == null ? "OTHER" : type)
+                .and("outcome", success ? "success" : "error");
+        Timer.builder("dbforge.query")
+                .description("Query execution time through the query API")
+                .tags(tags)
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        Timer.builder("dbforge.query.latency")
+                .description("Query execution time through the query API, across instances")
+                .tags(withoutInstance(tags))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPoolBorrow(DatabaseInstance instance, long durationNanos) {
+        Tags tags = instanceTags(instance);
+        Timer.builder("dbforge.pool.borrow")
+                .description("Time to borrow a pooled connection to a managed instance")
+                .tags(tags)
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        Timer.builder("dbforge.pool.borrow.latency")
+                .description("Time to borrow a pooled connection to a managed instance, across instances")
+                .tags(withoutInstance(tags))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Pool size gauges for a Redis pool; JDBC (HikariCP) and MongoDB pools report their own.
+     */
+    public void bindJedisPool(DatabaseInstance instance, JedisPool pool) {
+        Tags tags = instanceTags(instance);
+        List<Meter> meters = new ArrayList<>();
+        meters.add(Gauge.builder("dbforge.pool.active", pool, JedisPool::getNumActive).tags(tags).register(registry));
+        meters.add(Gauge.builder("dbforge.pool.idle", pool, JedisPool::getNumIdle).tags(tags).register(registry));
+        meters.add(Gauge.builder("dbforge.pool.waiting", pool, JedisPool::getNumWaiters).tags(tags).register(registry));
+        List<Meter> previous = instanceMeters.put(instance.getId(), meters);
+        if (previous != null) {
+            previous.forEach(registry::remove);
+        }
+    }
+
+    public void unbindPools(Long instanceId) {
+        List<Meter> meters = instanceMeters.remove(instanceId);
+        if (meters != null) {
+            meters.forEach(registry::remove);
+        }
+    }
+
+    /**
+     * Removes every meter tagged with a deleted instance, so its series stop being exported.
+     */
+    public void forget(Long instanceId) {
+        unbindPools(instanceId);
+        String id = String.valueOf(instanceId);
+        List<Meter> meters = registry.getMeters().stream()
+                .filter(meter -> meter.getId().getName().startsWith("dbforge.") && id.equals(meter.getId().getTag("instance")))
+                .toList();
+        meters.forEach(registry::remove);
+    }
+
+    public void recordDockerCall(String node, String method, String endpoint, int status, long durationNanos) {
+        Timer.builder("dbforge.docker.api")
+                .description("Docker Engine API call latency, to the response headers")
+                .tag("node", node)
+                .tag("method", method)
+                .tag("endpoint", endpoint)
+                .tag("status", status < 0 ? "IO_ERROR" : String.valueOf(status))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordProvisioningStage(String engine, String stage, long durationNanos, boolean success) {
+        Timer.builder("dbforge.provisioning.stage")
+                .description("Duration of each provisioning stage of a new instance")
+                .tag("engine", engine)
+                .tag("stage", stage)
+                .tag("outcome", success ? "success" : "error")
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordExport(DatabaseInstance instance, String format, long bytes, long rows, long durationNanos, boolean success) {
+        Tags tags = instanceTags(instance).and("format", format);
+        Counter.builder("dbforge.export.bytes").baseUnit("bytes").tags(tags).register(registry).increment(bytes);
+        Counter.builder("dbforge.export.rows").baseUnit("rows").tags(tags).register(registry).increment(rows);
+        Tags outcome = tags.and("outcome", success ? "success" : "error");
+        Timer.builder("dbforge.export")
+                .tags(outcome)
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        Timer.builder("dbforge.export.latency")
+                .tags(withoutInstance(outcome))
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        double seconds = durationNanos / 1e9;
+        if (success && seconds > 0) {
+            DistributionSummary.builder("dbforge.export.throughput").baseUnit("bytes.per.second").tags(tags)
+                    .register(registry).record(bytes / seconds);
+            DistributionSummary.builder("dbforge.export.row.throughput").baseUnit("rows.per.second").tags(tags)
+                    .register(registry).record(rows / seconds);
+        }
+    }
+
+    public void recordTokenValidation(String kind, long durationNanos, boolean valid) {
+        Timer.builder("dbforge.auth.token.validation")
+                .tag("kind", kind)
+                .tag("outcome", valid ? "valid" : "invalid")
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAuditWrite(long durationNanos, boolean success) {
+        Timer.builder("dbforge.audit.write")
+                .description("Time to persist one audit log entry (written inline, there is no queue)")
+                .tag("outcome", success ? "success" : "error")
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Hit ratio in PromQL: rate(dbforge_cache_requests_total{result="hit"}) / rate(dbforge_cache_requests_total).
+     */
+    public void recordCacheAccess(String cache, boolean hit) {
+        Counter.builder("dbforge.cache.requests")
+                .tag("cache", cache)
+                .tag("result", hit ? "hit" : "miss")
+                .register(registry)
+                .increment();
+    }
+
+    private static Tags withoutInstance(Tags tags) {
+        return Tags.of(tags.stream().filter(tag -> !tag.getKey().equals("instance")).toList());
+    }
+
+    public static String engine(DatabaseInstance instance) {
+        return engine(instance.getDatabaseType() != null ? instance.getDatabaseType().getName() : null);
+    }
+
+    public static String engine(String databaseTypeName) {
+        String name = databaseTypeName != null ? databaseTypeName.toLowerCase() : "unknown";
+        return name.equals("postgres") ? "postgresql" : name;
+    }
+
+    private String tier(Long userId) {
+        if (userId == null) {
+            return "unknown";
+        }
+        CachedTier cached = tiers.get(userId);
+        long now = System.currentTimeMillis();
+        boolean hit = cached != null && now - cached.loadedAt() < tierCacheSeconds * 1000;
+        recordCacheAccess("user-tier", hit);
+        if (hit) {
+            return cached.tier();
+        }
+        String tier;
+        try {
+            tier = userRepository.findById(userId)
+                    .map(User::getSubscriptionTier)
+                    .map(value -> value.name().toLowerCase())
+                    .orElse("unknown");
+        } catch (Exception e) {
+            log.debug("Failed to resolve tier of user {}: {}", userId, e.getMessage());
+            tier = cached != null ? cached.tier() : "unknown";
+        }
+        tiers.put(userId, new CachedTier(tier, now));
+        return tier;
+    }
+
+    private record CachedTier(String tier, long loadedAt) {
+    }
+}
@@ -2,47 +2,64 @@ package com.dbforge.dbforge.service;
 
 import com.dbforge.dbforge.dto.QueryRequest;
 import com.dbforge.dbforge.dto.QueryResult;
-import com.dbforge.dbforge.dto.SchemaInfo;
 import com.dbforge.dbforge.model.DatabaseInstance;
-import com.mongodb.client.MongoClient;
-import com.mongodb.client.MongoClients;
+import com.dbforge.dbforge.util.MongoShellParser;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.*;
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.bson.Document;
-import org.bson.types.ObjectId;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonNull;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.io.ByteBufferBsonInput;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class MongoDBQueryService {
     
+    private static final int DEFAULT_RESULT_LIMIT = 100;
+    
     private final AuditLogService auditLogService;
+    private final ConnectionPoolService connectionPoolService;
+    private final MongoSchemaService mongoSchemaService;
+    private final MongoIndexAdvisor mongoIndexAdvisor;
+    private final QueryTelemetryService queryTelemetryService;
+    private final MetricsService metricsService;
+    private final TracingService tracingService;
+    
+    // Upper bound on documents a query returns, whatever limit it asks for
+    @Value("${mongodb.query.max-results:10000}")
+    private int maxResultLimit;
     
-    public MongoDBQueryService(AuditLogService auditLogService) {
-        this.auditLogService = auditLogService;
-    }
-
     public QueryResult executeMongoQuery(DatabaseInstance instance, QueryRequest request) {
         Long userId = instance.getUserId();
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         
-        // Use localhost since backend runs on same server as Docker containers
-        String host = "localhost";
-        
-        // MongoDB root user is created in 'admin' database, so authenticate there
-        String connectionString = String.format("mongodb://%s:%s@%s:%d/%s?authSource=admin",
-            instance.getUsername(),
-            instance.getPassword(),
-            host,
-            instance.getPort(),
-            instance.getDatabaseName()
-        );
+        if (instance.getStatus() != DatabaseInstance.InstanceStatus.RUNNING) {
+            return QueryResult.builder()
+                .success(false)
+                .error("Database instance is not running")
+                .build();
+        }
 
-        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
-            MongoDatabase database = mongoClient.getDatabase(instance.getDatabaseName());
+        try {
+            MongoDatabase database = connectionPoolService.getMongoClient(instance).getDatabase(instance.getDatabaseName());
             
             // Parse the query - remove comments and whitespace
             String query = request.getQuery().trim();
@@ -59,13 +76,24 @@ public class MongoDBQueryService {
             }
             String normalizedQuery = cleaned.toString().trim();
             
-            // Simple query parsing - real implementation would need a proper parser
             if (normalizedQuery.startsWith("db.") || normalizedQuery.startsWith("use ")) {
-                QueryResult result = executeMongoCommand(database, normalizedQuery, request.getLimit());
+                boolean explain = normalizedQuery.startsWith("db.") && Boolean.TRUE.equals(request.getExplain());
+                QueryResult result = explain
+                        ? tracingService.trace("mongodb.explain", instance,
+                                () -> explainMongoCommand(database, normalizedQuery, request.getLimit()))
+                        : tracingService.trace("mongodb.execute", instance,
+                                () -> executeMongoCommand(database, normalizedQuery, request.getLimit()));
+                String queryType = explain ? "EXPLAIN" : determineMongoQueryType(normalizedQuery);
                 
                 // Log successful query
                 if (result.getSuccess() != null && result.getSuccess()) {
-                    String queryType = determineMongoQueryType(normalizedQuery);
+                    if (!explain && result.getQueryType() != null) {
+                        queryType = result.getQueryType();
+                    }
+                    if ("DROP".equals(queryType) || "CREATE_INDEX".equals(queryType)) {
+                        // The sampled schema of the collection is stale now
+                        mongoSchemaService.invalidate(instance.getId(), MongoShellParser.parse(normalizedQuery).collection());
+                    }
                     String action = getActionForMongoQuery(queryType);
                     String queryPreview = normalizedQuery.length() > 100 ? normalizedQuery.substring(0, 100) + "..." : normalizedQuery;
                     String details = String.format("MongoDB %s, Execution time: %dms, Query: %s", 
@@ -73,6 +101,12 @@ public class MongoDBQueryService {
                     auditLogService.logSuccess(userId, action, "DATABASE", instance.getId(),
                             instance.getInstanceName(), details);
                 }
+                long durationNanos = System.nanoTime() - startNanos;
+                metricsService.recordQuery(instance, explain ? "EXPLAIN" : determineMongoQueryType(normalizedQuery),
+                        durationNanos, Boolean.TRUE.equals(result.getSuccess()));
+                // An explain run already is the plan
+                queryTelemetryService.record(instance, normalizedQuery, durationNanos, result,
+                        !explain && isRead(normalizedQuery) ? () -> queryPlan(database, normalizedQuery) : null);
                 
                 return result;
             } else {
@@ -90,58 +124,47 @@ public class MongoDBQueryService {
             auditLogService.logFailure(userId, "QUERY_EXECUTED", "DATABASE", instance.getId(),
                     instance.getInstanceName(), "MongoDB query failed: " + e.getMessage());
             
-            return QueryResult.builder()
+            QueryResult result = QueryResult.builder()
                 .success(false)
                 .error(e.getMessage())
                 .executionTimeMs(executionTime)
                 .build();
+            long durationNanos = System.nanoTime() - startNanos;
+            String queryType = Boolean.TRUE.equals(request.getExplain()) ? "EXPLAIN" : determineMongoQueryType(request.getQuery());
+            metricsService.recordQuery(instance, queryType, durationNanos, false);
+            queryTelemetryService.record(instance, request.getQuery(), durationNanos, result, null);
+            return result;
         }
     }
 
-    private String preprocessMongoQuery(String query) {
-        // Replace ObjectId("...") with proper BSON ObjectId syntax
-        // Pattern: ObjectId("hexstring") -> {"$oid": "hexstring"}
-        return query.replaceAll("ObjectId\\\\(\\\"([a-f0-9]{24})\\\"\\\\)", "{\\\"\\\\$oid\\\": \\\"$1\\\"}");
-    }
-
     private QueryResult executeMongoCommand(MongoDatabase database, String query, Integer limit) {
         long startTime = System.currentTimeMillis();
         
         try {
-            // Extract collection name and operation
-            // Example: db.users.find({name: "John"})
-            String[] parts = query.split("\\.", 3);
-            if (parts.length < 3) {
-                return QueryResult.builder()
-                    .success(false)
-                    .error("Invalid MongoDB query format")
-                    .build();
-            }
-            
-            String collectionName = parts[1];
-            String operation = parts[2];
-            
-            MongoCollection<Document> collection = database.getCollection(collectionName);
+            MongoShellParser.MongoShellCommand command = MongoShellParser.parse(query);
+            String collectionName = command.collection();
+            // Reads decode nothing: rows stay as the raw BSON the server sent until serialized
+            MongoCollection<RawBsonDocument> collection = database.getCollection(collectionName, RawBsonDocument.class);
+            MongoCollection<BsonDocument> writes = database.getCollection(collectionName, BsonDocument.class);
+            int maxResults = resultLimit(limit);
             
-            // Handle different operations
-            if (operation.startsWith("find")) {
-                return executeFindQuery(collection, operation, limit, startTime);
-            } else if (operation.startsWith("insertOne") || operation.startsWith("insertMany")) {
-                return executeInsertQuery(collection, operation, startTime);
-            } else if (operation.startsWith("updateOne") || operation.startsWith("updateMany")) {
-                return executeUpdateQuery(collection, operation, startTime);
-            } else if (operation.startsWith("deleteOne") || operation.startsWith("deleteMany")) {
-                return executeDeleteQuery(collection, operation, startTime);
-            } else if (operation.startsWith("count")) {
-                return executeCountQuery(collection, startTime);
-            } else if (operation.startsWith("drop()")) {
-                return executeDropCollection(collection, collectionName, startTime);
-            } else {
-                return QueryResult.builder()
+            return switch (command.method()) {
+                case "find" -> executeFindQuery(collection, command, maxResults, startTime);
+                case "findOne" -> executeFindQuery(collection, command, 1, startTime);
+                case "aggregate" -> executeAggregateQuery(collection, command, maxResults, startTime);
+                case "distinct" -> executeDistinctQuery(collection, command, maxResults, startTime);
+                case "countDocuments", "count" -> executeCountQuery(collection, command, startTime);
+                case "estimatedDocumentCount" -> countResult(collection.estimatedDocumentCount(), startTime);
+                case "insertOne", "insertMany" -> executeInsertQuery(writes, command, startTime);
+                case "updateOne", "updateMany", "replaceOne" -> executeUpdateQuery(writes, command, startTime);
+                case "deleteOne", "deleteMany" -> executeDeleteQuery(writes, command, startTime);
+                case "createIndex" -> executeCreateIndex(writes, command, startTime);
+                case "drop" -> executeDropCollection(collection, collectionName, startTime);
+                default -> QueryResult.builder()
                     .success(false)
-                    .error("Unsupported operation: " + operation)
+                    .error("Unsupported operation: " + command.method())
                     .build();
-            }
+            };
             
         } catch (Exception e) {
             log.error("MongoDB command execution error: {}", e.getMessage());
@@ -154,267 +177,339 @@ public class MongoDBQueryService {
         }
     }
 
-    private QueryResult executeFindQuery(MongoCollection<Document> collection, String operation, Integer limit, long startTime) {
-        List<Document> documents;
-        
-        // Simple find() or find({})
-        if (operation.equals("find()") || operation.equals("find({})")) {
-            documents = collection.find()
-                .limit(limit != null ? limit : 100)
-                .into(new ArrayList<>());
-        } else {
-            // For now, just do find all - proper query parsing would go here
-            documents = collection.find()
-                .limit(limit != null ? limit : 100)
-                .into(new ArrayList<>());
+    /**
+     * find(filter, projection) with sort/skip/limit/projection/hint/maxTimeMS cursor calls, all
+     * sent to the server. An explicit .limit() wins over the request's result limit, up to
+     * mongodb.query.max-results; .limit(0), which the shell reads as no limit, keeps the request's.
+     */
+    private QueryResult executeFindQuery(MongoCollection<RawBsonDocument> collection, MongoShellParser.MongoShellCommand command,
+                                         int maxResults, long startTime) {
+        FindIterable<RawBsonDocument> find = buildFind(collection, command, maxResults);
+        List<RawBsonDocument> documents = find.into(new ArrayList<>());
+        return documentsResult(documents, "FIND", startTime);
+    }
+
+    private FindIterable<RawBsonDocument> buildFind(MongoCollection<RawBsonDocument> collection,
+                                                    MongoShellParser.MongoShellCommand command, int maxResults) {
+        FindIterable<RawBsonDocument> find = collection.find(document(command.arg(0), "filter"));
+        BsonDocument projection = document(command.arg(1), "projection");
+        if (!projection.isEmpty()) {
+            find.projection(projection);
         }
-        
-        if (documents.isEmpty()) {
+        int limit = "findOne".equals(command.method()) ? 1 : maxResults;
+        for (MongoShellParser.Call call : command.cursor()) {
+            BsonValue arg = call.args().isEmpty() ? null : call.args().get(0);
+            switch (call.method()) {
+                case "sort" -> find.sort(document(arg, "sort"));
+                case "skip" -> find.skip(number(arg, "skip"));
+                case "limit" -> {
+                    int requested = number(arg, "limit");
+                    limit = "findOne".equals(command.method()) ? 1
+                        : requested > 0 ? Math.min(requested, maxResultLimit) : maxResults;
+                }
+                case "projection" -> find.projection(document(arg, "projection"));
+                case "hint" -> {
+                    if (arg != null && arg.isString()) {
+                        find.hintString(arg.asString().getValue());
+                    } else {
+                        find.hint(document(arg, "hint"));
+                    }
+                }
+                case "maxTimeMS" -> find.maxTime(number(arg, "maxTimeMS"), TimeUnit.MILLISECONDS);
+                case "batchSize" -> find.batchSize(number(arg, "batchSize"));
+                case "comment" -> find.comment(arg != null && arg.isString() ? arg.asString().getValue() : String.valueOf(arg));
+                case "toArray", "pretty", "explain" -> {
+                    // Shell display helpers, nothing to push down
+                }
+                default -> throw new IllegalArgumentException("Unsupported cursor method: " + call.method());
+            }
+        }
+        return find.limit(limit).batchSize(Math.max(1, Math.min(limit, 1000)));
+    }
+
+    /**
+     * aggregate(pipeline, options). A $limit is appended so only the rows shown leave the server,
+     * unless the pipeline writes its output with $out/$merge.
+     */
+    private QueryResult executeAggregateQuery(MongoCollection<RawBsonDocument> collection, MongoShellParser.MongoShellCommand command,
+                                              int maxResults, long startTime) {
+        List<BsonDocument> pipeline = pipeline(command);
+        if (writesOutput(pipeline)) {
+            buildAggregate(collection, command, pipeline).toCollection();
             return QueryResult.builder()
                 .success(true)
-                .queryType("FIND")
-                .columns(new ArrayList<>())
-                .rows(new ArrayList<>())
-                .rowCount(0)
+                .queryType("AGGREGATE")
+                .affectedRows(0)
                 .executionTimeMs(System.currentTimeMillis() - startTime)
+                .message("Aggregation output written")
                 .build();
         }
         
-        // Extract columns from first document
-        Set<String> columnSet = new LinkedHashSet<>();
-        for (Document doc : documents) {
-            columnSet.addAll(doc.keySet());
+        pipeline.add(new BsonDocument("$limit", new BsonInt32(maxResults)));
+        List<RawBsonDocument> documents = buildAggregate(collection, command, pipeline)
+            .batchSize(Math.max(1, Math.min(maxResults, 1000)))
+            .into(new ArrayList<>());
+        return documentsResult(documents, "AGGREGATE", startTime);
+    }
+
+    /**
+     * Documents a query returns without a .limit(): the request's limit, or the default when it
+     * sets none, never more than mongodb.query.max-results.
+     */
+    private int resultLimit(Integer requested) {
+        int limit = requested != null && requested > 0 ? requested : DEFAULT_RESULT_LIMIT;
+        return Math.max(1, Math.min(limit, maxResultLimit));
+    }
+
+    private List<BsonDocument> pipeline(MongoShellParser.MongoShellCommand command) {
+        BsonValue pipelineArg = command.arg(0);
+        if (pipelineArg == null || !pipelineArg.isArray()) {
+            throw new IllegalArgumentException("aggregate() takes a pipeline array");
         }
-        List<String> columns = new ArrayList<>(columnSet);
-        
-        // Convert documents to rows
-        List<Map<String, Object>> rows = new ArrayList<>();
-        for (Document doc : documents) {
-            Map<String, Object> row = new HashMap<>();
-            for (String key : columns) {
-                Object value = doc.get(key);
-                row.put(key, value != null ? value.toString() : null);
+        List<BsonDocument> pipeline = new ArrayList<>();
+        for (BsonValue stage : pipelineArg.asArray()) {
+            pipeline.add(document(stage, "pipeline stage"));
+        }
+        return pipeline;
+    }
+
+    private boolean writesOutput(List<BsonDocument> pipeline) {
+        if (pipeline.isEmpty()) {
+            return false;
+        }
+        BsonDocument last = pipeline.get(pipeline.size() - 1);
+        return last.containsKey("$out") || last.containsKey("$merge");
+    }
+
+    private AggregateIterable<RawBsonDocument> buildAggregate(MongoCollection<RawBsonDocument> collection,
+                                                              MongoShellParser.MongoShellCommand command,
+                                                              List<BsonDocument> pipeline) {
+        AggregateIterable<RawBsonDocument> aggregate = collection.aggregate(pipeline);
+        BsonDocument options = document(command.arg(1), "options");
+        if (options.containsKey("allowDiskUse")) {
+            aggregate.allowDiskUse(options.getBoolean("allowDiskUse").getValue());
+        }
+        if (options.containsKey("maxTimeMS")) {
+            aggregate.maxTime(options.getNumber("maxTimeMS").longValue(), TimeUnit.MILLISECONDS);
+        }
+        if (options.containsKey("hint")) {
+            if (options.get("hint").isString()) {
+                aggregate.hintString(options.getString("hint").getValue());
+            } else {
+                aggregate.hint(options.getDocument("hint"));
             }
-            rows.add(row);
         }
-        
-        log.info("MongoDB find query returned {} documents with columns: {}", rows.size(), columns);
-        
-        return QueryResult.builder()
-            .success(true)
-            .queryType("FIND")
-            .columns(columns)
-            .rows(rows)
-            .rowCount(rows.size())
-            .executionTimeMs(System.currentTimeMillis() - startTime)
-            .message(rows.size() + " document(s) found")
-            .build();
+        return aggregate;
     }
 
-    private QueryResult executeInsertQuery(MongoCollection<Document> collection, String operation, long startTime) {
-        try {
-            // Parse the document from insertOne({...}) or insertMany([{...}])
-            int startIdx = operation.indexOf('(');
-            int endIdx = operation.lastIndexOf(')');
-            
-            if (startIdx == -1 || endIdx == -1) {
-                return QueryResult.builder()
-                    .success(false)
-                    .error("Invalid insert syntax")
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
-                    .build();
+    /**
+     * Runs find/findOne/aggregate with explain("executionStats") and hands the plan to the index
+     * advisor. Pipelines ending in $out/$merge are refused: executionStats would run the write.
+     */
+    private QueryResult explainMongoCommand(MongoDatabase database, String query, Integer limit) {
+        long startTime = System.currentTimeMillis();
+        MongoShellParser.MongoShellCommand command = MongoShellParser.parse(query);
+        MongoCollection<RawBsonDocument> collection = database.getCollection(command.collection(), RawBsonDocument.class);
+        int maxResults = resultLimit(limit);
+        
+        BsonDocument explain;
+        BsonDocument filter;
+        BsonDocument sort = new BsonDocument();
+        switch (command.method()) {
+            case "find", "findOne" -> {
+                explain = buildFind(collection, command, maxResults).explain(BsonDocument.class, ExplainVerbosity.EXECUTION_STATS);
+                filter = document(command.arg(0), "filter");
+                for (MongoShellParser.Call call : command.cursor()) {
+                    if (call.method().equals("sort") && !call.args().isEmpty()) {
+                        sort = document(call.args().get(0), "sort");
+                    }
+                }
             }
-            
-            String jsonContent = operation.substring(startIdx + 1, endIdx).trim();
-            
-            if (operation.startsWith("insertOne")) {
-                // Parse single document
-                Document doc = Document.parse(jsonContent);
-                collection.insertOne(doc);
-                
-                return QueryResult.builder()
-                    .success(true)
-                    .queryType("INSERT")
-                    .affectedRows(1)
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
-                    .message("Document inserted successfully")
-                    .build();
-                    
-            } else if (operation.startsWith("insertMany")) {
-                // Parse array of documents
-                // Remove outer brackets if present
-                if (jsonContent.startsWith("[") && jsonContent.endsWith("]")) {
-                    jsonContent = jsonContent.substring(1, jsonContent.length() - 1);
+            case "aggregate" -> {
+                List<BsonDocument> pipeline = pipeline(command);
+                if (writesOutput(pipeline)) {
+                    throw new IllegalArgumentException("Explain is not available for pipelines ending in $out or $merge");
                 }
-                
-                // Split by document boundaries (simplified - assumes well-formed JSON)
-                List<Document> documents = new ArrayList<>();
-                String[] docStrings = jsonContent.split("(?<=\\}),\\s*(?=\\{)");
-                for (String docStr : docStrings) {
-                    documents.add(Document.parse(docStr.trim()));
+                // The index advisor looks at the leading $match and the $sort right after it
+                filter = !pipeline.isEmpty() && pipeline.get(0).isDocument("$match")
+                    ? pipeline.get(0).getDocument("$match") : new BsonDocument();
+                int sortStage = filter.isEmpty() ? 0 : 1;
+                if (pipeline.size() > sortStage && pipeline.get(sortStage).isDocument("$sort")) {
+                    sort = pipeline.get(sortStage).getDocument("$sort");
                 }
-                
-                collection.insertMany(documents);
-                
-                return QueryResult.builder()
-                    .success(true)
-                    .queryType("INSERT")
-                    .affectedRows(documents.size())
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
-                    .message(documents.size() + " document(s) inserted successfully")
-                    .build();
+                pipeline.add(new BsonDocument("$limit", new BsonInt32(maxResults)));
+                explain = buildAggregate(collection, command, pipeline).explain(BsonDocument.class, ExplainVerbosity.EXECUTION_STATS);
             }
-            
-            return QueryResult.builder()
-                .success(false)
-                .error("Unknown insert operation")
-                .executionTimeMs(System.currentTimeMillis() - startTime)
-                .build();
-                
-        } catch (Exception e) {
-            log.error("Insert operation failed: {}", e.getMessage());
-            return QueryResult.builder()
-                .success(false)
-                .error("Insert failed: " + e.getMessage())
-                .executionTimeMs(System.currentTimeMillis() - startTime)
-                .build();
+            default -> throw new IllegalArgumentException("Explain is supported for find, findOne and aggregate");
         }
+        
+        List<BsonDocument> indexes = collection.listIndexes(BsonDocument.class).into(new ArrayList<>());
+        return mongoIndexAdvisor.analyze(command.collection(), explain, filter, sort, indexes, startTime);
     }
 
-    private QueryResult executeUpdateQuery(MongoCollection<Document> collection, String operation, long startTime) {
+    private boolean isRead(String query) {
         try {
-            // Parse updateOne({filter}, {update}) or updateMany({filter}, {update})
-            int startIdx = operation.indexOf('(');
-            int endIdx = operation.lastIndexOf(')');
-            
-            if (startIdx == -1 || endIdx == -1) {
-                return QueryResult.builder()
-                    .success(false)
-                    .error("Invalid update syntax")
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
-                    .build();
-            }
-            
-            String params = operation.substring(startIdx + 1, endIdx).trim();
-            
-            // Split filter and update - find the boundary between two JSON objects
-            int braceCount = 0;
-            int splitIndex = -1;
-            for (int i = 0; i < params.length(); i++) {
-                char c = params.charAt(i);
-                if (c == '{') braceCount++;
-                else if (c == '}') {
-                    braceCount--;
-                    if (braceCount == 0 && i < params.length() - 1) {
-                        splitIndex = i + 1;
-                        break;
-                    }
-                }
-            }
-            
-            if (splitIndex == -1) {
-                return QueryResult.builder()
-                    .success(false)
-                    .error("Invalid update syntax: expected {filter}, {update}")
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
-                    .build();
+            String method = MongoShellParser.parse(query).method();
+            return method.equals("find") || method.equals("findOne") || method.equals("aggregate");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Winning plan (queryPlanner verbosity, so nothing is executed) for the slow query log.
+     */
+    private String queryPlan(MongoDatabase database, String query) {
+        MongoShellParser.MongoShellCommand command = MongoShellParser.parse(query);
+        MongoCollection<RawBsonDocument> collection = database.getCollection(command.collection(), RawBsonDocument.class);
+        BsonDocument explain;
+        if (command.method().equals("aggregate")) {
+            List<BsonDocument> pipeline = pipeline(command);
+            if (writesOutput(pipeline)) {
+                return null;
             }
-            
-            String filterJson = params.substring(0, splitIndex).trim();
-            String updateJson = params.substring(splitIndex).trim();
-            if (updateJson.startsWith(",")) updateJson = updateJson.substring(1).trim();
-            
-            // Preprocess to handle ObjectId() syntax
-            filterJson = preprocessMongoQuery(filterJson);
-            updateJson = preprocessMongoQuery(updateJson);
-            
-            Document filter = Document.parse(filterJson);
-            Document update = Document.parse(updateJson);
-            
-            long modifiedCount;
-            if (operation.startsWith("updateOne")) {
-                modifiedCount = collection.updateOne(filter, update).getModifiedCount();
-            } else if (operation.startsWith("updateMany")) {
-                modifiedCount = collection.updateMany(filter, update).getModifiedCount();
-            } else {
-                return QueryResult.builder()
-                    .success(false)
-                    .error("Unknown update operation")
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
-                    .build();
+            explain = buildAggregate(collection, command, pipeline).explain(BsonDocument.class, ExplainVerbosity.QUERY_PLANNER);
+        } else {
+            explain = buildFind(collection, command, DEFAULT_RESULT_LIMIT).explain(BsonDocument.class, ExplainVerbosity.QUERY_PLANNER);
+        }
+        BsonDocument planner = explain.isDocument("queryPlanner") ? explain.getDocument("queryPlanner") : explain;
+        return planner.isDocument("winningPlan") ? planner.getDocument("winningPlan").toJson() : explain.toJson();
+    }
+
+    private QueryResult executeDistinctQuery(MongoCollection<RawBsonDocument> collection, MongoShellParser.MongoShellCommand command,
+                                             int maxResults, long startTime) {
+        BsonValue field = command.arg(0);
+        if (field == null || !field.isString()) {
+            throw new IllegalArgumentException("distinct() takes a field name");
+        }
+        List<BsonDocument> rows = new ArrayList<>();
+        for (BsonValue value : collection.distinct(field.asString().getValue(), document(command.arg(1), "filter"), BsonValue.class)) {
+            if (rows.size() >= maxResults) {
+                break;
             }
-            
+            rows.add(new BsonDocument("value", value != null ? value : BsonNull.VALUE));
+        }
+        return QueryResult.builder()
+            .success(true)
+            .queryType("DISTINCT")
+            .columns(List.of("value"))
+            .rows(rows)
+            .rowCount(rows.size())
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .message(rows.size() + " distinct value(s)")
+            .build();
+    }
+
+    private QueryResult executeInsertQuery(MongoCollection<BsonDocument> collection, MongoShellParser.MongoShellCommand command,
+                                           long startTime) {
+        if (command.method().equals("insertOne")) {
+            collection.insertOne(document(command.arg(0), "document"));
             return QueryResult.builder()
                 .success(true)
-                .queryType("UPDATE")
-                .affectedRows((int) modifiedCount)
-                .executionTimeMs(System.currentTimeMillis() - startTime)
-                .message(modifiedCount + " document(s) updated successfully")
-                .build();
-                
-        } catch (Exception e) {
-            log.error("Update operation failed: {}", e.getMessage());
-            return QueryResult.builder()
-                .success(false)
-                .error("Update failed: " + e.getMessage())
+                .queryType("INSERT")
+                .affectedRows(1)
                 .executionTimeMs(System.currentTimeMillis() - startTime)
+                .message("Document inserted successfully")
                 .build();
         }
+        
+        BsonValue documentsArg = command.arg(0);
+        if (documentsArg == null || !documentsArg.isArray()) {
+            throw new IllegalArgumentException("insertMany() takes an array of documents");
+        }
+        List<BsonDocument> documents = new ArrayList<>();
+        for (BsonValue value : documentsArg.asArray()) {
+            documents.add(document(value, "document"));
+        }
+        BsonDocument options = document(command.arg(1), "options");
+        boolean ordered = !options.containsKey("ordered") || options.getBoolean("ordered").getValue();
+        collection.insertMany(documents, new InsertManyOptions().ordered(ordered));
+        
+        return QueryResult.builder()
+            .success(true)
+            .queryType("INSERT")
+            .affectedRows(documents.size())
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .message(documents.size() + " document(s) inserted successfully")
+            .build();
     }
 
-    private QueryResult executeDeleteQuery(MongoCollection<Document> collection, String operation, long startTime) {
-        try {
-            // Parse deleteOne({filter}) or deleteMany({filter})
-            int startIdx = operation.indexOf('(');
-            int endIdx = operation.lastIndexOf(')');
-            
-            if (startIdx == -1 || endIdx == -1) {
-                return QueryResult.builder()
-                    .success(false)
-                    .error("Invalid delete syntax")
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
-                    .build();
+    private QueryResult executeUpdateQuery(MongoCollection<BsonDocument> collection, MongoShellParser.MongoShellCommand command,
+                                           long startTime) {
+        BsonDocument filter = document(command.arg(0), "filter");
+        BsonValue update = command.arg(1);
+        if (update == null) {
+            throw new IllegalArgumentException("Invalid update syntax: expected {filter}, {update}");
+        }
+        BsonDocument options = document(command.arg(2), "options");
+        boolean upsert = options.containsKey("upsert") && options.getBoolean("upsert").getValue();
+        
+        UpdateResult result;
+        if (command.method().equals("replaceOne")) {
+            result = collection.replaceOne(filter, document(update, "replacement"), new ReplaceOptions().upsert(upsert));
+        } else {
+            UpdateOptions updateOptions = new UpdateOptions().upsert(upsert);
+            if (options.containsKey("arrayFilters")) {
+                List<BsonDocument> arrayFilters = new ArrayList<>();
+                options.getArray("arrayFilters").forEach(value -> arrayFilters.add(value.asDocument()));
+                updateOptions.arrayFilters(arrayFilters);
             }
-            
-            String filterJson = operation.substring(startIdx + 1, endIdx).trim();
-            // Preprocess to handle ObjectId() syntax
-            filterJson = preprocessMongoQuery(filterJson);
-            Document filter = Document.parse(filterJson);
-            
-            long deletedCount;
-            if (operation.startsWith("deleteOne")) {
-                deletedCount = collection.deleteOne(filter).getDeletedCount();
-            } else if (operation.startsWith("deleteMany")) {
-                deletedCount = collection.deleteMany(filter).getDeletedCount();
+            // Either an update document or an aggregation pipeline
+            List<BsonDocument> pipeline = new ArrayList<>();
+            if (update.isArray()) {
+                update.asArray().forEach(stage -> pipeline.add(document(stage, "update stage")));
+            }
+            boolean one = command.method().equals("updateOne");
+            if (update.isArray()) {
+                result = one ? collection.updateOne(filter, pipeline, updateOptions)
+                    : collection.updateMany(filter, pipeline, updateOptions);
             } else {
-                return QueryResult.builder()
-                    .success(false)
-                    .error("Unknown delete operation")
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
-                    .build();
+                result = one ? collection.updateOne(filter, document(update, "update"), updateOptions)
+                    : collection.updateMany(filter, document(update, "update"), updateOptions);
             }
-            
-            return QueryResult.builder()
-                .success(true)
-                .queryType("DELETE")
-                .affectedRows((int) deletedCount)
-                .executionTimeMs(System.currentTimeMillis() - startTime)
-                .message(deletedCount + " document(s) deleted successfully")
-                .build();
-                
-        } catch (Exception e) {
-            log.error("Delete operation failed: {}", e.getMessage());
-            return QueryResult.builder()
-                .success(false)
-                .error("Delete failed: " + e.getMessage())
-                .executionTimeMs(System.currentTimeMillis() - startTime)
-                .build();
         }
+        
+        long modifiedCount = result.getModifiedCount();
+        String upserted = result.getUpsertedId() != null ? ", 1 upserted" : "";
+        return QueryResult.builder()
+            .success(true)
+            .queryType("UPDATE")
+            .affectedRows((int) modifiedCount)
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .message(modifiedCount + " document(s) updated successfully" + upserted)
+            .build();
     }
 
-    private QueryResult executeCountQuery(MongoCollection<Document> collection, long startTime) {
-        long count = collection.countDocuments();
+    private QueryResult executeDeleteQuery(MongoCollection<BsonDocument> collection, MongoShellParser.MongoShellCommand command,
+                                           long startTime) {
+        BsonDocument filter = document(command.arg(0), "filter");
+        long deletedCount = command.method().equals("deleteOne")
+            ? collection.deleteOne(filter).getDeletedCount()
+            : collection.deleteMany(filter).getDeletedCount();
         
+        return QueryResult.builder()
+            .success(true)
+            .queryType("DELETE")
+            .affectedRows((int) deletedCount)
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .message(deletedCount + " document(s) deleted successfully")
+            .build();
+    }
+
+    private QueryResult executeCountQuery(MongoCollection<RawBsonDocument> collection, MongoShellParser.MongoShellCommand command,
+                                          long startTime) {
+        BsonDocument options = document(command.arg(1), "options");
+        CountOptions countOptions = new CountOptions();
+        if (options.containsKey("limit")) {
+            countOptions.limit(options.getNumber("limit").intValue());
+        }
+        if (options.containsKey("skip")) {
+            countOptions.skip(options.getNumber("skip").intValue());
+        }
+        return countResult(collection.countDocuments(document(command.arg(0), "filter"), countOptions), startTime);
+    }
+
+    private QueryResult countResult(long count, long startTime) {
         Map<String, Object> row = new HashMap<>();
         row.put("count", count);
         
@@ -428,7 +523,37 @@ public class MongoDBQueryService {
             .build();
     }
 
-    private QueryResult executeDropCollection(MongoCollection<Document> collection, String collectionName, long startTime) {
+    private QueryResult executeCreateIndex(MongoCollection<BsonDocument> collection, MongoShellParser.MongoShellCommand command,
+                                           long startTime) {
+        BsonDocument options = document(command.arg(1), "options");
+        IndexOptions indexOptions = new IndexOptions();
+        if (options.containsKey("name")) {
+            indexOptions.name(options.getString("name").getValue());
+        }
+        if (options.containsKey("unique")) {
+            indexOptions.unique(options.getBoolean("unique").getValue());
+        }
+        if (options.containsKey("sparse")) {
+            indexOptions.sparse(options.getBoolean("sparse").getValue());
+        }
+        if (options.containsKey("expireAfterSeconds")) {
+            indexOptions.expireAfter(options.getNumber("expireAfterSeconds").longValue(), TimeUnit.SECONDS);
+        }
+        if (options.containsKey("partialFilterExpression")) {
+            indexOptions.partialFilterExpression(options.getDocument("partialFilterExpression"));
+        }
+        String name = collection.createIndex(document(command.arg(0), "index keys"), indexOptions);
+        
+        return QueryResult.builder()
+            .success(true)
+            .queryType("CREATE_INDEX")
+            .affectedRows(0)
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .message("Index '" + name + "' created")
+            .build();
+    }
+
+    private QueryResult executeDropCollection(MongoCollection<RawBsonDocument> collection, String collectionName, long startTime) {
         try {
             collection.drop();
             
@@ -449,70 +574,61 @@ public class MongoDBQueryService {
         }
     }
 
-    public List<SchemaInfo.TableInfo> getCollectionsWithSchema(DatabaseInstance instance) {
-        String host = "localhost";
-        String connectionString = String.format("mongodb://%s:%s@%s:%d/%s?authSource=admin",
-            instance.getUsername(),
-            instance.getPassword(),
-            host,
-            instance.getPort(),
-            instance.getDatabaseName()
-        );
+    private QueryResult documentsResult(List<RawBsonDocument> documents, String queryType, long startTime) {
+        // Columns are the union of top-level fields, in first-seen order
+        Set<String> columnSet = new LinkedHashSet<>();
+        for (RawBsonDocument doc : documents) {
+            addFieldNames(doc, columnSet);
+        }
+        
+        return QueryResult.builder()
+            .success(true)
+            .queryType(queryType)
+            .columns(new ArrayList<>(columnSet))
+            .rows(documents)
+            .rowCount(documents.size())
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .message(documents.size() + " document(s) found")
+            .build();
+    }
 
-        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
-            MongoDatabase database = mongoClient.getDatabase(instance.getDatabaseName());
-            List<SchemaInfo.TableInfo> tables = new ArrayList<>();
-            
-            for (String collectionName : database.listCollectionNames()) {
-                MongoCollection<Document> collection = database.getCollection(collectionName);
-                long count = collection.countDocuments();
-                
-                List<SchemaInfo.ColumnInfo> columns = new ArrayList<>();
-                Document sample = collection.find().first();
-                
-                if (sample != null) {
-                    for (String key : sample.keySet()) {
-                        Object value = sample.get(key);
-                        String type = value != null ? value.getClass().getSimpleName() : "Object";
-                        if (value instanceof org.bson.types.ObjectId) type = "ObjectId";
-                        
-                        columns.add(SchemaInfo.ColumnInfo.builder()
-                            .name(key)
-                            .dataType(type)
-                            .build());
-                    }
-                }
-                
-                tables.add(SchemaInfo.TableInfo.builder()
-                    .name(collectionName)
-                    .type("COLLECTION")
-                    .rowCount(count)
-                    .columns(columns)
-                    .indexes(new ArrayList<>())
-                    .build());
+    /**
+     * Reads only the top-level names from the raw bytes, skipping values; RawBsonDocument.keySet()
+     * would decode the whole document.
+     */
+    private void addFieldNames(RawBsonDocument document, Set<String> names) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(new ByteBufferBsonInput(document.getByteBuffer()))) {
+            reader.readStartDocument();
+            while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                names.add(reader.readName());
+                reader.skipValue();
             }
-            return tables;
-        } catch (Exception e) {
-            log.error("Failed to get MongoDB schema: {}", e.getMessage());
-            return new ArrayList<>();
         }
     }
 
-    public List<String> getCollections(DatabaseInstance instance) {
-        // Use localhost since backend runs on same server as Docker containers
-        String host = "localhost";
-        
-        // MongoDB root user is created in 'admin' database, so authenticate there
-        String connectionString = String.format("mongodb://%s:%s@%s:%d/%s?authSource=admin",
-            instance.getUsername(),
-            instance.getPassword(),
-            host,
-            instance.getPort(),
-            instance.getDatabaseName()
-        );
+    /**
+     * Argument as a document; a missing argument is an empty one (match all, no options).
+     */
+    private BsonDocument document(BsonValue value, String what) {
+        if (value == null || value.isNull()) {
+            return new BsonDocument();
+        }
+        if (!value.isDocument()) {
+            throw new IllegalArgumentException("Expected a document for " + what);
+        }
+        return value.asDocument();
+    }
 
-        try (MongoClient mongoClient = MongoClients.create(connectionString)) {
-            MongoDatabase database = mongoClient.getDatabase(instance.getDatabaseName());
+    private int number(BsonValue value, String what) {
+        if (value == null || !value.isNumber()) {
+            throw new IllegalArgumentException(what + "() takes a number");
+        }
+        return value.asNumber().intValue();
+    }
+
+    public List<String> getCollections(DatabaseInstance instance) {
+        try {
+            MongoDatabase database = connectionPoolService.getMongoClient(instance).getDatabase(instance.getDatabaseName());
             List<String> collections = new ArrayList<>();
             database.listCollectionNames().into(collections);
             return collections;
@@ -525,6 +641,9 @@ public class MongoDBQueryService {
     private String determineMongoQueryType(String query) {
         String lower = query.toLowerCase();
         if (lower.contains(".find(") || lower.contains(".findone(")) return "FIND";
+        if (lower.contains(".aggregate(")) return "AGGREGATE";
+        if (lower.contains(".distinct(")) return "DISTINCT";
+        if (lower.contains(".count(") || lower.contains(".countdocuments(") || lower.contains(".estimateddocumentcount(")) return "COUNT";
         if (lower.contains(".insertone(") || lower.contains(".insertmany(")) return "INSERT";
         if (lower.contains(".updateone(") || lower.contains(".updatemany(") || lower.contains(".replaceone(")) return "UPDATE";
         if (lower.contains(".deleteone(") || lower.contains(".deletemany(")) return "DELETE";
@@ -535,7 +654,7 @@ public class MongoDBQueryService {
     
     private String getActionForMongoQuery(String queryType) {
         return switch (queryType) {
-            case "FIND" -> "QUERY_EXECUTED";
+            case "FIND", "AGGREGATE", "DISTINCT", "COUNT" -> "QUERY_EXECUTED";
             case "INSERT" -> "DATA_INSERTED";
             case "UPDATE" -> "DATA_UPDATED";
             case "DELETE" -> "DATA_DELETED";
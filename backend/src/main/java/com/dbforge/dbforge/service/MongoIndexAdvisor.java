@@ -0,0 +1,198 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.dto.QueryResult;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Reads an {@code explain("executionStats")} result: the winning plan becomes one row per stage,
+ * the execution counters go into the message, and collection scans, in-memory sorts and
+ * unselective index scans become recommendations. Suggested indexes follow the
+ * equality-sort-range order: equality fields of the filter first, then the sort keys, then
+ * fields matched by range.
+ */
+@Service
+public class MongoIndexAdvisor {
+
+    private static final Set<String> RANGE_OPERATORS = Set.of(
+            "$gt", "$gte", "$lt", "$lte", "$ne", "$nin", "$regex", "$exists", "$elemMatch", "$not", "$type");
+
+    public QueryResult analyze(String collectionName, BsonDocument explain, BsonDocument filter, BsonDocument sort,
+                               List<BsonDocument> indexes, long startTime) {
+        BsonDocument queryPlanner = section(explain, "queryPlanner");
+        BsonDocument executionStats = section(explain, "executionStats");
+        BsonDocument winningPlan = queryPlanner.getDocument("winningPlan", new BsonDocument());
+        if (winningPlan.isDocument("queryPlan")) {
+            // Slot-based engine: the classic-style stage tree sits under queryPlan
+            winningPlan = winningPlan.getDocument("queryPlan");
+        }
+
+        List<BsonDocument> rows = new ArrayList<>();
+        Set<String> stages = new HashSet<>();
+        List<String> usedIndexes = new ArrayList<>();
+        collectStages(winningPlan, 0, rows, stages, usedIndexes);
+
+        long returned = longValue(executionStats, "nReturned");
+        long docsExamined = longValue(executionStats, "totalDocsExamined");
+        long keysExamined = longValue(executionStats, "totalKeysExamined");
+        long executionMillis = longValue(executionStats, "executionTimeMillis");
+
+        List<String> recommendations = new ArrayList<>();
+        BsonDocument suggested = suggestIndex(filter, sort);
+        String createIndex = "db." + collectionName + ".createIndex(" + suggested.toJson() + ")";
+        Optional<String> coveringIndex = indexes.stream()
+                .filter(index -> startsWith(index.getDocument("key", new BsonDocument()), suggested))
+                .map(index -> index.getString("name", new BsonString("")).getValue())
+                .findFirst();
+
+        if (stages.contains("COLLSCAN")) {
+            if (suggested.isEmpty()) {
+                recommendations.add("Collection scan: the query has no filter or sort an index could serve.");
+            } else if (coveringIndex.isPresent()) {
+                recommendations.add("Collection scan although index '" + coveringIndex.get()
+                        + "' matches the query shape; check the filter types or hint the index.");
+            } else {
+                recommendations.add("Collection scan over " + docsExamined + " documents. Create an index: " + createIndex);
+            }
+        } else if (returned > 0 && docsExamined > 10 * returned && docsExamined >= 100) {
+            recommendations.add("Index " + String.join(", ", usedIndexes) + " is not selective: " + docsExamined
+                    + " documents examined for " + returned + " returned."
+                    + (suggested.isEmpty() || coveringIndex.isPresent() ? "" : " Consider: " + createIndex));
+        }
+        if (stages.contains("SORT") && !sort.isEmpty()) {
+            recommendations.add("Blocking in-memory SORT on " + sort.toJson()
+                    + ". An index with the equality fields followed by the sort keys returns documents in order"
+                    + (coveringIndex.isPresent() || stages.contains("COLLSCAN") ? "." : ": " + createIndex));
+        }
+        if (filter.containsKey("$or")) {
+            recommendations.add("$or is planned per clause; each clause needs its own index to avoid a scan.");
+        }
+        if (recommendations.isEmpty()) {
+            recommendations.add("No issues found: the plan uses " + (usedIndexes.isEmpty() ? "no index" : String.join(", ", usedIndexes)) + ".");
+        }
+
+        return QueryResult.builder()
+                .success(true)
+                .queryType("EXPLAIN")
+                .columns(List.of("stage", "index", "keyPattern", "direction", "filter"))
+                .rows(rows)
+                .rowCount(rows.size())
+                .executionTimeMs(System.currentTimeMillis() - startTime)
+                .message(String.format("Returned %d, examined %d keys and %d documents in %d ms",
+                        returned, keysExamined, docsExamined, executionMillis))
+                .recommendations(recommendations)
+                .build();
+    }
+
+    /**
+     * find explains carry queryPlanner/executionStats at the top; aggregations that are not fully
+     * pushed down nest them in the first stage's $cursor.
+     */
+    private BsonDocument section(BsonDocument explain, String name) {
+        if (explain.isDocument(name)) {
+            return explain.getDocument(name);
+        }
+        if (explain.isArray("stages") && !explain.getArray("stages").isEmpty()) {
+            BsonValue first = explain.getArray("stages").get(0);
+            if (first.isDocument() && first.asDocument().isDocument("$cursor")
+                    && first.asDocument().getDocument("$cursor").isDocument(name)) {
+                return first.asDocument().getDocument("$cursor").getDocument(name);
+            }
+        }
+        return new BsonDocument();
+    }
+
+    private void collectStages(BsonDocument stage, int depth, List<BsonDocument> rows, Set<String> stages, List<String> usedIndexes) {
+        if (stage.isEmpty()) {
+            return;
+        }
+        String name = stage.getString("stage", new BsonString("?")).getValue();
+        stages.add(name);
+        String indexName = stage.getString("indexName", new BsonString("")).getValue();
+        if (!indexName.isEmpty()) {
+            usedIndexes.add(indexName);
+        }
+
+        BsonDocument row = new BsonDocument();
+        row.put("stage", new BsonString("  ".repeat(depth) + name));
+        row.put("index", new BsonString(indexName));
+        row.put("keyPattern", new BsonString(stage.isDocument("keyPattern") ? stage.getDocument("keyPattern").toJson() : ""));
+        row.put("direction", new BsonString(stage.getString("direction", new BsonString("")).getValue()));
+        row.put("filter", new BsonString(stage.isDocument("filter") ? stage.getDocument("filter").toJson() : ""));
+        rows.add(row);
+
+        for (String child : List.of("inputStage", "outerStage", "innerStage", "thenStage", "elseStage")) {
+            if (stage.isDocument(child)) {
+                collectStages(stage.getDocument(child), depth + 1, rows, stages, usedIndexes);
+            }
+        }
+        if (stage.isArray("inputStages")) {
+            for (BsonValue child : stage.getArray("inputStages")) {
+                if (child.isDocument()) {
+                    collectStages(child.asDocument(), depth + 1, rows, stages, usedIndexes);
+                }
+            }
+        }
+    }
+
+    private BsonDocument suggestIndex(BsonDocument filter, BsonDocument sort) {
+        Set<String> equality = new LinkedHashSet<>();
+        Set<String> range = new LinkedHashSet<>();
+        classify(filter, equality, range);
+
+        BsonDocument keys = new BsonDocument();
+        equality.forEach(field -> keys.put(field, new BsonInt32(1)));
+        sort.forEach((field, direction) -> {
+            if (!keys.containsKey(field)) {
+                keys.put(field, new BsonInt32(direction.isNumber() && direction.asNumber().intValue() < 0 ? -1 : 1));
+            }
+        });
+        range.forEach(field -> keys.putIfAbsent(field, new BsonInt32(1)));
+        return keys;
+    }
+
+    private void classify(BsonDocument filter, Set<String> equality, Set<String> range) {
+        for (Map.Entry<String, BsonValue> entry : filter.entrySet()) {
+            String field = entry.getKey();
+            BsonValue value = entry.getValue();
+            if (field.equals("$and") && value.isArray()) {
+                value.asArray().stream().filter(BsonValue::isDocument).forEach(clause -> classify(clause.asDocument(), equality, range));
+            } else if (field.startsWith("$")) {
+                // $or/$nor/$expr/$text: no single index shape to suggest
+                continue;
+            } else if (value.isRegularExpression()) {
+                range.add(field);
+            } else if (value.isDocument() && !value.asDocument().isEmpty()
+                    && value.asDocument().keySet().stream().allMatch(key -> key.startsWith("$"))) {
+                boolean isRange = value.asDocument().keySet().stream().anyMatch(RANGE_OPERATORS::contains);
+                (isRange ? range : equality).add(field);
+            } else {
+                equality.add(field);
+            }
+        }
+        range.removeAll(equality);
+    }
+
+    private boolean startsWith(BsonDocument indexKeys, BsonDocument suggested) {
+        if (suggested.isEmpty() || indexKeys.size() < suggested.size()) {
+            return false;
+        }
+        Iterator<String> indexFields = indexKeys.keySet().iterator();
+        for (String field : suggested.keySet()) {
+            if (!indexFields.next().equals(field)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long longValue(BsonDocument document, String key) {
+        BsonValue value = document.get(key);
+        return value != null && value.isNumber() ? value.asNumber().longValue() : 0;
+    }
+}
@@ -0,0 +1,224 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.dto.SchemaInfo;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonType;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Infers the shape of MongoDB collections from a {@code $sample} of their documents: every
+ * field path seen (nested ones in dot notation), how often it is present, which BSON types it
+ * holds and whether it can be missing or null. Indexes come from {@code listIndexes}. Results
+ * are cached per collection for a while; row counts are read fresh as metadata estimates.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MongoSchemaService {
+
+    private final ConnectionPoolService connectionPoolService;
+    private final MetricsService metricsService;
+
+    @Value("${mongo.schema.sample-size:1000}")
+    private int sampleSize;
+
+    @Value("${mongo.schema.max-depth:5}")
+    private int maxDepth;
+
+    @Value("${mongo.schema.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    private final Map<Long, Map<String, CachedCollection>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Every collection of the instance's database with its inferred fields and indexes.
+     */
+    public List<SchemaInfo.TableInfo> getCollections(DatabaseInstance instance) {
+        MongoDatabase database = connectionPoolService.getMongoClient(instance).getDatabase(instance.getDatabaseName());
+        List<String> names = database.listCollectionNames().into(new ArrayList<>());
+        Collections.sort(names);
+
+        Map<String, CachedCollection> cached = cache.computeIfAbsent(instance.getId(), id -> new ConcurrentHashMap<>());
+        cached.keySet().retainAll(names);
+
+        List<SchemaInfo.TableInfo> tables = new ArrayList<>(names.size());
+        for (String name : names) {
+            SchemaInfo.TableInfo structure = getCollection(instance, database, name);
+            MongoCollection<Document> collection = database.getCollection(name);
+            tables.add(SchemaInfo.TableInfo.builder()
+                    .name(name)
+                    .type("COLLECTION")
+                    // From collection metadata; exact counts are an opt-in of the schema browser
+                    .rowCount(collection.estimatedDocumentCount())
+                    .columns(structure.getColumns())
+                    .indexes(structure.getIndexes())
+                    .build());
+        }
+        return tables;
+    }
+
+    /**
+     * Top-level field names of a collection in the order they were first seen in the sample.
+     */
+    public List<String> getTopLevelFields(DatabaseInstance instance, String collectionName) {
+        MongoDatabase database = connectionPoolService.getMongoClient(instance).getDatabase(instance.getDatabaseName());
+        return getCollection(instance, database, collectionName).getColumns().stream()
+                .map(SchemaInfo.ColumnInfo::getName)
+                .filter(path -> !path.contains("."))
+                .toList();
+    }
+
+    public void invalidate(Long instanceId, String collectionName) {
+        Map<String, CachedCollection> cached = cache.get(instanceId);
+        if (cached != null) {
+            cached.remove(collectionName);
+        }
+    }
+
+    private SchemaInfo.TableInfo getCollection(DatabaseInstance instance, MongoDatabase database, String name) {
+        Map<String, CachedCollection> cached = cache.computeIfAbsent(instance.getId(), id -> new ConcurrentHashMap<>());
+        CachedCollection entry = cached.get(name);
+        boolean hit = entry != null && System.currentTimeMillis() - entry.loadedAt() < cacheTtlSeconds * 1000;
+        metricsService.recordCacheAccess("mongo-schema", hit);
+        if (hit) {
+            return entry.structure();
+        }
+
+        long start = System.currentTimeMillis();
+        MongoCollection<BsonDocument> collection = database.getCollection(name, BsonDocument.class);
+        SchemaInfo.TableInfo structure = SchemaInfo.TableInfo.builder()
+                .name(name)
+                .type("COLLECTION")
+                .columns(inferFields(collection))
+                .indexes(readIndexes(collection))
+                .build();
+        cached.put(name, new CachedCollection(structure, System.currentTimeMillis()));
+        log.debug("Inferred schema of {}.{} in {} ms", instance.getDatabaseName(), name, System.currentTimeMillis() - start);
+        return structure;
+    }
+
+    /**
+     * $sample picks documents at random (a random cursor when the sample is under 5% of a large
+     * collection, otherwise a scan and shuffle), so rare fields show up in proportion.
+     */
+    private List<SchemaInfo.ColumnInfo> inferFields(MongoCollection<BsonDocument> collection) {
+        Map<String, FieldStats> fields = new LinkedHashMap<>();
+        int sampled = 0;
+        for (BsonDocument document : collection.aggregate(List.of(Aggregates.sample(sampleSize)))) {
+            sampled++;
+            Set<String> seen = new HashSet<>();
+            collect(document, "", 0, fields, seen);
+        }
+
+        List<SchemaInfo.ColumnInfo> columns = new ArrayList<>(fields.size());
+        for (Map.Entry<String, FieldStats> entry : fields.entrySet()) {
+            FieldStats stats = entry.getValue();
+            // Ordered by frequency, e.g. {Int32=950, String=50}
+            Map<String, Integer> types = stats.types.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+            columns.add(SchemaInfo.ColumnInfo.builder()
+                    .name(entry.getKey())
+                    .dataType(String.join("|", types.keySet()))
+                    .nullable(stats.documents < sampled || types.containsKey("Null"))
+                    .primaryKey("_id".equals(entry.getKey()))
+                    .autoIncrement(false)
+                    .presence(sampled > 0 ? (double) stats.documents / sampled : 0)
+                    .typeCounts(types)
+                    .build());
+        }
+        return columns;
+    }
+
+    private void collect(BsonDocument document, String prefix, int depth, Map<String, FieldStats> fields, Set<String> seen) {
+        for (Map.Entry<String, BsonValue> entry : document.entrySet()) {
+            String path = prefix + entry.getKey();
+            BsonValue value = entry.getValue();
+            FieldStats stats = fields.computeIfAbsent(path, p -> new FieldStats());
+            // Arrays of documents contribute a path once per document, however many elements have it
+            if (seen.add(path)) {
+                stats.documents++;
+            }
+            stats.types.merge(typeName(value.getBsonType()), 1, Integer::sum);
+
+            if (depth + 1 >= maxDepth) {
+                continue;
+            }
+            if (value.isDocument()) {
+                collect(value.asDocument(), path + ".", depth + 1, fields, seen);
+            } else if (value.isArray()) {
+                BsonArray array = value.asArray();
+                for (BsonValue element : array) {
+                    if (element.isDocument()) {
+                        collect(element.asDocument(), path + ".", depth + 1, fields, seen);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<SchemaInfo.IndexInfo> readIndexes(MongoCollection<BsonDocument> collection) {
+        List<SchemaInfo.IndexInfo> indexes = new ArrayList<>();
+        for (Document index : collection.listIndexes()) {
+            String name = index.getString("name");
+            Document key = index.get("key", Document.class);
+            List<String> columns = new ArrayList<>();
+            if (key != null) {
+                key.forEach((field, direction) -> columns.add(
+                        direction instanceof Number number && number.intValue() == 1 ? field
+                                : direction instanceof Number number && number.intValue() == -1 ? field + " (desc)"
+                                : field + " (" + direction + ")"));
+            }
+            String type = "_id_".equals(name) ? "PRIMARY"
+                    : Boolean.TRUE.equals(index.getBoolean("unique")) ? "UNIQUE" : "INDEX";
+            indexes.add(SchemaInfo.IndexInfo.builder()
+                    .name(name)
+                    .type(type)
+                    .columns(columns)
+                    .build());
+        }
+        return indexes;
+    }
+
+    private String typeName(BsonType type) {
+        return switch (type) {
+            case DOUBLE -> "Double";
+            case STRING -> "String";
+            case DOCUMENT -> "Object";
+            case ARRAY -> "Array";
+            case BINARY -> "BinData";
+            case OBJECT_ID -> "ObjectId";
+            case BOOLEAN -> "Boolean";
+            case DATE_TIME -> "Date";
+            case NULL -> "Null";
+            case REGULAR_EXPRESSION -> "Regex";
+            case INT32 -> "Int32";
+            case TIMESTAMP -> "Timestamp";
+            case INT64 -> "Int64";
+            case DECIMAL128 -> "Decimal128";
+            default -> type.name();
+        };
+    }
+
+    private static class FieldStats {
+        private int documents;
+        private final Map<String, Integer> types = new HashMap<>();
+    }
+
+    private record CachedCollection(SchemaInfo.TableInfo structure, long loadedAt) {
+    }
+}
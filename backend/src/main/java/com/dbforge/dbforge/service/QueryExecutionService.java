@@ -18,9 +18,15 @@ public class QueryExecutionService {
     
     private final DatabaseInstanceRepository databaseInstanceRepository;
     private final AuditLogService auditLogService;
+    private final ConnectionPoolService connectionPoolService;
+    private final SchemaIntrospectionService schemaIntrospectionService;
+    private final QueryTelemetryService queryTelemetryService;
+    private final MetricsService metricsService;
+    private final TracingService tracingService;
     
     public QueryResult executeQuery(Long instanceId, QueryRequest request) {
         long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
         
         DatabaseInstance instance = databaseInstanceRepository.findById(instanceId)
             .orElseThrow(() -> new RuntimeException("Database instance not found"));
@@ -34,11 +40,7 @@ public class QueryExecutionService {
                 .build();
         }
         
-        String jdbcUrl = buildJdbcUrl(instance);
-        String username = instance.getUsername();
-        String password = instance.getPassword();
-        
-        try (Connection conn = DriverManager.getConnection(jdbcUrl, username, password)) {
+        try (Connection conn = connectionPoolService.getSessionConnection(instance)) {
             // Set timeout if provided
             if (request.getTimeout() != null) {
                 conn.setNetworkTimeout(null, request.getTimeout() * 1000);
@@ -55,10 +57,18 @@ public class QueryExecutionService {
                 result = executeSelectQuery(conn, request);
             } else {
                 result = executeUpdateQuery(conn, request, queryType);
+                if (changesSchema(queryType)) {
+                    schemaIntrospectionService.invalidate(instanceId);
+                }
             }
             
             // Log query execution
             logQueryExecution(userId, instance, queryType, request.getQuery(), result);
+            long durationNanos = System.nanoTime() - startNanos;
+            metricsService.recordQuery(instance, queryType, durationNanos, Boolean.TRUE.equals(result.getSuccess()));
+            queryTelemetryService.record(instance, request.getQuery(), durationNanos, result,
+                    "SELECT".equals(queryType) && isSingleStatement(request.getQuery())
+                            ? () -> explainPlan(instance, dbType, request.getQuery()) : null);
             
             return result;
             
@@ -70,11 +80,15 @@ public class QueryExecutionService {
             auditLogService.logFailure(userId, "QUERY_EXECUTED", "DATABASE", instance.getId(),
                     instance.getInstanceName(), "Query failed: " + e.getMessage());
             
-            return QueryResult.builder()
+            QueryResult result = QueryResult.builder()
                 .success(false)
                 .error(e.getMessage())
                 .executionTimeMs(executionTime)
                 .build();
+            long durationNanos = System.nanoTime() - startNanos;
+            metricsService.recordQuery(instance, determineQueryType(request.getQuery()), durationNanos, false);
+            queryTelemetryService.record(instance, request.getQuery(), durationNanos, result, null);
+            return result;
         }
     }
 
@@ -134,7 +148,39 @@ public class QueryExecutionService {
         }
     }
     
-    private QueryResult executeSelectQuery(Connection conn, QueryRequest request) throws SQLException {
+    /**
+     * Plain EXPLAIN (without ANALYZE, so the statement is not run again) as text, one line per
+     * plan row, for the slow query log.
+     */
+    private String explainPlan(DatabaseInstance instance, String dbType, String query) {
+        String statement = query.trim();
+        if (statement.endsWith(";")) {
+            statement = statement.substring(0, statement.length() - 1).trim();
+        }
+        try (Connection conn = connectionPoolService.getConnection(instance);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN " + statement)) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                if (metaData.getColumnCount() == 1) {
+                    // PostgreSQL: one "QUERY PLAN" line per row
+                    plan.append(rs.getString(1));
+                } else {
+                    for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                        plan.append(i > 1 ? ", " : "").append(metaData.getColumnLabel(i)).append('=').append(rs.getString(i));
+                    }
+                }
+                plan.append('\n');
+            }
+            return plan.toString().trim();
+        } catch (SQLException e) {
+            log.debug("EXPLAIN for slow query on {} failed: {}", dbType, e.getMessage());
+            return "Plan unavailable: " + e.getMessage();
+        }
+    }
+    
+    QueryResult executeSelectQuery(Connection conn, QueryRequest request) throws SQLException {
         long startTime = System.currentTimeMillis();
         
         try (Statement stmt = conn.createStatement()) {
@@ -150,7 +196,8 @@ public class QueryExecutionService {
                 query += " LIMIT " + request.getLimit();
             }
             
-            ResultSet rs = stmt.executeQuery(query);
+            String statement = query;
+            ResultSet rs = tracingService.trace("sql.execute", () -> stmt.executeQuery(statement));
             ResultSetMetaData metaData = rs.getMetaData();
             int columnCount = metaData.getColumnCount();
             
@@ -163,20 +210,23 @@ public class QueryExecutionService {
             // Extract rows
             List<Map<String, Object>> rows = new ArrayList<>();
             int rowCount = 0;
-            while (rs.next()) {
-                Map<String, Object> row = new LinkedHashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    Object value = rs.getObject(i);
-                    row.put(columnName, value);
-                }
-                rows.add(row);
-                rowCount++;
+            try (TracingService.ActiveSpan mapping = tracingService.start("sql.result-mapping")) {
+                while (rs.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int i = 1; i <= columnCount; i++) {
+                        String columnName = metaData.getColumnName(i);
+                        Object value = rs.getObject(i);
+                        row.put(columnName, value);
+                    }
+                    rows.add(row);
+                    rowCount++;
                 
-                // Safety limit to prevent memory issues
-                if (rowCount >= 10000) {
-                    break;
+                    // Safety limit to prevent memory issues
+                    if (rowCount >= 10000) {
+                        break;
+                    }
                 }
+                mapping.tag("db.rows", rowCount);
             }
             
             long executionTime = System.currentTimeMillis() - startTime;
@@ -197,7 +247,7 @@ public class QueryExecutionService {
         long startTime = System.currentTimeMillis();
         
         try (Statement stmt = conn.createStatement()) {
-            int affectedRows = stmt.executeUpdate(request.getQuery());
+            int affectedRows = tracingService.trace("sql.execute", () -> stmt.executeUpdate(request.getQuery()));
             long executionTime = System.currentTimeMillis() - startTime;
             
             return QueryResult.builder()
@@ -210,7 +260,96 @@ public class QueryExecutionService {
         }
     }
     
-    private String determineQueryType(String query) {
+    /**
+     * Whether {@code query} holds one statement, i.e. no ';' outside string literals, quoted
+     * identifiers and comments is followed by more SQL. The driver runs every statement of a
+     * string, so only a single one may be sent again to capture its plan. Backslash escapes and
+     * $tag$ strings depend on the server and its settings, so the text must read as one statement
+     * both with and without them.
+     */
+    static boolean isSingleStatement(String query) {
+        return isSingleStatement(query, true, true) && isSingleStatement(query, true, false)
+                && isSingleStatement(query, false, true) && isSingleStatement(query, false, false);
+    }
+
+    private static boolean isSingleStatement(String query, boolean backslashEscapes, boolean dollarQuotes) {
+        int length = query.length();
+        boolean ended = false;
+        int i = 0;
+        while (i < length) {
+            char c = query.charAt(i);
+            char next = i + 1 < length ? query.charAt(i + 1) : 0;
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '-' && next == '-') {
+                int end = query.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                int end = query.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                continue;
+            }
+            if (ended) {
+                return false;
+            }
+            if (c == ';') {
+                ended = true;
+                i++;
+            } else if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(query, i, c, backslashEscapes && c == '\'');
+            } else if (c == '$' && dollarQuotes && (i == 0 || !isIdentifierPart(query.charAt(i - 1)))) {
+                i = skipDollarQuoted(query, i);
+            } else {
+                i++;
+            }
+        }
+        return true;
+    }
+
+    // Index after the literal opening at start; a doubled quote stays inside
+    private static int skipQuoted(String query, int start, char quote, boolean backslashEscapes) {
+        int i = start + 1;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (c == '\\' && backslashEscapes) {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < query.length() && query.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return i;
+    }
+
+    // PostgreSQL $tag$...$tag$ strings; a '$' that does not open one is skipped alone
+    private static int skipDollarQuoted(String query, int start) {
+        int tagEnd = start + 1;
+        while (tagEnd < query.length() && isIdentifierPart(query.charAt(tagEnd)) && query.charAt(tagEnd) != '$') {
+            tagEnd++;
+        }
+        if (tagEnd >= query.length() || query.charAt(tagEnd) != '$'
+                || (tagEnd > start + 1 && Character.isDigit(query.charAt(start + 1)))) {
+            return start + 1;
+        }
+        String tag = query.substring(start, tagEnd + 1);
+        int end = query.indexOf(tag, tagEnd + 1);
+        return end < 0 ? query.length() : end + tag.length();
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+    
+    String determineQueryType(String query) {
         // Remove leading whitespace and comments, then check query type
         String[] lines = query.split("\\n");
         StringBuilder cleaned = new StringBuilder();
@@ -236,24 +375,14 @@ public class QueryExecutionService {
         return "OTHER";
     }
     
-    private String buildJdbcUrl(DatabaseInstance instance) {
-        // Backend always connects via localhost since Docker containers are on same server
-        String host = "localhost";
-        String port = String.valueOf(instance.getPort());
-        String database = instance.getDatabaseName();
-        String dbType = instance.getDatabaseType().getName().toLowerCase();
-        
-        switch (dbType) {
-            case "postgresql":
-                return String.format("jdbc:postgresql://%s:%s/%s", host, port, database);
-            case "mysql":
-            case "mariadb":
-                return String.format("jdbc:mysql://%s:%s/%s?allowPublicKeyRetrieval=true&useSSL=false", host, port, database);
-            case "mongodb":
-                return String.format("mongodb://%s:%s/%s", host, port, database);
-            default:
-                throw new RuntimeException("Unsupported database type: " + dbType);
-        }
+    /**
+     * DDL, and statements not classified (RENAME TABLE, COMMENT ON, ...), may change the schema.
+     */
+    private boolean changesSchema(String queryType) {
+        return switch (queryType) {
+            case "CREATE", "ALTER", "DROP", "OTHER" -> true;
+            default -> false;
+        };
     }
     
     private void logQueryExecution(Long userId, DatabaseInstance instance, String queryType, 
@@ -0,0 +1,259 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.dto.QueryResult;
+import com.dbforge.dbforge.dto.QueryStatsResponse;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.util.LatencyHistogram;
+import com.dbforge.dbforge.util.QueryFingerprint;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-instance query statistics: statements are reduced to fingerprints, and each fingerprint
+ * keeps call/error/row counters and a latency histogram, all updated without locks on the
+ * query path. Statements slower than the threshold are kept in a bounded log; for reads the
+ * caller supplies how to get a plan, which is fetched on a background thread so the slow
+ * query itself is not delayed further. Held in memory, reset on restart.
+ */
+@Service
+@Slf4j
+public class QueryTelemetryService {
+
+    private static final String OTHER = "(other statements)";
+
+    @Value("${telemetry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${telemetry.slow-query-ms:500}")
+    private long slowQueryMs;
+
+    @Value("${telemetry.slow-log-size:100}")
+    private int slowLogSize;
+
+    @Value("${telemetry.max-fingerprints-per-instance:500}")
+    private int maxFingerprints;
+
+    @Value("${telemetry.explain-interval-seconds:600}")
+    private long explainIntervalSeconds;
+
+    private final Map<Long, InstanceStats> instances = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor explainExecutor;
+
+    @PostConstruct
+    public void init() {
+        // One plan at a time; when plans back up, new requests are dropped rather than queued
+        explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(32), runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+
+    /**
+     * Records one execution. {@code plan} may be null; it is only called for slow statements.
+     */
+    public void record(DatabaseInstance instance, String statement, long durationNanos, QueryResult result, Supplier<String> plan) {
+        if (!enabled || instance == null || statement == null || statement.isBlank()) {
+            return;
+        }
+        try {
+            String fingerprint = QueryFingerprint.of(instance.getDatabaseType().getName(), statement);
+            InstanceStats stats = instances.computeIfAbsent(instance.getId(), id -> new InstanceStats());
+            FingerprintStats entry = stats.fingerprints.get(fingerprint);
+            if (entry == null) {
+                entry = stats.fingerprints.size() < maxFingerprints
+                        ? stats.fingerprints.computeIfAbsent(fingerprint, key -> new FingerprintStats())
+                        : stats.fingerprints.computeIfAbsent(OTHER, key -> new FingerprintStats());
+            }
+
+            boolean success = result != null && Boolean.TRUE.equals(result.getSuccess());
+            long rows = rows(result);
+            entry.histogram.record(durationNanos / 1000);
+            entry.calls.increment();
+            entry.rows.add(rows);
+            if (!success) {
+                entry.errors.increment();
+            }
+            entry.sample = statement;
+            entry.lastSeen = System.currentTimeMillis();
+
+            if (durationNanos / 1_000_000 >= slowQueryMs) {
+                SlowQuery slow = new SlowQuery(fingerprint, truncate(statement), durationNanos / 1_000_000.0, rows, success,
+                        System.currentTimeMillis());
+                stats.addSlow(slow, slowLogSize);
+                if (plan != null && success && entry.shouldExplain(explainIntervalSeconds * 1000)) {
+                    explainExecutor.execute(() -> capturePlan(slow, plan));
+                }
+            }
+        } catch (Exception e) {
+            // Telemetry must never fail a query
+            log.debug("Failed to record query telemetry: {}", e.getMessage());
+        }
+    }
+
+    public QueryStatsResponse getStats(DatabaseInstance instance, String sort, int limit) {
+        InstanceStats stats = instances.get(instance.getId());
+        String order = sort == null ? "total" : sort.toLowerCase(Locale.ROOT);
+        List<QueryStatsResponse.FingerprintStats> queries = new ArrayList<>();
+        List<QueryStatsResponse.SlowQuery> slowQueries = new ArrayList<>();
+        if (stats != null) {
+            stats.fingerprints.forEach((fingerprint, entry) -> queries.add(entry.toResponse(fingerprint)));
+            queries.sort(comparator(order).reversed());
+            if (queries.size() > limit) {
+                queries.subList(limit, queries.size()).clear();
+            }
+            synchronized (stats.slowLog) {
+                // Newest first
+                stats.slowLog.descendingIterator().forEachRemaining(slow -> slowQueries.add(slow.toResponse()));
+            }
+        }
+        return QueryStatsResponse.builder()
+                .instanceId(instance.getId())
+                .instanceName(instance.getInstanceName())
+                .since(stats != null ? stats.since : System.currentTimeMillis())
+                .sort(order)
+                .queries(queries)
+                .slowQueries(slowQueries)
+                .build();
+    }
+
+    public void reset(Long instanceId) {
+        instances.remove(instanceId);
+    }
+
+    private Comparator<QueryStatsResponse.FingerprintStats> comparator(String sort) {
+        return switch (sort) {
+            case "mean" -> Comparator.comparingDouble(QueryStatsResponse.FingerprintStats::getMeanMs);
+            case "p99" -> Comparator.comparingDouble(QueryStatsResponse.FingerprintStats::getP99Ms);
+            case "calls" -> Comparator.comparingLong(QueryStatsResponse.FingerprintStats::getCalls);
+            case "errors" -> Comparator.comparingLong(QueryStatsResponse.FingerprintStats::getErrors);
+            default -> Comparator.comparingDouble(QueryStatsResponse.FingerprintStats::getTotalMs);
+        };
+    }
+
+    private void capturePlan(SlowQuery slow, Supplier<String> plan) {
+        try {
+            slow.plan = plan.get();
+        } catch (Exception e) {
+            slow.plan = "Plan unavailable: " + e.getMessage();
+        }
+    }
+
+    private long rows(QueryResult result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result.getRowCount() != null) {
+            return result.getRowCount();
+        }
+        return result.getAffectedRows() != null ? result.getAffectedRows() : 0;
+    }
+
+    private String truncate(String statement) {
+        return statement.length() > 2000 ? statement.substring(0, 2000) + "..." : statement;
+    }
+
+    private static double millis(long micros) {
+        return Math.round(micros / 10.0) / 100.0;
+    }
+
+    private static class InstanceStats {
+        private final long since = System.currentTimeMillis();
+        private final Map<String, FingerprintStats> fingerprints = new ConcurrentHashMap<>();
+        private final ArrayDeque<SlowQuery> slowLog = new ArrayDeque<>();
+
+        void addSlow(SlowQuery slow, int capacity) {
+            synchronized (slowLog) {
+                slowLog.addLast(slow);
+                while (slowLog.size() > capacity) {
+                    slowLog.removeFirst();
+                }
+            }
+        }
+    }
+
+    private static class FingerprintStats {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private volatile String sample;
+        private volatile long lastSeen;
+        private volatile long lastExplained;
+
+        /**
+         * At most one plan per fingerprint per interval; a racing second caller may also win,
+         * which only costs an extra EXPLAIN.
+         */
+        boolean shouldExplain(long intervalMillis) {
+            long now = System.currentTimeMillis();
+            if (now - lastExplained < intervalMillis) {
+                return false;
+            }
+            lastExplained = now;
+            return true;
+        }
+
+        QueryStatsResponse.FingerprintStats toResponse(String fingerprint) {
+            long count = calls.sum();
+            return QueryStatsResponse.FingerprintStats.builder()
+                    .fingerprint(fingerprint)
+                    .sample(sample != null && sample.length() > 500 ? sample.substring(0, 500) + "..." : sample)
+                    .calls(count)
+                    .errors(errors.sum())
+                    .rows(rows.sum())
+                    .totalMs(millis(histogram.getSum()))
+                    .meanMs(count > 0 ? millis(histogram.getSum() / count) : 0)
+                    .p50Ms(millis(histogram.percentile(0.50)))
+                    .p95Ms(millis(histogram.percentile(0.95)))
+                    .p99Ms(millis(histogram.percentile(0.99)))
+                    .maxMs(millis(histogram.getMax()))
+                    .lastSeen(lastSeen)
+                    .build();
+        }
+    }
+
+    private static class SlowQuery {
+        private final String fingerprint;
+        private final String statement;
+        private final double durationMs;
+        private final long rows;
+        private final boolean success;
+        private final long timestamp;
+        private volatile String plan;
+
+        SlowQuery(String fingerprint, String statement, double durationMs, long rows, boolean success, long timestamp) {
+            this.fingerprint = fingerprint;
+            this.statement = statement;
+            this.durationMs = durationMs;
+            this.rows = rows;
+            this.success = success;
+            this.timestamp = timestamp;
+        }
+
+        QueryStatsResponse.SlowQuery toResponse() {
+            return QueryStatsResponse.SlowQuery.builder()
+                    .fingerprint(fingerprint)
+                    .statement(statement)
+                    .durationMs(durationMs)
+                    .rows(rows)
+                    .success(success)
+                    .timestamp(timestamp)
+                    .plan(plan)
+                    .build();
+        }
+    }
+}
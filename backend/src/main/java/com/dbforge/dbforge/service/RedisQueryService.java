@@ -4,35 +4,92 @@ import com.dbforge.dbforge.dto.QueryRequest;
 import com.dbforge.dbforge.dto.QueryResult;
 import com.dbforge.dbforge.model.DatabaseInstance;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.PipeliningBase;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.resps.Slowlog;
+import redis.clients.jedis.util.SafeEncoder;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.*;
 
 @Service
 @Slf4j
 public class RedisQueryService {
     
+    // Commands with a dedicated handler, with the argument count (command included) each needs at least;
+    // in a pipeline they return the same values, other commands are passed through
+    private static final Map<String, Integer> PIPELINE_ARITY = Map.ofEntries(
+            Map.entry("GET", 2), Map.entry("SET", 3), Map.entry("DEL", 2), Map.entry("DELETE", 2),
+            Map.entry("EXISTS", 2), Map.entry("KEYS", 1), Map.entry("TYPE", 2), Map.entry("TTL", 2),
+            Map.entry("EXPIRE", 3), Map.entry("LPUSH", 3), Map.entry("RPUSH", 3), Map.entry("LPOP", 2),
+            Map.entry("RPOP", 2), Map.entry("LRANGE", 4), Map.entry("SADD", 3), Map.entry("SMEMBERS", 2),
+            Map.entry("HSET", 4), Map.entry("HGET", 3), Map.entry("HGETALL", 2), Map.entry("INCR", 2),
+            Map.entry("DECR", 2), Map.entry("DBSIZE", 1), Map.entry("FLUSHDB", 1), Map.entry("INFO", 1));
+    
     private final AuditLogService auditLogService;
+    private final ConnectionPoolService connectionPoolService;
+    private final QueryTelemetryService queryTelemetryService;
+    private final MetricsService metricsService;
+    private final TracingService tracingService;
+    
+    @Value("${redis.slowlog.entries:50}")
+    private int slowlogEntries;
+    
+    // Commands without a dedicated handler are passed through as-is, subject to these lists
+    @Value("${redis.commands.allowed:}")
+    private Set<String> allowedCommands;
+    
+    // Connection state of pooled clients, blocking calls and server administration; listed in application.properties
+    @Value("${redis.commands.denied}")
+    private Set<String> deniedCommands;
     
-    public RedisQueryService(AuditLogService auditLogService) {
+    public RedisQueryService(AuditLogService auditLogService, ConnectionPoolService connectionPoolService,
+                             QueryTelemetryService queryTelemetryService, MetricsService metricsService,
+                             TracingService tracingService) {
         this.auditLogService = auditLogService;
+        this.connectionPoolService = connectionPoolService;
+        this.queryTelemetryService = queryTelemetryService;
+        this.metricsService = metricsService;
+        this.tracingService = tracingService;
     }
 
     public QueryResult executeRedisCommand(DatabaseInstance instance, QueryRequest request) {
+        long startNanos = System.nanoTime();
+        QueryResult result = tracingService.trace("redis.execute", instance, () -> runCommands(instance, request));
+        if (!Boolean.TRUE.equals(request.getExplain()) && instance.getStatus() == DatabaseInstance.InstanceStatus.RUNNING) {
+            long durationNanos = System.nanoTime() - startNanos;
+            metricsService.recordQuery(instance, result.getQueryType(), durationNanos, Boolean.TRUE.equals(result.getSuccess()));
+            queryTelemetryService.record(instance, request.getQuery(), durationNanos, result, null);
+        }
+        return result;
+    }
+
+    private QueryResult runCommands(DatabaseInstance instance, QueryRequest request) {
         Long userId = instance.getUserId();
         long startTime = System.currentTimeMillis();
         
-        JedisPoolConfig poolConfig = new JedisPoolConfig();
-        poolConfig.setMaxTotal(10);
-        
-        // Use localhost since backend runs on same server as Docker containers
-        String host = "localhost";
+        if (instance.getStatus() != DatabaseInstance.InstanceStatus.RUNNING) {
+            return QueryResult.builder()
+                .success(false)
+                .error("Database instance is not running")
+                .build();
+        }
         
-        try (JedisPool pool = new JedisPool(poolConfig, host, instance.getPort(), 2000, instance.getPassword());
-             Jedis jedis = pool.getResource()) {
+        try (Jedis jedis = connectionPoolService.getJedisPool(instance).getResource()) {
+            
+            // Redis has no query plans; the explain action shows where time went instead
+            if (Boolean.TRUE.equals(request.getExplain())) {
+                return handleLatencyReport(jedis, slowlogEntries, startTime);
+            }
             
             // Parse the query - remove comments and extract valid commands
             String query = request.getQuery().trim();
@@ -58,6 +115,24 @@ public class RedisQueryService {
             
             // Execute commands
             QueryResult result;
+            if (commands.size() > 1 && !Boolean.FALSE.equals(request.getPipeline())) {
+                boolean transaction = Boolean.TRUE.equals(request.getTransaction());
+                // A script written as MULTI ... EXEC runs as a transaction as well
+                if (commands.size() > 2 && commands.get(0).equalsIgnoreCase("MULTI")
+                        && commands.get(commands.size() - 1).equalsIgnoreCase("EXEC")) {
+                    commands = commands.subList(1, commands.size() - 1);
+                    transaction = true;
+                }
+                result = executePipelined(jedis, commands, transaction, startTime);
+                if (Boolean.TRUE.equals(result.getSuccess())) {
+                    auditLogService.logSuccess(userId, "QUERY_EXECUTED", "DATABASE", instance.getId(),
+                            instance.getInstanceName(), "Redis: " + result.getMessage());
+                } else {
+                    auditLogService.logFailure(userId, "QUERY_EXECUTED", "DATABASE", instance.getId(),
+                            instance.getInstanceName(), "Redis: " + result.getError());
+                }
+                return result;
+            }
             if (commands.size() > 1) {
                 int successCount = 0;
                 int errorCount = 0;
@@ -129,7 +204,7 @@ public class RedisQueryService {
         }
     }
     
-    private String[] parseCommand(String command) {
+    String[] parseCommand(String command) {
         List<String> parts = new ArrayList<>();
         StringBuilder current = new StringBuilder();
         boolean inQuotes = false;
@@ -171,6 +246,9 @@ public class RedisQueryService {
             }
             
             String cmd = parts[0].toUpperCase();
+            if (!isAllowed(cmd)) {
+                return buildError("Redis command not allowed: " + cmd, startTime);
+            }
             
             return switch (cmd) {
                 case "GET" -> handleGet(jedis, parts, startTime);
@@ -196,13 +274,212 @@ public class RedisQueryService {
                 case "DBSIZE" -> handleDbsize(jedis, startTime);
                 case "FLUSHDB" -> handleFlushdb(jedis, startTime);
                 case "INFO" -> handleInfo(jedis, startTime);
-                default -> QueryResult.builder()
-                    .success(false)
-                    .error("Unsupported Redis command: " + cmd)
-                    .executionTimeMs(System.currentTimeMillis() - startTime)
-                    .build();
+                // SLOWLOG [GET [count]] reads as the report; RESET, LEN and LATENCY subcommands go as typed
+                case "SLOWLOG" -> parts.length == 1 || (parts.length <= 3 && parts[1].equalsIgnoreCase("GET"))
+                    ? handleLatencyReport(jedis, parts.length == 3 ? Integer.parseInt(parts[2]) : slowlogEntries, startTime)
+                    : handleGeneric(jedis, cmd, parts, startTime);
+                default -> handleGeneric(jedis, cmd, parts, startTime);
             };
     }
+    
+    private boolean isAllowed(String cmd) {
+        return (allowedCommands.isEmpty() || allowedCommands.stream().anyMatch(cmd::equalsIgnoreCase))
+            && deniedCommands.stream().noneMatch(cmd::equalsIgnoreCase);
+    }
+    
+    private static ProtocolCommand protocolCommand(String cmd) {
+        byte[] raw = SafeEncoder.encode(cmd);
+        return () -> raw;
+    }
+    
+    /**
+     * Any other command, sent as typed and returned as RESP decoded it: an array becomes one row
+     * per element, anything else a single row. Values are strings, integers, nested arrays or null.
+     */
+    private QueryResult handleGeneric(Jedis jedis, String cmd, String[] parts, long startTime) {
+        Object reply;
+        try {
+            reply = jedis.sendCommand(protocolCommand(cmd), Arrays.copyOfRange(parts, 1, parts.length));
+        } catch (JedisDataException e) {
+            return buildError(e.getMessage(), startTime);
+        }
+        
+        List<Map<String, Object>> rows = new ArrayList<>();
+        if (reply instanceof List<?> elements) {
+            for (int i = 0; i < elements.size(); i++) {
+                rows.add(replyRow(i, elements.get(i)));
+            }
+        } else {
+            rows.add(replyRow(0, reply));
+        }
+        
+        return QueryResult.builder()
+            .success(true)
+            .queryType(cmd)
+            .columns(List.of("index", "type", "value"))
+            .rows(rows)
+            .rowCount(rows.size())
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .build();
+    }
+    
+    private static Map<String, Object> replyRow(int index, Object reply) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("index", index);
+        row.put("type", reply == null ? "nil" : reply instanceof Long ? "integer" : reply instanceof List ? "array" : "string");
+        row.put("value", decodeReply(reply));
+        return row;
+    }
+    
+    /**
+     * RESP2 reply as plain values: bulk and status strings as UTF-8 text, arrays as lists.
+     */
+    private static Object decodeReply(Object reply) {
+        if (reply instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (reply instanceof List<?> elements) {
+            List<Object> decoded = new ArrayList<>(elements.size());
+            for (Object element : elements) {
+                decoded.add(decodeReply(element));
+            }
+            return decoded;
+        }
+        return reply;
+    }
+
+    /**
+     * Sends every command of a script in one round trip, as a single MULTI/EXEC transaction if
+     * asked, and returns each command's reply as a row. The whole script is checked before
+     * anything is sent, so an unsupported command or a missing argument runs none of it.
+     */
+    private QueryResult executePipelined(Jedis jedis, List<String> commands, boolean transaction, long startTime) {
+        List<String[]> parsed = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            String[] parts = parseCommand(commands.get(i));
+            String problem = checkPipelinable(parts);
+            if (problem != null) {
+                return buildError(String.format("Line %d: %s", i + 1, problem), startTime);
+            }
+            parsed.add(parts);
+        }
+        
+        List<Response<?>> responses = new ArrayList<>(parsed.size());
+        if (transaction) {
+            try (Transaction multi = jedis.multi()) {
+                for (String[] parts : parsed) {
+                    responses.add(queue(multi, parts));
+                }
+                multi.exec();
+            }
+        } else {
+            try (Pipeline pipeline = jedis.pipelined()) {
+                for (String[] parts : parsed) {
+                    responses.add(queue(pipeline, parts));
+                }
+                pipeline.sync();
+            }
+        }
+        
+        List<Map<String, Object>> rows = new ArrayList<>(responses.size());
+        int errorCount = 0;
+        for (int i = 0; i < responses.size(); i++) {
+            String command = commands.get(i);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("index", i + 1);
+            row.put("command", command.length() > 100 ? command.substring(0, 100) + "..." : command);
+            try {
+                row.put("result", renderReply(responses.get(i).get()));
+                row.put("status", "OK");
+            } catch (JedisDataException e) {
+                row.put("result", e.getMessage());
+                row.put("status", "ERROR");
+                errorCount++;
+            }
+            rows.add(row);
+        }
+        
+        String summary = String.format("Executed %d commands in one %s: %d succeeded, %d failed",
+            rows.size(), transaction ? "transaction" : "pipeline", rows.size() - errorCount, errorCount);
+        return QueryResult.builder()
+            .success(errorCount == 0)
+            .queryType(transaction ? "MULTI" : "PIPELINE")
+            .columns(List.of("index", "command", "result", "status"))
+            .rows(rows)
+            .rowCount(rows.size())
+            .message(summary)
+            .error(errorCount > 0 ? summary : null)
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .build();
+    }
+    
+    private String checkPipelinable(String[] parts) {
+        if (parts.length == 0) {
+            return "Empty command";
+        }
+        String cmd = parts[0].toUpperCase();
+        if (!isAllowed(cmd)) {
+            return "Redis command not allowed: " + cmd;
+        }
+        Integer arity = PIPELINE_ARITY.get(cmd);
+        if (arity == null) {
+            // Passed through as-is; Redis reports bad arguments per command
+            return null;
+        }
+        if (parts.length < arity) {
+            return cmd + " requires " + (arity - 1) + " argument(s)";
+        }
+        try {
+            switch (cmd) {
+                case "EXPIRE" -> Long.parseLong(parts[2]);
+                case "LRANGE" -> {
+                    Long.parseLong(parts[2]);
+                    Long.parseLong(parts[3]);
+                }
+                default -> {
+                }
+            }
+        } catch (NumberFormatException e) {
+            return cmd + " requires numeric arguments";
+        }
+        return null;
+    }
+    
+    private Response<?> queue(PipeliningBase pipeline, String[] parts) {
+        String key = parts.length > 1 ? parts[1] : null;
+        String[] args = Arrays.copyOfRange(parts, 1, parts.length);
+        return switch (parts[0].toUpperCase()) {
+            case "GET" -> pipeline.get(key);
+            // Like handleSet, an unquoted value is everything after the key
+            case "SET" -> pipeline.set(key, String.join(" ", Arrays.copyOfRange(parts, 2, parts.length)));
+            case "DEL", "DELETE" -> pipeline.del(args);
+            case "EXISTS" -> pipeline.exists(key);
+            case "KEYS" -> pipeline.keys(key != null ? key : "*");
+            case "TYPE" -> pipeline.type(key);
+            case "TTL" -> pipeline.ttl(key);
+            case "EXPIRE" -> pipeline.expire(key, Long.parseLong(parts[2]));
+            case "LPUSH" -> pipeline.lpush(key, Arrays.copyOfRange(parts, 2, parts.length));
+            case "RPUSH" -> pipeline.rpush(key, Arrays.copyOfRange(parts, 2, parts.length));
+            case "LPOP" -> pipeline.lpop(key);
+            case "RPOP" -> pipeline.rpop(key);
+            case "LRANGE" -> pipeline.lrange(key, Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+            case "SADD" -> pipeline.sadd(key, Arrays.copyOfRange(parts, 2, parts.length));
+            case "SMEMBERS" -> pipeline.smembers(key);
+            case "HSET" -> pipeline.hset(key, parts[2], parts[3]);
+            case "HGET" -> pipeline.hget(key, parts[2]);
+            case "HGETALL" -> pipeline.hgetAll(key);
+            case "INCR" -> pipeline.incr(key);
+            case "DECR" -> pipeline.decr(key);
+            case "DBSIZE" -> pipeline.sendCommand(Protocol.Command.DBSIZE, args);
+            case "FLUSHDB" -> pipeline.sendCommand(Protocol.Command.FLUSHDB, args);
+            case "INFO" -> pipeline.sendCommand(Protocol.Command.INFO, args);
+            default -> pipeline.sendCommand(protocolCommand(parts[0].toUpperCase()), args);
+        };
+    }
+    
+    private static String renderReply(Object reply) {
+        return reply == null ? "(nil)" : String.valueOf(decodeReply(reply));
+    }
 
     private QueryResult handleGet(Jedis jedis, String[] parts, long startTime) {
         if (parts.length < 2) {
@@ -636,6 +913,59 @@ public class RedisQueryService {
             .build();
     }
 
+    /**
+     * The slow log as rows, plus findings from LATENCY LATEST and from the commands that show up
+     * in the slow log.
+     */
+    private QueryResult handleLatencyReport(Jedis jedis, int slowlogCount, long startTime) {
+        List<Slowlog> entries = jedis.slowlogGet(slowlogCount);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Set<String> slowCommands = new TreeSet<>();
+        for (Slowlog entry : entries) {
+            String commandLine = String.join(" ", entry.getArgs());
+            slowCommands.add(entry.getArgs().isEmpty() ? "" : entry.getArgs().get(0).toUpperCase());
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", entry.getId());
+            row.put("time", Instant.ofEpochSecond(entry.getTimeStamp()).toString());
+            row.put("durationMicros", entry.getExecutionTime());
+            row.put("command", commandLine.length() > 200 ? commandLine.substring(0, 200) + "..." : commandLine);
+            row.put("client", entry.getClientIpPort() != null ? entry.getClientIpPort().toString() : "");
+            rows.add(row);
+        }
+        
+        List<String> recommendations = new ArrayList<>();
+        String threshold = jedis.configGet("latency-monitor-threshold").getOrDefault("latency-monitor-threshold", "0");
+        if ("0".equals(threshold)) {
+            recommendations.add("Latency monitor is off; CONFIG SET latency-monitor-threshold 100 records events slower than 100 ms.");
+        }
+        jedis.latencyLatest().forEach((event, info) -> recommendations.add(String.format(
+            "Latency event '%s': latest %d ms, max %d ms, last at %s",
+            event, info.getLastEventLatency(), info.getMaxEventLatency(), Instant.ofEpochSecond(info.getTimestamp()))));
+        for (String command : slowCommands) {
+            switch (command) {
+                case "KEYS" -> recommendations.add("KEYS walks the whole keyspace and blocks the server; use SCAN with MATCH.");
+                case "SMEMBERS", "HGETALL", "LRANGE", "ZRANGE" -> recommendations.add(command
+                    + " on large collections is slow; page through them with SSCAN/HSCAN/ZSCAN or bounded ranges.");
+                case "FLUSHDB", "FLUSHALL", "DEL" -> recommendations.add(command
+                    + " frees large values synchronously; UNLINK or FLUSHDB ASYNC free memory in the background.");
+                default -> {
+                }
+            }
+        }
+        String slowerThan = jedis.configGet("slowlog-log-slower-than").getOrDefault("slowlog-log-slower-than", "?");
+        
+        return QueryResult.builder()
+            .success(true)
+            .queryType("EXPLAIN")
+            .columns(List.of("id", "time", "durationMicros", "command", "client"))
+            .rows(rows)
+            .rowCount(rows.size())
+            .executionTimeMs(System.currentTimeMillis() - startTime)
+            .message(String.format("%d slow log entries (of %d logged, threshold %s µs)", rows.size(), jedis.slowlogLen(), slowerThan))
+            .recommendations(recommendations)
+            .build();
+    }
+
     private QueryResult buildError(String message, long startTime) {
         return QueryResult.builder()
             .success(false)
@@ -645,13 +975,7 @@ public class RedisQueryService {
     }
     
     public List<String> getKeys(DatabaseInstance instance) {
-        JedisPoolConfig poolConfig = new JedisPoolConfig();
-        poolConfig.setMaxTotal(10);
-        
-        String host = "localhost";
-        
-        try (JedisPool pool = new JedisPool(poolConfig, host, instance.getPort(), 2000, instance.getPassword());
-             Jedis jedis = pool.getResource()) {
+        try (Jedis jedis = connectionPoolService.getJedisPool(instance).getResource()) {
             
             Set<String> keys = jedis.keys("*");
             return new ArrayList<>(keys);
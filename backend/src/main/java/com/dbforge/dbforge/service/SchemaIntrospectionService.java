@@ -3,23 +3,136 @@ package com.dbforge.dbforge.service;
 import com.dbforge.dbforge.dto.SchemaInfo;
 import com.dbforge.dbforge.model.DatabaseInstance;
 import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import com.mongodb.client.MongoDatabase;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SchemaIntrospectionService {
     
+    private static final String POSTGRES_TABLES =
+            "SELECT c.relname, c.relkind FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE n.nspname = 'public' AND c.relkind IN ('r', 'p', 'v') ORDER BY c.relname";
+    private static final String POSTGRES_COLUMNS =
+            "SELECT table_name, column_name, udt_name, is_nullable, column_default, " +
+            "is_identity = 'YES' OR COALESCE(column_default, '') LIKE 'nextval(%', " +
+            "COALESCE(character_maximum_length, numeric_precision, datetime_precision) " +
+            "FROM information_schema.columns WHERE table_schema = 'public' ORDER BY table_name, ordinal_position";
+    // Expression index keys (attnum 0) are reported by their definition
+    private static final String POSTGRES_INDEXES =
+            "SELECT t.relname, i.relname, ix.indisprimary, ix.indisunique, " +
+            "COALESCE(a.attname, pg_get_indexdef(ix.indexrelid, k.ord::int, true)) " +
+            "FROM pg_index ix " +
+            "JOIN pg_class t ON t.oid = ix.indrelid " +
+            "JOIN pg_class i ON i.oid = ix.indexrelid " +
+            "JOIN pg_namespace n ON n.oid = t.relnamespace " +
+            "CROSS JOIN LATERAL unnest(ix.indkey::int2[]) WITH ORDINALITY AS k(attnum, ord) " +
+            "LEFT JOIN pg_attribute a ON a.attrelid = t.oid AND a.attnum = k.attnum " +
+            "WHERE n.nspname = 'public' ORDER BY t.relname, i.relname, k.ord";
+
+    // reltuples is -1 until the first VACUUM/ANALYZE; the stats collector's live tuples fill in
+    private static final String POSTGRES_ROW_ESTIMATES =
+            "SELECT c.relname, CASE WHEN c.reltuples >= 0 THEN c.reltuples::bigint ELSE s.n_live_tup END " +
+            "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "LEFT JOIN pg_stat_user_tables s ON s.relid = c.oid " +
+            "WHERE n.nspname = 'public' AND c.relkind IN ('r', 'p')";
+
+    private static final String MYSQL_TABLES =
+            "SELECT TABLE_NAME, TABLE_TYPE FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE IN ('BASE TABLE', 'VIEW') ORDER BY TABLE_NAME";
+    // Type names as the JDBC driver reports them (INT, VARCHAR, INT UNSIGNED)
+    private static final String MYSQL_COLUMNS =
+            "SELECT TABLE_NAME, COLUMN_NAME, " +
+            "CONCAT(UPPER(DATA_TYPE), IF(COLUMN_TYPE LIKE '%unsigned%', ' UNSIGNED', '')), " +
+            "IS_NULLABLE, COLUMN_DEFAULT, EXTRA LIKE '%auto_increment%', " +
+            "COALESCE(CHARACTER_MAXIMUM_LENGTH, NUMERIC_PRECISION, DATETIME_PRECISION) " +
+            "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME, ORDINAL_POSITION";
+    private static final String MYSQL_ROW_ESTIMATES =
+            "SELECT TABLE_NAME, TABLE_ROWS FROM information_schema.TABLES " +
+            "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'BASE TABLE'";
+    private static final String MYSQL_INDEXES =
+            "SELECT TABLE_NAME, INDEX_NAME, INDEX_NAME = 'PRIMARY', NON_UNIQUE = 0, COLUMN_NAME " +
+            "FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME, INDEX_NAME, SEQ_IN_INDEX";
+
     private final DatabaseInstanceRepository databaseInstanceRepository;
-    private final MongoDBQueryService mongoDBQueryService;
+    private final MongoSchemaService mongoSchemaService;
     private final RedisQueryService redisQueryService;
+    private final ConnectionPoolService connectionPoolService;
+    private final MetricsService metricsService;
+    
+    // Upper bound on staleness for DDL run by clients connected straight to the instance
+    @Value("${schema.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+    
+    @Value("${schema.exact-count.ttl-seconds:600}")
+    private long exactCountTtlSeconds;
+    
+    @Value("${schema.exact-count.threads:2}")
+    private int exactCountThreads;
+    
+    // Connections the structure loads and exact counts of one instance may hold together (capped by the pool)
+    @Value("${schema.introspection.parallelism:3}")
+    private int introspectionParallelism;
+    
+    @Value("${schema.introspection.worker-threads:8}")
+    private int introspectionThreads;
+    
+    // Tables, columns and indexes per instance; row counts are never cached. Entries are shared
+    // between requests, so they are only ever handed out as copies
+    private final Map<Long, CachedSchema> structureCache = new ConcurrentHashMap<>();
+    // Bumped by invalidate(), so loads started before it don't cache what they read
+    private final Map<Long, Long> generations = new ConcurrentHashMap<>();
+    
+    // Exact counts computed on request, shown instead of estimates until they expire
+    private final Map<Long, ExactCounts> exactCounts = new ConcurrentHashMap<>();
+    private final Set<Long> countingInstances = ConcurrentHashMap.newKeySet();
+    // Per-instance introspection.parallelism limit, shared by structure loads and exact counts
+    private final Map<Long, Semaphore> introspectionSlots = new ConcurrentHashMap<>();
+    private ExecutorService countExecutor;
+    // Runs only leaf work (one query or one connection's share of counts), never waits on itself
+    private ExecutorService schemaExecutor;
+    
+    @PostConstruct
+    public void init() {
+        countExecutor = Executors.newFixedThreadPool(Math.max(1, exactCountThreads), runnable -> {
+            Thread thread = new Thread(runnable, "schema-counter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        schemaExecutor = Executors.newFixedThreadPool(Math.max(1, introspectionThreads), runnable -> {
+            Thread thread = new Thread(runnable, "schema-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        countExecutor.shutdownNow();
+        schemaExecutor.shutdownNow();
+    }
     
     public SchemaInfo getSchema(Long instanceId) {
+        return getSchema(instanceId, false);
+    }
+    
+    /**
+     * Schema with row counts estimated from catalog statistics. With {@code exactCounts} a
+     * background COUNT of every table is started (unless one is running); its results replace
+     * the estimates, flagged {@code rowCountExact}, until they expire.
+     */
+    public SchemaInfo getSchema(Long instanceId, boolean exactCounts) {
         DatabaseInstance instance = databaseInstanceRepository.findById(instanceId)
             .orElseThrow(() -> new RuntimeException("Database instance not found"));
             
@@ -32,139 +145,452 @@ public class SchemaIntrospectionService {
         // Handle NoSQL databases differently
         if (dbType.equals("redis")) {
             return getRedisSchema(instance);
-        } else if (dbType.equals("mongodb")) {
-            return getMongoDBSchema(instance);
+        }
+        if (exactCounts) {
+            startExactCount(instance);
+        }
+        if (dbType.equals("mongodb")) {
+            return withCounts(instance, getMongoDBSchema(instance).getTables(), null);
         }
         
-        // Handle SQL databases with JDBC
-        String jdbcUrl = buildJdbcUrl(instance);
-        String username = instance.getUsername();
-        String password = instance.getPassword();
-        String database = instance.getDatabaseName();
-        
-        try (Connection conn = DriverManager.getConnection(jdbcUrl, username, password)) {
-            DatabaseMetaData metaData = conn.getMetaData();
-            List<SchemaInfo.TableInfo> tables = new ArrayList<>();
-            
-            // For PostgreSQL, use the 'public' schema; for MySQL/MariaDB, use the database name
-            String schemaPattern = dbType.equals("postgresql") ? "public" : null;
-            String catalog = dbType.equals("postgresql") ? database : database;
-            
-            // Get all tables
-            ResultSet tablesRs = metaData.getTables(catalog, schemaPattern, "%", new String[]{"TABLE", "VIEW"});
-            while (tablesRs.next()) {
-                String tableName = tablesRs.getString("TABLE_NAME");
-                String tableType = tablesRs.getString("TABLE_TYPE");
-                String tableSchema = tablesRs.getString("TABLE_SCHEM");
-                
-                // Skip system tables for PostgreSQL
-                if (dbType.equals("postgresql") && tableSchema != null && !tableSchema.equals("public")) {
-                    continue;
-                }
-                
-                // Get columns for this table
-                List<SchemaInfo.ColumnInfo> columns = getColumns(metaData, catalog, schemaPattern, tableName, dbType);
-                
-                // Get indexes for this table
-                List<SchemaInfo.IndexInfo> indexes = getIndexes(metaData, catalog, schemaPattern, tableName);
-                
-                // Get row count
-                Long rowCount = getRowCount(conn, tableName, tableSchema);
-                
-                tables.add(SchemaInfo.TableInfo.builder()
-                    .name(tableName)
-                    .type(tableType)
-                    .rowCount(rowCount)
-                    .columns(columns)
-                    .indexes(indexes)
-                    .build());
-            }
-            
-            return SchemaInfo.builder()
-                .databaseName(database)
-                .tables(tables)
-                .build();
-                
+        List<SchemaInfo.TableInfo> structure = getStructure(instance);
+        Map<String, Long> estimates;
+        try (Connection conn = connectionPoolService.getConnection(instance)) {
+            estimates = getRowEstimates(conn, instance, dbType);
         } catch (SQLException e) {
-            log.error("Schema introspection error: {}", e.getMessage());
-            throw new RuntimeException("Failed to introspect schema: " + e.getMessage());
+            log.warn("Failed to read row estimates for instance {}: {}", instanceId, e.getMessage());
+            estimates = Map.of();
         }
+        return withCounts(instance, structure, estimates);
     }
     
-    private List<SchemaInfo.ColumnInfo> getColumns(DatabaseMetaData metaData, String catalog, String schemaPattern, String tableName, String dbType) throws SQLException {
-        List<SchemaInfo.ColumnInfo> columns = new ArrayList<>();
-        
-        // Get primary keys
-        Set<String> primaryKeys = new HashSet<>();
-        ResultSet pkRs = metaData.getPrimaryKeys(catalog, schemaPattern, tableName);
-        while (pkRs.next()) {
-            primaryKeys.add(pkRs.getString("COLUMN_NAME"));
+    /**
+     * Copies of {@code tables} (the structure is shared between requests) carrying fresh exact
+     * counts where there are some and {@code estimates} otherwise. Without estimates, the tables'
+     * own counts are kept.
+     */
+    private SchemaInfo withCounts(DatabaseInstance instance, List<SchemaInfo.TableInfo> tables,
+                                  Map<String, Long> estimates) {
+        ExactCounts exact = exactCounts.get(instance.getId());
+        if (exact != null && System.currentTimeMillis() - exact.countedAt() > exactCountTtlSeconds * 1000) {
+            exactCounts.remove(instance.getId(), exact);
+            exact = null;
         }
         
-        // Get columns
-        ResultSet columnsRs = metaData.getColumns(catalog, schemaPattern, tableName, "%");
-        while (columnsRs.next()) {
-            String columnName = columnsRs.getString("COLUMN_NAME");
-            String dataType = columnsRs.getString("TYPE_NAME");
-            int nullable = columnsRs.getInt("NULLABLE");
-            String defaultValue = columnsRs.getString("COLUMN_DEF");
-            String isAutoIncrement = columnsRs.getString("IS_AUTOINCREMENT");
-            int columnSize = columnsRs.getInt("COLUMN_SIZE");
-            
-            columns.add(SchemaInfo.ColumnInfo.builder()
-                .name(columnName)
-                .dataType(dataType)
-                .nullable(nullable == DatabaseMetaData.columnNullable)
-                .defaultValue(defaultValue)
-                .primaryKey(primaryKeys.contains(columnName))
-                .autoIncrement("YES".equalsIgnoreCase(isAutoIncrement))
-                .maxLength(columnSize)
+        List<SchemaInfo.TableInfo> counted = new ArrayList<>(tables.size());
+        for (SchemaInfo.TableInfo table : tables) {
+            Long exactCount = exact != null ? exact.counts().get(table.getName()) : null;
+            counted.add(SchemaInfo.TableInfo.builder()
+                .name(table.getName())
+                .type(table.getType())
+                .rowCount(exactCount != null ? exactCount
+                    : estimates != null ? estimates.get(table.getName()) : table.getRowCount())
+                .rowCountExact(exactCount != null)
+                .columns(copyColumns(table.getColumns()))
+                .indexes(copyIndexes(table.getIndexes()))
                 .build());
         }
         
-        return columns;
+        return SchemaInfo.builder()
+            .databaseName(instance.getDatabaseName())
+            .tables(counted)
+            .exactCountsPending(countingInstances.contains(instance.getId()))
+            .build();
     }
     
-    private List<SchemaInfo.IndexInfo> getIndexes(DatabaseMetaData metaData, String catalog, String schemaPattern, String tableName) throws SQLException {
-        List<SchemaInfo.IndexInfo> indexes = new ArrayList<>();
-        Map<String, SchemaInfo.IndexInfo> indexMap = new LinkedHashMap<>();
+    /**
+     * Row estimates of every table in one catalog query: pg_class.reltuples on Postgres,
+     * information_schema TABLE_ROWS (InnoDB's sampled estimate) on MySQL/MariaDB.
+     */
+    private Map<String, Long> getRowEstimates(Connection conn, DatabaseInstance instance, String dbType) throws SQLException {
+        boolean postgres = isPostgres(dbType);
+        boolean statsExpirySet = false;
+        if (dbType.equals("mysql")) {
+            // MySQL 8 otherwise serves TABLE_ROWS from a cache refreshed once a day
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("SET SESSION information_schema_stats_expiry = 0");
+                statsExpirySet = true;
+            } catch (SQLException e) {
+                log.debug("information_schema_stats_expiry not supported: {}", e.getMessage());
+            }
+        }
+        Map<String, Long> estimates = new HashMap<>();
+        try (PreparedStatement stmt = prepare(conn, postgres ? POSTGRES_ROW_ESTIMATES : MYSQL_ROW_ESTIMATES,
+                postgres ? null : instance.getDatabaseName());
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                long rows = rs.getLong(2);
+                estimates.put(rs.getString(1), rs.wasNull() ? null : rows);
+            }
+        } finally {
+            // The connection goes back to the pool; other borrowers keep the cached statistics
+            if (statsExpirySet) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SET SESSION information_schema_stats_expiry = DEFAULT");
+                }
+            }
+        }
+        return estimates;
+    }
+    
+    private void startExactCount(DatabaseInstance instance) {
+        if (!countingInstances.add(instance.getId())) {
+            return;
+        }
+        long generation = generation(instance.getId());
+        try {
+            countExecutor.execute(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    Map<String, Long> counts = countRows(instance);
+                    ifCurrent(instance.getId(), generation,
+                        () -> exactCounts.put(instance.getId(), new ExactCounts(counts, System.currentTimeMillis())));
+                    log.debug("Counted rows of {} tables of instance {} in {} ms", counts.size(), instance.getId(),
+                        System.currentTimeMillis() - start);
+                } catch (Exception e) {
+                    log.warn("Exact row count of instance {} failed: {}", instance.getId(), e.getMessage());
+                } finally {
+                    countingInstances.remove(instance.getId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            countingInstances.remove(instance.getId());
+        }
+    }
+    
+    private Map<String, Long> countRows(DatabaseInstance instance) throws Exception {
+        Map<String, Long> counts = new HashMap<>();
+        String dbType = instance.getDatabaseType().getName().toLowerCase();
+        if (dbType.equals("mongodb")) {
+            MongoDatabase database = connectionPoolService.getMongoClient(instance).getDatabase(instance.getDatabaseName());
+            for (String collection : database.listCollectionNames()) {
+                counts.put(collection, database.getCollection(collection).countDocuments());
+            }
+            return counts;
+        }
         
-        ResultSet indexRs = metaData.getIndexInfo(catalog, schemaPattern, tableName, false, false);
-        while (indexRs.next()) {
-            String indexName = indexRs.getString("INDEX_NAME");
-            if (indexName == null) continue;
-            
-            boolean nonUnique = indexRs.getBoolean("NON_UNIQUE");
-            String columnName = indexRs.getString("COLUMN_NAME");
-            
-            String indexType = "INDEX";
-            if ("PRIMARY".equals(indexName) || indexName.endsWith("_pkey")) {
-                indexType = "PRIMARY";
-            } else if (!nonUnique) {
-                indexType = "UNIQUE";
+        // Tables are handed out one at a time to a few workers, each counting on its own connection
+        String schema = isPostgres(dbType) ? "public" : null;
+        List<String> tables = getStructure(instance).stream()
+            .filter(table -> !"VIEW".equals(table.getType()))
+            .map(SchemaInfo.TableInfo::getName)
+            .toList();
+        if (tables.isEmpty()) {
+            return counts;
+        }
+        // Counts wait for one slot and take more only if free, leaving one for structure loads
+        Semaphore slots = introspectionSlots(instance);
+        slots.acquire();
+        int permits = 1;
+        int wanted = Math.min(Math.max(1, introspectionWorkers() - 1), tables.size());
+        while (permits < wanted && slots.tryAcquire()) {
+            permits++;
+        }
+        Map<String, Long> sharedCounts = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+        List<Future<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < permits; i++) {
+            workers.add(schemaExecutor.submit(withConnection(instance, conn -> {
+                int index;
+                while ((index = next.getAndIncrement()) < tables.size()) {
+                    Long count = getRowCount(conn, tables.get(index), schema);
+                    if (count != null) {
+                        sharedCounts.put(tables.get(index), count);
+                    }
+                }
+                return null;
+            })));
+        }
+        try {
+            for (Future<Void> worker : workers) {
+                await(worker);
             }
-            
-            SchemaInfo.IndexInfo indexInfo = indexMap.get(indexName);
-            if (indexInfo == null) {
-                indexInfo = SchemaInfo.IndexInfo.builder()
-                    .name(indexName)
-                    .type(indexType)
-                    .columns(new ArrayList<>())
-                    .build();
-                indexMap.put(indexName, indexInfo);
+        } finally {
+            workers.forEach(worker -> worker.cancel(true));
+            slots.release(permits);
+        }
+        counts.putAll(sharedCounts);
+        return counts;
+    }
+    
+    /**
+     * Names of the tables and views of a SQL instance, without row counts.
+     */
+    public List<String> getTableNames(DatabaseInstance instance) {
+        return getStructure(instance).stream()
+            .map(SchemaInfo.TableInfo::getName)
+            .toList();
+    }
+    
+    /**
+     * Columns and indexes of one table of a SQL instance (no row count), matched case-insensitively.
+     */
+    public Optional<SchemaInfo.TableInfo> getTable(DatabaseInstance instance, String tableName) {
+        return getStructure(instance).stream()
+            .filter(table -> table.getName().equalsIgnoreCase(tableName))
+            .findFirst()
+            .map(table -> SchemaInfo.TableInfo.builder()
+                .name(table.getName())
+                .type(table.getType())
+                .rowCount(table.getRowCount())
+                .rowCountExact(table.getRowCountExact())
+                .columns(copyColumns(table.getColumns()))
+                .indexes(copyIndexes(table.getIndexes()))
+                .build());
+    }
+    
+    /**
+     * Forget the cached structure of an instance, e.g. after DDL. Loads and counts already
+     * running finish, but their results are not cached.
+     */
+    public void invalidate(Long instanceId) {
+        generations.merge(instanceId, 1L, Long::sum);
+        structureCache.remove(instanceId);
+        exactCounts.remove(instanceId);
+    }
+    
+    private long generation(Long instanceId) {
+        return generations.getOrDefault(instanceId, 0L);
+    }
+    
+    /**
+     * Runs {@code update} unless the instance was invalidated since {@code generation} was read;
+     * holding the generation's entry keeps a concurrent invalidate() from passing in between.
+     */
+    private void ifCurrent(Long instanceId, long generation, Runnable update) {
+        generations.compute(instanceId, (id, current) -> {
+            if ((current == null ? 0L : current) == generation) {
+                update.run();
             }
-            indexInfo.getColumns().add(columnName);
+            return current;
+        });
+    }
+    
+    private List<SchemaInfo.ColumnInfo> copyColumns(List<SchemaInfo.ColumnInfo> columns) {
+        if (columns == null) {
+            return null;
+        }
+        List<SchemaInfo.ColumnInfo> copies = new ArrayList<>(columns.size());
+        for (SchemaInfo.ColumnInfo column : columns) {
+            copies.add(SchemaInfo.ColumnInfo.builder()
+                .name(column.getName())
+                .dataType(column.getDataType())
+                .nullable(column.getNullable())
+                .defaultValue(column.getDefaultValue())
+                .primaryKey(column.getPrimaryKey())
+                .autoIncrement(column.getAutoIncrement())
+                .maxLength(column.getMaxLength())
+                .presence(column.getPresence())
+                .typeCounts(column.getTypeCounts() != null ? new LinkedHashMap<>(column.getTypeCounts()) : null)
+                .build());
+        }
+        return copies;
+    }
+    
+    private List<SchemaInfo.IndexInfo> copyIndexes(List<SchemaInfo.IndexInfo> indexes) {
+        if (indexes == null) {
+            return null;
+        }
+        List<SchemaInfo.IndexInfo> copies = new ArrayList<>(indexes.size());
+        for (SchemaInfo.IndexInfo index : indexes) {
+            copies.add(SchemaInfo.IndexInfo.builder()
+                .name(index.getName())
+                .type(index.getType())
+                .columns(index.getColumns() != null ? new ArrayList<>(index.getColumns()) : null)
+                .build());
+        }
+        return copies;
+    }
+    
+    /**
+     * The cached structure itself; callers that hand tables out copy them first.
+     */
+    private List<SchemaInfo.TableInfo> getStructure(DatabaseInstance instance) {
+        CachedSchema cached = structureCache.get(instance.getId());
+        boolean hit = cached != null && System.currentTimeMillis() - cached.loadedAt() < cacheTtlSeconds * 1000;
+        metricsService.recordCacheAccess("schema-structure", hit);
+        if (hit) {
+            return cached.tables();
         }
         
-        indexes.addAll(indexMap.values());
+        long start = System.currentTimeMillis();
+        long generation = generation(instance.getId());
+        boolean postgres = isPostgres(instance.getDatabaseType().getName().toLowerCase());
+        String schema = postgres ? null : instance.getDatabaseName();
+        String tablesSql = postgres ? POSTGRES_TABLES : MYSQL_TABLES;
+        String columnsSql = postgres ? POSTGRES_COLUMNS : MYSQL_COLUMNS;
+        String indexesSql = postgres ? POSTGRES_INDEXES : MYSQL_INDEXES;
+        Semaphore slots = introspectionSlots(instance);
+        int permits = 0;
+        try {
+            slots.acquire();
+            permits = 1;
+            List<SchemaInfo.TableInfo> tables;
+            if (introspectionWorkers() >= 3 && slots.tryAcquire(2)) {
+                permits = 3;
+                // The three catalog queries are independent; run them side by side on their own connections
+                Future<Map<String, List<SchemaInfo.IndexInfo>>> indexes =
+                    schemaExecutor.submit(withConnection(instance, conn -> loadIndexes(conn, schema, indexesSql)));
+                Future<Map<String, List<SchemaInfo.ColumnInfo>>> columns =
+                    schemaExecutor.submit(withConnection(instance, conn -> loadColumns(conn, schema, columnsSql)));
+                try {
+                    Map<String, SchemaInfo.TableInfo> names =
+                        withConnection(instance, conn -> loadTables(conn, schema, tablesSql)).call();
+                    tables = assemble(names, await(indexes), await(columns));
+                } finally {
+                    indexes.cancel(true);
+                    columns.cancel(true);
+                }
+            } else {
+                try (Connection conn = connectionPoolService.getConnection(instance)) {
+                    tables = assemble(loadTables(conn, schema, tablesSql), loadIndexes(conn, schema, indexesSql),
+                        loadColumns(conn, schema, columnsSql));
+                }
+            }
+            List<SchemaInfo.TableInfo> loaded = List.copyOf(tables);
+            ifCurrent(instance.getId(), generation,
+                () -> structureCache.put(instance.getId(), new CachedSchema(loaded, System.currentTimeMillis())));
+            log.debug("Introspected {} tables of instance {} in {} ms", tables.size(), instance.getId(),
+                System.currentTimeMillis() - start);
+            return tables;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Schema introspection error: {}", e.getMessage());
+            throw new RuntimeException("Failed to introspect schema: " + e.getMessage());
+        } finally {
+            slots.release(permits);
+        }
+    }
+    
+    /**
+     * Connections the introspection of one instance may hold at once, leaving one of its pool for queries.
+     */
+    private int introspectionWorkers() {
+        return Math.max(1, Math.min(introspectionParallelism, connectionPoolService.getJdbcMaxPoolSize() - 1));
+    }
+    
+    /**
+     * Every connection a structure load or exact count holds takes one of these. Only the first
+     * is waited for; further ones are used when free, so nothing waits while holding a slot.
+     */
+    private Semaphore introspectionSlots(DatabaseInstance instance) {
+        return introspectionSlots.computeIfAbsent(instance.getId(), id -> new Semaphore(introspectionWorkers()));
+    }
+    
+    /**
+     * Whole-schema introspection is three catalog queries (tables, index keys, columns) instead
+     * of several metadata calls per table; the results are joined here, in table order.
+     */
+    private List<SchemaInfo.TableInfo> assemble(Map<String, SchemaInfo.TableInfo> tables,
+                                                Map<String, List<SchemaInfo.IndexInfo>> indexes,
+                                                Map<String, List<SchemaInfo.ColumnInfo>> columns) {
+        for (SchemaInfo.TableInfo table : tables.values()) {
+            table.setIndexes(indexes.getOrDefault(table.getName(), new ArrayList<>()));
+            table.setColumns(columns.getOrDefault(table.getName(), new ArrayList<>()));
+            Set<String> primaryKey = new HashSet<>();
+            table.getIndexes().stream()
+                .filter(index -> "PRIMARY".equals(index.getType()))
+                .forEach(index -> primaryKey.addAll(index.getColumns()));
+            table.getColumns().forEach(column -> column.setPrimaryKey(primaryKey.contains(column.getName())));
+        }
+        return new ArrayList<>(tables.values());
+    }
+    
+    private Map<String, SchemaInfo.TableInfo> loadTables(Connection conn, String schema, String sql) throws SQLException {
+        Map<String, SchemaInfo.TableInfo> tables = new LinkedHashMap<>();
+        try (PreparedStatement stmt = prepare(conn, sql, schema); ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String kind = rs.getString(2);
+                String type = "v".equals(kind) || "VIEW".equals(kind) ? "VIEW" : "TABLE";
+                tables.put(rs.getString(1), SchemaInfo.TableInfo.builder()
+                    .name(rs.getString(1))
+                    .type(type)
+                    .build());
+            }
+        }
+        return tables;
+    }
+    
+    private Map<String, List<SchemaInfo.IndexInfo>> loadIndexes(Connection conn, String schema, String sql) throws SQLException {
+        Map<String, List<SchemaInfo.IndexInfo>> indexes = new HashMap<>();
+        try (PreparedStatement stmt = prepare(conn, sql, schema); ResultSet rs = stmt.executeQuery()) {
+            SchemaInfo.IndexInfo current = null;
+            String currentTable = null;
+            while (rs.next()) {
+                String tableName = rs.getString(1);
+                String indexName = rs.getString(2);
+                if (current == null || !indexName.equals(current.getName()) || !tableName.equals(currentTable)) {
+                    current = SchemaInfo.IndexInfo.builder()
+                        .name(indexName)
+                        .type(rs.getBoolean(3) ? "PRIMARY" : rs.getBoolean(4) ? "UNIQUE" : "INDEX")
+                        .columns(new ArrayList<>())
+                        .build();
+                    currentTable = tableName;
+                    indexes.computeIfAbsent(tableName, t -> new ArrayList<>()).add(current);
+                }
+                current.getColumns().add(rs.getString(5));
+            }
+        }
         return indexes;
     }
     
+    private Map<String, List<SchemaInfo.ColumnInfo>> loadColumns(Connection conn, String schema, String sql) throws SQLException {
+        Map<String, List<SchemaInfo.ColumnInfo>> columns = new HashMap<>();
+        try (PreparedStatement stmt = prepare(conn, sql, schema); ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                long maxLength = rs.getLong(7);
+                columns.computeIfAbsent(rs.getString(1), t -> new ArrayList<>()).add(SchemaInfo.ColumnInfo.builder()
+                    .name(rs.getString(2))
+                    .dataType(rs.getString(3))
+                    .nullable("YES".equalsIgnoreCase(rs.getString(4)))
+                    .defaultValue(rs.getString(5))
+                    .primaryKey(false)
+                    .autoIncrement(rs.getBoolean(6))
+                    .maxLength((int) Math.min(maxLength, Integer.MAX_VALUE))
+                    .build());
+            }
+        }
+        return columns;
+    }
+    
+    private <T> Callable<T> withConnection(DatabaseInstance instance, SqlWork<T> work) {
+        return () -> {
+            try (Connection conn = connectionPoolService.getConnection(instance)) {
+                return work.run(conn);
+            }
+        };
+    }
+    
+    private <T> T await(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+    
+    /**
+     * {@code schema} binds the MySQL catalog queries' schema parameter; null for Postgres.
+     */
+    private PreparedStatement prepare(Connection conn, String sql, String schema) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement(sql);
+        if (schema != null) {
+            stmt.setString(1, schema);
+        }
+        return stmt;
+    }
+    
+    private boolean isPostgres(String dbType) {
+        return dbType.equals("postgresql") || dbType.equals("postgres");
+    }
+    
     private Long getRowCount(Connection conn, String tableName, String schema) {
         try (Statement stmt = conn.createStatement()) {
             String query = schema != null && !schema.isEmpty() 
-                ? String.format("SELECT COUNT(*) FROM \"%s\".\"%s\"", schema, tableName)
-                : String.format("SELECT COUNT(*) FROM `%s`", tableName);
+                ? String.format("SELECT COUNT(*) FROM \"%s\".\"%s\"", schema, tableName.replace("\"", "\"\""))
+                : String.format("SELECT COUNT(*) FROM `%s`", tableName.replace("`", "``"));
             ResultSet rs = stmt.executeQuery(query);
             if (rs.next()) {
                 return rs.getLong(1);
@@ -175,24 +601,6 @@ public class SchemaIntrospectionService {
         return null;
     }
     
-    private String buildJdbcUrl(DatabaseInstance instance) {
-        // Backend always connects via localhost since Docker containers are on same server
-        String host = "localhost";
-        String port = String.valueOf(instance.getPort());
-        String database = instance.getDatabaseName();
-        String dbType = instance.getDatabaseType().getName().toLowerCase();
-        
-        switch (dbType) {
-            case "postgresql":
-                return String.format("jdbc:postgresql://%s:%s/%s", host, port, database);
-            case "mysql":
-            case "mariadb":
-                return String.format("jdbc:mysql://%s:%s/%s?allowPublicKeyRetrieval=true&useSSL=false", host, port, database);
-            default:
-                throw new RuntimeException("Unsupported database type: " + dbType);
-        }
-    }
-    
     private SchemaInfo getRedisSchema(DatabaseInstance instance) {
         try {
             List<String> keys = redisQueryService.getKeys(instance);
@@ -231,7 +639,7 @@ public class SchemaIntrospectionService {
     
     private SchemaInfo getMongoDBSchema(DatabaseInstance instance) {
         try {
-            List<SchemaInfo.TableInfo> tables = mongoDBQueryService.getCollectionsWithSchema(instance);
+            List<SchemaInfo.TableInfo> tables = mongoSchemaService.getCollections(instance);
             
             return SchemaInfo.builder()
                 .databaseName(instance.getDatabaseName())
@@ -245,4 +653,15 @@ public class SchemaIntrospectionService {
                 .build();
         }
     }
+    
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+    
+    private record CachedSchema(List<SchemaInfo.TableInfo> tables, long loadedAt) {
+    }
+    
+    private record ExactCounts(Map<String, Long> counts, long countedAt) {
+    }
 }
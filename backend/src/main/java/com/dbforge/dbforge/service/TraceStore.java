@@ -0,0 +1,150 @@
+package com.dbforge.dbforge.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.api.trace.SpanId;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Span exporter keeping the most recent finished spans in memory (served by the traces
+ * actuator endpoint) and, when a file is configured, appending them there as JSON lines.
+ * Stands in for an external collector; spans arrive in batches from the SDK's span processor.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TraceStore implements SpanExporter {
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${tracing.memory.max-spans:20000}")
+    private int maxSpans;
+
+    @Value("${tracing.export.file:}")
+    private String exportFile;
+
+    private final Deque<RecordedSpan> spans = new ArrayDeque<>();
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> batch) {
+        List<RecordedSpan> recorded = batch.stream().map(TraceStore::toRecordedSpan).toList();
+        synchronized (spans) {
+            for (RecordedSpan span : recorded) {
+                spans.addLast(span);
+                if (spans.size() > maxSpans) {
+                    spans.removeFirst();
+                }
+            }
+        }
+        return exportFile.isBlank() ? CompletableResultCode.ofSuccess() : appendToFile(recorded);
+    }
+
+    private synchronized CompletableResultCode appendToFile(List<RecordedSpan> recorded) {
+        try (BufferedWriter writer = Files.newBufferedWriter(Path.of(exportFile), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (RecordedSpan span : recorded) {
+                writer.write(objectMapper.writeValueAsString(span));
+                writer.newLine();
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Failed to write spans to {}: {}", exportFile, e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Most recent traces first, one entry per trace with at least one span still in memory.
+     */
+    public List<TraceSummary> recentTraces(long minDurationMicros, int limit) {
+        Map<String, List<RecordedSpan>> byTrace = new LinkedHashMap<>();
+        synchronized (spans) {
+            Iterator<RecordedSpan> newestFirst = spans.descendingIterator();
+            while (newestFirst.hasNext()) {
+                RecordedSpan span = newestFirst.next();
+                byTrace.computeIfAbsent(span.traceId(), id -> new ArrayList<>()).add(span);
+            }
+        }
+        List<TraceSummary> summaries = new ArrayList<>();
+        for (Map.Entry<String, List<RecordedSpan>> trace : byTrace.entrySet()) {
+            TraceSummary summary = summarize(trace.getKey(), trace.getValue());
+            if (summary.durationMicros() >= minDurationMicros) {
+                summaries.add(summary);
+                if (summaries.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Spans of one trace in start order; empty once they have left memory.
+     */
+    public List<RecordedSpan> trace(String traceId) {
+        List<RecordedSpan> result = new ArrayList<>();
+        synchronized (spans) {
+            for (RecordedSpan span : spans) {
+                if (span.traceId().equals(traceId)) {
+                    result.add(span);
+                }
+            }
+        }
+        result.sort(Comparator.comparingLong(RecordedSpan::startEpochMicros));
+        return result;
+    }
+
+    private static TraceSummary summarize(String traceId, List<RecordedSpan> spans) {
+        // The root is the span without a parent; the server span ends last, so it may be missing briefly
+        RecordedSpan root = spans.stream().filter(span -> span.parentSpanId() == null).findFirst()
+                .orElseGet(() -> spans.stream().min(Comparator.comparingLong(RecordedSpan::startEpochMicros)).orElseThrow());
+        long start = spans.stream().mapToLong(RecordedSpan::startEpochMicros).min().orElse(root.startEpochMicros());
+        long end = spans.stream().mapToLong(span -> span.startEpochMicros() + span.durationMicros()).max().orElse(start);
+        boolean error = spans.stream().anyMatch(RecordedSpan::error);
+        return new TraceSummary(traceId, root.name(), start, end - start, spans.size(), error);
+    }
+
+    private static RecordedSpan toRecordedSpan(SpanData data) {
+        Map<String, String> attributes = new TreeMap<>();
+        data.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        String parent = data.getParentSpanId();
+        long start = TimeUnit.NANOSECONDS.toMicros(data.getStartEpochNanos());
+        long end = TimeUnit.NANOSECONDS.toMicros(data.getEndEpochNanos());
+        return new RecordedSpan(data.getTraceId(), data.getSpanId(), SpanId.isValid(parent) ? parent : null,
+                data.getName(), start, end - start, data.getStatus().getStatusCode() == StatusCode.ERROR, attributes);
+    }
+
+    public record RecordedSpan(String traceId, String spanId, String parentSpanId, String name,
+                               long startEpochMicros, long durationMicros, boolean error,
+                               Map<String, String> attributes) {
+    }
+
+    public record TraceSummary(String traceId, String rootSpan, long startEpochMicros, long durationMicros,
+                               int spanCount, boolean error) {
+    }
+}
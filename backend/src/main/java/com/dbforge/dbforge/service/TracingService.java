@@ -0,0 +1,105 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.model.DatabaseInstance;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Spans around the steps of a request (auth, repository lookups, pool borrows, statements,
+ * result mapping, audit writes, Docker API calls), children of the HTTP server span started by
+ * Spring's observation filter. Exported by {@link TraceStore}.
+ */
+@Service
+@RequiredArgsConstructor
+public class TracingService {
+
+    private final Tracer tracer;
+
+    @FunctionalInterface
+    public interface TracedCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    /**
+     * Runs {@code call} in a child span of the current one; a thrown exception marks the span as failed.
+     */
+    public <T, E extends Exception> T trace(String name, TracedCall<T, E> call) throws E {
+        try (ActiveSpan span = start(name)) {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+
+    public <T, E extends Exception> T trace(String name, DatabaseInstance instance, TracedCall<T, E> call) throws E {
+        try (ActiveSpan span = start(name).instance(instance)) {
+            try {
+                return call.call();
+            } catch (Exception e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Starts a child span of the current one and makes it current until closed.
+     */
+    public ActiveSpan start(String name) {
+        Span span = tracer.nextSpan().name(name).start();
+        return new ActiveSpan(span, tracer.withSpan(span));
+    }
+
+    /**
+     * Whether a span is current, i.e. the caller runs inside a traced request or job.
+     */
+    public boolean inTrace() {
+        return tracer.currentSpan() != null;
+    }
+
+    /**
+     * Trace id of the current span, or null outside of one.
+     */
+    public String currentTraceId() {
+        Span span = tracer.currentSpan();
+        return span != null ? span.context().traceId() : null;
+    }
+
+    public static final class ActiveSpan implements AutoCloseable {
+
+        private final Span span;
+        private final Tracer.SpanInScope scope;
+
+        private ActiveSpan(Span span, Tracer.SpanInScope scope) {
+            this.span = span;
+            this.scope = scope;
+        }
+
+        public ActiveSpan tag(String key, Object value) {
+            if (value != null) {
+                span.tag(key, String.valueOf(value));
+            }
+            return this;
+        }
+
+        public ActiveSpan instance(DatabaseInstance instance) {
+            return tag("dbforge.instance", instance.getId())
+                    .tag("db.system", instance.getDatabaseType() != null ? instance.getDatabaseType().getName() : null);
+        }
+
+        public void error(Throwable error) {
+            span.error(error);
+        }
+
+        @Override
+        public void close() {
+            scope.close();
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.dbforge.dbforge.util;
+
+import org.bson.BsonArray;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses mongo shell commands such as {@code db.users.find({age: {$gt: 30}}, {name: 1}).sort({name: 1}).limit(10)}
+ * or {@code db.getCollection("order.items").aggregate([...])} into a collection, a method, its
+ * arguments and the cursor calls chained after it. Arguments are read by the driver's JSON
+ * reader in shell mode, so unquoted keys, single quotes, {@code ObjectId("...")}, {@code ISODate(...)},
+ * {@code NumberLong(...)} and {@code /regex/flags} literals work as in the shell.
+ */
+public final class MongoShellParser {
+
+    private final String input;
+    private int position;
+
+    private MongoShellParser(String input) {
+        this.input = input;
+    }
+
+    public static MongoShellCommand parse(String command) {
+        return new MongoShellParser(command.trim()).parseCommand();
+    }
+
+    private MongoShellCommand parseCommand() {
+        if (!input.startsWith("db.")) {
+            throw new IllegalArgumentException("Query must start with 'db.' (e.g., db.users.find({name: 'John'}))");
+        }
+        position = 3;
+
+        String collection;
+        String method;
+        if (input.startsWith("getCollection(", position)) {
+            position += "getCollection".length();
+            List<BsonValue> args = readArguments();
+            if (args.size() != 1 || !args.get(0).isString()) {
+                throw new IllegalArgumentException("getCollection() takes the collection name");
+            }
+            collection = args.get(0).asString().getValue();
+            expect('.');
+            method = readIdentifier();
+        } else {
+            // Collection names may contain dots; the segment before the first '(' is the method
+            int open = input.indexOf('(', position);
+            if (open < 0) {
+                throw new IllegalArgumentException("Expected a method call, e.g. db.users.find()");
+            }
+            String path = input.substring(position, open).trim();
+            int lastDot = path.lastIndexOf('.');
+            if (lastDot <= 0) {
+                throw new IllegalArgumentException("Expected db.<collection>.<method>(...)");
+            }
+            collection = path.substring(0, lastDot).trim();
+            method = path.substring(lastDot + 1).trim();
+            position = open;
+        }
+        List<BsonValue> args = readArguments();
+
+        List<Call> cursor = new ArrayList<>();
+        while (true) {
+            skipWhitespace();
+            if (position >= input.length() || input.charAt(position) == ';') {
+                break;
+            }
+            expect('.');
+            String name = readIdentifier();
+            cursor.add(new Call(name, readArguments()));
+        }
+        return new MongoShellCommand(collection, method, args, cursor);
+    }
+
+    private String readIdentifier() {
+        skipWhitespace();
+        int start = position;
+        while (position < input.length()
+                && (Character.isLetterOrDigit(input.charAt(position)) || input.charAt(position) == '_' || input.charAt(position) == '$')) {
+            position++;
+        }
+        if (start == position) {
+            throw new IllegalArgumentException("Expected a method name at position " + position);
+        }
+        return input.substring(start, position);
+    }
+
+    /**
+     * Reads {@code (a, b, ...)} and returns its values; the text between the parentheses is
+     * parsed as one JSON array.
+     */
+    private List<BsonValue> readArguments() {
+        skipWhitespace();
+        expect('(');
+        int start = position;
+        int end = findClosingParenthesis();
+        position = end + 1;
+
+        String text = input.substring(start, end).trim();
+        if (text.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return new ArrayList<>(BsonArray.parse("[" + text + "]").getValues());
+        } catch (JsonParseException e) {
+            throw new IllegalArgumentException("Invalid arguments: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Index of the ')' closing the call whose '(' was just consumed, skipping over string and
+     * regex literals, which may contain brackets of their own.
+     */
+    private int findClosingParenthesis() {
+        int depth = 0;
+        char previous = '(';
+        for (int i = position; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = skipString(i, c);
+            } else if (c == '/' && "(,:[{".indexOf(previous) >= 0) {
+                i = skipRegex(i);
+            } else if (c == '(' || c == '[' || c == '{') {
+                depth++;
+            } else if (c == ')' || c == ']' || c == '}') {
+                if (depth == 0) {
+                    if (c != ')') {
+                        throw new IllegalArgumentException("Unbalanced '" + c + "' at position " + i);
+                    }
+                    return i;
+                }
+                depth--;
+            }
+            if (!Character.isWhitespace(c)) {
+                previous = c;
+            }
+        }
+        throw new IllegalArgumentException("Missing ')'");
+    }
+
+    private int skipString(int start, char quote) {
+        for (int i = start + 1; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == quote) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated string starting at position " + start);
+    }
+
+    private int skipRegex(int start) {
+        boolean inClass = false;
+        for (int i = start + 1; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == ']') {
+                inClass = false;
+            } else if (c == '/' && !inClass) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated regular expression starting at position " + start);
+    }
+
+    private void expect(char expected) {
+        skipWhitespace();
+        if (position >= input.length() || input.charAt(position) != expected) {
+            throw new IllegalArgumentException("Expected '" + expected + "' at position " + position);
+        }
+        position++;
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    /**
+     * {@code db.<collection>.<method>(<args>)} followed by cursor calls like sort/limit/skip.
+     */
+    public record MongoShellCommand(String collection, String method, List<BsonValue> args, List<Call> cursor) {
+
+        public BsonValue arg(int index) {
+            return index < args.size() ? args.get(index) : null;
+        }
+    }
+
+    public record Call(String method, List<BsonValue> args) {
+    }
+}
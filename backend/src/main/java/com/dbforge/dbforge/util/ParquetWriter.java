@@ -0,0 +1,529 @@
+package com.dbforge.dbforge.util;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal streaming Parquet writer for flat JDBC result sets: every column is OPTIONAL and
+ * PLAIN encoded, one data page per column chunk. Rows are buffered only up to the row group
+ * limits, so memory stays bounded however large the table is. The target stream is not closed.
+ */
+public class ParquetWriter implements Closeable {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    private final CountingOutputStream out;
+    private final List<Column> columns;
+    private final Codec codec;
+    private final int rowGroupRows;
+    private final long rowGroupBytes;
+
+    private final List<RowGroupMeta> rowGroups = new ArrayList<>();
+    private int bufferedRows;
+    private long totalRows;
+
+    public ParquetWriter(OutputStream out, List<Column> columns, Codec codec, int rowGroupRows, long rowGroupBytes) throws IOException {
+        this.out = new CountingOutputStream(out);
+        this.columns = columns;
+        this.codec = codec;
+        this.rowGroupRows = Math.max(1, rowGroupRows);
+        this.rowGroupBytes = Math.max(1, rowGroupBytes);
+        this.out.write(MAGIC);
+    }
+
+    /**
+     * Parquet columns matching the JDBC types of a result set.
+     */
+    public static List<Column> columnsFor(ResultSetMetaData metaData) throws SQLException {
+        List<Column> columns = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(new Column(metaData.getColumnLabel(i), kindOf(metaData, i),
+                    Math.max(0, metaData.getScale(i)), metaData.getPrecision(i)));
+        }
+        return columns;
+    }
+
+    public void writeRow(ResultSet rs) throws SQLException, IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).append(rs, i + 1);
+        }
+        bufferedRows++;
+        if (bufferedRows >= rowGroupRows || bufferedBytes() >= rowGroupBytes) {
+            flushRowGroup();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (bufferedRows > 0) {
+            flushRowGroup();
+        }
+        long footerStart = out.count;
+        writeFileMetaData();
+        writeIntLE(out, (int) (out.count - footerStart));
+        out.write(MAGIC);
+        out.flush();
+    }
+
+    private long bufferedBytes() {
+        long bytes = 0;
+        for (Column column : columns) {
+            bytes += column.values.size();
+        }
+        return bytes;
+    }
+
+    private void flushRowGroup() throws IOException {
+        List<ChunkMeta> chunks = new ArrayList<>();
+        long groupBytes = 0;
+        for (Column column : columns) {
+            byte[] levels = column.levels.finish();
+            ByteArrayOutputStream page = new ByteArrayOutputStream(4 + levels.length + column.values.size());
+            writeIntLE(page, levels.length);
+            page.write(levels);
+            column.writeValues(page);
+            byte[] uncompressed = page.toByteArray();
+            byte[] compressed = codec.compress(uncompressed);
+
+            ThriftWriter header = new ThriftWriter();
+            header.i32(1, 0); // DATA_PAGE
+            header.i32(2, uncompressed.length);
+            header.i32(3, compressed.length);
+            header.beginStruct(5);
+            header.i32(1, bufferedRows);
+            header.i32(2, 0); // PLAIN
+            header.i32(3, 3); // RLE definition levels
+            header.i32(4, 3); // RLE repetition levels
+            header.endStruct();
+            header.stop();
+            byte[] headerBytes = header.toByteArray();
+
+            long offset = out.count;
+            out.write(headerBytes);
+            out.write(compressed);
+
+            chunks.add(new ChunkMeta(column, offset, bufferedRows,
+                    headerBytes.length + uncompressed.length, headerBytes.length + compressed.length));
+            groupBytes += headerBytes.length + uncompressed.length;
+            column.reset();
+        }
+        rowGroups.add(new RowGroupMeta(chunks, groupBytes, bufferedRows));
+        totalRows += bufferedRows;
+        bufferedRows = 0;
+    }
+
+    private void writeFileMetaData() throws IOException {
+        ThriftWriter meta = new ThriftWriter();
+        meta.i32(1, 1);
+
+        meta.beginList(2, ThriftWriter.STRUCT, columns.size() + 1);
+        meta.beginListStruct();
+        meta.string(4, "schema");
+        meta.i32(5, columns.size());
+        meta.endStruct();
+        for (Column column : columns) {
+            meta.beginListStruct();
+            meta.i32(1, column.kind.physicalType);
+            meta.i32(3, 1); // OPTIONAL
+            meta.string(4, column.name);
+            if (column.kind.convertedType >= 0) {
+                meta.i32(6, column.kind.convertedType);
+            }
+            if (column.kind == Kind.DECIMAL) {
+                meta.i32(7, column.scale);
+                meta.i32(8, column.precision);
+            }
+            meta.endStruct();
+        }
+
+        meta.i64(3, totalRows);
+
+        meta.beginList(4, ThriftWriter.STRUCT, rowGroups.size());
+        for (RowGroupMeta group : rowGroups) {
+            meta.beginListStruct();
+            meta.beginList(1, ThriftWriter.STRUCT, group.chunks().size());
+            for (ChunkMeta chunk : group.chunks()) {
+                meta.beginListStruct();
+                meta.i64(2, chunk.offset());
+                meta.beginStruct(3);
+                meta.i32(1, chunk.column().kind.physicalType);
+                meta.beginList(2, ThriftWriter.I32, 2);
+                meta.listI32(0); // PLAIN
+                meta.listI32(3); // RLE
+                meta.beginList(3, ThriftWriter.BINARY, 1);
+                meta.listString(chunk.column().name);
+                meta.i32(4, codec.id);
+                meta.i64(5, chunk.numValues());
+                meta.i64(6, chunk.uncompressedSize());
+                meta.i64(7, chunk.compressedSize());
+                meta.i64(9, chunk.offset());
+                meta.endStruct();
+                meta.endStruct();
+            }
+            meta.i64(2, group.totalBytes());
+            meta.i64(3, group.numRows());
+            meta.endStruct();
+        }
+        meta.string(6, "dbforge");
+        meta.stop();
+        out.write(meta.toByteArray());
+    }
+
+    private static Kind kindOf(ResultSetMetaData metaData, int column) throws SQLException {
+        int precision = metaData.getPrecision(column);
+        return switch (metaData.getColumnType(column)) {
+            case Types.BOOLEAN, Types.BIT -> precision > 1 ? Kind.BINARY : Kind.BOOLEAN;
+            case Types.TINYINT, Types.SMALLINT -> Kind.INT32;
+            case Types.INTEGER -> metaData.isSigned(column) ? Kind.INT32 : Kind.INT64;
+            case Types.BIGINT -> metaData.isSigned(column) ? Kind.INT64 : Kind.STRING;
+            case Types.REAL -> Kind.FLOAT;
+            case Types.FLOAT, Types.DOUBLE -> Kind.DOUBLE;
+            // Unbounded or wider than a long: keep the exact digits as text
+            case Types.NUMERIC, Types.DECIMAL -> precision > 0 && precision <= 18 ? Kind.DECIMAL : Kind.STRING;
+            case Types.DATE -> Kind.DATE;
+            case Types.TIME -> Kind.TIME;
+            case Types.TIMESTAMP -> Kind.TIMESTAMP;
+            case Types.TIMESTAMP_WITH_TIMEZONE -> Kind.TIMESTAMP_TZ;
+            case Types.BINARY, Types.VARBINARY, Types.LONGVARBINARY, Types.BLOB -> Kind.BINARY;
+            default -> Kind.STRING;
+        };
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static void writeLongLE(OutputStream out, long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+
+    public enum Codec {
+        UNCOMPRESSED(0), GZIP(2), ZSTD(6);
+
+        private final int id;
+
+        Codec(int id) {
+            this.id = id;
+        }
+
+        private byte[] compress(byte[] data) throws IOException {
+            if (this == UNCOMPRESSED) {
+                return data;
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 2 + 64);
+            try (OutputStream compressor = this == GZIP ? new GZIPOutputStream(buffer) : new ZstdOutputStream(buffer)) {
+                compressor.write(data);
+            }
+            return buffer.toByteArray();
+        }
+    }
+
+    /**
+     * Physical type, converted type (-1 for none) and how a JDBC value is read and encoded.
+     */
+    private enum Kind {
+        BOOLEAN(0, -1), INT32(1, -1), INT64(2, -1), FLOAT(4, -1), DOUBLE(5, -1),
+        DECIMAL(2, 5), DATE(1, 6), TIME(2, 8), TIMESTAMP(2, 10), TIMESTAMP_TZ(2, 10),
+        BINARY(6, -1), STRING(6, 0);
+
+        private final int physicalType;
+        private final int convertedType;
+
+        Kind(int physicalType, int convertedType) {
+            this.physicalType = physicalType;
+            this.convertedType = convertedType;
+        }
+    }
+
+    public static final class Column {
+        private final String name;
+        private final Kind kind;
+        private final int scale;
+        private final int precision;
+
+        private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+        private final LevelEncoder levels = new LevelEncoder();
+        // BOOLEAN values are bit-packed, LSB first
+        private int pendingBits;
+        private int pendingBitCount;
+
+        private Column(String name, Kind kind, int scale, int precision) {
+            this.name = name;
+            this.kind = kind;
+            this.scale = scale;
+            this.precision = precision;
+        }
+
+        private void append(ResultSet rs, int index) throws SQLException, IOException {
+            switch (kind) {
+                case BOOLEAN -> {
+                    boolean value = rs.getBoolean(index);
+                    if (present(rs)) {
+                        pendingBits |= (value ? 1 : 0) << pendingBitCount;
+                        if (++pendingBitCount == 8) {
+                            values.write(pendingBits);
+                            pendingBits = 0;
+                            pendingBitCount = 0;
+                        }
+                    }
+                }
+                case INT32 -> {
+                    int value = rs.getInt(index);
+                    if (present(rs)) writeIntLE(values, value);
+                }
+                case INT64 -> {
+                    long value = rs.getLong(index);
+                    if (present(rs)) writeLongLE(values, value);
+                }
+                case FLOAT -> {
+                    float value = rs.getFloat(index);
+                    if (present(rs)) writeIntLE(values, Float.floatToIntBits(value));
+                }
+                case DOUBLE -> {
+                    double value = rs.getDouble(index);
+                    if (present(rs)) writeLongLE(values, Double.doubleToLongBits(value));
+                }
+                case DECIMAL -> {
+                    BigDecimal value = rs.getBigDecimal(index);
+                    if (present(value)) writeLongLE(values, value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValue());
+                }
+                case DATE -> {
+                    LocalDate value = rs.getObject(index, LocalDate.class);
+                    if (present(value)) writeIntLE(values, (int) value.toEpochDay());
+                }
+                case TIME -> {
+                    LocalTime value = rs.getObject(index, LocalTime.class);
+                    if (present(value)) writeLongLE(values, value.toNanoOfDay() / 1_000);
+                }
+                case TIMESTAMP -> {
+                    LocalDateTime value = rs.getObject(index, LocalDateTime.class);
+                    if (present(value)) writeLongLE(values, toMicros(value.toInstant(ZoneOffset.UTC)));
+                }
+                case TIMESTAMP_TZ -> {
+                    OffsetDateTime value = rs.getObject(index, OffsetDateTime.class);
+                    if (present(value)) writeLongLE(values, toMicros(value.toInstant()));
+                }
+                case BINARY -> {
+                    byte[] value = rs.getBytes(index);
+                    if (present(value)) writeBytes(value);
+                }
+                case STRING -> {
+                    String value = rs.getString(index);
+                    if (present(value)) writeBytes(value.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        private boolean present(ResultSet rs) throws SQLException {
+            return present(rs.wasNull() ? null : Boolean.TRUE);
+        }
+
+        private boolean present(Object value) {
+            levels.add(value != null ? 1 : 0);
+            return value != null;
+        }
+
+        private void writeBytes(byte[] value) throws IOException {
+            writeIntLE(values, value.length);
+            values.write(value);
+        }
+
+        private void writeValues(OutputStream page) throws IOException {
+            values.writeTo(page);
+            if (pendingBitCount > 0) {
+                page.write(pendingBits);
+            }
+        }
+
+        private void reset() {
+            values.reset();
+            pendingBits = 0;
+            pendingBitCount = 0;
+        }
+
+        private static long toMicros(Instant instant) {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+        }
+    }
+
+    /**
+     * Definition levels (bit width 1) as RLE runs of the RLE/bit-packing hybrid encoding.
+     */
+    private static final class LevelEncoder {
+        private final ByteArrayOutputStream runs = new ByteArrayOutputStream();
+        private int current = -1;
+        private int runLength;
+
+        private void add(int level) {
+            if (level != current && runLength > 0) {
+                writeRun();
+            }
+            current = level;
+            runLength++;
+        }
+
+        private byte[] finish() {
+            if (runLength > 0) {
+                writeRun();
+            }
+            byte[] encoded = runs.toByteArray();
+            runs.reset();
+            current = -1;
+            return encoded;
+        }
+
+        private void writeRun() {
+            ThriftWriter.writeVarint(runs, (long) runLength << 1);
+            runs.write(current);
+            runLength = 0;
+        }
+    }
+
+    /**
+     * The subset of the Thrift compact protocol needed for Parquet page headers and footers.
+     */
+    private static final class ThriftWriter {
+        private static final int I32 = 5;
+        private static final int I64 = 6;
+        private static final int BINARY = 8;
+        private static final int LIST = 9;
+        private static final int STRUCT = 12;
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final List<Integer> fieldStack = new ArrayList<>();
+        private int lastField;
+
+        private void i32(int field, int value) {
+            fieldHeader(field, I32);
+            writeVarint(buffer, zigzag(value));
+        }
+
+        private void i64(int field, long value) {
+            fieldHeader(field, I64);
+            writeVarint(buffer, zigzag(value));
+        }
+
+        private void string(int field, String value) {
+            fieldHeader(field, BINARY);
+            listString(value);
+        }
+
+        private void beginStruct(int field) {
+            fieldHeader(field, STRUCT);
+            beginListStruct();
+        }
+
+        private void beginListStruct() {
+            fieldStack.add(lastField);
+            lastField = 0;
+        }
+
+        private void endStruct() {
+            stop();
+            lastField = fieldStack.remove(fieldStack.size() - 1);
+        }
+
+        private void beginList(int field, int elementType, int size) {
+            fieldHeader(field, LIST);
+            if (size < 15) {
+                buffer.write((size << 4) | elementType);
+            } else {
+                buffer.write(0xF0 | elementType);
+                writeVarint(buffer, size);
+            }
+        }
+
+        private void listI32(int value) {
+            writeVarint(buffer, zigzag(value));
+        }
+
+        private void listString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(buffer, bytes.length);
+            buffer.write(bytes, 0, bytes.length);
+        }
+
+        private void stop() {
+            buffer.write(0);
+        }
+
+        private byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+
+        private void fieldHeader(int field, int type) {
+            int delta = field - lastField;
+            if (delta > 0 && delta <= 15) {
+                buffer.write((delta << 4) | type);
+            } else {
+                buffer.write(type);
+                writeVarint(buffer, zigzag(field));
+            }
+            lastField = field;
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+
+        private static void writeVarint(ByteArrayOutputStream out, long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        private long count;
+
+        private CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+
+    private record ChunkMeta(Column column, long offset, long numValues, long uncompressedSize, long compressedSize) {
+    }
+
+    private record RowGroupMeta(List<ChunkMeta> chunks, long totalBytes, long numRows) {
+    }
+}
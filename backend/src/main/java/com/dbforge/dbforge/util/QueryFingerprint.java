@@ -0,0 +1,134 @@
+package com.dbforge.dbforge.util;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a statement to its shape so executions that differ only in literal values are
+ * aggregated together, e.g. {@code select * from users where id = ?} or
+ * {@code db.users.find({"age": {"$gt": ?}})}.
+ */
+public final class QueryFingerprint {
+
+    private static final Pattern BLOCK_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern LINE_COMMENT = Pattern.compile("--[^\\n]*");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])(?:0x[0-9a-fA-F]+|\\d+(?:\\.\\d+)?(?:[eE][+-]?\\d+)?)\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern VALUES_LIST = Pattern.compile("(?i)\\bvalues\\s*\\([^()]*\\)(?:\\s*,\\s*\\([^()]*\\))*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Set<String> KEPT_CURSOR_ARGUMENTS = Set.of("sort", "projection", "hint");
+
+    private QueryFingerprint() {
+    }
+
+    public static String of(String engine, String statement) {
+        String type = engine == null ? "" : engine.toLowerCase(Locale.ROOT);
+        return switch (type) {
+            case "mongodb" -> mongo(statement);
+            case "redis" -> redis(statement);
+            default -> sql(statement);
+        };
+    }
+
+    public static String sql(String statement) {
+        String text = BLOCK_COMMENT.matcher(statement).replaceAll(" ");
+        text = LINE_COMMENT.matcher(text).replaceAll(" ");
+        text = STRING_LITERAL.matcher(text).replaceAll("?");
+        text = NUMBER_LITERAL.matcher(text).replaceAll("?");
+        text = IN_LIST.matcher(text).replaceAll("in (?+)");
+        text = VALUES_LIST.matcher(text).replaceAll("values (?+)");
+        text = WHITESPACE.matcher(text).replaceAll(" ").trim();
+        if (text.endsWith(";")) {
+            text = text.substring(0, text.length() - 1).trim();
+        }
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Keeps collection, method, field names and operators; values become ?. Sort, projection and
+     * hint documents are kept as they are part of the query shape.
+     */
+    public static String mongo(String statement) {
+        MongoShellParser.MongoShellCommand command;
+        try {
+            command = MongoShellParser.parse(WHITESPACE.matcher(statement).replaceAll(" "));
+        } catch (IllegalArgumentException e) {
+            return sql(statement);
+        }
+        StringBuilder fingerprint = new StringBuilder("db.").append(command.collection()).append('.').append(command.method()).append('(');
+        boolean inserts = command.method().startsWith("insert");
+        for (int i = 0; i < command.args().size(); i++) {
+            if (i > 0) {
+                fingerprint.append(", ");
+            }
+            fingerprint.append(inserts ? "?" : render(shape(command.args().get(i))));
+        }
+        fingerprint.append(')');
+        for (MongoShellParser.Call call : command.cursor()) {
+            fingerprint.append('.').append(call.method()).append('(');
+            if (!call.args().isEmpty()) {
+                fingerprint.append(KEPT_CURSOR_ARGUMENTS.contains(call.method()) ? render(call.args().get(0)) : "?");
+            }
+            fingerprint.append(')');
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * Command name plus the key with digit runs replaced, e.g. {@code HGET user:? ?}.
+     */
+    public static String redis(String statement) {
+        String[] commands = Arrays.stream(statement.split("\\R"))
+                .map(String::trim)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .toArray(String[]::new);
+        if (commands.length == 0) {
+            return statement.trim();
+        }
+        String[] parts = WHITESPACE.split(commands[0].trim());
+        StringBuilder fingerprint = new StringBuilder(parts[0].toUpperCase(Locale.ROOT));
+        if (parts.length > 1) {
+            fingerprint.append(' ').append(DIGITS.matcher(parts[1].replace("\"", "")).replaceAll("?"));
+        }
+        if (parts.length > 2) {
+            fingerprint.append(parts.length > 4 ? " ?+" : " ?".repeat(parts.length - 2));
+        }
+        if (commands.length > 1) {
+            fingerprint.append(" (+").append(commands.length - 1).append(" more)");
+        }
+        return fingerprint.toString();
+    }
+
+    private static BsonValue shape(BsonValue value) {
+        if (value.isDocument()) {
+            BsonDocument shaped = new BsonDocument();
+            value.asDocument().forEach((key, nested) -> shaped.put(key, shape(nested)));
+            return shaped;
+        }
+        if (value.isArray()) {
+            // Pipelines and $and/$or clause lists keep their structure; value lists collapse
+            BsonArray array = value.asArray();
+            if (!array.isEmpty() && array.stream().allMatch(BsonValue::isDocument)) {
+                BsonArray shaped = new BsonArray();
+                array.forEach(element -> shaped.add(shape(element)));
+                return shaped;
+            }
+        }
+        return new BsonString("?");
+    }
+
+    private static String render(BsonValue value) {
+        String json = value.isDocument() ? value.asDocument().toJson()
+                : new BsonDocument("v", value).toJson().replaceFirst("^\\{\"v\": ", "").replaceFirst("}$", "");
+        return json.replace("\"?\"", "?");
+    }
+}
@@ -0,0 +1,461 @@
+package com.dbforge.dbforge.loadtest;
+
+import com.dbforge.dbforge.DbforgeApplication;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.model.User;
+import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import com.dbforge.dbforge.repository.DatabaseTypeRepository;
+import com.dbforge.dbforge.repository.UserRepository;
+import com.dbforge.dbforge.util.JwtUtil;
+import com.dbforge.dbforge.util.LatencyHistogram;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.bson.BsonBoolean;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the backend against in-process engine stand-ins and drives a mixed query/export/schema
+ * workload through its HTTP API, reporting throughput and p50/p99 latency per operation:
+ * <ul>
+ *   <li>postgres, mysql: H2 in the matching compatibility mode, see {@link StandInDriver}</li>
+ *   <li>mongodb: {@link MongoWireStub}</li>
+ *   <li>redis: {@link RespServer}</li>
+ * </ul>
+ * <p>
+ * Options (key=value): {@code duration} and {@code warmup} in seconds, {@code users} (concurrent
+ * clients), {@code engines} (comma separated), {@code rows} (seeded per engine) and {@code mix}
+ * (weights, e.g. {@code query:80,export:5,schema:15}). Run with
+ * {@code mvn -Ploadtest test -Dloadtest.args="duration=60 users=32"}.
+ */
+public final class LoadTestHarness {
+
+    private static final String USERNAME = "loadtest";
+    private static final String PASSWORD = "loadtest-secret";
+    private static final String DATABASE = "loadtest";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, String> options;
+    private final int rows;
+    private final List<AutoCloseable> standIns = new ArrayList<>();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private StandInDriver driver;
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private String jwt;
+
+    private LoadTestHarness(Map<String, String> options) {
+        this.options = options;
+        this.rows = Integer.parseInt(options.getOrDefault("rows", "10000"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value, got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        LoadTestHarness harness = new LoadTestHarness(options);
+        try {
+            harness.run();
+        } finally {
+            harness.close();
+        }
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        List<String> engines = List.of(options.getOrDefault("engines", "postgres,mysql,mongodb,redis").split(","));
+        Map<String, Integer> ports = new LinkedHashMap<>();
+        for (String engine : engines) {
+            ports.put(engine, switch (engine) {
+                case "postgres", "mysql" -> startSql(engine);
+                case "mongodb" -> startMongo();
+                case "redis" -> startRedis();
+                default -> throw new IllegalArgumentException("No stand-in for engine " + engine);
+            });
+        }
+
+        SpringApplication application = new SpringApplication(DbforgeApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        context = application.run();
+        baseUrl = "http://127.0.0.1:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        List<Target> targets = seedInstances(ports);
+        List<Step> steps = steps(targets, parseMix(options.getOrDefault("mix", "query:80,export:5,schema:15")));
+
+        int users = Integer.parseInt(options.getOrDefault("users", "16"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "30"));
+        System.out.printf("Load test: %d users, %ds warmup, %ds measured, engines %s, %d rows each%n",
+                users, warmup, duration, engines, rows);
+
+        drive(steps, users, warmup, false);
+        operations.clear();
+        drive(steps, users, duration, true);
+        report(duration);
+    }
+
+    // --- Stand-ins
+
+    private int startSql(String engine) throws Exception {
+        int port = freePort();
+        String url = "jdbc:h2:mem:loadtest_" + engine + ";DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1;MODE="
+                + ("postgres".equals(engine) ? "PostgreSQL;DEFAULT_NULL_ORDERING=HIGH" : "MySQL");
+        if (driver == null) {
+            driver = StandInDriver.register();
+        }
+        driver.route(port, url);
+
+        Connection keepAlive = DriverManager.getConnection(url, USERNAME, PASSWORD);
+        standIns.add(keepAlive);
+        try (Statement stmt = keepAlive.createStatement()) {
+            stmt.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, customer VARCHAR(64), status VARCHAR(16), "
+                    + "amount DECIMAL(12,2), quantity INT, created_at TIMESTAMP, note VARCHAR(255))");
+            stmt.execute("CREATE INDEX idx_orders_customer ON orders(customer)");
+        }
+        keepAlive.setAutoCommit(false);
+        try (PreparedStatement insert = keepAlive.prepareStatement("INSERT INTO orders VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 1; i <= rows; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "customer-" + (i % 500));
+                insert.setString(3, i % 10 == 0 ? "refunded" : "paid");
+                insert.setBigDecimal(4, BigDecimal.valueOf(i % 10_000, 2));
+                insert.setInt(5, 1 + i % 7);
+                insert.setObject(6, LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(i));
+                insert.setString(7, i % 3 == 0 ? null : "order note " + i);
+                insert.addBatch();
+                if (i % 1000 == 0) insert.executeBatch();
+            }
+            insert.executeBatch();
+        }
+        keepAlive.commit();
+        keepAlive.setAutoCommit(true);
+        return port;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+
+    private int startMongo() throws IOException {
+        MongoWireStub stub = new MongoWireStub(USERNAME, PASSWORD);
+        standIns.add(stub);
+        List<BsonDocument> documents = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            BsonDocument document = new BsonDocument("orderId", new BsonInt32(i))
+                    .append("customer", new BsonString("customer-" + (i % 500)))
+                    .append("status", new BsonString(i % 10 == 0 ? "refunded" : "paid"))
+                    .append("amount", new BsonDouble((i % 10_000) / 100.0))
+                    .append("createdAt", new BsonDateTime(1_704_067_200_000L + i * 60_000L))
+                    .append("shipping", new BsonDocument("city", new BsonString("city-" + (i % 40)))
+                            .append("express", new BsonBoolean(i % 4 == 0)));
+            documents.add(document);
+        }
+        stub.insert("orders", documents);
+        return stub.port();
+    }
+
+    private int startRedis() throws IOException {
+        RespServer server = new RespServer();
+        standIns.add(server);
+        for (int i = 1; i <= rows; i++) {
+            switch (i % 4) {
+                case 0 -> server.call("SET", "session:" + i, "user-" + (i % 500));
+                case 1 -> server.call("HSET", "order:" + i, "customer", "customer-" + (i % 500), "amount", String.valueOf(i % 10_000));
+                case 2 -> server.call("RPUSH", "queue:" + (i % 50), "job-" + i);
+                default -> server.call("ZADD", "leaderboard:" + (i % 20), String.valueOf(i), "player-" + i);
+            }
+        }
+        return server.port();
+    }
+
+    // --- Application state
+
+    private List<Target> seedInstances(Map<String, Integer> ports) {
+        UserRepository users = context.getBean(UserRepository.class);
+        DatabaseTypeRepository types = context.getBean(DatabaseTypeRepository.class);
+        DatabaseInstanceRepository instances = context.getBean(DatabaseInstanceRepository.class);
+
+        User user = new User();
+        user.setUsername("loadtest");
+        user.setEmail("loadtest@dbforge.local");
+        user.setPasswordHash("-");
+        user.setCreatedAt(LocalDateTime.now());
+        user = users.save(user);
+        jwt = context.getBean(JwtUtil.class).generateToken(user.getId(), user.getEmail());
+
+        List<Target> targets = new ArrayList<>();
+        for (Map.Entry<String, Integer> engine : ports.entrySet()) {
+            DatabaseInstance instance = new DatabaseInstance();
+            instance.setUserId(user.getId());
+            instance.setDatabaseType(types.findByName(engine.getKey()).orElseThrow());
+            instance.setInstanceName("loadtest-" + engine.getKey());
+            instance.setContainerName("loadtest-" + engine.getKey());
+            instance.setNode("loadtest");
+            instance.setHost("127.0.0.1");
+            instance.setPort(engine.getValue());
+            instance.setDatabaseName(DATABASE);
+            instance.setUsername(USERNAME);
+            instance.setPassword(PASSWORD);
+            instance.setStatus(DatabaseInstance.InstanceStatus.RUNNING);
+            instance.setStartedAt(LocalDateTime.now());
+            instance.setLastActivityAt(LocalDateTime.now());
+            targets.add(new Target(engine.getKey(), instances.save(instance).getId()));
+        }
+        return targets;
+    }
+
+    // --- Workload
+
+    private record Target(String engine, long instanceId) {
+    }
+
+    private record Step(String name, int weight, Call call) {
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        HttpRequest build(ThreadLocalRandom random);
+    }
+
+    private Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] kv = part.split(":");
+            weights.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return weights;
+    }
+
+    private List<Step> steps(List<Target> targets, Map<String, Integer> mix) {
+        List<Step> steps = new ArrayList<>();
+        for (Target target : targets) {
+            String path = "/api/databases/" + target.instanceId();
+            List<String> queries = queries(target.engine());
+            steps.add(new Step(target.engine() + " query", mix.getOrDefault("query", 0), random ->
+                    post(path + "/query", MAPPER.createObjectNode()
+                            .put("query", queries.get(random.nextInt(queries.size()))
+                                    .replace("{id}", String.valueOf(1 + random.nextInt(rows)))
+                                    .replace("{customer}", "customer-" + random.nextInt(500))))));
+            ObjectNode export = MAPPER.createObjectNode().put("format", "redis".equals(target.engine()) ? "json" : "csv");
+            if (!"redis".equals(target.engine())) {
+                ((ArrayNode) export.putArray("tables")).add("orders");
+            }
+            steps.add(new Step(target.engine() + " export", mix.getOrDefault("export", 0), random -> post(path + "/export", export)));
+            steps.add(new Step(target.engine() + " schema", mix.getOrDefault("schema", 0), random ->
+                    request(path + "/schema").GET().build()));
+        }
+        steps.removeIf(step -> step.weight() <= 0);
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("The mix selects no operations");
+        }
+        return steps;
+    }
+
+    private static List<String> queries(String engine) {
+        return switch (engine) {
+            case "postgres", "mysql" -> List.of(
+                    "SELECT * FROM orders WHERE id = {id}",
+                    "SELECT id, amount, status FROM orders WHERE customer = '{customer}' ORDER BY created_at DESC LIMIT 20",
+                    "SELECT status, COUNT(*), SUM(amount) FROM orders GROUP BY status",
+                    "UPDATE orders SET quantity = quantity + 1 WHERE id = {id}");
+            case "mongodb" -> List.of(
+                    "db.orders.find({orderId: {id}})",
+                    "db.orders.find({customer: '{customer}'}).sort({createdAt: -1}).limit(20)",
+                    "db.orders.countDocuments({status: 'refunded'})",
+                    "db.orders.updateOne({orderId: {id}}, {$inc: {amount: 1}})");
+            case "redis" -> List.of(
+                    "HGETALL order:{id}",
+                    "GET session:{id}",
+                    "LRANGE queue:7 0 9",
+                    "HGET order:{id} customer",
+                    "INCR counter:{customer}",
+                    "MGET session:{id} session:8 counter:{customer}",
+                    "ZRANGE leaderboard:7 0 9 WITHSCORES",
+                    "HGET order:{id} customer\nGET session:{id}\nINCR counter:{customer}",
+                    "MULTI\nINCR counter:{customer}\nSADD seen:{customer} {id}\nEXEC");
+            default -> throw new IllegalArgumentException(engine);
+        };
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Authorization", "Bearer " + jwt);
+    }
+
+    private HttpRequest post(String path, JsonNode body) {
+        return request(path)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                .build();
+    }
+
+    private void drive(List<Step> steps, int users, int seconds, boolean measured) throws InterruptedException {
+        int totalWeight = steps.stream().mapToInt(Step::weight).sum();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService clients = Executors.newFixedThreadPool(users);
+        for (int u = 0; u < users; u++) {
+            clients.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int pick = random.nextInt(totalWeight);
+                    Step step = steps.get(0);
+                    for (Step candidate : steps) {
+                        pick -= candidate.weight();
+                        if (pick < 0) {
+                            step = candidate;
+                            break;
+                        }
+                    }
+                    execute(step, random);
+                }
+            });
+        }
+        clients.shutdown();
+        if (!clients.awaitTermination(seconds + 120L, TimeUnit.SECONDS)) {
+            clients.shutdownNow();
+        }
+        if (!measured) {
+            System.out.println("Warmup done");
+        }
+    }
+
+    private void execute(Step step, ThreadLocalRandom random) {
+        Operation operation = operations.computeIfAbsent(step.name(), name -> new Operation());
+        long start = System.nanoTime();
+        boolean ok;
+        String failure = null;
+        try {
+            HttpResponse<InputStream> response = http.send(step.call().build(random), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (step.name().endsWith("query")) {
+                    // Query failures come back as 200 with success=false
+                    JsonNode result = MAPPER.readTree(body);
+                    ok = response.statusCode() == 200 && result.path("success").asBoolean(false);
+                    failure = ok ? null : result.path("error").asText("HTTP " + response.statusCode());
+                } else {
+                    long bytes = body.transferTo(OutputStream.nullOutputStream());
+                    ok = response.statusCode() == 200;
+                    failure = ok ? null : "HTTP " + response.statusCode();
+                    operation.bytes.add(bytes);
+                }
+            }
+        } catch (Exception e) {
+            ok = false;
+            failure = e.toString();
+        }
+        long micros = (System.nanoTime() - start) / 1000;
+        if (ok) {
+            operation.latency.record(micros);
+        } else {
+            operation.errors.increment();
+            if (failure != null) operation.lastError = failure;
+        }
+    }
+
+    private static final class Operation {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private volatile String lastError;
+    }
+
+    // --- Report
+
+    private void report(int seconds) throws IOException {
+        ArrayNode results = MAPPER.createArrayNode();
+        System.out.printf("%n%-18s %10s %10s %10s %10s %10s %8s%n", "operation", "ok", "ops/s", "p50 ms", "p99 ms", "max ms", "errors");
+        long total = 0;
+        for (Map.Entry<String, Operation> entry : new TreeMap<>(operations).entrySet()) {
+            Operation operation = entry.getValue();
+            long count = operation.latency.getCount();
+            total += count;
+            double throughput = count / (double) seconds;
+            System.out.printf("%-18s %10d %10.1f %10.2f %10.2f %10.2f %8d%n", entry.getKey(), count, throughput,
+                    operation.latency.percentile(0.50) / 1000.0, operation.latency.percentile(0.99) / 1000.0,
+                    operation.latency.getMax() / 1000.0, operation.errors.sum());
+            if (operation.lastError != null) {
+                System.out.printf("    last error: %s%n", operation.lastError);
+            }
+            results.addObject()
+                    .put("operation", entry.getKey())
+                    .put("count", count)
+                    .put("errors", operation.errors.sum())
+                    .put("throughputPerSecond", throughput)
+                    .put("p50Micros", operation.latency.percentile(0.50))
+                    .put("p99Micros", operation.latency.percentile(0.99))
+                    .put("maxMicros", operation.latency.getMax())
+                    .put("bytes", operation.bytes.sum())
+                    .put("lastError", operation.lastError);
+        }
+        System.out.printf("%ntotal: %d requests, %.1f/s%n", total, total / (double) seconds);
+
+        ObjectNode report = MAPPER.createObjectNode();
+        report.set("options", MAPPER.valueToTree(options));
+        report.put("durationSeconds", seconds);
+        report.put("throughputPerSecond", total / (double) seconds);
+        report.set("operations", results);
+        Path file = Path.of(options.getOrDefault("report", "target/loadtest-report.json"));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        System.out.println("Report written to " + file.toAbsolutePath());
+    }
+
+    private void close() {
+        if (context != null) {
+            context.close();
+        }
+        for (AutoCloseable standIn : standIns) {
+            try {
+                standIn.close();
+            } catch (Exception e) {
+                // Best effort on the way out
+            }
+        }
+    }
+}
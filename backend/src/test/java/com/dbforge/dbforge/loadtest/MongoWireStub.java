@@ -0,0 +1,776 @@
+package com.dbforge.dbforge.loadtest;
+
+import org.bson.*;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * In-process server speaking enough of the MongoDB wire protocol (OP_QUERY handshake, OP_MSG
+ * commands, SCRAM-SHA-256) for the sync driver to run the backend's queries, schema sampling and
+ * exports against an in-memory collection store. Filters support implicit equality, comparison,
+ * {@code $in}/{@code $nin}/{@code $exists}/{@code $regex} and {@code $and}/{@code $or}; aggregate
+ * supports {@code $match}, {@code $sort}, {@code $skip}, {@code $limit}, {@code $sample},
+ * {@code $project}, {@code $unwind}, {@code $group} with {@code $sum} and {@code $count}. Every
+ * result is returned in the first batch.
+ */
+final class MongoWireStub implements AutoCloseable {
+
+    private static final int OP_REPLY = 1;
+    private static final int OP_QUERY = 2004;
+    private static final int OP_MSG = 2013;
+    private static final int SCRAM_ITERATIONS = 4096;
+
+    private final String username;
+    private final String password;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mongo-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final AtomicInteger requestIds = new AtomicInteger();
+    private final Map<String, List<BsonDocument>> collections = new LinkedHashMap<>();
+    private final Map<String, List<BsonDocument>> indexes = new HashMap<>();
+
+    MongoWireStub(String username, String password) throws IOException {
+        this.username = username;
+        this.password = password;
+        serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        connections.execute(this::accept);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    synchronized void insert(String collection, List<BsonDocument> documents) {
+        List<BsonDocument> target = collections.computeIfAbsent(collection, name -> new ArrayList<>());
+        for (BsonDocument document : documents) {
+            if (!document.containsKey("_id")) {
+                BsonDocument withId = new BsonDocument("_id", new BsonObjectId(new ObjectId()));
+                withId.putAll(document);
+                document = withId;
+            }
+            target.add(document);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Connection connection = new Connection(connectionIds.incrementAndGet());
+        try (socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (true) {
+                byte[] header = new byte[16];
+                try {
+                    in.readFully(header);
+                } catch (IOException e) {
+                    return;
+                }
+                ByteBuffer headerBuffer = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+                int length = headerBuffer.getInt();
+                int requestId = headerBuffer.getInt();
+                headerBuffer.getInt(); // responseTo
+                int opCode = headerBuffer.getInt();
+                byte[] body = new byte[length - 16];
+                in.readFully(body);
+                ByteBuffer message = ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN);
+
+                if (opCode == OP_QUERY) {
+                    message.getInt(); // flags
+                    readCString(message); // fullCollectionName
+                    message.getInt(); // numberToSkip
+                    message.getInt(); // numberToReturn
+                    BsonDocument command = readDocument(message);
+                    writeReply(out, requestId, handle(connection, command));
+                } else if (opCode == OP_MSG) {
+                    int flags = message.getInt();
+                    int end = body.length - ((flags & 1) != 0 ? 4 : 0);
+                    BsonDocument command = null;
+                    while (message.position() < end) {
+                        byte kind = message.get();
+                        if (kind == 0) {
+                            command = readDocument(message);
+                        } else {
+                            // Document sequence, e.g. the "documents" of an insert
+                            int start = message.position();
+                            int size = message.getInt();
+                            String identifier = readCString(message);
+                            BsonArray documents = new BsonArray();
+                            while (message.position() < start + size) {
+                                documents.add(readDocument(message));
+                            }
+                            if (command == null) {
+                                command = new BsonDocument();
+                            }
+                            command.put(identifier, documents);
+                        }
+                    }
+                    BsonDocument reply = handle(connection, command);
+                    if ((flags & 2) == 0) { // moreToCome: the client expects no reply
+                        writeMsg(out, requestId, reply);
+                    }
+                } else {
+                    return;
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private BsonDocument handle(Connection connection, BsonDocument command) {
+        String name = command.getFirstKey();
+        try {
+            return switch (name) {
+                case "isMaster", "ismaster", "hello" -> hello(connection, command);
+                case "saslStart" -> saslStart(connection, command);
+                case "saslContinue" -> saslContinue(connection, command);
+                case "ping", "endSessions", "killCursors", "getParameter", "create" -> ok();
+                case "buildInfo", "buildinfo" -> ok()
+                        .append("version", new BsonString("7.0.0"))
+                        .append("versionArray", new BsonArray(List.of(new BsonInt32(7), new BsonInt32(0), new BsonInt32(0), new BsonInt32(0))));
+                default -> {
+                    synchronized (this) {
+                        yield collectionCommand(name, command);
+                    }
+                }
+            };
+        } catch (RuntimeException e) {
+            return error(2, "BadValue", e.toString());
+        }
+    }
+
+    private BsonDocument collectionCommand(String name, BsonDocument command) {
+        String collection = command.get(name).isString() ? command.getString(name).getValue() : null;
+        return switch (name) {
+            case "find" -> {
+                List<BsonDocument> documents = query(collection, command.getDocument("filter", new BsonDocument()));
+                documents = sort(documents, command.getDocument("sort", null));
+                documents = slice(documents, command.getNumber("skip", new BsonInt32(0)).intValue(),
+                        command.getNumber("limit", new BsonInt32(0)).intValue());
+                yield cursor(collection, project(documents, command.getDocument("projection", null)));
+            }
+            case "aggregate" -> cursor(collection, aggregate(collection, command.getArray("pipeline")));
+            case "getMore" -> ok().append("cursor", new BsonDocument("nextBatch", new BsonArray())
+                    .append("id", new BsonInt64(0))
+                    .append("ns", new BsonString("db." + command.getString("collection").getValue())));
+            case "count" -> ok().append("n", new BsonInt32(query(collection, command.getDocument("query", new BsonDocument())).size()));
+            case "distinct" -> {
+                String key = command.getString("key").getValue();
+                LinkedHashSet<BsonValue> values = new LinkedHashSet<>();
+                for (BsonDocument document : query(collection, command.getDocument("query", new BsonDocument()))) {
+                    BsonValue value = path(document, key);
+                    if (value != null) values.add(value);
+                }
+                yield ok().append("values", new BsonArray(new ArrayList<>(values)));
+            }
+            case "insert" -> {
+                List<BsonDocument> documents = command.getArray("documents").stream().map(BsonValue::asDocument).toList();
+                insert(collection, documents);
+                yield ok().append("n", new BsonInt32(documents.size()));
+            }
+            case "update" -> {
+                int matched = 0;
+                int modified = 0;
+                for (BsonValue value : command.getArray("updates")) {
+                    BsonDocument update = value.asDocument();
+                    List<BsonDocument> documents = query(collection, update.getDocument("q"));
+                    if (!update.getBoolean("multi", BsonBoolean.FALSE).getValue() && documents.size() > 1) {
+                        documents = documents.subList(0, 1);
+                    }
+                    for (BsonDocument document : documents) {
+                        apply(document, update.get("u").asDocument());
+                        matched++;
+                        modified++;
+                    }
+                }
+                yield ok().append("n", new BsonInt32(matched)).append("nModified", new BsonInt32(modified));
+            }
+            case "delete" -> {
+                int deleted = 0;
+                List<BsonDocument> target = collections.getOrDefault(collection, new ArrayList<>());
+                for (BsonValue value : command.getArray("deletes")) {
+                    BsonDocument delete = value.asDocument();
+                    List<BsonDocument> documents = query(collection, delete.getDocument("q"));
+                    if (delete.getNumber("limit", new BsonInt32(0)).intValue() == 1 && documents.size() > 1) {
+                        documents = documents.subList(0, 1);
+                    }
+                    for (BsonDocument document : documents) {
+                        target.remove(document);
+                        deleted++;
+                    }
+                }
+                yield ok().append("n", new BsonInt32(deleted));
+            }
+            case "listCollections" -> {
+                BsonDocument filter = command.getDocument("filter", new BsonDocument());
+                List<BsonDocument> names = new ArrayList<>();
+                for (String existing : collections.keySet()) {
+                    BsonDocument info = new BsonDocument("name", new BsonString(existing))
+                            .append("type", new BsonString("collection"))
+                            .append("options", new BsonDocument())
+                            .append("info", new BsonDocument("readOnly", BsonBoolean.FALSE));
+                    if (matches(info, filter)) names.add(info);
+                }
+                yield cursor("$cmd.listCollections", names);
+            }
+            case "listIndexes" -> {
+                if (!collections.containsKey(collection)) {
+                    yield error(26, "NamespaceNotFound", "ns does not exist: db." + collection);
+                }
+                List<BsonDocument> specs = new ArrayList<>();
+                specs.add(new BsonDocument("v", new BsonInt32(2))
+                        .append("key", new BsonDocument("_id", new BsonInt32(1)))
+                        .append("name", new BsonString("_id_")));
+                specs.addAll(indexes.getOrDefault(collection, List.of()));
+                yield cursor(collection, specs);
+            }
+            case "createIndexes" -> {
+                List<BsonDocument> specs = indexes.computeIfAbsent(collection, key -> new ArrayList<>());
+                int before = specs.size() + 1;
+                for (BsonValue spec : command.getArray("indexes")) {
+                    specs.add(new BsonDocument("v", new BsonInt32(2)).append("key", spec.asDocument().get("key"))
+                            .append("name", spec.asDocument().get("name")));
+                }
+                collections.computeIfAbsent(collection, key -> new ArrayList<>());
+                yield ok().append("numIndexesBefore", new BsonInt32(before)).append("numIndexesAfter", new BsonInt32(specs.size() + 1));
+            }
+            case "drop" -> {
+                collections.remove(collection);
+                indexes.remove(collection);
+                yield ok();
+            }
+            case "listDatabases" -> ok()
+                    .append("databases", new BsonArray(List.of(new BsonDocument("name", new BsonString("loadtest"))
+                            .append("sizeOnDisk", new BsonInt64(1 << 20)).append("empty", BsonBoolean.FALSE))))
+                    .append("totalSize", new BsonInt64(1 << 20));
+            case "dbStats", "dbstats", "collStats" -> ok()
+                    .append("objects", new BsonInt64(collections.values().stream().mapToLong(List::size).sum()))
+                    .append("dataSize", new BsonInt64(1 << 20))
+                    .append("storageSize", new BsonInt64(1 << 20))
+                    .append("indexSize", new BsonInt64(1 << 16));
+            case "explain" -> {
+                BsonDocument explained = command.getDocument("explain");
+                String inner = explained.getFirstKey();
+                String target = explained.getString(inner).getValue();
+                int returned = "find".equals(inner)
+                        ? query(target, explained.getDocument("filter", new BsonDocument())).size()
+                        : collections.getOrDefault(target, List.of()).size();
+                int examined = collections.getOrDefault(target, List.of()).size();
+                BsonDocument stage = new BsonDocument("stage", new BsonString("COLLSCAN"))
+                        .append("nReturned", new BsonInt32(returned))
+                        .append("docsExamined", new BsonInt32(examined));
+                yield ok()
+                        .append("queryPlanner", new BsonDocument("namespace", new BsonString("loadtest." + target))
+                                .append("winningPlan", new BsonDocument("stage", new BsonString("COLLSCAN"))))
+                        .append("executionStats", new BsonDocument("nReturned", new BsonInt32(returned))
+                                .append("executionTimeMillis", new BsonInt32(0))
+                                .append("totalKeysExamined", new BsonInt32(0))
+                                .append("totalDocsExamined", new BsonInt32(examined))
+                                .append("executionStages", stage));
+            }
+            default -> error(59, "CommandNotFound", "no such command: '" + name + "'");
+        };
+    }
+
+    private List<BsonDocument> aggregate(String collection, BsonArray pipeline) {
+        List<BsonDocument> documents = new ArrayList<>(collections.getOrDefault(collection, List.of()));
+        for (BsonValue value : pipeline) {
+            BsonDocument stage = value.asDocument();
+            String operator = stage.getFirstKey();
+            BsonValue argument = stage.get(operator);
+            documents = switch (operator) {
+                case "$match" -> documents.stream().filter(document -> matches(document, argument.asDocument())).toList();
+                case "$sort" -> sort(documents, argument.asDocument());
+                case "$skip" -> slice(documents, argument.asNumber().intValue(), 0);
+                case "$limit" -> slice(documents, 0, argument.asNumber().intValue());
+                case "$sample" -> {
+                    List<BsonDocument> shuffled = new ArrayList<>(documents);
+                    Collections.shuffle(shuffled, ThreadLocalRandom.current());
+                    yield slice(shuffled, 0, argument.asDocument().getNumber("size").intValue());
+                }
+                case "$project" -> project(documents, argument.asDocument());
+                case "$unwind" -> unwind(documents, argument);
+                case "$count" -> List.of(new BsonDocument(argument.asString().getValue(), new BsonInt32(documents.size())));
+                case "$group" -> group(documents, argument.asDocument());
+                default -> throw new IllegalArgumentException("Unsupported stage " + operator);
+            };
+        }
+        return documents;
+    }
+
+    private List<BsonDocument> group(List<BsonDocument> documents, BsonDocument spec) {
+        Map<BsonValue, BsonDocument> groups = new LinkedHashMap<>();
+        for (BsonDocument document : documents) {
+            BsonValue key = evaluate(document, spec.get("_id"));
+            BsonDocument group = groups.computeIfAbsent(key, k -> new BsonDocument("_id", k));
+            for (Map.Entry<String, BsonValue> field : spec.entrySet()) {
+                if (field.getKey().equals("_id")) continue;
+                BsonDocument accumulator = field.getValue().asDocument();
+                if (!accumulator.containsKey("$sum")) {
+                    throw new IllegalArgumentException("Unsupported accumulator " + accumulator.getFirstKey());
+                }
+                BsonValue operand = evaluate(document, accumulator.get("$sum"));
+                double current = group.containsKey(field.getKey()) ? group.getNumber(field.getKey()).doubleValue() : 0;
+                double added = operand != null && operand.isNumber() ? operand.asNumber().doubleValue() : 0;
+                group.put(field.getKey(), numeric(current + added));
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static BsonValue evaluate(BsonDocument document, BsonValue expression) {
+        return evaluate(document, expression, null);
+    }
+
+    /**
+     * Field paths, {@code $$ROOT}, {@code $$this} inside {@code $map}, and the {@code $map} and
+     * {@code $objectToArray} operators; anything else is a literal.
+     */
+    private static BsonValue evaluate(BsonDocument document, BsonValue expression, BsonValue current) {
+        if (expression.isString() && expression.asString().getValue().startsWith("$")) {
+            String reference = expression.asString().getValue();
+            BsonValue value;
+            if (reference.startsWith("$$ROOT")) {
+                value = reference.length() > 6 ? path(document, reference.substring(7)) : document;
+            } else if (reference.startsWith("$$this")) {
+                value = reference.length() > 6 ? path(current.asDocument(), reference.substring(7)) : current;
+            } else {
+                value = path(document, reference.substring(1));
+            }
+            return value != null ? value : BsonNull.VALUE;
+        }
+        if (expression.isDocument() && expression.asDocument().size() == 1) {
+            BsonDocument operator = expression.asDocument();
+            BsonValue argument = operator.get(operator.getFirstKey());
+            switch (operator.getFirstKey()) {
+                case "$objectToArray" -> {
+                    BsonArray pairs = new BsonArray();
+                    evaluate(document, argument, current).asDocument().forEach((key, value) ->
+                            pairs.add(new BsonDocument("k", new BsonString(key)).append("v", value)));
+                    return pairs;
+                }
+                case "$map" -> {
+                    BsonArray mapped = new BsonArray();
+                    for (BsonValue element : evaluate(document, argument.asDocument().get("input"), current).asArray()) {
+                        mapped.add(evaluate(document, argument.asDocument().get("in"), element));
+                    }
+                    return mapped;
+                }
+                default -> {
+                    // Not an operator we know: a literal document
+                }
+            }
+        }
+        return expression;
+    }
+
+    private List<BsonDocument> query(String collection, BsonDocument filter) {
+        List<BsonDocument> result = new ArrayList<>();
+        for (BsonDocument document : collections.getOrDefault(collection, List.of())) {
+            if (matches(document, filter)) result.add(document);
+        }
+        return result;
+    }
+
+    private boolean matches(BsonDocument document, BsonDocument filter) {
+        for (Map.Entry<String, BsonValue> condition : filter.entrySet()) {
+            String key = condition.getKey();
+            BsonValue expected = condition.getValue();
+            boolean matched = switch (key) {
+                case "$and" -> expected.asArray().stream().allMatch(part -> matches(document, part.asDocument()));
+                case "$or" -> expected.asArray().stream().anyMatch(part -> matches(document, part.asDocument()));
+                case "$nor" -> expected.asArray().stream().noneMatch(part -> matches(document, part.asDocument()));
+                default -> matchesField(path(document, key), expected);
+            };
+            if (!matched) return false;
+        }
+        return true;
+    }
+
+    private boolean matchesField(BsonValue actual, BsonValue expected) {
+        if (expected.isDocument() && !expected.asDocument().isEmpty() && expected.asDocument().getFirstKey().startsWith("$")) {
+            for (Map.Entry<String, BsonValue> operator : expected.asDocument().entrySet()) {
+                BsonValue operand = operator.getValue();
+                boolean matched = switch (operator.getKey()) {
+                    case "$eq" -> equal(actual, operand);
+                    case "$ne" -> !equal(actual, operand);
+                    case "$gt" -> actual != null && compare(actual, operand) > 0;
+                    case "$gte" -> actual != null && compare(actual, operand) >= 0;
+                    case "$lt" -> actual != null && compare(actual, operand) < 0;
+                    case "$lte" -> actual != null && compare(actual, operand) <= 0;
+                    case "$in" -> operand.asArray().stream().anyMatch(candidate -> equal(actual, candidate));
+                    case "$nin" -> operand.asArray().stream().noneMatch(candidate -> equal(actual, candidate));
+                    case "$exists" -> (actual != null) == (operand.isBoolean() ? operand.asBoolean().getValue() : operand.asNumber().intValue() != 0);
+                    case "$regex" -> actual != null && actual.isString() && regex(operand).matcher(actual.asString().getValue()).find();
+                    case "$options" -> true;
+                    default -> throw new IllegalArgumentException("Unsupported operator " + operator.getKey());
+                };
+                if (!matched) return false;
+            }
+            return true;
+        }
+        if (expected.isRegularExpression()) {
+            return actual != null && actual.isString() && regex(expected).matcher(actual.asString().getValue()).find();
+        }
+        return equal(actual, expected);
+    }
+
+    private static Pattern regex(BsonValue value) {
+        if (value.isRegularExpression()) {
+            BsonRegularExpression regex = value.asRegularExpression();
+            return Pattern.compile(regex.getPattern(), regex.getOptions().contains("i") ? Pattern.CASE_INSENSITIVE : 0);
+        }
+        return Pattern.compile(value.asString().getValue());
+    }
+
+    private static boolean equal(BsonValue actual, BsonValue expected) {
+        if (actual == null) {
+            return expected.isNull();
+        }
+        if (actual.isArray() && !expected.isArray()) {
+            return actual.asArray().stream().anyMatch(element -> equal(element, expected));
+        }
+        if (actual.isNumber() && expected.isNumber()) {
+            return actual.asNumber().doubleValue() == expected.asNumber().doubleValue();
+        }
+        return actual.equals(expected);
+    }
+
+    private static int compare(BsonValue a, BsonValue b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a.isNumber() && b.isNumber()) {
+            return Double.compare(a.asNumber().doubleValue(), b.asNumber().doubleValue());
+        }
+        if (a.getBsonType() != b.getBsonType()) {
+            return Integer.compare(a.getBsonType().getValue(), b.getBsonType().getValue());
+        }
+        return switch (a.getBsonType()) {
+            case STRING -> a.asString().getValue().compareTo(b.asString().getValue());
+            case DATE_TIME -> Long.compare(a.asDateTime().getValue(), b.asDateTime().getValue());
+            case OBJECT_ID -> a.asObjectId().getValue().compareTo(b.asObjectId().getValue());
+            case BOOLEAN -> Boolean.compare(a.asBoolean().getValue(), b.asBoolean().getValue());
+            default -> a.toString().compareTo(b.toString());
+        };
+    }
+
+    private static List<BsonDocument> sort(List<BsonDocument> documents, BsonDocument sort) {
+        if (sort == null || sort.isEmpty()) {
+            return documents;
+        }
+        List<BsonDocument> sorted = new ArrayList<>(documents);
+        sorted.sort((left, right) -> {
+            for (Map.Entry<String, BsonValue> key : sort.entrySet()) {
+                int order = compare(path(left, key.getKey()), path(right, key.getKey()));
+                if (order != 0) return key.getValue().asNumber().intValue() < 0 ? -order : order;
+            }
+            return 0;
+        });
+        return sorted;
+    }
+
+    private static List<BsonDocument> slice(List<BsonDocument> documents, int skip, int limit) {
+        int from = Math.min(skip, documents.size());
+        int to = limit == 0 ? documents.size() : Math.min(documents.size(), from + Math.abs(limit));
+        return documents.subList(from, to);
+    }
+
+    private static List<BsonDocument> project(List<BsonDocument> documents, BsonDocument projection) {
+        if (projection == null || projection.isEmpty()) {
+            return documents;
+        }
+        boolean inclusive = projection.entrySet().stream()
+                .anyMatch(field -> !field.getKey().equals("_id") && !isExclusion(field.getValue()));
+        boolean withId = !projection.containsKey("_id") || !isExclusion(projection.get("_id"));
+        List<BsonDocument> projected = new ArrayList<>(documents.size());
+        for (BsonDocument document : documents) {
+            BsonDocument result = new BsonDocument();
+            for (Map.Entry<String, BsonValue> field : document.entrySet()) {
+                boolean listed = projection.containsKey(field.getKey());
+                boolean keep = field.getKey().equals("_id") ? withId : inclusive == listed;
+                if (keep) result.put(field.getKey(), field.getValue());
+            }
+            // Computed fields, e.g. {keys: {$map: ...}}
+            for (Map.Entry<String, BsonValue> field : projection.entrySet()) {
+                BsonValue spec = field.getValue();
+                if (!spec.isNumber() && !spec.isBoolean()) {
+                    result.put(field.getKey(), evaluate(document, spec));
+                }
+            }
+            projected.add(result);
+        }
+        return projected;
+    }
+
+    private static boolean isExclusion(BsonValue spec) {
+        return spec.isNumber() ? spec.asNumber().intValue() == 0 : spec.isBoolean() && !spec.asBoolean().getValue();
+    }
+
+    private static List<BsonDocument> unwind(List<BsonDocument> documents, BsonValue spec) {
+        String field = (spec.isString() ? spec.asString() : spec.asDocument().getString("path")).getValue().substring(1);
+        List<BsonDocument> unwound = new ArrayList<>();
+        for (BsonDocument document : documents) {
+            BsonValue value = path(document, field);
+            if (value == null || !value.isArray()) {
+                if (value != null && !value.isNull()) unwound.add(document);
+                continue;
+            }
+            for (BsonValue element : value.asArray()) {
+                BsonDocument copy = document.clone();
+                copy.put(field, element);
+                unwound.add(copy);
+            }
+        }
+        return unwound;
+    }
+
+    private static void apply(BsonDocument document, BsonDocument update) {
+        if (update.isEmpty() || !update.getFirstKey().startsWith("$")) {
+            BsonValue id = document.get("_id");
+            document.clear();
+            document.put("_id", id);
+            update.forEach(document::put);
+            return;
+        }
+        for (Map.Entry<String, BsonValue> operator : update.entrySet()) {
+            for (Map.Entry<String, BsonValue> field : operator.getValue().asDocument().entrySet()) {
+                switch (operator.getKey()) {
+                    case "$set" -> document.put(field.getKey(), field.getValue());
+                    case "$unset" -> document.remove(field.getKey());
+                    case "$inc" -> {
+                        BsonValue current = document.get(field.getKey());
+                        double base = current != null && current.isNumber() ? current.asNumber().doubleValue() : 0;
+                        document.put(field.getKey(), numeric(base + field.getValue().asNumber().doubleValue()));
+                    }
+                    default -> throw new IllegalArgumentException("Unsupported update operator " + operator.getKey());
+                }
+            }
+        }
+    }
+
+    private static BsonValue numeric(double value) {
+        return value == Math.rint(value) && Math.abs(value) < Integer.MAX_VALUE ? new BsonInt32((int) value) : new BsonDouble(value);
+    }
+
+    private static BsonValue path(BsonDocument document, String path) {
+        BsonValue current = document;
+        for (String part : path.split("\\.")) {
+            if (current == null || !current.isDocument()) return null;
+            current = current.asDocument().get(part);
+        }
+        return current;
+    }
+
+    // --- Handshake and authentication
+
+    private BsonDocument hello(Connection connection, BsonDocument command) {
+        BsonDocument reply = new BsonDocument("helloOk", BsonBoolean.TRUE)
+                .append("ismaster", BsonBoolean.TRUE)
+                .append("isWritablePrimary", BsonBoolean.TRUE)
+                .append("maxBsonObjectSize", new BsonInt32(16 * 1024 * 1024))
+                .append("maxMessageSizeBytes", new BsonInt32(48_000_000))
+                .append("maxWriteBatchSize", new BsonInt32(100_000))
+                .append("localTime", new BsonDateTime(System.currentTimeMillis()))
+                .append("logicalSessionTimeoutMinutes", new BsonInt32(30))
+                .append("connectionId", new BsonInt32(connection.id))
+                .append("minWireVersion", new BsonInt32(0))
+                .append("maxWireVersion", new BsonInt32(21))
+                .append("readOnly", BsonBoolean.FALSE);
+        if (command.containsKey("saslSupportedMechs")) {
+            reply.append("saslSupportedMechs", new BsonArray(List.of(new BsonString("SCRAM-SHA-256"))));
+        }
+        return reply.append("ok", new BsonDouble(1));
+    }
+
+    private BsonDocument saslStart(Connection connection, BsonDocument command) {
+        String mechanism = command.getString("mechanism").getValue();
+        if (!"SCRAM-SHA-256".equals(mechanism)) {
+            return error(334, "MechanismUnavailable", "Unsupported mechanism " + mechanism);
+        }
+        String clientFirst = new String(command.getBinary("payload").getData(), StandardCharsets.UTF_8);
+        connection.clientFirstBare = clientFirst.substring(clientFirst.indexOf(",,") + 2);
+        String clientNonce = attribute(connection.clientFirstBare, 'r');
+        byte[] salt = new byte[16];
+        new SecureRandom().nextBytes(salt);
+        byte[] nonce = new byte[18];
+        new SecureRandom().nextBytes(nonce);
+        connection.salt = salt;
+        connection.serverFirst = "r=" + clientNonce + Base64.getEncoder().encodeToString(nonce)
+                + ",s=" + Base64.getEncoder().encodeToString(salt) + ",i=" + SCRAM_ITERATIONS;
+        return new BsonDocument("conversationId", new BsonInt32(1))
+                .append("done", BsonBoolean.FALSE)
+                .append("payload", new BsonBinary(connection.serverFirst.getBytes(StandardCharsets.UTF_8)))
+                .append("ok", new BsonDouble(1));
+    }
+
+    private BsonDocument saslContinue(Connection connection, BsonDocument command) {
+        byte[] payload = command.getBinary("payload").getData();
+        if (payload.length == 0) {
+            return new BsonDocument("conversationId", new BsonInt32(1)).append("done", BsonBoolean.TRUE)
+                    .append("payload", new BsonBinary(new byte[0])).append("ok", new BsonDouble(1));
+        }
+        String clientFinal = new String(payload, StandardCharsets.UTF_8);
+        String withoutProof = clientFinal.substring(0, clientFinal.lastIndexOf(",p="));
+        String authMessage = connection.clientFirstBare + "," + connection.serverFirst + "," + withoutProof;
+        try {
+            if (!username.equals(attribute(connection.clientFirstBare, 'n'))) {
+                return error(18, "AuthenticationFailed", "Authentication failed.");
+            }
+            byte[] saltedPassword = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                    .generateSecret(new PBEKeySpec(password.toCharArray(), connection.salt, SCRAM_ITERATIONS, 256))
+                    .getEncoded();
+            byte[] clientKey = hmac(saltedPassword, "Client Key");
+            byte[] storedKey = MessageDigest.getInstance("SHA-256").digest(clientKey);
+            byte[] clientSignature = hmac(storedKey, authMessage);
+            byte[] proof = Base64.getDecoder().decode(attribute(clientFinal, 'p'));
+            for (int i = 0; i < proof.length; i++) {
+                proof[i] ^= clientSignature[i];
+            }
+            if (!MessageDigest.isEqual(proof, clientKey)) {
+                return error(18, "AuthenticationFailed", "Authentication failed.");
+            }
+            byte[] serverSignature = hmac(hmac(saltedPassword, "Server Key"), authMessage);
+            String serverFinal = "v=" + Base64.getEncoder().encodeToString(serverSignature);
+            return new BsonDocument("conversationId", new BsonInt32(1))
+                    .append("done", BsonBoolean.TRUE)
+                    .append("payload", new BsonBinary(serverFinal.getBytes(StandardCharsets.UTF_8)))
+                    .append("ok", new BsonDouble(1));
+        } catch (Exception e) {
+            return error(18, "AuthenticationFailed", e.toString());
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String message) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String attribute(String message, char name) {
+        for (String part : message.split(",")) {
+            if (part.length() > 1 && part.charAt(0) == name && part.charAt(1) == '=') {
+                return part.substring(2);
+            }
+        }
+        throw new IllegalArgumentException("Missing SCRAM attribute " + name);
+    }
+
+    // --- Framing
+
+    private static BsonDocument cursor(String collection, List<BsonDocument> documents) {
+        return ok().append("cursor", new BsonDocument("firstBatch", new BsonArray(new ArrayList<>(documents)))
+                .append("id", new BsonInt64(0))
+                .append("ns", new BsonString("loadtest." + collection)));
+    }
+
+    private static BsonDocument ok() {
+        return new BsonDocument("ok", new BsonDouble(1));
+    }
+
+    private static BsonDocument error(int code, String codeName, String message) {
+        return new BsonDocument("ok", new BsonDouble(0))
+                .append("errmsg", new BsonString(message))
+                .append("code", new BsonInt32(code))
+                .append("codeName", new BsonString(codeName));
+    }
+
+    private static String readCString(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.get() != 0) {
+            // scan to the terminator
+        }
+        return new String(buffer.array(), start, buffer.position() - start - 1, StandardCharsets.UTF_8);
+    }
+
+    private static BsonDocument readDocument(ByteBuffer buffer) {
+        int size = buffer.getInt(buffer.position());
+        RawBsonDocument raw = new RawBsonDocument(buffer.array(), buffer.position(), size);
+        buffer.position(buffer.position() + size);
+        return new BsonDocumentCodec().decode(new BsonBinaryReader(raw.getByteBuffer().asNIO()), DecoderContext.builder().build());
+    }
+
+    private static byte[] encode(BsonDocument document) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        new BsonDocumentCodec().encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.toByteArray();
+    }
+
+    private void writeReply(OutputStream out, int responseTo, BsonDocument document) throws IOException {
+        byte[] body = encode(document);
+        ByteBuffer message = ByteBuffer.allocate(16 + 20 + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        message.putInt(16 + 20 + body.length).putInt(requestIds.incrementAndGet()).putInt(responseTo).putInt(OP_REPLY);
+        message.putInt(0).putLong(0).putInt(0).putInt(1);
+        message.put(body);
+        out.write(message.array());
+    }
+
+    private void writeMsg(OutputStream out, int responseTo, BsonDocument document) throws IOException {
+        byte[] body = encode(document);
+        ByteBuffer message = ByteBuffer.allocate(16 + 5 + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        message.putInt(16 + 5 + body.length).putInt(requestIds.incrementAndGet()).putInt(responseTo).putInt(OP_MSG);
+        message.putInt(0).put((byte) 0);
+        message.put(body);
+        out.write(message.array());
+    }
+
+    private static final class Connection {
+        private final int id;
+        private String clientFirstBare;
+        private String serverFirst;
+        private byte[] salt;
+
+        private Connection(int id) {
+            this.id = id;
+        }
+    }
+}
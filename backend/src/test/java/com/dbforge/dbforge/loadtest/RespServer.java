@@ -0,0 +1,460 @@
+package com.dbforge.dbforge.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * In-process server speaking the Redis protocol (RESP2) over an in-memory keyspace, standing in
+ * for a Redis container. Covers the commands the backend sends: connection setup, strings,
+ * lists, sets, hashes, sorted sets, key inspection, MULTI/EXEC and the INFO/CONFIG/SLOWLOG calls
+ * of the schema and report paths. Commands are applied under one lock, like Redis' single thread.
+ */
+final class RespServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "resp-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Object> keyspace = new HashMap<>();
+    private final Map<String, Long> expiries = new HashMap<>();
+
+    RespServer() throws IOException {
+        serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        connections.execute(this::accept);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Runs {@code command} as if a client had sent it, e.g. to seed data.
+     */
+    synchronized Object call(String... command) {
+        return execute(Arrays.asList(command));
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            // Commands between MULTI and EXEC, applied together at EXEC
+            List<List<String>> transaction = null;
+            while (true) {
+                List<String> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                String name = command.isEmpty() ? "" : command.get(0).toUpperCase(Locale.ROOT);
+                Object reply;
+                if (name.equals("MULTI")) {
+                    reply = transaction == null ? Status.OK : new Error("ERR MULTI calls can not be nested");
+                    transaction = new ArrayList<>();
+                } else if (name.equals("DISCARD") || (name.equals("EXEC") && transaction == null)) {
+                    reply = transaction != null ? Status.OK : new Error("ERR " + name + " without MULTI");
+                    transaction = null;
+                } else if (name.equals("EXEC")) {
+                    List<Object> replies = new ArrayList<>(transaction.size());
+                    synchronized (this) {
+                        for (List<String> queued : transaction) {
+                            replies.add(execute(queued));
+                        }
+                    }
+                    reply = replies;
+                    transaction = null;
+                } else if (transaction != null) {
+                    transaction.add(command);
+                    reply = new Status("QUEUED");
+                } else {
+                    synchronized (this) {
+                        reply = execute(command);
+                    }
+                }
+                write(out, reply);
+                // Pipelined commands are answered together
+                if (in.available() == 0) {
+                    out.flush();
+                }
+                if ("QUIT".equalsIgnoreCase(command.get(0))) {
+                    out.flush();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private Object execute(List<String> command) {
+        if (command.isEmpty()) {
+            return new Error("ERR empty command");
+        }
+        String name = command.get(0).toUpperCase(Locale.ROOT);
+        List<String> args = command.subList(1, command.size());
+        try {
+            return switch (name) {
+                case "PING" -> args.isEmpty() ? new Status("PONG") : args.get(0);
+                case "ECHO" -> args.get(0);
+                case "AUTH", "SELECT", "CLIENT", "QUIT", "RESET" -> Status.OK;
+                case "CONFIG" -> List.of();
+                case "SLOWLOG" -> "LEN".equalsIgnoreCase(args.get(0)) ? 0L : List.of();
+                case "LATENCY" -> List.of();
+                case "INFO" -> info();
+                case "DBSIZE" -> (long) liveKeys().size();
+                case "FLUSHDB", "FLUSHALL" -> {
+                    keyspace.clear();
+                    expiries.clear();
+                    yield Status.OK;
+                }
+                case "GET" -> typed(args.get(0), String.class);
+                case "MGET" -> {
+                    List<String> values = new ArrayList<>(args.size());
+                    for (String key : args) {
+                        values.add(exists(key) && keyspace.get(key) instanceof String value ? value : null);
+                    }
+                    yield values;
+                }
+                case "SET" -> {
+                    keyspace.put(args.get(0), args.get(1));
+                    expiries.remove(args.get(0));
+                    for (int i = 2; i + 1 < args.size(); i++) {
+                        String option = args.get(i).toUpperCase(Locale.ROOT);
+                        if (option.equals("EX") || option.equals("PX")) {
+                            long amount = Long.parseLong(args.get(i + 1));
+                            expiries.put(args.get(0), System.currentTimeMillis() + (option.equals("EX") ? amount * 1000 : amount));
+                        }
+                    }
+                    yield Status.OK;
+                }
+                case "DEL", "UNLINK" -> {
+                    long deleted = 0;
+                    for (String key : args) {
+                        if (exists(key)) {
+                            keyspace.remove(key);
+                            expiries.remove(key);
+                            deleted++;
+                        }
+                    }
+                    yield deleted;
+                }
+                case "EXISTS" -> args.stream().filter(this::exists).count();
+                case "KEYS" -> {
+                    Pattern pattern = glob(args.get(0));
+                    yield liveKeys().stream().filter(key -> pattern.matcher(key).matches()).toList();
+                }
+                case "SCAN" -> {
+                    String match = "*";
+                    for (int i = 1; i + 1 < args.size(); i++) {
+                        if ("MATCH".equalsIgnoreCase(args.get(i))) {
+                            match = args.get(i + 1);
+                        }
+                    }
+                    Pattern pattern = glob(match);
+                    yield List.of("0", liveKeys().stream().filter(key -> pattern.matcher(key).matches()).toList());
+                }
+                case "TYPE" -> new Status(typeOf(args.get(0)));
+                case "TTL", "PTTL" -> {
+                    if (!exists(args.get(0))) {
+                        yield -2L;
+                    }
+                    Long expiry = expiries.get(args.get(0));
+                    if (expiry == null) {
+                        yield -1L;
+                    }
+                    long remaining = expiry - System.currentTimeMillis();
+                    yield name.equals("TTL") ? remaining / 1000 : remaining;
+                }
+                case "EXPIRE" -> {
+                    if (!exists(args.get(0))) {
+                        yield 0L;
+                    }
+                    expiries.put(args.get(0), System.currentTimeMillis() + Long.parseLong(args.get(1)) * 1000);
+                    yield 1L;
+                }
+                case "INCR", "DECR", "INCRBY", "DECRBY" -> {
+                    String current = typed(args.get(0), String.class);
+                    long delta = name.endsWith("BY") ? Long.parseLong(args.get(1)) : 1;
+                    long value = (current == null ? 0 : Long.parseLong(current)) + (name.startsWith("INCR") ? delta : -delta);
+                    keyspace.put(args.get(0), Long.toString(value));
+                    yield value;
+                }
+                case "LPUSH", "RPUSH" -> {
+                    Deque<String> list = container(args.get(0), Deque.class, ArrayDeque::new);
+                    for (String value : args.subList(1, args.size())) {
+                        if (name.equals("LPUSH")) list.addFirst(value); else list.addLast(value);
+                    }
+                    yield (long) list.size();
+                }
+                case "LPOP", "RPOP" -> {
+                    Deque<String> list = typed(args.get(0), Deque.class);
+                    String value = list == null ? null : name.equals("LPOP") ? list.pollFirst() : list.pollLast();
+                    if (list != null && list.isEmpty()) keyspace.remove(args.get(0));
+                    yield value;
+                }
+                case "LRANGE" -> {
+                    Deque<String> list = typed(args.get(0), Deque.class);
+                    yield list == null ? List.of() : range(new ArrayList<>(list), Long.parseLong(args.get(1)), Long.parseLong(args.get(2)));
+                }
+                case "LLEN" -> {
+                    Deque<String> list = typed(args.get(0), Deque.class);
+                    yield list == null ? 0L : (long) list.size();
+                }
+                case "SADD" -> {
+                    Set<String> set = container(args.get(0), Set.class, LinkedHashSet::new);
+                    yield args.subList(1, args.size()).stream().filter(set::add).count();
+                }
+                case "SMEMBERS" -> {
+                    Set<String> set = typed(args.get(0), Set.class);
+                    yield set == null ? List.of() : new ArrayList<>(set);
+                }
+                case "SCARD" -> {
+                    Set<String> set = typed(args.get(0), Set.class);
+                    yield set == null ? 0L : (long) set.size();
+                }
+                case "HSET" -> {
+                    Map<String, String> hash = container(args.get(0), Map.class, LinkedHashMap::new);
+                    long added = 0;
+                    for (int i = 1; i + 1 < args.size(); i += 2) {
+                        if (hash.put(args.get(i), args.get(i + 1)) == null) added++;
+                    }
+                    yield added;
+                }
+                case "HGET" -> {
+                    Map<String, String> hash = typed(args.get(0), Map.class);
+                    yield hash == null ? null : hash.get(args.get(1));
+                }
+                case "HGETALL" -> {
+                    Map<String, String> hash = typed(args.get(0), Map.class);
+                    List<String> flat = new ArrayList<>();
+                    if (hash != null) hash.forEach((field, value) -> { flat.add(field); flat.add(value); });
+                    yield flat;
+                }
+                case "HLEN" -> {
+                    Map<String, String> hash = typed(args.get(0), Map.class);
+                    yield hash == null ? 0L : (long) hash.size();
+                }
+                case "ZADD" -> {
+                    TreeMap<String, Double> zset = container(args.get(0), TreeMap.class, TreeMap::new);
+                    long added = 0;
+                    for (int i = 1; i + 1 < args.size(); i += 2) {
+                        if (zset.put(args.get(i + 1), Double.parseDouble(args.get(i))) == null) added++;
+                    }
+                    yield added;
+                }
+                case "ZRANGE" -> {
+                    TreeMap<String, Double> zset = typed(args.get(0), TreeMap.class);
+                    if (zset == null) {
+                        yield List.of();
+                    }
+                    List<Map.Entry<String, Double>> sorted = new ArrayList<>(zset.entrySet());
+                    sorted.sort(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+                    boolean withScores = args.size() > 3 && "WITHSCORES".equalsIgnoreCase(args.get(3));
+                    List<String> reply = new ArrayList<>();
+                    for (Map.Entry<String, Double> entry : range(sorted, Long.parseLong(args.get(1)), Long.parseLong(args.get(2)))) {
+                        reply.add(entry.getKey());
+                        if (withScores) reply.add(formatScore(entry.getValue()));
+                    }
+                    yield reply;
+                }
+                case "ZCARD" -> {
+                    TreeMap<String, Double> zset = typed(args.get(0), TreeMap.class);
+                    yield zset == null ? 0L : (long) zset.size();
+                }
+                case "MEMORY" -> 64L;
+                default -> new Error("ERR unknown command '" + command.get(0) + "'");
+            };
+        } catch (WrongType e) {
+            return new Error("WRONGTYPE Operation against a key holding the wrong kind of value");
+        } catch (IndexOutOfBoundsException e) {
+            return new Error("ERR wrong number of arguments for '" + command.get(0) + "' command");
+        } catch (NumberFormatException e) {
+            return new Error("ERR value is not an integer or out of range");
+        }
+    }
+
+    private String info() {
+        return "# Server\r\nredis_version:7.4.0\r\nredis_mode:standalone\r\n"
+                + "# Clients\r\nconnected_clients:1\r\n"
+                + "# Memory\r\nused_memory:1048576\r\nused_memory_human:1.00M\r\nmaxmemory:0\r\n"
+                + "# Persistence\r\nrdb_bgsave_in_progress:0\r\nrdb_last_bgsave_status:ok\r\n"
+                + "# Keyspace\r\ndb0:keys=" + liveKeys().size() + ",expires=" + expiries.size() + ",avg_ttl=0\r\n";
+    }
+
+    private boolean exists(String key) {
+        Long expiry = expiries.get(key);
+        if (expiry != null && expiry <= System.currentTimeMillis()) {
+            keyspace.remove(key);
+            expiries.remove(key);
+        }
+        return keyspace.containsKey(key);
+    }
+
+    private List<String> liveKeys() {
+        return new ArrayList<>(keyspace.keySet()).stream().filter(this::exists).toList();
+    }
+
+    private String typeOf(String key) {
+        if (!exists(key)) return "none";
+        Object value = keyspace.get(key);
+        if (value instanceof String) return "string";
+        if (value instanceof Deque) return "list";
+        if (value instanceof TreeMap) return "zset";
+        if (value instanceof Set) return "set";
+        return "hash";
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T typed(String key, Class<? super T> type) {
+        if (!exists(key)) {
+            return null;
+        }
+        Object value = keyspace.get(key);
+        // TreeMap is both a Map and the zset representation
+        if (!type.isInstance(value) || (type == Map.class && value instanceof TreeMap)) {
+            throw new WrongType();
+        }
+        return (T) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T container(String key, Class<? super T> type, java.util.function.Supplier<T> create) {
+        T value = typed(key, type);
+        if (value == null) {
+            value = create.get();
+            keyspace.put(key, value);
+        }
+        return value;
+    }
+
+    private static <T> List<T> range(List<T> values, long start, long stop) {
+        int size = values.size();
+        int from = (int) Math.max(0, start < 0 ? size + start : start);
+        int to = (int) Math.min(size - 1, stop < 0 ? size + stop : stop);
+        return from > to ? List.of() : values.subList(from, to + 1);
+    }
+
+    private static String formatScore(double score) {
+        return score == Math.rint(score) && !Double.isInfinite(score) ? Long.toString((long) score) : Double.toString(score);
+    }
+
+    private static Pattern glob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                case '[', ']' -> regex.append(c);
+                case '\\' -> {
+                    if (i + 1 < glob.length()) regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                }
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * A command as an array of bulk strings, or an inline command line.
+     */
+    private static List<String> readCommand(InputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        if (first != '*') {
+            String line = (char) first + readLine(in);
+            return new ArrayList<>(Arrays.asList(line.trim().split("\\s+")));
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Expected a bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] bytes = in.readNBytes(length);
+            in.skipNBytes(2);
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c == -1) {
+                throw new IOException("Connection closed mid-command");
+            }
+            line.append((char) c);
+        }
+        in.read(); // '\n'
+        return line.toString();
+    }
+
+    private static void write(OutputStream out, Object reply) throws IOException {
+        if (reply == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof Status status) {
+            out.write(("+" + status.text() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else if (reply instanceof Error error) {
+            out.write(("-" + error.text() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else if (reply instanceof Long number) {
+            out.write((":" + number + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(bytes);
+            out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof List<?> list) {
+            out.write(("*" + list.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (Object element : list) {
+                write(out, element);
+            }
+        } else {
+            throw new IllegalStateException("Unsupported reply " + reply.getClass());
+        }
+    }
+
+    private record Status(String text) {
+        static final Status OK = new Status("OK");
+    }
+
+    private record Error(String text) {
+    }
+
+    private static final class WrongType extends RuntimeException {
+    }
+}
@@ -0,0 +1,152 @@
+package com.dbforge.dbforge.loadtest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC driver answering {@code jdbc:postgresql://} and {@code jdbc:mysql://} URLs of stand-in
+ * ports with an H2 in-memory database in the matching compatibility mode. H2's own PostgreSQL
+ * wire server reports version 8.2, which the current PostgreSQL driver no longer talks to, and
+ * H2 has no MySQL wire server, so SQL engines are stood in for at the driver instead.
+ * Registered ahead of the real drivers; URLs of other ports still reach those.
+ * <p>
+ * The schema browser's catalog queries (pg_catalog, MySQL's information_schema) are answered
+ * from H2's INFORMATION_SCHEMA with the same result columns and parameters.
+ */
+final class StandInDriver implements Driver {
+
+    private static final Pattern URL = Pattern.compile("jdbc:(postgresql|mysql)://[^:/]+:(\\d+)/.*");
+
+    // MySQL catalog queries bind the database name; H2 keeps everything in "public"
+    private static final String PUBLIC = "'public'";
+    private static final String BOUND_PUBLIC = "CASE WHEN CAST(? AS VARCHAR) IS NULL THEN NULL ELSE 'public' END";
+
+    private static final String TABLES =
+            "SELECT TABLE_NAME, %s FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = %s " +
+            "AND TABLE_TYPE IN ('BASE TABLE', 'VIEW') ORDER BY TABLE_NAME";
+    private static final String COLUMNS =
+            "SELECT TABLE_NAME, COLUMN_NAME, DATA_TYPE, IS_NULLABLE, COLUMN_DEFAULT, IS_IDENTITY = 'YES', " +
+            "COALESCE(CHARACTER_MAXIMUM_LENGTH, NUMERIC_PRECISION, DATETIME_PRECISION) " +
+            "FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = %s ORDER BY TABLE_NAME, ORDINAL_POSITION";
+    private static final String INDEXES =
+            "SELECT i.TABLE_NAME, i.INDEX_NAME, i.INDEX_TYPE_NAME = 'PRIMARY KEY', " +
+            "i.INDEX_TYPE_NAME IN ('PRIMARY KEY', 'UNIQUE INDEX'), c.COLUMN_NAME " +
+            "FROM INFORMATION_SCHEMA.INDEXES i JOIN INFORMATION_SCHEMA.INDEX_COLUMNS c " +
+            "ON c.INDEX_SCHEMA = i.INDEX_SCHEMA AND c.INDEX_NAME = i.INDEX_NAME " +
+            "WHERE i.TABLE_SCHEMA = %s ORDER BY i.TABLE_NAME, i.INDEX_NAME, c.ORDINAL_POSITION";
+    private static final String ROW_ESTIMATES =
+            "SELECT TABLE_NAME, ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES " +
+            "WHERE TABLE_SCHEMA = %s AND TABLE_TYPE = 'BASE TABLE'";
+
+    // Keyed by a fragment of each SchemaIntrospectionService catalog query
+    private static final Map<String, String> CATALOG_QUERIES = Map.of(
+            "c.relkind IN ('r', 'p', 'v')", TABLES.formatted("CASE TABLE_TYPE WHEN 'VIEW' THEN 'v' ELSE 'r' END", PUBLIC),
+            "FROM information_schema.columns WHERE table_schema = 'public'", COLUMNS.formatted(PUBLIC),
+            "FROM pg_index ix", INDEXES.formatted(PUBLIC),
+            "pg_stat_user_tables", ROW_ESTIMATES.formatted(PUBLIC),
+            "SELECT TABLE_NAME, TABLE_TYPE FROM information_schema.TABLES", TABLES.formatted("TABLE_TYPE", BOUND_PUBLIC),
+            "FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = ?", COLUMNS.formatted(BOUND_PUBLIC),
+            "FROM information_schema.STATISTICS", INDEXES.formatted(BOUND_PUBLIC),
+            "TABLE_ROWS FROM information_schema.TABLES", ROW_ESTIMATES.formatted(BOUND_PUBLIC));
+
+    private final Map<Integer, String> databases = new ConcurrentHashMap<>();
+
+    static StandInDriver register() throws SQLException {
+        StandInDriver driver = new StandInDriver();
+        List<Driver> existing = new ArrayList<>(Collections.list(DriverManager.getDrivers()));
+        for (Driver other : existing) {
+            DriverManager.deregisterDriver(other);
+        }
+        DriverManager.registerDriver(driver);
+        for (Driver other : existing) {
+            DriverManager.registerDriver(other);
+        }
+        return driver;
+    }
+
+    /**
+     * Serves {@code port} from the H2 database at {@code h2Url}.
+     */
+    void route(int port, String h2Url) {
+        databases.put(port, h2Url);
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) throws SQLException {
+        String target = target(url);
+        if (target == null) {
+            return null;
+        }
+        Connection connection = DriverManager.getConnection(target, info);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                        args[0] = translate(sql);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private static String translate(String sql) {
+        for (Map.Entry<String, String> query : CATALOG_QUERIES.entrySet()) {
+            if (sql.contains(query.getKey())) {
+                return query.getValue();
+            }
+        }
+        return sql;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return target(url) != null;
+    }
+
+    private String target(String url) {
+        Matcher matcher = url != null ? URL.matcher(url) : null;
+        return matcher != null && matcher.matches() ? databases.get(Integer.parseInt(matcher.group(2))) : null;
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+}
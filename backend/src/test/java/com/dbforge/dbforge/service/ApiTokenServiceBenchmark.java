@@ -0,0 +1,98 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.model.ApiToken;
+import com.dbforge.dbforge.repository.ApiTokenRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.lang.reflect.Proxy;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ApiTokenService#validateToken} against a growing number of active tokens, with the
+ * BCrypt encoder the application uses. The repository is an in-memory stub, so the numbers are
+ * hashing cost only; {@code lastToken} is the worst case for a valid token, {@code unknownToken}
+ * the cost of every rejected one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ApiTokenServiceBenchmark {
+
+    @Param({"1", "4", "16"})
+    private int activeTokens;
+
+    private ApiTokenService service;
+    private String firstToken;
+    private String lastToken;
+    private String unknownToken;
+
+    @Setup
+    public void setUp() {
+        PasswordEncoder encoder = new BCryptPasswordEncoder();
+        List<ApiToken> tokens = new ArrayList<>();
+        List<String> raw = new ArrayList<>();
+        for (int i = 0; i < activeTokens; i++) {
+            String token = randomToken();
+            raw.add(token);
+            tokens.add(ApiToken.builder()
+                    .id((long) i)
+                    .userId((long) i)
+                    .tokenName("token-" + i)
+                    .tokenHash(encoder.encode(token))
+                    .isActive(true)
+                    .build());
+        }
+        service = new ApiTokenService(repository(tokens), encoder);
+        firstToken = raw.get(0);
+        lastToken = raw.get(raw.size() - 1);
+        unknownToken = randomToken();
+    }
+
+    @Benchmark
+    public Optional<Long> firstToken() {
+        return service.validateToken(firstToken);
+    }
+
+    @Benchmark
+    public Optional<Long> lastToken() {
+        return service.validateToken(lastToken);
+    }
+
+    @Benchmark
+    public Optional<Long> unknownToken() {
+        return service.validateToken(unknownToken);
+    }
+
+    private static String randomToken() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return "dfg_live_" + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Only the calls validateToken makes are implemented.
+     */
+    private static ApiTokenRepository repository(List<ApiToken> tokens) {
+        return (ApiTokenRepository) Proxy.newProxyInstance(
+                ApiTokenRepository.class.getClassLoader(),
+                new Class<?>[]{ApiTokenRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByIsActiveTrue" -> tokens;
+                    case "save" -> args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "ApiTokenRepository stub";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
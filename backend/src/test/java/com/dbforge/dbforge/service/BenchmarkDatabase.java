@@ -0,0 +1,61 @@
+package com.dbforge.dbforge.service;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+/**
+ * In-memory H2 table standing in for a managed instance in the JDBC benchmarks. Columns cover
+ * the types the encoders special-case: integers, decimals, floats, text needing escapes,
+ * booleans, timestamps, binary and NULLs.
+ */
+final class BenchmarkDatabase {
+
+    static final String TABLE = "orders";
+    static final String SELECT_ALL = "SELECT * FROM " + TABLE;
+
+    private BenchmarkDatabase() {
+    }
+
+    static Connection open(int rows) throws SQLException {
+        Connection conn = DriverManager.getConnection("jdbc:h2:mem:bench" + rows + ";DB_CLOSE_DELAY=-1");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + TABLE);
+            stmt.execute("CREATE TABLE " + TABLE + " ("
+                    + "id BIGINT PRIMARY KEY, "
+                    + "customer VARCHAR(100) NOT NULL, "
+                    + "email VARCHAR(255), "
+                    + "note VARCHAR(500), "
+                    + "amount DECIMAL(12, 2), "
+                    + "weight DOUBLE, "
+                    + "paid BOOLEAN, "
+                    + "created_at TIMESTAMP, "
+                    + "checksum VARBINARY(16))");
+        }
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO " + TABLE + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            long start = Timestamp.valueOf("2025-01-01 00:00:00").getTime();
+            for (int i = 0; i < rows; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "customer_" + i);
+                insert.setString(3, i % 10 == 0 ? null : "user" + i + "@example.com");
+                insert.setString(4, i % 3 == 0 ? "says \"hi\", it's\nmulti-line" : "plain note " + i);
+                insert.setBigDecimal(5, BigDecimal.valueOf(i * 137L % 100_000, 2));
+                insert.setDouble(6, i * 0.25);
+                insert.setBoolean(7, i % 2 == 0);
+                insert.setTimestamp(8, new Timestamp(start + i * 60_000L));
+                insert.setBytes(9, new byte[]{(byte) i, (byte) (i >> 8), 0x7f, 0x00});
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        return conn;
+    }
+}
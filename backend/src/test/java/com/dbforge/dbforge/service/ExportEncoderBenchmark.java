@@ -0,0 +1,127 @@
+package com.dbforge.dbforge.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The per-table encoders of {@link ExportService} writing to a sink that only counts characters,
+ * so the numbers show encoding cost rather than network or compression.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ExportEncoderBenchmark {
+
+    @Param({"10000"})
+    private int rows;
+
+    private Connection conn;
+    private ExportService service;
+
+    @Setup
+    public void setUp() throws SQLException {
+        conn = BenchmarkDatabase.open(rows);
+        service = new ExportService(null, null, null, null, null);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    public long csv() throws Exception {
+        CountingWriter out = new CountingWriter();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(BenchmarkDatabase.SELECT_ALL)) {
+            service.resultSetToCsv(rs, rs.getMetaData(), true, new LongAdder(), out);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long json() throws Exception {
+        CountingWriter out = new CountingWriter();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(BenchmarkDatabase.SELECT_ALL)) {
+            service.resultSetToJson(rs, rs.getMetaData(), new LongAdder(), out);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long ndjson() throws Exception {
+        CountingWriter out = new CountingWriter();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(BenchmarkDatabase.SELECT_ALL)) {
+            service.resultSetToNdjson(rs, rs.getMetaData(), new LongAdder(), out);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long mysqlInserts() throws Exception {
+        return sql("mysql", false);
+    }
+
+    @Benchmark
+    public long postgresInserts() throws Exception {
+        return sql("postgres", false);
+    }
+
+    @Benchmark
+    public long postgresCopy() throws Exception {
+        return sql("postgres", true);
+    }
+
+    private long sql(String dialect, boolean copy) throws Exception {
+        ExportService.ExportContext context = new ExportService.ExportContext("sql", ExportService.Compression.NONE,
+                false, true, 0, dialect, 500, copy, new LongAdder());
+        CountingWriter out = new CountingWriter();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(BenchmarkDatabase.SELECT_ALL)) {
+            service.resultSetToSql(BenchmarkDatabase.TABLE, rs, rs.getMetaData(), context, out);
+        }
+        return out.count;
+    }
+
+    private static final class CountingWriter extends Writer {
+
+        private long count;
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String value, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public Writer append(CharSequence value) {
+            count += value == null ? 4 : value.length();
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.dto.QueryRequest;
+import com.dbforge.dbforge.dto.QueryResult;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import com.dbforge.dbforge.model.DatabaseType;
+import com.dbforge.dbforge.repository.DatabaseInstanceRepository;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class QueryExecutionServiceTest {
+
+    private final ConnectionPoolService connectionPoolService = mock(ConnectionPoolService.class);
+    private final QueryTelemetryService queryTelemetryService = mock(QueryTelemetryService.class);
+    private final Statement statement = mock(Statement.class);
+    private final DatabaseInstance instance = new DatabaseInstance();
+    private QueryExecutionService service;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DatabaseType type = new DatabaseType();
+        type.setName("postgresql");
+        instance.setId(1L);
+        instance.setDatabaseType(type);
+        instance.setStatus(DatabaseInstance.InstanceStatus.RUNNING);
+        DatabaseInstanceRepository repository = mock(DatabaseInstanceRepository.class);
+        when(repository.findById(1L)).thenReturn(Optional.of(instance));
+
+        Connection session = mock(Connection.class);
+        when(session.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenAnswer(invocation -> emptyResultSet());
+        when(connectionPoolService.getSessionConnection(instance)).thenReturn(session);
+
+        service = new QueryExecutionService(repository, mock(AuditLogService.class), connectionPoolService,
+                mock(SchemaIntrospectionService.class), queryTelemetryService, mock(MetricsService.class),
+                new TracingService(Tracer.NOOP));
+    }
+
+    @Test
+    void capturesPlanForSingleSelect() throws SQLException {
+        Supplier<String> plan = planFor("SELECT * FROM t WHERE name = 'a;b';");
+
+        assertThat(plan).isNotNull();
+        Connection planConnection = mock(Connection.class);
+        Statement planStatement = mock(Statement.class);
+        when(planConnection.createStatement()).thenReturn(planStatement);
+        when(planStatement.executeQuery(anyString())).thenAnswer(invocation -> emptyResultSet());
+        when(connectionPoolService.getConnection(instance)).thenReturn(planConnection);
+
+        plan.get();
+        verify(planStatement).executeQuery("EXPLAIN SELECT * FROM t WHERE name = 'a;b'");
+    }
+
+    @Test
+    void multiStatementSlowQueryRecordsNoPlanAndRunsOnce() throws SQLException {
+        Supplier<String> plan = planFor("SELECT pg_sleep(2); DROP TABLE t");
+
+        assertThat(plan).isNull();
+        verify(statement, times(1)).executeQuery(anyString());
+        verify(connectionPoolService, never()).getConnection(any());
+    }
+
+    @Test
+    void findsStatementsAfterTopLevelSemicolon() {
+        assertThat(QueryExecutionService.isSingleStatement("SELECT 1")).isTrue();
+        assertThat(QueryExecutionService.isSingleStatement("SELECT 1 ;  \n-- trailing\n/* note */")).isTrue();
+        assertThat(QueryExecutionService.isSingleStatement("SELECT ';', \"a;b\", `c;d` FROM t -- x; y")).isTrue();
+        assertThat(QueryExecutionService.isSingleStatement("SELECT 'it''s; fine' /* ; */ FROM t")).isTrue();
+        assertThat(QueryExecutionService.isSingleStatement("SELECT price$1, $tag$ text $tag$ FROM t")).isTrue();
+
+        assertThat(QueryExecutionService.isSingleStatement("SELECT 1; SELECT 2")).isFalse();
+        assertThat(QueryExecutionService.isSingleStatement("SELECT 1;/**/UPDATE t SET a = 1")).isFalse();
+        assertThat(QueryExecutionService.isSingleStatement("SELECT 1 -- c\n; DELETE FROM t")).isFalse();
+        assertThat(QueryExecutionService.isSingleStatement("SELECT 1;;")).isFalse();
+        // Ends the literal where PostgreSQL does, or where MySQL does
+        assertThat(QueryExecutionService.isSingleStatement("SELECT 'a\\'; DROP TABLE t; --'")).isFalse();
+        assertThat(QueryExecutionService.isSingleStatement("SELECT $a$; DROP TABLE t; SELECT $a$")).isFalse();
+    }
+
+    private Supplier<String> planFor(String query) {
+        QueryRequest request = new QueryRequest();
+        request.setQuery(query);
+        QueryResult result = service.executeQuery(1L, request);
+        assertThat(result.getSuccess()).isTrue();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Supplier<String>> plan = ArgumentCaptor.forClass(Supplier.class);
+        verify(queryTelemetryService).record(eq(instance), eq(query), anyLong(), eq(result), plan.capture());
+        return plan.getValue();
+    }
+
+    private static ResultSet emptyResultSet() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getMetaData()).thenReturn(mock(ResultSetMetaData.class));
+        return rs;
+    }
+}
@@ -0,0 +1,53 @@
+package com.dbforge.dbforge.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request parsing done before a statement reaches the database: SQL statement
+ * classification and Redis command tokenizing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class QueryParsingBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Sql {
+
+        @Param({
+                "SELECT id, name FROM users WHERE id = 42",
+                "-- monthly report\nSELECT c.name, SUM(o.amount) FROM customers c JOIN orders o ON o.customer_id = c.id GROUP BY c.name",
+                "INSERT INTO events (type, payload) VALUES ('click', '{\"x\": 1}')"
+        })
+        private String statement;
+
+        private final QueryExecutionService service = new QueryExecutionService(null, null, null, null, null, null, null);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Redis {
+
+        @Param({
+                "GET session:42",
+                "HSET user:42 name \"Ada Lovelace\" email ada@example.com city London",
+                "LPUSH queue:jobs job-1 job-2 job-3 job-4 job-5 job-6 job-7 job-8"
+        })
+        private String command;
+
+        private final RedisQueryService service = new RedisQueryService(null, null, null, null, null);
+    }
+
+    @Benchmark
+    public String determineQueryType(Sql sql) {
+        return sql.service.determineQueryType(sql.statement);
+    }
+
+    @Benchmark
+    public String[] parseRedisCommand(Redis redis) {
+        return redis.service.parseCommand(redis.command);
+    }
+}
@@ -0,0 +1,216 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.dto.QueryRequest;
+import com.dbforge.dbforge.dto.QueryResult;
+import com.dbforge.dbforge.model.DatabaseInstance;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs commands against a mocked {@link Jedis}: replies of pass-through commands and the
+ * allowed/denied command lists, for single commands and for pipelined scripts.
+ */
+class RedisQueryServiceTest {
+
+    private final Jedis jedis = mock(Jedis.class);
+    private final DatabaseInstance instance = new DatabaseInstance();
+    private RedisQueryService service;
+
+    @BeforeEach
+    void setUp() {
+        JedisPool pool = mock(JedisPool.class);
+        when(pool.getResource()).thenReturn(jedis);
+        ConnectionPoolService connectionPoolService = mock(ConnectionPoolService.class);
+        when(connectionPoolService.getJedisPool(instance)).thenReturn(pool);
+
+        service = new RedisQueryService(mock(AuditLogService.class), connectionPoolService,
+                mock(QueryTelemetryService.class), mock(MetricsService.class), new TracingService(Tracer.NOOP));
+        ReflectionTestUtils.setField(service, "allowedCommands", Set.of());
+        ReflectionTestUtils.setField(service, "deniedCommands", Set.of("CONFIG", "FLUSHALL", "MULTI", "EXEC"));
+
+        instance.setId(1L);
+        instance.setStatus(DatabaseInstance.InstanceStatus.RUNNING);
+    }
+
+    @Test
+    void mapsNilAndIntegerReplies() {
+        reply(null);
+        QueryResult nil = run("OBJECT ENCODING missing");
+        assertThat(nil.getSuccess()).isTrue();
+        assertThat(nil.getQueryType()).isEqualTo("OBJECT");
+        assertThat(nil.getColumns()).containsExactly("index", "type", "value");
+        assertThat(rows(nil)).containsExactly(row(0, "nil", null));
+
+        reply(7L);
+        assertThat(rows(run("STRLEN greeting"))).containsExactly(row(0, "integer", 7L));
+    }
+
+    @Test
+    void mapsArraysToOneRowPerElement() {
+        reply(Arrays.asList(bytes("a"), null, 3L));
+        QueryResult result = run("MGET k1 missing k3");
+
+        assertThat(result.getRowCount()).isEqualTo(3);
+        assertThat(rows(result)).containsExactly(
+                row(0, "string", "a"), row(1, "nil", null), row(2, "integer", 3L));
+    }
+
+    @Test
+    void decodesNestedArrays() {
+        reply(List.of(bytes("17"), Arrays.asList(bytes("user:1"), bytes("user:2"), null, List.of(1L, bytes("é")))));
+        QueryResult result = run("SCAN 0 MATCH user:* COUNT 100");
+
+        assertThat(rows(result)).containsExactly(
+                row(0, "string", "17"),
+                row(1, "array", Arrays.asList("user:1", "user:2", null, List.of(1L, "é"))));
+    }
+
+    @Test
+    void sendsCommandAndArgumentsAsTyped() {
+        reply(bytes("OK"));
+        QueryResult result = run("object   freq \"key with spaces\"");
+
+        ArgumentCaptor<ProtocolCommand> command = ArgumentCaptor.forClass(ProtocolCommand.class);
+        ArgumentCaptor<String[]> args = ArgumentCaptor.forClass(String[].class);
+        verify(jedis).sendCommand(command.capture(), args.capture());
+        assertThat(SafeEncoder.encode(command.getValue().getRaw())).isEqualTo("OBJECT");
+        assertThat(args.getValue()).containsExactly("freq", "key with spaces");
+        assertThat(rows(result)).containsExactly(row(0, "string", "OK"));
+    }
+
+    @Test
+    void reportsErrorReplies() {
+        when(jedis.sendCommand(any(ProtocolCommand.class), any(String[].class)))
+                .thenThrow(new JedisDataException("ERR unknown command 'NOPE'"));
+        QueryResult result = run("NOPE arg");
+
+        assertThat(result.getSuccess()).isFalse();
+        assertThat(result.getError()).isEqualTo("ERR unknown command 'NOPE'");
+    }
+
+    @Test
+    void rejectsDeniedSingleCommandWithoutSendingIt() {
+        QueryResult result = run("config set maxmemory 1");
+
+        assertThat(result.getSuccess()).isFalse();
+        assertThat(result.getError()).isEqualTo("Redis command not allowed: CONFIG");
+        assertNothingSent();
+    }
+
+    @Test
+    void rejectsSingleCommandOutsideTheAllowList() {
+        ReflectionTestUtils.setField(service, "allowedCommands", Set.of("get", "STRLEN"));
+
+        QueryResult scan = run("SCAN 0");
+        assertThat(scan.getSuccess()).isFalse();
+        assertThat(scan.getError()).isEqualTo("Redis command not allowed: SCAN");
+        assertNothingSent();
+
+        reply(2L);
+        assertThat(run("strlen k").getSuccess()).isTrue();
+    }
+
+    @Test
+    void denyListWinsOverAllowList() {
+        ReflectionTestUtils.setField(service, "allowedCommands", Set.of("CONFIG"));
+
+        assertThat(run("CONFIG GET *").getError()).isEqualTo("Redis command not allowed: CONFIG");
+        assertNothingSent();
+    }
+
+    @Test
+    void rejectsPipelineWithDeniedCommandBeforeSendingAny() {
+        QueryResult result = run("SET a 1\nGET a\nflushall");
+
+        assertThat(result.getSuccess()).isFalse();
+        assertThat(result.getError()).isEqualTo("Line 3: Redis command not allowed: FLUSHALL");
+        assertNothingSent();
+    }
+
+    @Test
+    void rejectsPipelineCommandOutsideTheAllowList() {
+        ReflectionTestUtils.setField(service, "allowedCommands", Set.of("GET", "SET"));
+
+        QueryResult result = run("# warm up\nSET a 1\nSCAN 0\nGET a");
+
+        assertThat(result.getError()).isEqualTo("Line 2: Redis command not allowed: SCAN");
+        assertNothingSent();
+    }
+
+    @Test
+    void rejectsTransactionWithDeniedCommandBeforeSendingAny() {
+        QueryResult result = run("MULTI\nSET a 1\nCONFIG RESETSTAT\nEXEC");
+
+        assertThat(result.getSuccess()).isFalse();
+        assertThat(result.getError()).isEqualTo("Line 2: Redis command not allowed: CONFIG");
+        assertNothingSent();
+    }
+
+    @Test
+    void checksEachCommandWhenPipeliningIsOff() {
+        reply(1L);
+        QueryRequest request = request("STRLEN a\nFLUSHALL");
+        request.setPipeline(false);
+        QueryResult result = service.executeRedisCommand(instance, request);
+
+        assertThat(result.getSuccess()).isFalse();
+        assertThat(result.getError()).endsWith("1 succeeded, 1 failed. Last error: Redis command not allowed: FLUSHALL");
+        verify(jedis, times(1)).sendCommand(any(ProtocolCommand.class), any(String[].class));
+        verify(jedis, never()).pipelined();
+    }
+
+    private QueryResult run(String query) {
+        return service.executeRedisCommand(instance, request(query));
+    }
+
+    private static QueryRequest request(String query) {
+        QueryRequest request = new QueryRequest();
+        request.setQuery(query);
+        return request;
+    }
+
+    private void reply(Object reply) {
+        when(jedis.sendCommand(any(ProtocolCommand.class), any(String[].class))).thenReturn(reply);
+    }
+
+    // The connection is borrowed and given back, and nothing else
+    private void assertNothingSent() {
+        verify(jedis).close();
+        verifyNoMoreInteractions(jedis);
+    }
+
+    private static List<Map<String, ?>> rows(QueryResult result) {
+        return List.copyOf(result.getRows());
+    }
+
+    private static Map<String, Object> row(int index, String type, Object value) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("index", index);
+        row.put("type", type);
+        row.put("value", value);
+        return row;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
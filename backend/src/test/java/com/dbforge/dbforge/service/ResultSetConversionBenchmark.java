@@ -0,0 +1,49 @@
+package com.dbforge.dbforge.service;
+
+import com.dbforge.dbforge.dto.QueryRequest;
+import com.dbforge.dbforge.dto.QueryResult;
+import io.micrometer.tracing.Tracer;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a SELECT into a {@link QueryResult}, as the query API does. Includes H2 executing the
+ * scan, which is the same for every variant of the conversion code.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ResultSetConversionBenchmark {
+
+    @Param({"100", "10000"})
+    private int rows;
+
+    private Connection conn;
+    private QueryExecutionService service;
+    private QueryRequest request;
+
+    @Setup
+    public void setUp() throws SQLException {
+        conn = BenchmarkDatabase.open(rows);
+        service = new QueryExecutionService(null, null, null, null, null, null,
+                new TracingService(Tracer.NOOP));
+        request = new QueryRequest();
+        request.setQuery(BenchmarkDatabase.SELECT_ALL);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Benchmark
+    public QueryResult selectToQueryResult() throws SQLException {
+        return service.executeSelectQuery(conn, request);
+    }
+}
@@ -0,0 +1,54 @@
+package com.dbforge.dbforge.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AesDecryptor#decrypt} on payloads encrypted the way the client frameworks do:
+ * AES-CBC keyed by SHA-256 of the API token, IV prepended, Base64 encoded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class AesDecryptorBenchmark {
+
+    private static final String API_TOKEN = "dfg_live_Xq3vN8yK2mP5rT7wZ1bC4dF6gH9jL0nQ";
+
+    @Param({"64", "4096", "65536"})
+    private int payloadBytes;
+
+    private String payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        byte[] plain = "x".repeat(payloadBytes).getBytes(StandardCharsets.UTF_8);
+        byte[] key = MessageDigest.getInstance("SHA-256").digest(API_TOKEN.getBytes(StandardCharsets.UTF_8));
+        byte[] iv = new byte[16];
+        new SecureRandom().nextBytes(iv);
+
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new IvParameterSpec(iv));
+        byte[] encrypted = cipher.doFinal(plain);
+
+        byte[] data = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, data, 0, iv.length);
+        System.arraycopy(encrypted, 0, data, iv.length, encrypted.length);
+        payload = Base64.getEncoder().encodeToString(data);
+    }
+
+    @Benchmark
+    public String decrypt() throws Exception {
+        return AesDecryptor.decrypt(payload, API_TOKEN);
+    }
+}
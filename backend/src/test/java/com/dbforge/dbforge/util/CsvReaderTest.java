@@ -0,0 +1,117 @@
+package com.dbforge.dbforge.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainRecords() throws IOException {
+        assertThat(readAll("id,name\n1,alice\n2,bob\n")).containsExactly(
+                List.of("id", "name"), List.of("1", "alice"), List.of("2", "bob"));
+    }
+
+    @Test
+    void unescapesDoubledQuotes() throws IOException {
+        assertThat(readAll("\"say \"\"hi\"\"\",\"\"\"\"\n")).containsExactly(List.of("say \"hi\"", "\""));
+    }
+
+    @Test
+    void keepsDelimitersAndLineBreaksInsideQuotes() throws IOException {
+        assertThat(readAll("\"a,b\",\"line 1\nline 2\",\"crlf\r\nkept\"\nnext,row\n")).containsExactly(
+                List.of("a,b", "line 1\nline 2", "crlf\r\nkept"), List.of("next", "row"));
+    }
+
+    @Test
+    void acceptsCrlfAndCrLineEndings() throws IOException {
+        assertThat(readAll("a,b\r\nc,d\re,f")).containsExactly(
+                List.of("a", "b"), List.of("c", "d"), List.of("e", "f"));
+    }
+
+    @Test
+    void skipsLeadingByteOrderMarkOnly() throws IOException {
+        assertThat(readAll("\uFEFFid,name\n1,\uFEFFx\n")).containsExactly(
+                List.of("id", "name"), List.of("1", "\uFEFFx"));
+    }
+
+    @Test
+    void distinguishesEmptyFromQuotedEmpty() throws IOException {
+        assertThat(readAll("a,,\"\",\n")).containsExactly(Arrays.asList("a", null, "", null));
+        assertThat(readAll("\"\"\n")).containsExactly(List.of(""));
+    }
+
+    @Test
+    void skipsBlankLinesAndReadsLastRecordWithoutNewline() throws IOException {
+        assertThat(readAll("\n\r\na,b\n\n\nc,d")).containsExactly(List.of("a", "b"), List.of("c", "d"));
+        assertThat(readAll("")).isEmpty();
+    }
+
+    @Test
+    void usesConfiguredDelimiter() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a\t\"b\tc\",d\n"), '\t');
+        assertThat(reader.next()).containsExactly("a", "b\tc,d");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void handlesRecordsSplitAcrossReads() throws IOException {
+        String input = "\uFEFF\"x \"\"1\"\"\r\ny\",2\r\n3,\"\"\r\n";
+        List<List<String>> records = new ArrayList<>();
+        CsvReader reader = new CsvReader(new OneCharReader(new StringReader(input)), ',');
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        assertThat(records).containsExactly(List.of("x \"1\"\r\ny", "2"), List.of("3", ""));
+    }
+
+    @Test
+    void readsFieldsLongerThanTheBuffer() throws IOException {
+        String value = "v".repeat(20_000) + "\"" + "w".repeat(5_000);
+        String input = "\"" + value.replace("\"", "\"\"") + "\",end\n";
+        assertThat(readAll(input)).containsExactly(List.of(value, "end"));
+    }
+
+    @Test
+    void rejectsUnterminatedQuotedField() {
+        CsvReader reader = new CsvReader(new StringReader("a,\"open\nstill open"), ',');
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Unterminated");
+    }
+
+    private static List<List<String>> readAll(String input) throws IOException {
+        CsvReader reader = new CsvReader(new StringReader(input), ',');
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Returns one character per read, so every record crosses buffer refills.
+     */
+    private static final class OneCharReader extends FilterReader {
+
+        private OneCharReader(Reader in) {
+            super(in);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            return super.read(buffer, offset, Math.min(1, length));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.dbforge.dbforge.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyHistogramTest {
+
+    private static final int LAST_INDEX = 607;
+
+    @Test
+    void keepsSmallValuesExact() {
+        for (int value = 0; value < 16; value++) {
+            assertThat(LatencyHistogram.index(value)).isEqualTo(value);
+            assertThat(LatencyHistogram.upperBound(value)).isEqualTo(value);
+        }
+    }
+
+    @Test
+    void bucketsAreContiguous() {
+        for (int index = 0; index < LAST_INDEX; index++) {
+            long upper = LatencyHistogram.upperBound(index);
+            assertThat(LatencyHistogram.index(upper)).as("upper bound of %d", index).isEqualTo(index);
+            assertThat(LatencyHistogram.index(upper + 1)).as("value after bucket %d", index).isEqualTo(index + 1);
+        }
+        assertThat(LatencyHistogram.upperBound(16)).isEqualTo(16);
+        assertThat(LatencyHistogram.upperBound(32)).isEqualTo(33);
+    }
+
+    @Test
+    void boundsValuesWithinOneSixteenth() {
+        for (long value = 16; value < 1L << 40; value = value * 3 / 2 + 7) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.index(value));
+            assertThat(upper).isGreaterThanOrEqualTo(value);
+            assertThat(upper - value).as("bucket width at %d", value).isLessThanOrEqualTo(value / 16);
+        }
+    }
+
+    @Test
+    void putsHugeValuesInTheLastBucket() {
+        assertThat(LatencyHistogram.index(1L << 41)).isEqualTo(LAST_INDEX);
+        assertThat(LatencyHistogram.index(Long.MAX_VALUE)).isEqualTo(LAST_INDEX);
+    }
+
+    @Test
+    void reportsPercentilesFromBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getSum()).isEqualTo(500_500);
+        assertThat(histogram.getMax()).isEqualTo(1000);
+        assertThat(histogram.percentile(0.5)).isBetween(500L, 500L + 500 / 16);
+        assertThat(histogram.percentile(0.99)).isBetween(990L, 990L + 990 / 16);
+        assertThat(histogram.percentile(0.001)).isEqualTo(1);
+        // The top bucket reaches past 1000; the largest value seen caps it
+        assertThat(histogram.percentile(1.0)).isEqualTo(1000);
+    }
+
+    @Test
+    void handlesEmptySingleAndNegativeValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.percentile(0.99)).isZero();
+
+        histogram.record(-5);
+        assertThat(histogram.getSum()).isZero();
+        assertThat(histogram.percentile(0.5)).isZero();
+
+        histogram.record(123_456);
+        assertThat(histogram.percentile(0.0)).isZero();
+        assertThat(histogram.percentile(1.0)).isEqualTo(123_456);
+    }
+
+    @Test
+    void countsConcurrentRecords() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i % 100);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(40_000);
+        assertThat(histogram.getMax()).isEqualTo(99);
+        assertThat(histogram.percentile(0.5)).isBetween(49L, 52L);
+    }
+}
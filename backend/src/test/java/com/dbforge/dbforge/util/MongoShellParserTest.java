@@ -0,0 +1,128 @@
+package com.dbforge.dbforge.util;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonRegularExpression;
+import org.bson.BsonValue;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoShellParserTest {
+
+    @Test
+    void parsesFindWithProjectionAndCursorCalls() {
+        MongoShellParser.MongoShellCommand command = MongoShellParser.parse(
+                "db.users.find({age: {$gt: 30}}, {name: 1}).sort({name: -1}).skip(5).limit(10)");
+
+        assertThat(command.collection()).isEqualTo("users");
+        assertThat(command.method()).isEqualTo("find");
+        assertThat(command.args()).containsExactly(
+                BsonDocument.parse("{age: {$gt: 30}}"), BsonDocument.parse("{name: 1}"));
+        assertThat(command.cursor()).extracting(MongoShellParser.Call::method).containsExactly("sort", "skip", "limit");
+        assertThat(command.cursor().get(0).args()).containsExactly(BsonDocument.parse("{name: -1}"));
+        assertThat(command.cursor().get(2).args()).containsExactly(new BsonInt32(10));
+        assertThat(command.arg(2)).isNull();
+    }
+
+    @Test
+    void parsesCallsWithoutArguments() {
+        MongoShellParser.MongoShellCommand command = MongoShellParser.parse("  db.users.find().toArray();  ");
+
+        assertThat(command.args()).isEmpty();
+        assertThat(command.arg(0)).isNull();
+        assertThat(command.cursor()).containsExactly(new MongoShellParser.Call("toArray", List.of()));
+    }
+
+    @Test
+    void skipsBracketsAndQuotesInsideStrings() {
+        MongoShellParser.MongoShellCommand command = MongoShellParser.parse(
+                "db.notes.find({title: 'a) b ] {', body: \"say \\\"(hi)\\\"\", tag: \"it's\"}).limit(1)");
+
+        BsonDocument filter = command.arg(0).asDocument();
+        assertThat(filter.getString("title").getValue()).isEqualTo("a) b ] {");
+        assertThat(filter.getString("body").getValue()).isEqualTo("say \"(hi)\"");
+        assertThat(filter.getString("tag").getValue()).isEqualTo("it's");
+        assertThat(command.cursor()).extracting(MongoShellParser.Call::method).containsExactly("limit");
+    }
+
+    @Test
+    void parsesRegexLiteralsContainingBrackets() {
+        MongoShellParser.MongoShellCommand command = MongoShellParser.parse(
+                "db.users.find({name: /^(ab|c)[)\\]]+$/i, email: {$regex: /x\\/y/}})");
+
+        BsonDocument filter = command.arg(0).asDocument();
+        BsonRegularExpression name = filter.getRegularExpression("name");
+        assertThat(name.getPattern()).isEqualTo("^(ab|c)[)\\]]+$");
+        assertThat(name.getOptions()).isEqualTo("i");
+        assertThat(filter.getDocument("email").getRegularExpression("$regex").getPattern()).isEqualTo("x\\/y");
+    }
+
+    @Test
+    void parsesNestedPipelines() {
+        MongoShellParser.MongoShellCommand command = MongoShellParser.parse("""
+                db.orders.aggregate([
+                    {$match: {status: {$in: ['paid', 'shipped']}, items: {$elemMatch: {qty: {$gte: 2}}}}},
+                    {$group: {_id: '$customer', total: {$sum: {$multiply: ['$price', '$qty']}}}}
+                ], {allowDiskUse: true})""");
+
+        assertThat(command.method()).isEqualTo("aggregate");
+        List<BsonValue> pipeline = command.arg(0).asArray().getValues();
+        assertThat(pipeline).hasSize(2);
+        assertThat(pipeline.get(0).asDocument().getDocument("$match").getDocument("status").getArray("$in"))
+                .hasSize(2);
+        assertThat(pipeline.get(1).asDocument().getDocument("$group").getString("_id").getValue()).isEqualTo("$customer");
+        assertThat(command.arg(1)).isEqualTo(BsonDocument.parse("{allowDiskUse: true}"));
+    }
+
+    @Test
+    void readsShellTypes() {
+        String id = new ObjectId().toHexString();
+        MongoShellParser.MongoShellCommand command = MongoShellParser.parse(
+                "db.events.find({_id: ObjectId(\"" + id + "\"), at: {$gte: ISODate(\"2024-01-01T00:00:00Z\")}, "
+                        + "n: NumberLong(5)})");
+
+        BsonDocument filter = command.arg(0).asDocument();
+        assertThat(filter.getObjectId("_id").getValue().toHexString()).isEqualTo(id);
+        assertThat(filter.getDocument("at").get("$gte").isDateTime()).isTrue();
+        assertThat(filter.getInt64("n").getValue()).isEqualTo(5L);
+    }
+
+    @Test
+    void takesCollectionNamesWithDots() {
+        assertThat(MongoShellParser.parse("db.order.items.find()").collection()).isEqualTo("order.items");
+
+        MongoShellParser.MongoShellCommand command = MongoShellParser.parse(
+                "db.getCollection('order-items.2024').find({a: 1}).limit(5)");
+        assertThat(command.collection()).isEqualTo("order-items.2024");
+        assertThat(command.method()).isEqualTo("find");
+        assertThat(command.cursor()).extracting(MongoShellParser.Call::method).containsExactly("limit");
+    }
+
+    @Test
+    void rejectsMalformedCommands() {
+        assertRejected("users.find()", "must start with 'db.'");
+        assertRejected("db.users", "Expected a method call");
+        assertRejected("db.find()", "Expected db.<collection>.<method>");
+        assertRejected("db.users.find({a: 1}", "Missing ')'");
+        assertRejected("db.users.find({a: 1}])", "Unbalanced ']'");
+        assertRejected("db.users.find({a: 'open})", "Unterminated string");
+        assertRejected("db.users.find({a: /open})", "Unterminated regular expression");
+        assertRejected("db.users.find({a: })", "Invalid arguments");
+        assertRejected("db.getCollection(1).find()", "getCollection() takes the collection name");
+        assertRejected("db.getCollection('a', 'b').find()", "getCollection() takes the collection name");
+        assertRejected("db.users.find() limit(1)", "Expected '.'");
+        assertRejected("db.users.find().(1)", "Expected a method name");
+    }
+
+    private static void assertRejected(String command, String message) {
+        assertThatThrownBy(() -> MongoShellParser.parse(command))
+                .as(command)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(message);
+    }
+}
@@ -0,0 +1,137 @@
+package com.dbforge.dbforge.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Writes an H2 table with {@link ParquetWriter} and reads the file back with DuckDB.
+ */
+class ParquetWriterTest {
+
+    private static final int ROWS = 25;
+    private static final int ROW_GROUP_ROWS = 10;
+
+    @TempDir
+    Path tempDir;
+
+    private Connection source;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        source = DriverManager.getConnection("jdbc:h2:mem:parquet-" + System.nanoTime() + ";DATABASE_TO_LOWER=TRUE");
+        try (Statement stmt = source.createStatement()) {
+            stmt.execute("CREATE TABLE items (id INT PRIMARY KEY, flag BOOLEAN, price DECIMAL(10, 2), "
+                    + "total DECIMAL(30, 4), quantity BIGINT, ratio DOUBLE, name VARCHAR(32), "
+                    + "created TIMESTAMP, due DATE)");
+            try (PreparedStatement insert = source.prepareStatement(
+                    "INSERT INTO items VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    insert.setInt(1, i);
+                    insert.setObject(2, i % 4 == 0 ? null : i % 3 == 0);
+                    insert.setBigDecimal(3, i % 5 == 0 ? null : price(i));
+                    insert.setBigDecimal(4, total(i));
+                    insert.setObject(5, i % 2 == 0 ? null : (long) i * 1_000_000_007L);
+                    insert.setObject(6, i % 7 == 0 ? null : i / 8.0);
+                    insert.setString(7, i % 6 == 0 ? null : "item \"" + i + "\" é");
+                    insert.setObject(8, created(i));
+                    insert.setObject(9, i % 3 == 0 ? null : LocalDate.of(2024, 1, 1).plusDays(i));
+                    insert.executeUpdate();
+                }
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        source.close();
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParquetWriter.Codec.class)
+    void roundTripsValuesAndNullsAcrossRowGroups(ParquetWriter.Codec codec) throws Exception {
+        Path file = write(codec);
+
+        try (Connection duck = DriverManager.getConnection("jdbc:duckdb:");
+             Statement stmt = duck.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT count(DISTINCT row_group_id) FROM parquet_metadata('" + file + "')")) {
+                rs.next();
+                assertThat(rs.getInt(1)).isEqualTo(3);
+            }
+
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM read_parquet('" + file + "') ORDER BY id")) {
+                int i = 0;
+                while (rs.next()) {
+                    assertThat(rs.getInt("id")).isEqualTo(i);
+                    assertThat(rs.getObject("flag")).isEqualTo(i % 4 == 0 ? null : i % 3 == 0);
+                    assertThat(rs.getBigDecimal("price")).isEqualTo(i % 5 == 0 ? null : price(i));
+                    // Wider than a long, so written as text
+                    assertThat(rs.getString("total")).isEqualTo(total(i).toPlainString());
+                    assertThat(rs.getObject("quantity")).isEqualTo(i % 2 == 0 ? null : (long) i * 1_000_000_007L);
+                    assertThat(rs.getObject("ratio")).isEqualTo(i % 7 == 0 ? null : i / 8.0);
+                    assertThat(rs.getString("name")).isEqualTo(i % 6 == 0 ? null : "item \"" + i + "\" é");
+                    assertThat(rs.getObject("created", LocalDateTime.class)).isEqualTo(created(i));
+                    assertThat(rs.getObject("due", LocalDate.class))
+                            .isEqualTo(i % 3 == 0 ? null : LocalDate.of(2024, 1, 1).plusDays(i));
+                    i++;
+                }
+                assertThat(i).isEqualTo(ROWS);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ParquetWriter.Codec.class)
+    void writesEmptyTable(ParquetWriter.Codec codec) throws Exception {
+        try (Statement stmt = source.createStatement()) {
+            stmt.execute("DELETE FROM items");
+        }
+        Path file = write(codec);
+
+        try (Connection duck = DriverManager.getConnection("jdbc:duckdb:");
+             Statement stmt = duck.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT count(*) FROM read_parquet('" + file + "')")) {
+            rs.next();
+            assertThat(rs.getLong(1)).isZero();
+        }
+    }
+
+    private Path write(ParquetWriter.Codec codec) throws SQLException, IOException {
+        Path file = tempDir.resolve("items-" + codec + ".parquet");
+        try (Statement stmt = source.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM items ORDER BY id");
+             OutputStream out = Files.newOutputStream(file);
+             ParquetWriter parquet = new ParquetWriter(out, ParquetWriter.columnsFor(rs.getMetaData()), codec,
+                     ROW_GROUP_ROWS, Long.MAX_VALUE)) {
+            while (rs.next()) {
+                parquet.writeRow(rs);
+            }
+        }
+        return file;
+    }
+
+    private static BigDecimal price(int i) {
+        return BigDecimal.valueOf(i * 1_234L - 10_000, 2);
+    }
+
+    private static BigDecimal total(int i) {
+        return new BigDecimal("12345678901234567890.1234").add(BigDecimal.valueOf(i));
+    }
+
+    private static LocalDateTime created(int i) {
+        return LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000).plusHours(i);
+    }
+}
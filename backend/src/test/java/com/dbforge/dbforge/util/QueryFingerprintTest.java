@@ -0,0 +1,79 @@
+package com.dbforge.dbforge.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryFingerprintTest {
+
+    @Test
+    void replacesSqlLiteralsAndNormalizesText() {
+        assertThat(QueryFingerprint.sql("SELECT *\n  FROM users\tWHERE id = 42 AND name = 'bob' -- lookup\n;"))
+                .isEqualTo("select * from users where id = ? and name = ?");
+        assertThat(QueryFingerprint.sql("select col1 from table2 /* hint */ where x = 1.5e3 and y = 0xFF"))
+                .isEqualTo("select col1 from table2 where x = ? and y = ?");
+        assertThat(QueryFingerprint.sql("select 'it''s', 'a\\'b' from dual"))
+                .isEqualTo("select ?, ? from dual");
+    }
+
+    @Test
+    void collapsesInAndValuesLists() {
+        String one = QueryFingerprint.sql("select * from t where id in (7)");
+        assertThat(one).isEqualTo("select * from t where id in (?+)");
+        assertThat(QueryFingerprint.sql("select * from t where id IN ( 1, 2 , 3 )")).isEqualTo(one);
+
+        assertThat(QueryFingerprint.sql("INSERT INTO t (a, b) VALUES (1, 'x'), (2, 'y')"))
+                .isEqualTo("insert into t (a, b) values (?+)")
+                .isEqualTo(QueryFingerprint.sql("insert into t (a, b) values (3, 'z')"));
+    }
+
+    @Test
+    void keepsMongoShapeAndDropsValues() {
+        String fingerprint = QueryFingerprint.mongo(
+                "db.users.find({age: {$gt: 30}, name: 'bob'}).sort({name: 1}).limit(10)");
+        assertThat(fingerprint).isEqualTo("db.users.find({\"age\": {\"$gt\": ?}, \"name\": ?}).sort({\"name\": 1}).limit(?)");
+        assertThat(QueryFingerprint.mongo("db.users.find({age: {$gt: 18},\n name: \"alice\"}).sort({name: 1}).limit(5)"))
+                .isEqualTo(fingerprint);
+    }
+
+    @Test
+    void collapsesMongoValueListsButKeepsClauseLists() {
+        assertThat(QueryFingerprint.mongo("db.orders.find({status: {$in: ['paid', 'shipped']}})"))
+                .isEqualTo("db.orders.find({\"status\": {\"$in\": ?}})");
+        assertThat(QueryFingerprint.mongo("db.orders.find({$or: [{a: 1}, {b: 'x'}]})"))
+                .isEqualTo("db.orders.find({\"$or\": [{\"a\": ?}, {\"b\": ?}]})");
+        assertThat(QueryFingerprint.mongo("db.orders.aggregate([{$match: {a: 1}}, {$limit: 5}])"))
+                .isEqualTo("db.orders.aggregate([{\"$match\": {\"a\": ?}}, {\"$limit\": ?}])");
+    }
+
+    @Test
+    void hidesInsertedDocumentsAndFallsBackForUnparsedMongo() {
+        assertThat(QueryFingerprint.mongo("db.users.insertOne({name: 'bob', tags: ['a']})"))
+                .isEqualTo("db.users.insertOne(?)");
+        assertThat(QueryFingerprint.mongo("show  collections")).isEqualTo("show collections");
+    }
+
+    @Test
+    void keepsRedisCommandAndKeyShape() {
+        assertThat(QueryFingerprint.redis("get user:123")).isEqualTo("GET user:?");
+        assertThat(QueryFingerprint.redis("GET \"user:7\"")).isEqualTo("GET user:?");
+        assertThat(QueryFingerprint.redis("HSET user:42 name bob")).isEqualTo("HSET user:? ? ?");
+        assertThat(QueryFingerprint.redis("MSET a 1 b 2 c 3")).isEqualTo("MSET a ?+");
+        assertThat(QueryFingerprint.redis("DBSIZE")).isEqualTo("DBSIZE");
+    }
+
+    @Test
+    void fingerprintsRedisScriptsByTheirFirstCommand() {
+        assertThat(QueryFingerprint.redis("# warm up\nSET a 1\n\nGET a\r\nDEL a"))
+                .isEqualTo("SET a ? (+2 more)");
+        assertThat(QueryFingerprint.redis("  # only a comment  ")).isEqualTo("# only a comment");
+    }
+
+    @Test
+    void dispatchesOnEngine() {
+        assertThat(QueryFingerprint.of("MongoDB", "db.users.find({a: 1})")).isEqualTo("db.users.find({\"a\": ?})");
+        assertThat(QueryFingerprint.of("redis", "get k1")).isEqualTo("GET k?");
+        assertThat(QueryFingerprint.of("postgresql", "SELECT 1")).isEqualTo("select ?");
+        assertThat(QueryFingerprint.of(null, "SELECT 1")).isEqualTo("select ?");
+    }
+}
@@ -97,6 +97,29 @@ CREATE TABLE IF NOT EXISTS `daily_usage_summary` (
 
 -- Дъмп данни за таблица dbforge.daily_usage_summary: ~0 rows (приблизителен брой)
 
+-- Дъмп структура за таблица dbforge.database_backups
+CREATE TABLE IF NOT EXISTS `database_backups` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `instance_id` bigint NOT NULL,
+  `user_id` bigint NOT NULL,
+  `instance_name` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
+  `database_type` varchar(50) COLLATE utf8mb4_unicode_ci NOT NULL,
+  `database_name` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
+  `status` enum('IN_PROGRESS','COMPLETED','FAILED') COLLATE utf8mb4_unicode_ci NOT NULL,
+  `backup_trigger` enum('MANUAL','SCHEDULED') COLLATE utf8mb4_unicode_ci NOT NULL,
+  `file_path` varchar(512) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
+  `size_bytes` bigint DEFAULT NULL,
+  `sha256` varchar(64) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
+  `error` text COLLATE utf8mb4_unicode_ci,
+  `created_at` datetime(6) NOT NULL,
+  `completed_at` datetime(6) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_instance_id` (`instance_id`),
+  KEY `idx_status` (`status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+-- Дъмп данни за таблица dbforge.database_backups: ~0 rows (приблизителен брой)
+
 -- Дъмп структура за таблица dbforge.database_instances
 CREATE TABLE IF NOT EXISTS `database_instances` (
   `id` bigint NOT NULL AUTO_INCREMENT,
@@ -126,6 +149,9 @@ CREATE TABLE IF NOT EXISTS `database_instances` (
   `api_token` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   `memory_usage` bigint DEFAULT NULL,
   `storage` bigint DEFAULT NULL,
+  `last_activity_at` datetime(6) DEFAULT NULL,
+  `suspended_at` datetime(6) DEFAULT NULL,
+  `node` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
   PRIMARY KEY (`id`),
   UNIQUE KEY `container_name` (`container_name`),
   UNIQUE KEY `UKjrle88663g50typqm8ed41ltc` (`api_token`),
@@ -19,6 +19,19 @@ interface QueryResult {
   affectedRows?: number;
   message?: string;
   error?: string;
+  recommendations?: string[];
+}
+
+// MongoDB rows arrive as relaxed extended JSON: show ObjectIds and dates by value, other
+// nested documents and arrays as compact JSON
+export function formatCellValue(value: any): string {
+  if (value === null || value === undefined) return 'NULL';
+  if (typeof value !== 'object') return String(value);
+  if (typeof value.$oid === 'string') return value.$oid;
+  if (value.$date !== undefined) {
+    return typeof value.$date === 'string' ? value.$date : JSON.stringify(value.$date);
+  }
+  return JSON.stringify(value);
 }
 
 export default function ResultsGrid({ result }: ResultsGridProps) {
@@ -33,6 +46,7 @@ export default function ResultsGrid({ result }: ResultsGridProps) {
       filter: true,
       resizable: true,
       minWidth: 100,
+      valueFormatter: (params: { value: any }) => formatCellValue(params.value),
     }));
   }, [result?.columns]);
 
@@ -43,9 +57,8 @@ export default function ResultsGrid({ result }: ResultsGridProps) {
       result.columns.join(','),
       ...result.rows.map(row => 
         result.columns!.map(col => {
-          const value = row[col];
-          const stringValue = value === null ? 'NULL' : String(value);
-          return stringValue.includes(',') ? `"${stringValue}"` : stringValue;
+          const stringValue = formatCellValue(row[col]);
+          return /[",\n]/.test(stringValue) ? `"${stringValue.replace(/"/g, '""')}"` : stringValue;
         }).join(',')
       )
     ].join('\n');
@@ -65,10 +78,7 @@ export default function ResultsGrid({ result }: ResultsGridProps) {
     const text = [
       result.columns.join('\t'),
       ...result.rows.map(row => 
-        result.columns!.map(col => {
-          const value = row[col];
-          return value === null ? 'NULL' : String(value);
-        }).join('\t')
+        result.columns!.map(col => formatCellValue(row[col])).join('\t')
       )
     ].join('\n');
 
@@ -198,6 +208,16 @@ export default function ResultsGrid({ result }: ResultsGridProps) {
         </div>
       </div>
 
+      {/* Explain findings, e.g. indexes to create */}
+      {result.recommendations && result.recommendations.length > 0 && (
+        <div className="px-4 py-2 border-b border-zinc-800/50 bg-amber-500/5 text-xs text-amber-300/90 space-y-1">
+          {result.message && <div className="text-zinc-500">{result.message}</div>}
+          {result.recommendations.map((item, index) => (
+            <div key={index} className="font-mono break-all">{item}</div>
+          ))}
+        </div>
+      )}
+
       {/* AG Grid */}
       <div className="flex-1 ag-theme-quartz-dark">
         <AgGridReact
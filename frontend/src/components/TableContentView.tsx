@@ -3,6 +3,7 @@ import { AgGridReact } from 'ag-grid-react';
 import { Download, Filter, RefreshCw, CheckCircle, AlertCircle } from 'lucide-react';
 import 'ag-grid-community/styles/ag-grid.css';
 import 'ag-grid-community/styles/ag-theme-quartz.css';
+import { formatCellValue } from './ResultsGrid';
 
 interface TableContentViewProps {
   databaseId: number;
@@ -47,6 +48,7 @@ export default function TableContentView({
           field: col,
           headerName: col,
           editable: (params: any) => isEditable(col, params?.data),
+          valueFormatter: (params: any) => formatCellValue(params.value),
           sortable: true,
           filter: true,
           resizable: true,
@@ -92,6 +94,7 @@ export default function TableContentView({
 
   const normalizeMongoId = (raw: any): string | null => {
     if (!raw) return null;
+    if (typeof raw === 'object' && typeof raw.$oid === 'string') return `ObjectId("${raw.$oid}")`;
     const rawStr = String(raw);
     const match = rawStr.match(/ObjectId\([\"']?([a-fA-F0-9]{24})[\"']?\)/);
     if (match?.[1]) return `ObjectId("${match[1]}")`;